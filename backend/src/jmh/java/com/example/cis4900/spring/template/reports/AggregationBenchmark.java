@@ -0,0 +1,129 @@
+package com.example.cis4900.spring.template.reports;
+
+import com.example.cis4900.spring.template.reports.analytics.ResolutionHistogram;
+import com.example.cis4900.spring.template.reports.memory.ReportsSnapshot;
+import com.example.cis4900.spring.template.reports.models.MapCluster;
+import com.example.cis4900.spring.template.reports.models.Report;
+import com.example.cis4900.spring.template.reports.rollup.RollupCube;
+import com.example.cis4900.spring.template.reports.spatial.ClusterIndex;
+import com.example.cis4900.spring.template.reports.spatial.LocationIndex;
+import com.example.cis4900.spring.template.reports.time.TimeBucket;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// AggregationBenchmark measures the in-memory answers to the dashboard's counts, charts and maps: the columnar snapshot
+// with its bitmap index, the rollup cube, the spatial and cluster indexes and the resolution time histogram
+@State(Scope.Benchmark)
+public class AggregationBenchmark {
+    @Param({"100000", "1000000"})
+    private int reports;
+
+    private ReportsSnapshot snapshot;
+
+    private RollupCube cube;
+
+    private LocationIndex locations;
+
+    private ClusterIndex clusters;
+
+    private ResolutionHistogram histogram;
+
+    private Map<String, List<String>> filters;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Report> rows = ReportsFixture.reports(reports);
+        snapshot = ReportsFixture.snapshot(rows);
+
+        cube = new RollupCube();
+        histogram = new ResolutionHistogram();
+        int[] ids = new int[rows.size()];
+        double[] latitudes = new double[rows.size()];
+        double[] longitudes = new double[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            Report report = rows.get(i);
+            cube.add(new String[] {report.getAgencyName(), report.getComplaintType(), report.getBorough(), report.getStatus(),
+                report.getOpenDataChannelType()}, report.getCreatedAt().toLocalDate(), 1);
+            if (report.getClosedAt() != null) {
+                histogram.record(Duration.between(report.getCreatedAt(), report.getClosedAt()).getSeconds());
+            }
+            ids[i] = report.getId();
+            latitudes[i] = report.getLatitude();
+            longitudes[i] = report.getLongitude();
+        }
+        locations = new LocationIndex(ids, latitudes, longitudes);
+        clusters = new ClusterIndex(ids, latitudes, longitudes);
+        filters = Map.of("borough", List.of("BROOKLYN", "QUEENS"), "complaintType", List.of("Noise - Residential", "Illegal Parking"));
+    }
+
+
+    @Benchmark
+    public long snapshotCount() {
+        return snapshot.count(filters);
+    }
+
+
+    @Benchmark
+    public List<Object[]> snapshotGroupCounts() {
+        return snapshot.groupCounts(List.of("agencyName"), filters);
+    }
+
+
+    @Benchmark
+    public List<Object[]> snapshotDistinctValues() {
+        return snapshot.groupCounts(List.of("incidentZip"), Map.of("borough", List.of("BRONX")));
+    }
+
+
+    @Benchmark
+    public List<Object[]> snapshotTimeSeries() {
+        return snapshot.timeSeries("createdAt", TimeBucket.WEEK, null, null, filters);
+    }
+
+
+    @Benchmark
+    public long rollupCount() {
+        return cube.count(filters);
+    }
+
+
+    @Benchmark
+    public List<Object[]> rollupGroupCounts() {
+        return cube.groupCounts(List.of("agencyName"), filters);
+    }
+
+
+    // Reports within a kilometre of Times Square
+    @Benchmark
+    public List<double[]> locationsWithin() {
+        return locations.within(40.758, -73.9855, 1000, 5000);
+    }
+
+
+    @Benchmark
+    public List<double[]> locationsNearest() {
+        return locations.nearest(40.758, -73.9855, 20, 5000);
+    }
+
+
+    // The whole city at the zoom the map opens at
+    @Benchmark
+    public List<MapCluster> cityClusters() {
+        return clusters.clusters(new double[] {-74.3, 40.45, -73.65, 40.95}, 11, 2000);
+    }
+
+
+    @Benchmark
+    public long resolutionPercentile() {
+        return histogram.percentile(0.9);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.cis4900.spring.template.reports;
+
+import com.example.cis4900.spring.template.reports.dao.ReportQueryBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// QueryBuildingBenchmark measures the work every SQL-backed request does before it reaches the database: reading the
+// filter JSON sent by the frontend and assembling the statement with its bound parameters
+@State(Scope.Benchmark)
+public class QueryBuildingBenchmark {
+    private String largeFiltersJson;
+
+    private Map<String, List<String>> filters;
+
+    @Setup
+    public void setUp() {
+        // A filter with hundreds of selected values, like selecting every zip code of a borough
+        List<String> zips = new ArrayList<>();
+        for (int zip = 10001; zip <= 10400; zip++) {
+            zips.add("\"" + zip + "\"");
+        }
+        largeFiltersJson = "{\"incidentZip\":[" + String.join(",", zips) + "],\"status\":[\"Open\"]}";
+        filters = ReportQueryBuilder.parseFilters(ReportsFixture.FILTERS_JSON);
+    }
+
+
+    @Benchmark
+    public Map<String, List<String>> parseFilters() {
+        return ReportQueryBuilder.parseFilters(ReportsFixture.FILTERS_JSON);
+    }
+
+
+    @Benchmark
+    public Map<String, List<String>> parseLargeFilters() {
+        return ReportQueryBuilder.parseFilters(largeFiltersJson);
+    }
+
+
+    // The /all page query, as findLimitedReports builds it
+    @Benchmark
+    public String buildPageQuery() {
+        ReportQueryBuilder sql = new ReportQueryBuilder("SELECT * FROM report").filters(filters);
+        sql.append(" ORDER BY Id LIMIT ? OFFSET ?", 10, 0);
+        return sql.getSql();
+    }
+
+
+    // The /pieChart query, grouping on a column checked against the report columns
+    @Benchmark
+    public String buildGroupQuery() {
+        String column = ReportQueryBuilder.column("agencyName");
+        ReportQueryBuilder sql = new ReportQueryBuilder("SELECT " + column + ", COUNT(*) AS total FROM report").filters(filters);
+        sql.append(" GROUP BY " + column + " ORDER BY total DESC");
+        return sql.getSql();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.cis4900.spring.template.reports;
+
+import com.example.cis4900.spring.template.reports.ingest.ReportRecordParser;
+import com.example.cis4900.spring.template.reports.memory.ReportsSnapshot;
+import com.example.cis4900.spring.template.reports.models.Report;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+// ReportMappingBenchmark measures turning rows into Report objects: CSV records as the bulk loader and incremental
+// ingest read them, and columnar snapshot rows as the memory engine returns a page of /all
+@State(Scope.Benchmark)
+public class ReportMappingBenchmark {
+    private static final String[] HEADER = {
+        "Unique Key", "Created Date", "Closed Date", "Agency Name", "Complaint Type", "Descriptor", "Location Type",
+        "Incident Zip", "Incident Address", "Address Type", "City", "Status", "Community Board", "Borough",
+        "Open Data Channel Type", "Latitude", "Longitude"
+    };
+
+    private ReportRecordParser parser;
+
+    private List<String[]> records;
+
+    private ReportsSnapshot snapshot;
+
+    private Map<String, List<String>> filters;
+
+    @Setup
+    public void setUp() {
+        List<Report> reports = ReportsFixture.reports(100000);
+        parser = new ReportRecordParser(HEADER);
+        records = new ArrayList<>();
+        for (Report report : reports.subList(0, 1000)) {
+            records.add(new String[] {
+                String.valueOf(report.getUniqueKey()), report.getCreatedDate(), report.getClosedDate() == null ? "" : report.getClosedDate(),
+                report.getAgencyName(), report.getComplaintType(), report.getDescriptorType(), report.getLocationType(),
+                report.getIncidentZip(), report.getIncidentAddress(), report.getAddressType(), report.getCity(), report.getStatus(),
+                report.getCommunityBoard(), report.getBorough(), report.getOpenDataChannelType(),
+                String.valueOf(report.getLatitude()), String.valueOf(report.getLongitude())
+            });
+        }
+        snapshot = ReportsFixture.snapshot(reports);
+        filters = Map.of("borough", List.of("BROOKLYN", "QUEENS"));
+    }
+
+
+    // 1000 CSV records per call
+    @Benchmark
+    public void parseCsvRecords(Blackhole blackhole) {
+        for (String[] record : records) {
+            blackhole.consume(parser.parse(record));
+        }
+    }
+
+
+    // A 100 report page deep into the filtered table
+    @Benchmark
+    public List<Report> snapshotPage() {
+        return snapshot.findReports(filters, Integer.MIN_VALUE, 20000, 100);
+    }
+}
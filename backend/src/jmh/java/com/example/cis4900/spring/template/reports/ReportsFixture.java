@@ -0,0 +1,53 @@
+package com.example.cis4900.spring.template.reports;
+
+import com.example.cis4900.spring.template.reports.memory.ReportsSnapshot;
+import com.example.cis4900.spring.template.reports.models.Report;
+import com.example.cis4900.spring.template.reports.synthetic.SyntheticReportGenerator;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// ReportsFixture builds the synthetic reports the benchmarks run on, the same ones for the same seed
+// They come from SyntheticReportGenerator, so filters and groups see the skew of the real extract.
+final class ReportsFixture {
+    static final long SEED = 311;
+
+    // Filters of a typical dashboard view: two boroughs and the three most common complaint types
+    static final String FILTERS_JSON = "{\"borough\":[\"BROOKLYN\",\"QUEENS\"],"
+            + "\"complaintType\":[\"HEAT/HOT WATER\",\"Noise - Residential\",\"Illegal Parking\"]}";
+
+    private ReportsFixture() {
+    }
+
+    // reports returns count reports with Ids 1 to count
+    static List<Report> reports(int count) {
+        SyntheticReportGenerator generator = new SyntheticReportGenerator(SEED, LocalDate.of(2023, 1, 1), 365);
+        List<Report> reports = new ArrayList<>(count);
+        for (long chunk = 0; chunk < SyntheticReportGenerator.chunks(count); chunk++) {
+            reports.addAll(generator.chunk(chunk, count));
+        }
+        for (int i = 0; i < reports.size(); i++) {
+            reports.get(i).setId(i + 1);
+        }
+        return reports;
+    }
+
+    static ReportsSnapshot snapshot(List<Report> reports) {
+        ReportsSnapshot.Builder builder = new ReportsSnapshot.Builder();
+        for (Report report : reports) {
+            builder.add(report);
+        }
+        return builder.build();
+    }
+
+    // markerRows returns the reports as the Object[] rows /mapDisplay returns
+    static List<Object[]> markerRows(List<Report> reports) {
+        List<Object[]> rows = new ArrayList<>(reports.size());
+        for (Report report : reports) {
+            rows.add(new Object[] {report.getId(), report.getComplaintType(), report.getDescriptorType(), report.getAgencyName(),
+                report.getLatitude(), report.getLongitude()});
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.cis4900.spring.template.reports;
+
+import com.example.cis4900.spring.template.reports.models.Report;
+import com.example.cis4900.spring.template.reports.wire.MarkerEncoder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+// SerializationBenchmark measures writing responses: JSON pages of /all, the default 5000 /mapDisplay markers as the
+// JSON arrays the frontend gets today and in the binary MarkerEncoder format
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    // Configured like the ObjectMapper Spring MVC writes responses with
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private Iterable<Report> page;
+
+    private Iterable<Report> largePage;
+
+    private List<Object[]> markers;
+
+    @Setup
+    public void setUp() {
+        List<Report> reports = ReportsFixture.reports(5000);
+        page = reports.subList(0, 10);
+        largePage = reports.subList(0, 1000);
+        markers = ReportsFixture.markerRows(reports);
+    }
+
+
+    @Benchmark
+    public byte[] reportsPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+
+    @Benchmark
+    public byte[] largeReportsPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(largePage);
+    }
+
+
+    @Benchmark
+    public byte[] markersJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(markers);
+    }
+
+
+    @Benchmark
+    public byte[] markersBinary() {
+        return MarkerEncoder.encode(markers);
+    }
+}
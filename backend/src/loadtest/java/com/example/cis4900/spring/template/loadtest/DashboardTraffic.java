@@ -0,0 +1,130 @@
+package com.example.cis4900.spring.template.loadtest;
+
+import com.example.cis4900.spring.template.reports.synthetic.SyntheticReportGenerator;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+// DashboardTraffic scripts one user of the dashboard, sending what frontend/src/services/ReportService.ts sends
+// Most interactions are a filter change: the user opens a column's filter list (/columnFilter with the other columns'
+// filters), picks or drops a value, and every component reloads: the table page and count (ReportsTable), the map pins
+// (ReportsMap, binary format) and either the pie chart or the heatmap (ReportsDashboard). The rest are the user paging
+// through the table, which only reloads /all.
+final class DashboardTraffic implements Traffic {
+    // Columns the user filters on, with the values it picks from
+    private static final Map<String, List<String>> FILTER_VALUES = Map.of(
+            "borough", SyntheticReportGenerator.boroughs(),
+            "complaintType", SyntheticReportGenerator.complaintTypes(),
+            "agencyName", SyntheticReportGenerator.agencies(),
+            "status", SyntheticReportGenerator.statuses(),
+            "openDataChannelType", SyntheticReportGenerator.channels());
+
+    private static final List<String> FILTER_COLUMNS = List.of("borough", "complaintType", "agencyName", "status", "openDataChannelType");
+
+    // Columns the dashboard charts, the first is the default view
+    private static final List<String> CHART_COLUMNS = List.of("complaintType", "agencyName", "borough", "status");
+
+    // Page sizes and limits used by the components
+    private static final int TABLE_LIMIT = 10;
+
+    private static final int MAP_LIMIT = 2000;
+
+    private static final int CHART_LIMIT = 5000;
+
+    private static final double PAGE_CHANCE = 0.3;
+
+    private static final double VIEW_SWITCH_CHANCE = 0.2;
+
+    private static final int MAX_SELECTED = 3;
+
+    private final Random random;
+
+    private final Map<String, List<String>> filters = new LinkedHashMap<>();
+
+    private int page = 0;
+
+    private boolean heatmapView = false;
+
+    private String chartColumn = CHART_COLUMNS.get(0);
+
+    DashboardTraffic(long seed) {
+        random = new Random(seed);
+    }
+
+    @Override
+    public List<String> next() {
+        if (page < 50 && random.nextDouble() < PAGE_CHANCE) {
+            page++;
+            return List.of(allReports());
+        }
+
+        String column = FILTER_COLUMNS.get(random.nextInt(FILTER_COLUMNS.size()));
+        List<String> paths = new ArrayList<>();
+        paths.add("/api/reports/columnFilter?columnName=" + column + filterParam("currentFilters", without(column)));
+        changeFilter(column);
+        if (random.nextDouble() < VIEW_SWITCH_CHANCE) {
+            heatmapView = !heatmapView;
+            chartColumn = CHART_COLUMNS.get(random.nextInt(CHART_COLUMNS.size()));
+        }
+
+        page = 0;
+        paths.add(allReports());
+        String countFilters = filterParam("currentFilters", filters);
+        paths.add("/api/reports/count" + (countFilters.isEmpty() ? "" : "?" + countFilters.substring(1)));
+        paths.add("/api/reports/mapDisplay?limit=" + MAP_LIMIT + "&format=binary" + filterParam("currentFilters", filters));
+        if (heatmapView) {
+            paths.add("/api/reports/heatMap?limit=" + CHART_LIMIT + "&column=" + chartColumn + filterParam("currentFilters", filters));
+        } else {
+            paths.add("/api/reports/pieChart?column=" + chartColumn + "&limit=" + CHART_LIMIT + filterParam("currentFilters", filters));
+        }
+        return paths;
+    }
+
+    private String allReports() {
+        return "/api/reports/all?limit=" + TABLE_LIMIT + "&start=" + page * TABLE_LIMIT + filterParam("filters", filters);
+    }
+
+    // changeFilter adds a value to the column's filter or, once a few are picked, drops one
+    private void changeFilter(String column) {
+        List<String> values = FILTER_VALUES.get(column);
+        List<String> selected = filters.computeIfAbsent(column, key -> new ArrayList<>());
+        if (selected.size() >= MAX_SELECTED || !selected.isEmpty() && random.nextBoolean()) {
+            selected.remove(random.nextInt(selected.size()));
+        } else {
+            String value = values.get(random.nextInt(values.size()));
+            if (!selected.contains(value)) {
+                selected.add(value);
+            }
+        }
+        if (selected.isEmpty()) {
+            filters.remove(column);
+        }
+    }
+
+    private Map<String, List<String>> without(String column) {
+        Map<String, List<String>> others = new LinkedHashMap<>(filters);
+        others.remove(column);
+        return others;
+    }
+
+    // filterParam encodes the filters as the frontend's appendFilters does: a JSON object, left out when empty
+    private static String filterParam(String name, Map<String, List<String>> filters) {
+        if (filters.isEmpty()) {
+            return "";
+        }
+        String json = filters.entrySet().stream()
+                .map(entry -> quote(entry.getKey()) + ":[" + entry.getValue().stream().map(DashboardTraffic::quote).collect(Collectors.joining(",")) + "]")
+                .collect(Collectors.joining(",", "{", "}"));
+        return "&" + name + "=" + URLEncoder.encode(json, StandardCharsets.UTF_8);
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
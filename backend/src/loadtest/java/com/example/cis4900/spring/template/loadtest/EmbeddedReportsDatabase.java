@@ -0,0 +1,95 @@
+package com.example.cis4900.spring.template.loadtest;
+
+import com.example.cis4900.spring.template.reports.synthetic.SyntheticDataset;
+import com.example.cis4900.spring.template.reports.synthetic.SyntheticReportGenerator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.stream.Collectors;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+
+// EmbeddedReportsDatabase runs a throwaway MariaDB server (MariaDB4j unpacks the server binaries into a temporary
+// directory) with the production schema from database/scripts/01-setup.sql, seeded with synthetic reports
+// The schema is created over JDBC rather than with MariaDB4j's createDB/source, which run the mariadb command line
+// client and that needs libraries (libncurses5) most machines no longer have.
+final class EmbeddedReportsDatabase implements AutoCloseable {
+    static final String DATABASE = "template_db";
+
+    static final String USER = "root";
+
+    private final DB db;
+
+    private EmbeddedReportsDatabase(DB db) {
+        this.db = db;
+    }
+
+    // start starts the server on a free port and creates the schema
+    static EmbeddedReportsDatabase start() throws ManagedProcessException, IOException, SQLException {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        if (USER.equals(System.getProperty("user.name"))) {
+            // mysqld refuses to run as root unless told to
+            config.addArg("--user=" + USER);
+        }
+        DB db = DB.newEmbeddedDB(config.build());
+        db.start();
+
+        EmbeddedReportsDatabase database = new EmbeddedReportsDatabase(db);
+        try (Connection connection = DriverManager.getConnection(database.getAddress() + "/", USER, "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE IF NOT EXISTS " + DATABASE);
+            for (String sql : setupScript().split(";")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql);
+                }
+            }
+        } catch (SQLException | IOException | RuntimeException e) {
+            db.stop();
+            throw e;
+        }
+        return database;
+    }
+
+    // setupScript reads 01-setup.sql (database/scripts is a resource directory of the load test) without its comments
+    private static String setupScript() throws IOException {
+        try (InputStream in = EmbeddedReportsDatabase.class.getResourceAsStream("/01-setup.sql")) {
+            if (in == null) {
+                throw new IOException("01-setup.sql is not on the classpath");
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .filter(line -> !line.trim().startsWith("--"))
+                    .collect(Collectors.joining("\n"));
+        }
+    }
+
+    // Base address without the database, as DB_ADDRESS is given to the backend
+    String getAddress() {
+        return "jdbc:mysql://localhost:" + db.getConfiguration().getPort();
+    }
+
+    // seed inserts rows synthetic reports created during 2023, on one writer per processor
+    // Params: rows: How many reports to insert, seed: Seed of the generated values
+    // Returns: How long seeding took, in milliseconds
+
+    long seed(long rows, long seed) throws SQLException, InterruptedException {
+        long started = System.currentTimeMillis();
+        SyntheticReportGenerator generator = new SyntheticReportGenerator(seed, LocalDate.of(2023, 1, 1), 365);
+        new SyntheticDataset(generator, rows, Runtime.getRuntime().availableProcessors())
+                .writeDatabase(getAddress() + "/" + DATABASE, USER, "");
+        return System.currentTimeMillis() - started;
+    }
+
+    @Override
+    public void close() throws ManagedProcessException {
+        db.stop();
+    }
+}
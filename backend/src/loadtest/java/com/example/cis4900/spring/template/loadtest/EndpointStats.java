@@ -0,0 +1,72 @@
+package com.example.cis4900.spring.template.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+// EndpointStats collects the responses of one endpoint: a latency histogram (microseconds, 3 significant digits, up to
+// an hour) plus error and byte counts. Every virtual user records into the same instance.
+final class EndpointStats {
+    private final String endpoint;
+
+    private final Histogram latencies = new ConcurrentHistogram(TimeUnit.HOURS.toMicros(1), 3);
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder bytes = new LongAdder();
+
+    EndpointStats(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    // record notes one response
+    // Params:
+    // nanos - Time from sending the request to reading the whole response
+    // status - HTTP status, or 0 when the request failed without one
+    // size - Bytes in the response body
+
+    void record(long nanos, int status, long size) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), latencies.getHighestTrackableValue()));
+        bytes.add(size);
+        if (status < 200 || status >= 400) {
+            errors.increment();
+        }
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+
+    long getRequests() {
+        return latencies.getTotalCount();
+    }
+
+    // percentileMillis returns a latency percentile, 50 for the median and so on
+    double percentileMillis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    // summary returns the stats for a measured period as they are written to the results file
+    Map<String, Object> summary(double seconds) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requests", getRequests());
+        result.put("errors", errors.sum());
+        result.put("throughput", round(getRequests() / seconds));
+        result.put("meanMillis", round(latencies.getMean() / 1000.0));
+        result.put("p50Millis", percentileMillis(50));
+        result.put("p90Millis", percentileMillis(90));
+        result.put("p99Millis", percentileMillis(99));
+        result.put("p999Millis", percentileMillis(99.9));
+        result.put("maxMillis", latencies.getMaxValue() / 1000.0);
+        result.put("meanBytes", getRequests() == 0 ? 0 : bytes.sum() / getRequests());
+        return result;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.cis4900.spring.template.loadtest;
+
+import com.example.cis4900.spring.template.TemplateApplication;
+import com.example.cis4900.spring.template.reports.memory.ReportsSnapshotEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// LoadTest drives concurrent dashboard traffic against the backend and reports throughput and latency per endpoint
+// Unless loadtest.url names a running backend it starts its own: an embedded MariaDB with the production schema seeded
+// with loadtest.rows synthetic reports, and the backend on a free port pointed at it. loadtest.concurrency virtual users
+// then each send one interaction at a time (DashboardTraffic, or the loadtest.script replay) for loadtest.warmup plus
+// loadtest.duration seconds. Only the responses after the warmup are counted. The results are printed and written as
+// JSON to loadtest.results, so two runs (before and after a change, with the same seed) can be compared.
+//
+// Options, as -Ploadtest.<name>=<value> on ./gradlew loadTest:
+// rows (200000), seed (311), concurrency (16), warmup (10), duration (60), script, url,
+// results (build/loadtest/results.json), app.<property> to set any backend property, e.g. app.reports.query-engine=memory
+public final class LoadTest {
+    private static final String APP_PREFIX = "loadtest.app.";
+
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newCachedThreadPool())
+            .build();
+
+    private final String baseUrl;
+
+    private volatile boolean measuring = false;
+
+    private LoadTest(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) {
+        int status = 0;
+        try {
+            loadTest();
+        } catch (Exception e) {
+            e.printStackTrace();
+            status = 1;
+        }
+        // The backend, the database's process watchers and the HTTP client all leave non-daemon threads behind
+        System.exit(status);
+    }
+
+    private static void loadTest() throws Exception {
+        long rows = Long.getLong("loadtest.rows", 200000);
+        long seed = Long.getLong("loadtest.seed", 311);
+        int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+        int warmup = Integer.getInteger("loadtest.warmup", 10);
+        int duration = Integer.getInteger("loadtest.duration", 60);
+        String script = System.getProperty("loadtest.script", "");
+        String url = System.getProperty("loadtest.url", "");
+        Path results = Path.of(System.getProperty("loadtest.results", "build/loadtest/results.json"));
+
+        RecordedTraffic recorded = script.isBlank() ? null : RecordedTraffic.read(Path.of(script));
+        List<Traffic> users = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            users.add(recorded == null ? new DashboardTraffic(seed + i) : recorded.user());
+        }
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("traffic", recorded == null ? "dashboard" : script);
+        run.put("concurrency", concurrency);
+        run.put("warmupSeconds", warmup);
+        run.put("durationSeconds", duration);
+
+        if (!url.isBlank()) {
+            run.put("url", url);
+            new LoadTest(url).run(users, warmup, duration, run, results);
+            return;
+        }
+
+        try (EmbeddedReportsDatabase database = EmbeddedReportsDatabase.start()) {
+            System.out.println("Seeding " + rows + " synthetic reports (seed " + seed + ")");
+            long seedMillis = database.seed(rows, seed);
+            System.out.println("Seeded in " + seedMillis + " ms");
+
+            Map<String, Object> properties = appProperties(database.getAddress());
+            run.put("rows", rows);
+            run.put("seed", seed);
+            run.put("backend", properties.entrySet().stream().filter(entry -> entry.getKey().startsWith("reports."))
+                    .collect(LinkedHashMap::new, (map, entry) -> map.put(entry.getKey(), entry.getValue()), Map::putAll));
+
+            // Passed as command line arguments, which take precedence over application.properties (default properties don't)
+            String[] args = properties.entrySet().stream().map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                    .toArray(String[]::new);
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TemplateApplication.class).run(args)) {
+                checkProperties(context, properties);
+                run.put("queryEngine", queryEngine(context));
+                System.out.println("Backend answering with the " + run.get("queryEngine") + " query engine");
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                new LoadTest("http://localhost:" + port).run(users, warmup, duration, run, results);
+            }
+        }
+    }
+
+    // appProperties returns the backend's properties: the embedded database, a free port, a query log that only writes
+    // queries slower than 2 s so it does not drown the results, and every loadtest.app.* option
+    private static Map<String, Object> appProperties(String address) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("DB_ADDRESS", address);
+        properties.put("DB_DATABASE", EmbeddedReportsDatabase.DATABASE);
+        properties.put("DB_USER", EmbeddedReportsDatabase.USER);
+        properties.put("DB_PASSWORD", "");
+        properties.put("server.port", "0");
+        properties.put("reports.query-log.sample-rate", "0");
+        properties.put("reports.query-log.slow-millis", "2000");
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(APP_PREFIX)) {
+                properties.put(name.substring(APP_PREFIX.length()), System.getProperty(name));
+            }
+        }
+        return properties;
+    }
+
+    // checkProperties fails the run if the backend did not take one of the properties it was started with
+    private static void checkProperties(ConfigurableApplicationContext context, Map<String, Object> properties) {
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            String actual = context.getEnvironment().getProperty(property.getKey());
+            if (!String.valueOf(property.getValue()).equals(actual)) {
+                throw new IllegalStateException("Backend has " + property.getKey() + "=" + actual + ", not " + property.getValue());
+            }
+        }
+
+        String requested = context.getEnvironment().getProperty("reports.query-engine", "sql");
+        if (!requested.equals(queryEngine(context))) {
+            throw new IllegalStateException("Backend asked for the " + requested + " query engine but runs " + queryEngine(context));
+        }
+    }
+
+    // queryEngine names the engine the backend answers report queries with
+    private static String queryEngine(ConfigurableApplicationContext context) {
+        return context.getBeanNamesForType(ReportsSnapshotEngine.class).length > 0 ? "memory" : "sql";
+    }
+
+    private void run(List<Traffic> users, int warmup, int duration, Map<String, Object> run, Path results) throws Exception {
+        System.out.println("Sending dashboard traffic to " + baseUrl + " from " + users.size() + " users, " + warmup + " s warmup and "
+                + duration + " s measured");
+        long warmupEnd = System.nanoTime() + Duration.ofSeconds(warmup).toNanos();
+        long end = warmupEnd + Duration.ofSeconds(duration).toNanos();
+
+        List<Thread> threads = new ArrayList<>();
+        for (Traffic traffic : users) {
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    interact(traffic.next());
+                }
+            }, "loadtest-user-" + threads.size());
+            threads.add(thread);
+            thread.start();
+        }
+
+        while (System.nanoTime() < warmupEnd) {
+            Thread.sleep(100);
+        }
+        stats.clear();
+        measuring = true;
+        long measuredFrom = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        measuring = false;
+        double seconds = (System.nanoTime() - measuredFrom) / 1e9;
+
+        report(run, seconds, results);
+    }
+
+    // interact sends the requests of one interaction at the same time and waits for all of them
+    private void interact(List<String> paths) {
+        List<CompletableFuture<?>> responses = new ArrayList<>();
+        for (String path : paths) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofMinutes(2)).GET().build();
+            long started = System.nanoTime();
+            EndpointStats endpoint = stats.computeIfAbsent(endpointOf(path), EndpointStats::new);
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).handle((response, error) -> {
+                if (measuring) {
+                    endpoint.record(System.nanoTime() - started, error == null ? response.statusCode() : 0,
+                            error == null ? response.body().length : 0);
+                }
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture<?>[]::new)).join();
+    }
+
+    // endpointOf names a request by its path, with the marker format when it is not JSON
+    static String endpointOf(String path) {
+        int query = path.indexOf('?');
+        String name = query < 0 ? path : path.substring(0, query);
+        if (name.startsWith("/api/reports/")) {
+            name = name.substring("/api/reports/".length());
+        }
+        if (query >= 0 && path.indexOf("format=binary", query) > 0) {
+            name += " (binary)";
+        }
+        return name;
+    }
+
+    private void report(Map<String, Object> run, double seconds, Path results) throws IOException {
+        List<EndpointStats> endpoints = new ArrayList<>(stats.values());
+        endpoints.sort((a, b) -> a.getEndpoint().compareTo(b.getEndpoint()));
+
+        System.out.println(String.format("%-22s %9s %7s %9s %9s %9s %9s %9s", "endpoint", "requests", "errors", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        Map<String, Object> byEndpoint = new LinkedHashMap<>();
+        long total = 0;
+        for (EndpointStats endpoint : endpoints) {
+            Map<String, Object> summary = endpoint.summary(seconds);
+            byEndpoint.put(endpoint.getEndpoint(), summary);
+            total += endpoint.getRequests();
+            System.out.println(String.format("%-22s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f", endpoint.getEndpoint(), summary.get("requests"),
+                    summary.get("errors"), summary.get("throughput"), summary.get("p50Millis"), summary.get("p90Millis"),
+                    summary.get("p99Millis"), summary.get("maxMillis")));
+        }
+        System.out.println(String.format("%d requests in %.1f s, %.1f req/s", total, seconds, total / seconds));
+
+        run.put("measuredSeconds", Math.round(seconds * 100) / 100.0);
+        run.put("requests", total);
+        run.put("throughput", Math.round(total / seconds * 100) / 100.0);
+        run.put("endpoints", byEndpoint);
+        if (results.getParent() != null) {
+            Files.createDirectories(results.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(results.toFile(), run);
+        System.out.println("Results written to " + results.toAbsolutePath());
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.cis4900.spring.template.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// RecordedTraffic replays a script of request paths, e.g. cut from an access log
+// One path per line, starting with /api/. Consecutive lines form one interaction and are sent together, a blank line
+// starts the next one and lines starting with # are comments. Every virtual user takes the next interaction in turn,
+// starting over at the top once the script is used up.
+final class RecordedTraffic {
+    private final List<List<String>> interactions;
+
+    private final AtomicLong next = new AtomicLong();
+
+    private RecordedTraffic(List<List<String>> interactions) {
+        this.interactions = interactions;
+    }
+
+    static RecordedTraffic read(Path script) throws IOException {
+        List<List<String>> interactions = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        for (String line : Files.readAllLines(script)) {
+            String path = line.trim();
+            if (path.startsWith("#")) {
+                continue;
+            }
+            if (path.isEmpty()) {
+                if (!current.isEmpty()) {
+                    interactions.add(current);
+                    current = new ArrayList<>();
+                }
+                continue;
+            }
+            if (!path.startsWith("/")) {
+                throw new IllegalArgumentException("Not a request path in " + script + ": " + path);
+            }
+            current.add(path);
+        }
+        if (!current.isEmpty()) {
+            interactions.add(current);
+        }
+        if (interactions.isEmpty()) {
+            throw new IllegalArgumentException("No requests in " + script);
+        }
+        return new RecordedTraffic(interactions);
+    }
+
+    // user returns the traffic of one virtual user, all users share the script's position
+    Traffic user() {
+        return () -> interactions.get((int) (next.getAndIncrement() % interactions.size()));
+    }
+
+    int size() {
+        return interactions.size();
+    }
+}
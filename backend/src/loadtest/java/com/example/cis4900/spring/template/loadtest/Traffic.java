@@ -0,0 +1,9 @@
+package com.example.cis4900.spring.template.loadtest;
+
+import java.util.List;
+
+// Traffic is what one virtual user sends: each call returns the request paths of the user's next interaction, which
+// are sent together like the browser sends the fetches of one UI update
+interface Traffic {
+    List<String> next();
+}
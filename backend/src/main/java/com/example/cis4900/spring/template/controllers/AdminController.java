@@ -0,0 +1,138 @@
+package com.example.cis4900.spring.template.controllers;
+
+import com.example.cis4900.spring.template.reports.DatasetReloadedEvent;
+import com.example.cis4900.spring.template.reports.audit.QueryLog;
+import com.example.cis4900.spring.template.reports.cache.ReportsQueryCache;
+import com.example.cis4900.spring.template.reports.dao.StatementShapeStats;
+import com.example.cis4900.spring.template.reports.ingest.GroupCommitWriter;
+import com.example.cis4900.spring.template.reports.ingest.LoadProgress;
+import com.example.cis4900.spring.template.reports.ingest.ReportBulkLoader;
+import com.example.cis4900.spring.template.reports.rollup.RollupCube;
+import com.example.cis4900.spring.template.reports.rollup.RollupEngine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+// Operational endpoints: cache, statement and slow query statistics and a hook to tell the backend the dataset has been reloaded
+@RestController
+@RequestMapping(path = "/api/admin")
+public class AdminController {
+    private ReportsQueryCache queryCache;
+
+    private StatementShapeStats statementStats;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private ReportBulkLoader bulkLoader;
+
+    private GroupCommitWriter groupCommitWriter;
+
+    private QueryLog queryLog;
+
+    // Only present when reports.rollup.enabled=true
+    @Autowired(required = false)
+    private RollupEngine rollupEngine;
+
+    @Autowired
+    AdminController(ReportsQueryCache queryCache, StatementShapeStats statementStats, ApplicationEventPublisher eventPublisher,
+                    ReportBulkLoader bulkLoader, GroupCommitWriter groupCommitWriter, QueryLog queryLog) {
+        this.queryCache = queryCache;
+        this.statementStats = statementStats;
+        this.eventPublisher = eventPublisher;
+        this.bulkLoader = bulkLoader;
+        this.groupCommitWriter = groupCommitWriter;
+        this.queryLog = queryLog;
+    }
+
+
+    @GetMapping("/cache")
+    private @ResponseBody Map<String, Object> cacheStats() {
+        CacheStats stats = queryCache.stats();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", queryCache.size());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("evictedWeight", stats.evictionWeight());
+        return result;
+    }
+
+    // How often the report queries ran a SQL text they had already run (repeatedShapes) or a new one (newShapes), see
+    // StatementShapeStats. These are not the driver's prepared statement cache hits.
+    @GetMapping("/statements")
+    private @ResponseBody Map<String, Object> statementStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("shapes", statementStats.getShapes());
+        result.put("repeatedShapes", statementStats.getRepeatedShapes());
+        result.put("newShapes", statementStats.getNewShapes());
+        result.put("repeatRate", statementStats.getRepeatRate());
+        return result;
+    }
+
+    // Size of the rollup cube and the last report Id it has counted, ready is false while queries go to SQL
+    @GetMapping("/rollup")
+    private @ResponseBody Map<String, Object> rollupStats() {
+        RollupCube cube = rollupEngine == null ? null : rollupEngine.getCube();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", rollupEngine != null);
+        result.put("ready", cube != null);
+        result.put("cells", cube == null ? 0 : cube.cells());
+        result.put("reports", cube == null ? 0 : cube.total());
+        result.put("watermark", rollupEngine == null ? null : rollupEngine.getWatermark());
+        return result;
+    }
+
+    // Counts of the running or last bulk load of reports.loader.file, empty if the backend has not loaded a file
+    @GetMapping("/loader")
+    private @ResponseBody LoadProgress loaderProgress() {
+        return bulkLoader.getProgress();
+    }
+
+    // Group commits of the reports posted to /api/reports/batch since startup
+    @GetMapping("/batch")
+    private @ResponseBody Map<String, Object> batchWriterStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("commits", groupCommitWriter.getCommits());
+        result.put("batches", groupCommitWriter.getBatches());
+        result.put("rows", groupCommitWriter.getRows());
+        result.put("batchesPerCommit", groupCommitWriter.getAverageBatchesPerCommit());
+        result.put("commitMillis", groupCommitWriter.getAverageCommitMillis());
+        return result;
+    }
+
+    // The slowest of the recent queries that took reports.query-log.slow-millis or longer, with their EXPLAIN plan when
+    // reports.query-log.explain is on
+    @GetMapping("/slow-queries")
+    private @ResponseBody Map<String, Object> slowQueries(@RequestParam(defaultValue = "20") int limit) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("slowMillis", queryLog.getSlowMillis());
+        result.put("sampleRate", queryLog.getSampleRate());
+        result.put("recorded", queryLog.getRecorded());
+        result.put("logged", queryLog.getLogged());
+        result.put("slow", queryLog.getSlow());
+        result.put("dropped", queryLog.getDropped());
+        result.put("queries", queryLog.slowQueries(limit));
+        return result;
+    }
+
+    // Call after reloading the report table outside the backend (e.g. a new database volume) so cached results and the
+    // in-memory snapshot are rebuilt
+    @PostMapping("/reload")
+    private @ResponseBody String datasetReloaded() {
+        eventPublisher.publishEvent(new DatasetReloadedEvent(this));
+        return "Reloaded";
+    }
+}
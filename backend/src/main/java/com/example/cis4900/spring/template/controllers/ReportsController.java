@@ -1,10 +1,32 @@
 package com.example.cis4900.spring.template.controllers;
 
+import com.example.cis4900.spring.template.reports.DatasetVersion;
 import com.example.cis4900.spring.template.reports.ReportsService;
+import com.example.cis4900.spring.template.reports.export.ExportFormat;
+import com.example.cis4900.spring.template.reports.models.BatchIngestResult;
+import com.example.cis4900.spring.template.reports.models.DashboardData;
+import com.example.cis4900.spring.template.reports.models.DistinctEstimate;
+import com.example.cis4900.spring.template.reports.models.Estimate;
+import com.example.cis4900.spring.template.reports.models.GroupCount;
+import com.example.cis4900.spring.template.reports.models.GroupEstimate;
+import com.example.cis4900.spring.template.reports.models.HeatCell;
+import com.example.cis4900.spring.template.reports.models.MapCluster;
+import com.example.cis4900.spring.template.reports.models.NearbyReport;
 import com.example.cis4900.spring.template.reports.models.Report;
+import com.example.cis4900.spring.template.reports.models.ReportsPage;
+import com.example.cis4900.spring.template.reports.models.ResolutionPercentiles;
+import com.example.cis4900.spring.template.reports.models.TimeBucketCount;
 
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -15,16 +37,25 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 @RestController
 @RequestMapping(path = "/api/reports")
 public class ReportsController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    static final String VECTOR_TILE_TYPE = "application/vnd.mapbox-vector-tile";
+
     private ReportsService reportsService;
 
+    private DatasetVersion datasetVersion;
+
     @Autowired
-    ReportsController(ReportsService reportsService) {
+    ReportsController(ReportsService reportsService, DatasetVersion datasetVersion) {
         this.reportsService = reportsService;
+        this.datasetVersion = datasetVersion;
     }
 
 
@@ -33,15 +64,50 @@ public class ReportsController {
         return reportsService.displayMap(limit, currentFilters);
     }
 
+    // Same markers as /mapDisplay in the columnar binary format described in MarkerEncoder, picked with format=binary
+    @GetMapping(value = "/mapDisplay", params = "format=binary", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    private @ResponseBody byte[] displayMapBinary(@RequestParam(defaultValue = "5000") String limit, @RequestParam(defaultValue = "") String currentFilters) {
+        return reportsService.displayMapBinary(limit, currentFilters);
+    }
+
 
     @GetMapping("/columnFilter")
     private @ResponseBody Iterable<String> getFilters(@RequestParam(defaultValue = "") String columnName, @RequestParam(defaultValue = "") String currentFilters) {
         return reportsService.columnFilter(columnName, currentFilters);
     }
 
+    // The values found in the report sample and an estimate of how many there are, picked with approximate=true
+    @GetMapping(value = "/columnFilter", params = "approximate=true")
+    private @ResponseBody DistinctEstimate getFiltersApproximate(@RequestParam(defaultValue = "") String columnName, @RequestParam(defaultValue = "") String currentFilters) {
+        return reportsService.approximateColumnFilter(columnName, currentFilters);
+    }
+
+    // The body stays a plain array of reports; the cursor for the next page (if there is one) goes in the X-Next-Cursor header.
+    // Passing it back as "after" seeks straight to the next page instead of counting past start rows.
     @GetMapping("/all")
-    private @ResponseBody Iterable<Report> allReports(@RequestParam(defaultValue = "10") String limit, @RequestParam(defaultValue = "0") String start, @RequestParam(defaultValue = "") String filters) {
-        return reportsService.allReports(limit, start, filters);
+    private ResponseEntity<Iterable<Report>> allReports(@RequestParam(defaultValue = "10") String limit, @RequestParam(defaultValue = "0") String start, @RequestParam(defaultValue = "") String after, @RequestParam(defaultValue = "") String filters) {
+        ReportsPage page = reportsService.reportsPage(limit, start, after, filters);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getReports());
+    }
+
+    // Everything one filter change reloads in one request: the table page (/all), the count (/count), the filter lists of
+    // the facets columns (/columnFilter, each under the other columns' filters), the map pins (/mapDisplay) and, when
+    // chartColumn is given, the chart values (/pieChart and /heatMap). The parts run at the same time; one that takes
+    // longer than reports.dashboard.timeout-millis is left out and named in timedOut instead of holding up the rest.
+    @GetMapping("/dashboard")
+    private ResponseEntity<DashboardData> dashboard(@RequestParam(defaultValue = "10") String limit, @RequestParam(defaultValue = "0") String start, @RequestParam(defaultValue = "") String filters,
+            @RequestParam(defaultValue = "") String facets, @RequestParam(defaultValue = "") String chartColumn, @RequestParam(defaultValue = "5000") String chartLimit,
+            @RequestParam(defaultValue = "5000") String mapLimit) {
+        DashboardData data = reportsService.dashboard(limit, start, filters, facets, chartColumn, chartLimit, mapLimit);
+        if (data == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(data);
     }
 
     @GetMapping("/count")
@@ -49,6 +115,12 @@ public class ReportsController {
         return reportsService.getFilteredCount(currentFilters);
     }
 
+    // The count estimated from the report sample with its 95% interval, picked with approximate=true
+    @GetMapping(value = "/count", params = "approximate=true")
+    private @ResponseBody Estimate countApproximate(@RequestParam(defaultValue = "") String currentFilters) {
+        return reportsService.approximateCount(currentFilters);
+    }
+
     @GetMapping("/pieChart")
     private @ResponseBody Iterable<Report> chartData(@RequestParam(defaultValue = "") String limit, @RequestParam(defaultValue = "") String column, @RequestParam(defaultValue = "") String currentFilters){
         return reportsService.chartData(limit, column, currentFilters);
@@ -58,5 +130,104 @@ public class ReportsController {
     private @ResponseBody Iterable<Report> heatMapData(@RequestParam(defaultValue = "") String limit, @RequestParam(defaultValue = "") String column, @RequestParam(defaultValue = "") String currentFilters){
         return reportsService.heatMapData(limit, column, currentFilters);
     }
-}
 
+    @GetMapping("/groupCounts")
+    private @ResponseBody Iterable<GroupCount> groupCounts(@RequestParam(defaultValue = "") String columns, @RequestParam(defaultValue = "20") String limit, @RequestParam(defaultValue = "") String currentFilters){
+        return reportsService.groupCounts(columns, limit, currentFilters);
+    }
+
+    // The grouped counts estimated from the report sample, picked with approximate=true
+    @GetMapping(value = "/groupCounts", params = "approximate=true")
+    private @ResponseBody Iterable<GroupEstimate> groupCountsApproximate(@RequestParam(defaultValue = "") String columns, @RequestParam(defaultValue = "20") String limit, @RequestParam(defaultValue = "") String currentFilters){
+        return reportsService.approximateGroupCounts(columns, limit, currentFilters);
+    }
+
+    @GetMapping("/heatMapGrid")
+    private @ResponseBody Iterable<HeatCell> heatMapGrid(@RequestParam(defaultValue = "") String bbox, @RequestParam(defaultValue = "11") String zoom, @RequestParam(defaultValue = "") String cellSize, @RequestParam(defaultValue = "") String currentFilters){
+        return reportsService.heatMapGrid(bbox, zoom, cellSize, currentFilters);
+    }
+
+    // Resolution time (closedAt - createdAt) p50/p90/p99 in seconds per agencyName, complaintType, borough or communityBoard
+    @GetMapping("/resolutionTimes")
+    private @ResponseBody Iterable<ResolutionPercentiles> resolutionTimes(@RequestParam(defaultValue = "agencyName") String groupBy, @RequestParam(defaultValue = "") String limit, @RequestParam(defaultValue = "") String currentFilters){
+        return reportsService.resolutionTimes(groupBy, limit, currentFilters);
+    }
+
+    // Report counts per hour, day, week or month of createdAt or closedAt, optionally limited to [from, to)
+    @GetMapping("/timeseries")
+    private @ResponseBody Iterable<TimeBucketCount> timeSeries(@RequestParam(defaultValue = "createdAt") String column, @RequestParam(defaultValue = "day") String bucket,
+            @RequestParam(defaultValue = "") String from, @RequestParam(defaultValue = "") String to, @RequestParam(defaultValue = "") String currentFilters){
+        return reportsService.timeSeries(column, bucket, from, to, currentFilters);
+    }
+
+    // Clusters of reports (with a count and the zoom they split at) and single reports inside the viewport. Unlike
+    // /mapDisplay there is no marker cap: the whole filtered dataset is clustered, single reports appear past zoom 16.
+    @GetMapping("/clusters")
+    private @ResponseBody Iterable<MapCluster> clusters(@RequestParam(defaultValue = "") String bbox, @RequestParam(defaultValue = "11") String zoom, @RequestParam(defaultValue = "") String currentFilters){
+        return reportsService.clusters(bbox, zoom, currentFilters);
+    }
+
+    // Spatial searches under the usual filters, answered from an in-memory index of the report locations
+    @GetMapping("/inBox")
+    private @ResponseBody Iterable<Report> reportsInBox(@RequestParam(defaultValue = "") String bbox, @RequestParam(defaultValue = "100") String limit, @RequestParam(defaultValue = "") String currentFilters){
+        return reportsService.reportsInBox(bbox, limit, currentFilters);
+    }
+
+    // radius is in meters, the closest reports come first
+    @GetMapping("/nearby")
+    private @ResponseBody Iterable<NearbyReport> reportsNearby(@RequestParam(defaultValue = "") String latitude, @RequestParam(defaultValue = "") String longitude,
+            @RequestParam(defaultValue = "500") String radius, @RequestParam(defaultValue = "100") String limit, @RequestParam(defaultValue = "") String currentFilters){
+        return reportsService.reportsNearby(latitude, longitude, radius, limit, currentFilters);
+    }
+
+    @GetMapping("/nearest")
+    private @ResponseBody Iterable<NearbyReport> nearestReports(@RequestParam(defaultValue = "") String latitude, @RequestParam(defaultValue = "") String longitude, @RequestParam(defaultValue = "10") String k, @RequestParam(defaultValue = "") String currentFilters){
+        return reportsService.nearestReports(latitude, longitude, k, currentFilters);
+    }
+
+    // Streams every report matching the filters as a download, written row by row while the database is still reading,
+    // so exporting the whole table doesn't need it in memory. Compressed with gzip when the client accepts it.
+    @GetMapping("/export")
+    private ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format, @RequestParam(defaultValue = "") String currentFilters) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = reportsService.exportReports(exportFormat, currentFilters);
+        if (body == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"reports." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    // Loads newline-delimited JSON reports, one object per line as /export?format=ndjson writes them. The stream is read
+    // as it arrives and written in batches with group commit; the result counts committed and rejected reports and gives
+    // the batch commit latencies and rows per second.
+    @PostMapping(path = "/batch", consumes = {"application/x-ndjson", MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    private @ResponseBody BatchIngestResult ingestBatch(InputStream body) throws IOException {
+        return reportsService.ingestBatch(body);
+    }
+
+    // Mapbox Vector Tile of the reports in one map tile: clusters with a count below zoom 15, single reports from there on.
+    // The ETag is the dataset version, so browsers revalidate tiles cheaply and only download them again after a reload.
+    @GetMapping(value = "/tiles/{z}/{x}/{y}", produces = VECTOR_TILE_TYPE)
+    private ResponseEntity<byte[]> tile(@PathVariable int z, @PathVariable int x, @PathVariable int y, @RequestParam(defaultValue = "") String currentFilters, WebRequest request) {
+        String etag = "\"" + datasetVersion.get() + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        byte[] tile = reportsService.tile(z, x, y, currentFilters);
+        if (tile == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.maxAge(Duration.ZERO).mustRevalidate())
+                .body(tile);
+    }
+}
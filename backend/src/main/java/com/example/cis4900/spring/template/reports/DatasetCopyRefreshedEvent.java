@@ -0,0 +1,13 @@
+package com.example.cis4900.spring.template.reports;
+
+import org.springframework.context.ApplicationEvent;
+
+// DatasetCopyRefreshedEvent is published by the in-memory copies of the report table (the snapshot, the rollup cube) once
+// they have caught up with a change, i.e. after the DatasetReloadedEvent that announced it
+// Queries answered from a copy between those two events still see the old data, so anything that caches results
+// (ReportsQueryCache, the DatasetVersion keyed tiles) has to drop them again on this event, not only on the first one.
+public class DatasetCopyRefreshedEvent extends ApplicationEvent {
+    public DatasetCopyRefreshedEvent(Object source) {
+        super(source);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.cis4900.spring.template.reports;
+
+import org.springframework.context.ApplicationEvent;
+
+// DatasetReloadedEvent is published whenever the contents of the report table change (a reload or an ingest), anything
+// that keeps results or copies of the table listens for it and throws them away
+// An append-only change only added rows after the existing ones (higher Ids) and left every existing row as it was, so
+// a copy that tracks the highest Id it has seen can catch up by reading the new rows.
+public class DatasetReloadedEvent extends ApplicationEvent {
+    private final boolean appendOnly;
+
+    public DatasetReloadedEvent(Object source) {
+        this(source, false);
+    }
+
+    public DatasetReloadedEvent(Object source, boolean appendOnly) {
+        super(source);
+        this.appendOnly = appendOnly;
+    }
+
+    public boolean isAppendOnly() {
+        return appendOnly;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.cis4900.spring.template.reports;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// DatasetVersion counts how often the report table, or an in-memory copy of it, has changed since startup
+// Anything cached under a key that includes the version (map tiles, HTTP ETags) is never served for a newer dataset,
+// without having to find and drop those entries on every reload. The version moves again when the snapshot or rollup
+// cube catches up with the change (DatasetCopyRefreshedEvent), so results built from the old copy in between are not
+// kept under the new version.
+@Component
+public class DatasetVersion {
+    private final AtomicLong version = new AtomicLong(1);
+
+    public long get() {
+        return version.get();
+    }
+
+    @EventListener({DatasetReloadedEvent.class, DatasetCopyRefreshedEvent.class})
+    public void bump() {
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.cis4900.spring.template.reports;
+
+import com.example.cis4900.spring.template.reports.models.Report;
+import com.example.cis4900.spring.template.reports.models.ReportsPage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// ReportsCursor encodes the position of the last row of a table page so the next page can seek straight past it
+// The cursor is opaque to the frontend: base64url of "<sort column>:<sort value>:<Id>". The table is only sorted by Id
+// today, so the sort value and the Id are the same number, but the format leaves room for other sort keys.
+public final class ReportsCursor {
+    public static final String SORT_COLUMN = "Id";
+
+    private ReportsCursor() {
+    }
+
+    // encode builds the cursor that points just past the given row
+    // Params:
+    // lastId - Id of the last report on the current page
+    // Returns: The opaque cursor string
+
+    public static String encode(int lastId) {
+        String raw = SORT_COLUMN + ":" + lastId + ":" + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    // decode reads the last seen Id back out of a cursor
+    // Params:
+    // cursor - A cursor previously returned by encode
+    // Returns: The Id to seek past, or null if the cursor is malformed or was made for another sort column
+
+    public static Integer decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 3 || !SORT_COLUMN.equals(parts[0])) {
+                return null;
+            }
+            return Integer.valueOf(parts[2]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+
+    // page wraps a fetched table page with the cursor of the page after it, shared by ReportsServiceImpl.reportsPage and
+    // the dashboard
+    // Params:
+    // reports - The reports on the page, in Id order
+    // limit - The requested page size, a short page means there is nothing after it
+    // Returns: The page, with a null cursor if it is the last one
+
+    public static ReportsPage page(Iterable<Report> reports, String limit) {
+        Report last = null;
+        int size = 0;
+        if (reports != null) {
+            for (Report report : reports) {
+                last = report;
+                size++;
+            }
+        }
+
+        String nextCursor = null;
+        if (last != null && size >= parsePageSize(limit)) {
+            nextCursor = encode(last.getId());
+        }
+        return new ReportsPage(reports, nextCursor);
+    }
+
+    // parsePageSize reads the requested page size, 0 if it isn't a number
+    private static int parsePageSize(String limit) {
+        try {
+            return Integer.parseInt(limit.trim());
+        } catch (NullPointerException | NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -1,19 +1,71 @@
 package com.example.cis4900.spring.template.reports;
 
+import com.example.cis4900.spring.template.reports.export.ExportFormat;
+import com.example.cis4900.spring.template.reports.models.BatchIngestResult;
+import com.example.cis4900.spring.template.reports.models.DashboardData;
+import com.example.cis4900.spring.template.reports.models.DistinctEstimate;
+import com.example.cis4900.spring.template.reports.models.Estimate;
+import com.example.cis4900.spring.template.reports.models.GroupEstimate;
+import com.example.cis4900.spring.template.reports.models.GroupCount;
+import com.example.cis4900.spring.template.reports.models.HeatCell;
+import com.example.cis4900.spring.template.reports.models.MapCluster;
+import com.example.cis4900.spring.template.reports.models.NearbyReport;
 import com.example.cis4900.spring.template.reports.models.Report;
+import com.example.cis4900.spring.template.reports.models.ResolutionPercentiles;
+import com.example.cis4900.spring.template.reports.models.TimeBucketCount;
+import com.example.cis4900.spring.template.reports.models.ReportsPage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 public interface ReportsService {
 
     public Iterable<Report> allReports(String limit, String start, String filters);
 
+    public ReportsPage reportsPage(String limit, String start, String after, String filters);
+
     public Iterable<String> columnFilter(String columnName, String currentFilters);
 
     public Integer getFilteredCount(String currentFilters);
 
+    public Estimate approximateCount(String currentFilters);
+
+    public DistinctEstimate approximateColumnFilter(String columnName, String currentFilters);
+
+    public Iterable<GroupEstimate> approximateGroupCounts(String columns, String limit, String currentFilters);
+
     public Iterable<Report> displayMap(String limit, String currentFilters);
 
+    public byte[] displayMapBinary(String limit, String currentFilters);
+
     public Iterable <Report> chartData(String limit, String column, String currentFilters);
 
     public Iterable <Report> heatMapData(String limit, String colimn, String currentFilters);
+
+    public Iterable<GroupCount> groupCounts(String columns, String limit, String currentFilters);
+
+    public Iterable<HeatCell> heatMapGrid(String bbox, String zoom, String cellSize, String currentFilters);
+
+    public Iterable<ResolutionPercentiles> resolutionTimes(String groupBy, String limit, String currentFilters);
+
+    public Iterable<TimeBucketCount> timeSeries(String column, String bucket, String from, String to, String currentFilters);
+
+    public byte[] tile(int z, int x, int y, String currentFilters);
+
+    public Iterable<MapCluster> clusters(String bbox, String zoom, String currentFilters);
+
+    public Iterable<Report> reportsInBox(String bbox, String limit, String currentFilters);
+
+    public Iterable<NearbyReport> reportsNearby(String latitude, String longitude, String radius, String limit, String currentFilters);
+
+    public Iterable<NearbyReport> nearestReports(String latitude, String longitude, String k, String currentFilters);
+
+    public StreamingResponseBody exportReports(ExportFormat format, String currentFilters);
+
+    public BatchIngestResult ingestBatch(InputStream body) throws IOException;
+
+    public DashboardData dashboard(String limit, String start, String filters, String facets, String chartColumn, String chartLimit, String mapLimit);
 }
@@ -1,35 +1,157 @@
 package com.example.cis4900.spring.template.reports;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.cis4900.spring.template.reports.approx.ReportSample;
+import com.example.cis4900.spring.template.reports.approx.SampleEngine;
+import com.example.cis4900.spring.template.reports.cache.ReportsQueryCache;
+import com.example.cis4900.spring.template.reports.dao.ReportFilter;
+import com.example.cis4900.spring.template.reports.dashboard.DashboardService;
+import com.example.cis4900.spring.template.reports.dao.ReportQueryBuilder;
 import com.example.cis4900.spring.template.reports.dao.ReportsDao;
+import com.example.cis4900.spring.template.reports.export.ExportFormat;
+import com.example.cis4900.spring.template.reports.export.ReportsExporter;
+import com.example.cis4900.spring.template.reports.ingest.ReportStreamIngester;
+import com.example.cis4900.spring.template.reports.models.BatchIngestResult;
+import com.example.cis4900.spring.template.reports.models.DashboardData;
+import com.example.cis4900.spring.template.reports.models.DistinctEstimate;
+import com.example.cis4900.spring.template.reports.models.Estimate;
+import com.example.cis4900.spring.template.reports.models.GroupCount;
+import com.example.cis4900.spring.template.reports.models.GroupEstimate;
+import com.example.cis4900.spring.template.reports.models.HeatCell;
+import com.example.cis4900.spring.template.reports.models.MapCluster;
+import com.example.cis4900.spring.template.reports.models.NearbyReport;
 import com.example.cis4900.spring.template.reports.models.Report;
+import com.example.cis4900.spring.template.reports.models.ReportsPage;
+import com.example.cis4900.spring.template.reports.models.ResolutionPercentiles;
+import com.example.cis4900.spring.template.reports.models.TimeBucketCount;
+import com.example.cis4900.spring.template.reports.spatial.MarkerClusterService;
+import com.example.cis4900.spring.template.reports.spatial.SpatialSearchService;
+import com.example.cis4900.spring.template.reports.tiles.ReportsTileService;
+import com.example.cis4900.spring.template.reports.wire.MarkerEncoder;
 
 @Service
 public class ReportsServiceImpl implements ReportsService {
     @Autowired
     private ReportsDao reportsDao;
 
+    // Caches counts and distinct values until the dataset is reloaded, left out (null) in the unit tests
+    @Autowired(required = false)
+    private ReportsQueryCache queryCache;
+
+    @Autowired
+    private ReportsExporter reportsExporter;
+
+    @Autowired
+    private ReportsTileService tileService;
+
+    @Autowired
+    private MarkerClusterService clusterService;
+
+    @Autowired
+    private SpatialSearchService spatialSearch;
+
+    @Autowired
+    private ReportStreamIngester streamIngester;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    // Answers the approximate=true queries, only there when reports.approximate.enabled=true
+    @Autowired(required = false)
+    private SampleEngine sampleEngine;
+
     // These functions receive the request from ReportsController, and execute the correct ReportsDao function.
     // It then returns the result back to the Controller to then return it back to the frontend
     // All function comments are in the ReportsDaoCustomImpl.java file
 
     @Override
     public Iterable<Report> allReports(String limit, String start, String filters) {
-        System.out.println("allReports called with limit: " + limit + "start: " + start + "filters: " + filters);
         return reportsDao.findLimitedReports(limit, start, filters);
     }
 
+    // reportsPage fetches a table page by offset (start) or, when an after cursor is given, by seeking past the cursor.
+    // Either way the page carries the cursor for the page after it, so the table can switch to seeking after page one.
+    @Override
+    public ReportsPage reportsPage(String limit, String start, String after, String filters) {
+        Iterable<Report> reports;
+        if (after == null || after.isBlank()) {
+            reports = reportsDao.findLimitedReports(limit, start, filters);
+        } else {
+            Integer afterId = ReportsCursor.decode(after);
+            if (afterId == null) {
+                System.err.println("Invalid reports cursor: " + after);
+                return new ReportsPage(new ArrayList<>(), null);
+            }
+            reports = reportsDao.findReportsAfter(limit, afterId, filters);
+        }
+        return ReportsCursor.page(reports, limit);
+    }
+
     @Override
     public Iterable<String> columnFilter(String columnName, String currentFilters) {
-        System.out.println("columnFilter called with columnName: " + columnName + ", currentFilters: " + currentFilters);
-        return reportsDao.findColumnValues(columnName, currentFilters);
+        if (queryCache == null) {
+            return reportsDao.findColumnValues(columnName, currentFilters);
+        }
+        return queryCache.columnValues(columnName, currentFilters, () -> reportsDao.findColumnValues(columnName, currentFilters));
     }
 
     @Override
     public Integer getFilteredCount(String currentFilters) {
-        return reportsDao.getFilteredCount(currentFilters);
+        if (queryCache == null) {
+            return reportsDao.getFilteredCount(currentFilters);
+        }
+        return queryCache.count(currentFilters, () -> reportsDao.getFilteredCount(currentFilters));
+    }
+
+    // approximateCount estimates the filtered count from the sample, or counts exactly if there is no sample yet or it
+    // does not keep a filtered column
+    @Override
+    public Estimate approximateCount(String currentFilters) {
+        Map<String, List<String>> filters = ReportQueryBuilder.parseFilters(currentFilters);
+        ReportSample sample = sample(filters);
+        if (sample != null) {
+            return sample.count(filters);
+        }
+        return Estimate.exact(getFilteredCount(currentFilters));
+    }
+
+    @Override
+    public DistinctEstimate approximateColumnFilter(String columnName, String currentFilters) {
+        Map<String, List<String>> filters = ReportQueryBuilder.parseFilters(currentFilters);
+        ReportSample sample = sample(filters);
+        if (sample != null && ReportSample.COLUMNS.contains(columnName)) {
+            return sample.distinctValues(columnName, filters);
+        }
+
+        List<String> values = new ArrayList<>();
+        columnFilter(columnName, currentFilters).forEach(values::add);
+        return new DistinctEstimate(values, Estimate.exact(values.size()));
+    }
+
+    @Override
+    public Iterable<GroupEstimate> approximateGroupCounts(String columns, String limit, String currentFilters) {
+        Map<String, List<String>> filters = ReportQueryBuilder.parseFilters(currentFilters);
+        List<String> groupColumns = ReportQueryBuilder.columns(columns);
+        ReportSample sample = sample(filters);
+        if (sample != null && !groupColumns.isEmpty() && ReportSample.COLUMNS.containsAll(groupColumns)) {
+            return sample.groupCounts(groupColumns, filters, ReportQueryBuilder.parseLimit(limit));
+        }
+
+        List<GroupEstimate> groups = new ArrayList<>();
+        for (GroupCount group : groupCounts(columns, limit, currentFilters)) {
+            groups.add(new GroupEstimate(group.getValues(), Estimate.exact(group.getCount())));
+        }
+        return groups;
     }
 
     @Override
@@ -37,6 +159,11 @@ public class ReportsServiceImpl implements ReportsService {
         return reportsDao.getMapMarkers(limit, currentFilters);
     }
 
+    @Override
+    public byte[] displayMapBinary(String limit, String currentFilters) {
+        return MarkerEncoder.encode(reportsDao.getMapMarkers(limit, currentFilters));
+    }
+
     @Override
     public Iterable <Report> chartData(String limit, String column, String currentFilters){
         return reportsDao.getChartData(limit, column, currentFilters);
@@ -46,4 +173,98 @@ public class ReportsServiceImpl implements ReportsService {
     public Iterable <Report> heatMapData(String limit, String column, String currentFilters){
         return reportsDao.getHeatMapData(limit, column, currentFilters);
     }
+
+    @Override
+    public Iterable<GroupCount> groupCounts(String columns, String limit, String currentFilters) {
+        return reportsDao.getGroupedCounts(columns, limit, currentFilters);
+    }
+
+    @Override
+    public Iterable<HeatCell> heatMapGrid(String bbox, String zoom, String cellSize, String currentFilters) {
+        return reportsDao.getHeatMapCells(bbox, zoom, cellSize, currentFilters);
+    }
+
+    @Override
+    public Iterable<ResolutionPercentiles> resolutionTimes(String groupBy, String limit, String currentFilters) {
+        return reportsDao.getResolutionPercentiles(groupBy, limit, currentFilters);
+    }
+
+    @Override
+    public Iterable<TimeBucketCount> timeSeries(String column, String bucket, String from, String to, String currentFilters) {
+        return reportsDao.getTimeSeries(column, bucket, from, to, currentFilters);
+    }
+
+    @Override
+    public byte[] tile(int z, int x, int y, String currentFilters) {
+        return tileService.tile(z, x, y, currentFilters);
+    }
+
+    @Override
+    public Iterable<MapCluster> clusters(String bbox, String zoom, String currentFilters) {
+        return clusterService.clusters(bbox, zoom, currentFilters);
+    }
+
+    @Override
+    public Iterable<Report> reportsInBox(String bbox, String limit, String currentFilters) {
+        return spatialSearch.inBox(bbox, limit, currentFilters);
+    }
+
+    @Override
+    public Iterable<NearbyReport> reportsNearby(String latitude, String longitude, String radius, String limit, String currentFilters) {
+        return spatialSearch.withinRadius(latitude, longitude, radius, limit, currentFilters);
+    }
+
+    @Override
+    public Iterable<NearbyReport> nearestReports(String latitude, String longitude, String k, String currentFilters) {
+        return spatialSearch.nearest(latitude, longitude, k, currentFilters);
+    }
+
+    // exportReports checks the filters up front and returns the export to run once the response is committed, or null if
+    // the filters name a column the report table does not have
+    @Override
+    public StreamingResponseBody exportReports(ExportFormat format, String currentFilters) {
+        Map<String, List<String>> filters = ReportQueryBuilder.parseFilters(currentFilters);
+        if (filters == null) {
+            return null;
+        }
+
+        // The export query is timed and written to the QueryLog by ReportsExporter
+        return out -> {
+            try {
+                reportsExporter.export(format, filters, out);
+            } catch (SQLException e) {
+                throw new IOException("Error exporting reports", e);
+            }
+        };
+    }
+
+    @Override
+    public BatchIngestResult ingestBatch(InputStream body) throws IOException {
+        return streamIngester.ingest(body);
+    }
+
+    // dashboard parses the filters once and runs every part of the dashboard on them at the same time, or returns null if
+    // the filters name a column the report table does not have
+    @Override
+    public DashboardData dashboard(String limit, String start, String filters, String facets, String chartColumn, String chartLimit, String mapLimit) {
+        ReportFilter filter = ReportFilter.parse(filters);
+        if (filter == null) {
+            return null;
+        }
+
+        List<String> facetColumns = ReportQueryBuilder.columns(facets);
+        if (facetColumns.isEmpty() && facets != null && !facets.isBlank()) {
+            System.err.println("Invalid facet columns: " + facets);
+        }
+        return dashboardService.load(filter, limit, start, facetColumns, chartColumn, chartLimit, mapLimit);
+    }
+
+    // sample returns the report sample if it is drawn and keeps every filtered column, else null
+    private ReportSample sample(Map<String, List<String>> filters) {
+        ReportSample sample = sampleEngine == null ? null : sampleEngine.getSample();
+        if (sample == null || filters == null || !ReportSample.covers(filters)) {
+            return null;
+        }
+        return sample;
+    }
 }
@@ -0,0 +1,102 @@
+package com.example.cis4900.spring.template.reports.analytics;
+
+// ResolutionHistogram counts resolution times (closedAt - createdAt, in seconds) in fixed log-linear buckets, the way an
+// HDR histogram does: every second below 64 has its own bucket and each power of two above that is split into 32
+// buckets, so any value is known to within about 3% in a fixed 8 KB no matter how many reports are recorded.
+// Histograms of the same group add up bucket by bucket, which lets a scan fill one per group in a single pass and
+// merge them afterwards without keeping or sorting the individual times.
+public final class ResolutionHistogram {
+    // Sub-buckets per power of two
+    private static final int SUB_BUCKETS = 32;
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    // Buckets 0 to 63 hold one second each, the last bucket also holds everything past 2^36 seconds
+    public static final int BUCKETS = 1024;
+
+    private final long[] counts = new long[BUCKETS];
+
+    private long count = 0;
+
+
+    // bucketOf finds the bucket of a resolution time
+    // Params:
+    // seconds - Resolution time, not negative
+    // Returns: The bucket, the same one bucketSql computes in the database
+
+    public static int bucketOf(long seconds) {
+        if (seconds < 2 * SUB_BUCKETS) {
+            return (int) Math.max(0, seconds);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(seconds);
+        long bucket = (exponent - SUB_BUCKET_BITS + 1L) * SUB_BUCKETS + (seconds >> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return (int) Math.min(BUCKETS - 1, bucket);
+    }
+
+
+    // bucketSql is bucketOf as a MySQL/MariaDB expression, LENGTH(BIN(x)) - 1 being the exact floor(log2(x))
+    // Params:
+    // seconds - SQL expression for a resolution time in seconds, not negative
+    // Returns: The SQL expression of its bucket, before the cap on the last bucket (applied by add)
+
+    public static String bucketSql(String seconds) {
+        String exponent = "(LENGTH(BIN(" + seconds + ")) - 1)";
+        return "CASE WHEN " + seconds + " < " + (2 * SUB_BUCKETS) + " THEN " + seconds
+                + " ELSE (" + exponent + " - " + (SUB_BUCKET_BITS - 1) + ") * " + SUB_BUCKETS
+                + " + (" + seconds + " >> (" + exponent + " - " + SUB_BUCKET_BITS + ")) - " + SUB_BUCKETS + " END";
+    }
+
+
+    // lowest is the smallest resolution time in a bucket
+    static long lowest(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long mantissa = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return mantissa << (exponent - SUB_BUCKET_BITS);
+    }
+
+    public void record(long seconds) {
+        add(bucketOf(seconds), 1);
+    }
+
+    public void add(int bucket, long reports) {
+        counts[Math.max(0, Math.min(BUCKETS - 1, bucket))] += reports;
+        count += reports;
+    }
+
+    public void merge(ResolutionHistogram other) {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts[bucket] += other.counts[bucket];
+        }
+        count += other.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+
+    // percentile finds the resolution time that a fraction of the reports were resolved within
+    // Params:
+    // fraction - 0.5 for the median, 0.9 for p90 and so on
+    // Returns: The middle of the bucket holding that report, in seconds (exact below 64 seconds), or 0 when empty
+
+    public long percentile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                long low = lowest(bucket);
+                long high = bucket == BUCKETS - 1 ? low : lowest(bucket + 1) - 1;
+                return low + (high - low) / 2;
+            }
+        }
+        return lowest(BUCKETS - 1);
+    }
+}
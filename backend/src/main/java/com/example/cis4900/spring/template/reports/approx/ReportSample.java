@@ -0,0 +1,398 @@
+package com.example.cis4900.spring.template.reports.approx;
+
+import com.example.cis4900.spring.template.reports.memory.DictionaryColumn;
+import com.example.cis4900.spring.template.reports.models.DistinctEstimate;
+import com.example.cis4900.spring.template.reports.models.Estimate;
+import com.example.cis4900.spring.template.reports.models.GroupEstimate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// ReportSample is a uniform random sample of the report table's text columns, kept up to date as rows are appended,
+// plus a HyperLogLog sketch of every sampled column over the whole table
+// The sample is a reservoir (Vitter's algorithm R): the first capacity rows fill it and the i-th row after that replaces
+// a random slot with probability capacity / i, so at any time every row seen so far is in the sample with the same
+// probability. Values MariaDB's default collation treats as equal share a code (the first spelling seen), as in
+// RollupCube, so filters, groups and distinct values fold the same way SQL does. A count under filters is the table
+// size times the share of sampled rows that match, with a 95% Wilson score interval for that share, narrowed by the
+// finite population correction. Values are stored as per-column codes so a scan of the sample compares ints. A column's
+// dictionary is rebuilt from the sampled rows once it has grown to twice the values they held at the last rebuild, so
+// values replaced out of the sample don't pile up. Readers share a read lock, appends take the write lock.
+public final class ReportSample {
+    // Columns kept in the sample, the ones the dashboard filters, groups and lists values of
+    public static final List<String> COLUMNS = List.of("complaintType", "descriptorType", "agencyName", "locationType",
+            "incidentZip", "addressType", "city", "status", "communityBoard", "borough", "openDataChannelType");
+
+    public static final double CONFIDENCE = 0.95;
+
+    // Standard normal quantile of the two-sided CONFIDENCE interval
+    private static final double Z = 1.959964;
+
+    // Label used for the bucket that collects every group past the top limit, as in the exact grouped counts
+    private static final String OTHER_LABEL = "OTHER";
+
+    // Values a column's dictionary can hold before it is first rebuilt
+    private static final int MIN_COMPACT_VALUES = 1024;
+
+    private final int capacity;
+
+    // codes[column][slot] is the value of a sampled row, an index into values[column], 0 for NULL
+    private final int[][] codes;
+
+    private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+
+    private final List<List<String>> values = new ArrayList<>();
+
+    private final HyperLogLog[] sketches;
+
+    // compactAt[column] is the dictionary size at which the column is rebuilt next
+    private final int[] compactAt;
+
+    private final SplittableRandom random;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Rows added, i.e. the rows of the table the sample stands for
+    private long seen = 0;
+
+    private int size = 0;
+
+    // ReportSample creates an empty sample
+    // Params:
+    // capacity - Most rows kept
+    // seed - Seed of the replacement choices
+
+    public ReportSample(int capacity, long seed) {
+        this.capacity = Math.max(1, capacity);
+        this.codes = new int[COLUMNS.size()][this.capacity];
+        this.sketches = new HyperLogLog[COLUMNS.size()];
+        this.compactAt = new int[COLUMNS.size()];
+        this.random = new SplittableRandom(seed);
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            dictionaries.add(new HashMap<>());
+            List<String> columnValues = new ArrayList<>();
+            columnValues.add(null);
+            values.add(columnValues);
+            sketches[i] = new HyperLogLog();
+            compactAt[i] = MIN_COMPACT_VALUES;
+        }
+    }
+
+
+    // add adds rows of the table to the sample and the sketches
+    // Params:
+    // rows - The rows' values in COLUMNS order
+
+    public void add(List<String[]> rows) {
+        lock.writeLock().lock();
+        try {
+            for (String[] row : rows) {
+                seen++;
+                int slot;
+                if (size < capacity) {
+                    slot = size++;
+                } else {
+                    long pick = random.nextLong(seen);
+                    slot = pick < capacity ? (int) pick : -1;
+                }
+                for (int column = 0; column < row.length; column++) {
+                    sketches[column].add(row[column] == null ? null : DictionaryColumn.collationKey(row[column]));
+                    if (slot >= 0) {
+                        codes[column][slot] = code(column, row[column]);
+                    }
+                }
+            }
+            for (int column = 0; column < COLUMNS.size(); column++) {
+                if (values.get(column).size() > compactAt[column]) {
+                    compact(column);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Rows of the table the sample stands for
+    public long total() {
+        lock.readLock().lock();
+        try {
+            return seen;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Values held in a column's dictionary, NULL included, at most about twice the values in the sample
+    public int dictionarySize(String column) {
+        lock.readLock().lock();
+        try {
+            return values.get(COLUMNS.indexOf(column)).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Rows in the sample
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // covers tells whether every filtered column is kept in the sample
+    public static boolean covers(Map<String, List<String>> filters) {
+        for (Map.Entry<String, List<String>> filter : filters.entrySet()) {
+            if (filter.getValue() != null && !filter.getValue().isEmpty() && !COLUMNS.contains(filter.getKey())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    // count estimates how many reports match the filters
+    // Params:
+    // filters - Column name to accepted values, every filtered column in COLUMNS
+    // Returns: The estimate, exact when nothing is filtered or the sample holds the whole table
+
+    public Estimate count(Map<String, List<String>> filters) {
+        lock.readLock().lock();
+        try {
+            return estimate(matching(filters).length, isUnfiltered(filters));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    // groupCounts estimates the reports for every combination of values of the given columns under the filters
+    // Params:
+    // columns - Columns to group on, all in COLUMNS
+    // filters - Column name to accepted values, every filtered column in COLUMNS
+    // limit - How many of the largest groups to return, the rest are summed into a single OTHER group (0 returns all)
+    // Returns: The groups found in the sample from largest to smallest, followed by the OTHER group if any were folded
+
+    public List<GroupEstimate> groupCounts(List<String> columns, Map<String, List<String>> filters, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] indexes = new int[columns.size()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = COLUMNS.indexOf(columns.get(i));
+            }
+
+            Map<List<Integer>, int[]> groups = new HashMap<>();
+            for (int slot : matching(filters)) {
+                List<Integer> key = new ArrayList<>(indexes.length);
+                for (int column : indexes) {
+                    key.add(codes[column][slot]);
+                }
+                groups.computeIfAbsent(key, k -> new int[1])[0]++;
+            }
+
+            List<Map.Entry<List<Integer>, int[]>> sorted = new ArrayList<>(groups.entrySet());
+            sorted.sort((a, b) -> Integer.compare(b.getValue()[0], a.getValue()[0]));
+
+            List<GroupEstimate> result = new ArrayList<>();
+            int other = 0;
+            for (Map.Entry<List<Integer>, int[]> group : sorted) {
+                if (limit > 0 && result.size() >= limit) {
+                    other += group.getValue()[0];
+                    continue;
+                }
+                List<String> groupValues = new ArrayList<>(indexes.length);
+                for (int i = 0; i < indexes.length; i++) {
+                    groupValues.add(values.get(indexes[i]).get(group.getKey().get(i)));
+                }
+                result.add(new GroupEstimate(groupValues, estimate(group.getValue()[0], false)));
+            }
+            if (other > 0) {
+                result.add(new GroupEstimate(Collections.nCopies(indexes.length, OTHER_LABEL), estimate(other, false)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    // distinctValues lists the values of a column under the filters and estimates how many there are
+    // Without filters the number comes from the column's HyperLogLog sketch. Under filters it is the GEE estimator
+    // (Charikar et al.) over the matching sampled rows: values seen more than once are counted once, values seen once
+    // stand for sqrt(N / n) values each. The interval runs from the values found to every value seen once standing for
+    // N / n values, the most it can be.
+    // Params:
+    // column - Column to list, in COLUMNS
+    // filters - Column name to accepted values, every filtered column in COLUMNS
+    // Returns: The values found in the sample, most frequent first, and the estimated number of distinct values
+
+    public DistinctEstimate distinctValues(String column, Map<String, List<String>> filters) {
+        lock.readLock().lock();
+        try {
+            int index = COLUMNS.indexOf(column);
+            Map<Integer, int[]> frequencies = new HashMap<>();
+            for (int slot : matching(filters)) {
+                frequencies.computeIfAbsent(codes[index][slot], k -> new int[1])[0]++;
+            }
+
+            List<Map.Entry<Integer, int[]>> sorted = new ArrayList<>(frequencies.entrySet());
+            sorted.sort((a, b) -> Integer.compare(b.getValue()[0], a.getValue()[0]));
+            List<String> found = new ArrayList<>(sorted.size());
+            int singletons = 0;
+            for (Map.Entry<Integer, int[]> value : sorted) {
+                found.add(values.get(index).get(value.getKey()));
+                if (value.getValue()[0] == 1) {
+                    singletons++;
+                }
+            }
+
+            int distinct = found.size();
+            if (seen == size) {
+                return new DistinctEstimate(found, new Estimate(distinct, distinct, distinct, 1.0, true, Estimate.SAMPLE));
+            }
+            if (isUnfiltered(filters)) {
+                long estimate = Math.max(distinct, sketches[index].estimate());
+                long spread = Math.round(Z * HyperLogLog.relativeError() * estimate);
+                return new DistinctEstimate(found, new Estimate(estimate, Math.max(distinct, estimate - spread), estimate + spread,
+                        CONFIDENCE, false, Estimate.HYPERLOGLOG));
+            }
+
+            double scale = (double) seen / size;
+            long estimate = Math.round(Math.sqrt(scale) * singletons + distinct - singletons);
+            long high = Math.round(scale * singletons + distinct - singletons);
+            return new DistinctEstimate(found, new Estimate(estimate, distinct, high, CONFIDENCE, false, Estimate.SAMPLE));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // estimate scales a number of matching sampled rows up to the table with its Wilson score interval
+    private Estimate estimate(int matches, boolean exact) {
+        if (exact || seen == size) {
+            long count = exact ? seen : matches;
+            return new Estimate(count, count, count, 1.0, true, Estimate.SAMPLE);
+        }
+        double n = size;
+        double share = matches / n;
+        double z2 = Z * Z;
+        double center = (share + z2 / (2 * n)) / (1 + z2 / n);
+        double half = Z * Math.sqrt(share * (1 - share) / n + z2 / (4 * n * n)) / (1 + z2 / n);
+        // Finite population correction: the sample is drawn without replacement from seen rows
+        half *= Math.sqrt((seen - n) / Math.max(1, seen - 1));
+
+        long low = Math.max(matches, (long) Math.floor(seen * (center - half)));
+        long high = Math.min(seen, (long) Math.ceil(seen * (center + half)));
+        long estimate = Math.round(seen * share);
+        return new Estimate(estimate, Math.min(low, estimate), Math.max(high, estimate), CONFIDENCE, false, Estimate.SAMPLE);
+    }
+
+    // matching lists the sampled slots whose values pass every filter, a filter value the sample has never seen matches nothing
+    private int[] matching(Map<String, List<String>> filters) {
+        List<int[]> columnFilters = new ArrayList<>();
+        for (Map.Entry<String, List<String>> filter : filters.entrySet()) {
+            if (filter.getValue() == null || filter.getValue().isEmpty()) {
+                continue;
+            }
+            int column = COLUMNS.indexOf(filter.getKey());
+            boolean[] accepted = new boolean[values.get(column).size()];
+            for (String value : filter.getValue()) {
+                Integer code = value == null ? null : dictionaries.get(column).get(DictionaryColumn.collationKey(value));
+                if (code != null) {
+                    accepted[code] = true;
+                }
+            }
+            columnFilters.add(new int[] {column});
+            columnFilters.add(toCodes(accepted));
+        }
+
+        int[] slots = new int[size];
+        int count = 0;
+        for (int slot = 0; slot < size; slot++) {
+            boolean match = true;
+            for (int i = 0; i < columnFilters.size() && match; i += 2) {
+                int code = codes[columnFilters.get(i)[0]][slot];
+                match = Arrays.binarySearch(columnFilters.get(i + 1), code) >= 0;
+            }
+            if (match) {
+                slots[count++] = slot;
+            }
+        }
+        return Arrays.copyOf(slots, count);
+    }
+
+    private static int[] toCodes(boolean[] accepted) {
+        int count = 0;
+        for (boolean value : accepted) {
+            count += value ? 1 : 0;
+        }
+        int[] result = new int[count];
+        int next = 0;
+        for (int code = 0; code < accepted.length; code++) {
+            if (accepted[code]) {
+                result[next++] = code;
+            }
+        }
+        return result;
+    }
+
+    private static boolean isUnfiltered(Map<String, List<String>> filters) {
+        for (List<String> accepted : filters.values()) {
+            if (accepted != null && !accepted.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // code returns the column's code for a value, adding it to the column's dictionary the first time its collation key is seen
+    private int code(int column, String value) {
+        if (value == null) {
+            return 0;
+        }
+        String key = DictionaryColumn.collationKey(value);
+        Integer code = dictionaries.get(column).get(key);
+        if (code == null) {
+            code = values.get(column).size();
+            values.get(column).add(value);
+            dictionaries.get(column).put(key, code);
+        }
+        return code;
+    }
+
+    // compact rebuilds a column's dictionary from the values still in the sample, renumbering the codes in slot order
+    // Each value keeps the spelling it was first seen with.
+    private void compact(int column) {
+        List<String> old = values.get(column);
+        int[] renumbered = new int[old.size()];
+        List<String> kept = new ArrayList<>();
+        kept.add(null);
+        Map<String, Integer> dictionary = new HashMap<>();
+
+        int[] columnCodes = codes[column];
+        for (int slot = 0; slot < size; slot++) {
+            int code = columnCodes[slot];
+            if (code == 0) {
+                continue;
+            }
+            if (renumbered[code] == 0) {
+                renumbered[code] = kept.size();
+                kept.add(old.get(code));
+                dictionary.put(DictionaryColumn.collationKey(old.get(code)), renumbered[code]);
+            }
+            columnCodes[slot] = renumbered[code];
+        }
+
+        values.set(column, kept);
+        dictionaries.set(column, dictionary);
+        compactAt[column] = Math.max(MIN_COMPACT_VALUES, 2 * kept.size());
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.cis4900.spring.template.reports.approx;
+
+import com.example.cis4900.spring.template.reports.DatasetReloadedEvent;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// SampleEngine keeps the ReportSample in step with the report table when reports.approximate.enabled=true
+// It follows the table the same way RollupEngine does: rows past the watermark are added once the application is up and
+// after every append-only DatasetReloadedEvent, and the sample is drawn again from scratch after any other change or when
+// the rows up to the watermark no longer add up to what it has seen. Until the first draw is done getSample() returns null
+// and the approximate queries are answered exactly.
+@Component
+@ConditionalOnProperty(name = "reports.approximate.enabled", havingValue = "true")
+public class SampleEngine {
+    private static final String LOAD_SQL = "SELECT Id, " + String.join(", ", ReportSample.COLUMNS)
+            + " FROM report WHERE Id > ? ORDER BY Id";
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM report WHERE Id <= ?";
+
+    // Rows handed to the sample per write lock, so queries aren't held up for a whole load
+    private static final int BATCH_ROWS = 10000;
+
+    private final DataSource dataSource;
+
+    private final int sampleSize;
+
+    // Seed of every draw, or null to seed each draw from System.nanoTime()
+    private final Long seed;
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reports-sample-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile ReportSample sample;
+
+    private volatile long watermark = Integer.MIN_VALUE;
+
+    private volatile boolean rebuildRequested = false;
+
+    private final AtomicBoolean refreshPending = new AtomicBoolean(false);
+
+    @Autowired
+    public SampleEngine(DataSource dataSource, @Value("${reports.approximate.sample-size:100000}") int sampleSize,
+                        @Value("${reports.approximate.seed:#{null}}") Long seed) {
+        this.dataSource = dataSource;
+        this.sampleSize = sampleSize;
+        this.seed = seed;
+    }
+
+    // getSample returns the sample once it is drawn, else null
+    public ReportSample getSample() {
+        return sample;
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshInBackground() {
+        if (refreshPending.compareAndSet(false, true)) {
+            refresher.submit(() -> {
+                refreshPending.set(false);
+                refresh();
+            });
+        }
+    }
+
+    // Updated rows may have left the sample holding values the table no longer has, the next refresh draws it again
+    @EventListener(DatasetReloadedEvent.class)
+    public void datasetChanged(DatasetReloadedEvent event) {
+        if (!event.isAppendOnly()) {
+            rebuildRequested = true;
+        }
+        refreshInBackground();
+    }
+
+
+    // refresh adds the rows past the watermark to the sample, or draws a new sample if the rows it has seen have changed
+    // or existing rows were updated
+
+    public synchronized void refresh() {
+        long started = System.currentTimeMillis();
+        boolean rebuild = rebuildRequested;
+        rebuildRequested = false;
+        try (Connection connection = dataSource.getConnection()) {
+            ReportSample current = sample;
+            if (!rebuild && current != null && countUpTo(connection, watermark) == current.total()) {
+                long added = load(connection, current);
+                System.out.println("Added " + added + " reports to the sample in " + (System.currentTimeMillis() - started) + " ms");
+                return;
+            }
+
+            ReportSample drawn = new ReportSample(sampleSize, seed != null ? seed : System.nanoTime());
+            watermark = Integer.MIN_VALUE;
+            load(connection, drawn);
+            sample = drawn;
+            System.out.println("Drew sample: " + drawn.size() + " of " + drawn.total() + " reports in "
+                    + (System.currentTimeMillis() - started) + " ms");
+        } catch (SQLException | RuntimeException e) {
+            rebuildRequested = rebuildRequested || rebuild;
+            System.err.println("Error refreshing report sample, approximate queries stay exact: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+
+    // load streams the rows past the watermark into the sample, moving the watermark along
+    // Returns: How many rows were added
+
+    private long load(Connection connection, ReportSample target) throws SQLException {
+        int width = ReportSample.COLUMNS.size();
+        long added = 0;
+        List<String[]> batch = new ArrayList<>(BATCH_ROWS);
+
+        try (PreparedStatement statement = connection.prepareStatement(LOAD_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Stream the rows instead of buffering them, see ReportsSnapshotEngine
+            statement.setFetchSize(Integer.MIN_VALUE);
+            statement.setLong(1, watermark);
+
+            try (ResultSet rows = statement.executeQuery()) {
+                long lastId = watermark;
+                while (rows.next()) {
+                    String[] values = new String[width];
+                    for (int i = 0; i < width; i++) {
+                        values[i] = rows.getString(i + 2);
+                    }
+                    batch.add(values);
+                    lastId = rows.getInt(1);
+                    if (batch.size() == BATCH_ROWS) {
+                        target.add(batch);
+                        watermark = lastId;
+                        added += batch.size();
+                        batch.clear();
+                    }
+                }
+                target.add(batch);
+                watermark = lastId;
+                added += batch.size();
+            }
+        }
+        return added;
+    }
+
+    private static long countUpTo(Connection connection, long id) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(COUNT_SQL)) {
+            statement.setLong(1, id);
+            try (ResultSet rows = statement.executeQuery()) {
+                rows.next();
+                return rows.getLong(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.cis4900.spring.template.reports.audit;
+
+import java.util.List;
+
+// QueryEvent is one executed report query as captured by QueryLog: the statement shape, its bound parameters, how long
+// it ran and how many rows it returned. The plan is only filled in for slow queries when reports.query-log.explain is on.
+public class QueryEvent {
+    private String sql;
+
+    private List<Object> parameters;
+
+    private long startedAt;
+
+    private double millis;
+
+    private long rows;
+
+    private boolean slow;
+
+    private String thread;
+
+    private List<String> plan;
+
+    public QueryEvent(){
+    }
+
+    public QueryEvent(String sql, List<Object> parameters, long startedAt, double millis, long rows, boolean slow, String thread){
+        this.sql = sql;
+        this.parameters = parameters;
+        this.startedAt = startedAt;
+        this.millis = millis;
+        this.rows = rows;
+        this.slow = slow;
+        this.thread = thread;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public void setSql(String sql) {
+        this.sql = sql;
+    }
+
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(List<Object> parameters) {
+        this.parameters = parameters;
+    }
+
+    // Wall clock time the query started, in epoch milliseconds
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(long startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public double getMillis() {
+        return millis;
+    }
+
+    public void setMillis(double millis) {
+        this.millis = millis;
+    }
+
+    // Rows returned, or -1 if the query failed
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    public boolean isSlow() {
+        return slow;
+    }
+
+    public void setSlow(boolean slow) {
+        this.slow = slow;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+
+    public void setThread(String thread) {
+        this.thread = thread;
+    }
+
+    public List<String> getPlan() {
+        return plan;
+    }
+
+    public void setPlan(List<String> plan) {
+        this.plan = plan;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryEvent{" +
+                "sql='" + sql + '\'' +
+                ", parameters=" + parameters +
+                ", startedAt=" + startedAt +
+                ", millis=" + millis +
+                ", rows=" + rows +
+                ", slow=" + slow +
+                ", thread='" + thread + '\'' +
+                ", plan=" + plan +
+                '}';
+    }
+}
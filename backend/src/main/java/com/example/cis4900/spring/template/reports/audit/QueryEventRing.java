@@ -0,0 +1,62 @@
+package com.example.cis4900.spring.template.reports.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// QueryEventRing is a bounded lock-free queue of query events, written by any number of request threads and read by a
+// single drain thread
+// A writer claims the next sequence number with a compare-and-set and then publishes its event into that slot. The
+// reader takes slots in sequence order and waits on a claimed slot until its event is published. When the reader falls
+// a full ring behind, offer drops the event instead of blocking the request.
+class QueryEventRing {
+    private final AtomicReferenceArray<QueryEvent> slots;
+
+    private final int mask;
+
+    // Next sequence number to claim, shared by the writers
+    private final AtomicLong head = new AtomicLong();
+
+    // Next sequence number to read, only advanced by the reader
+    private volatile long tail;
+
+    QueryEventRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    // offer adds an event unless the ring is full
+    // Params: event: The event to add
+    // Returns: false if the ring was full and the event was dropped
+
+    boolean offer(QueryEvent event) {
+        while (true) {
+            long sequence = head.get();
+            if (sequence - tail >= slots.length()) {
+                return false;
+            }
+            if (head.compareAndSet(sequence, sequence + 1)) {
+                slots.set((int) (sequence & mask), event);
+                return true;
+            }
+        }
+    }
+
+    // poll takes the oldest event, only ever called from the drain thread
+    // Returns: The event, or null if the ring is empty or the oldest claimed slot is not published yet
+
+    QueryEvent poll() {
+        int index = (int) (tail & mask);
+        QueryEvent event = slots.get(index);
+        if (event == null) {
+            return null;
+        }
+        slots.set(index, null);
+        tail = tail + 1;
+        return event;
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+}
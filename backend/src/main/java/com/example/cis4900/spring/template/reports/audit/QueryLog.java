@@ -0,0 +1,287 @@
+package com.example.cis4900.spring.template.reports.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// QueryLog is the audit trail of the report queries, kept off the request threads
+// record only decides whether to keep a query and hands it to a lock-free ring (QueryEventRing). A background thread
+// drains the ring every DRAIN_MILLIS and writes each event as one JSON line to stdout, so request threads never wait on
+// the console. Queries at or above reports.query-log.slow-millis are always kept, faster ones are sampled at
+// reports.query-log.sample-rate. The most recent slow queries are also kept in memory for /api/admin/slow-queries, with
+// their EXPLAIN plan when reports.query-log.explain is on.
+@Component
+public class QueryLog {
+    static final long DRAIN_MILLIS = 100;
+
+    // Parameters written per logged query, the rest are counted, so an IN list of thousands of values stays one short line
+    private static final int LOGGED_PARAMETERS = 50;
+
+    // A statement shape is explained again at most this often
+    private static final long EXPLAIN_INTERVAL_MILLIS = 60000;
+
+    // Upper bound on the statement shapes with a remembered plan
+    private static final int MAX_PLANS = 256;
+
+    private final DataSource dataSource;
+
+    private final boolean enabled;
+
+    private final double sampleRate;
+
+    private final long slowNanos;
+
+    private final boolean explain;
+
+    private final int keepSlow;
+
+    private final QueryEventRing ring;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Recent slow queries, newest first, added to by the drain thread
+    private final Deque<QueryEvent> slowQueries = new ArrayDeque<>();
+
+    // Plans by statement shape with the time they were taken, only used by the drain thread
+    private final Map<String, Plan> plans = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Plan> eldest) {
+            return size() > MAX_PLANS;
+        }
+    };
+
+    private final LongAdder recorded = new LongAdder();
+
+    private final LongAdder logged = new LongAdder();
+
+    private final LongAdder slow = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final ScheduledExecutorService drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reports-query-log");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public QueryLog(DataSource dataSource,
+                    @Value("${reports.query-log.enabled:true}") boolean enabled,
+                    @Value("${reports.query-log.capacity:8192}") int capacity,
+                    @Value("${reports.query-log.sample-rate:0.01}") double sampleRate,
+                    @Value("${reports.query-log.slow-millis:500}") long slowMillis,
+                    @Value("${reports.query-log.explain:false}") boolean explain,
+                    @Value("${reports.query-log.keep-slow:100}") int keepSlow) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.sampleRate = Math.max(0, Math.min(sampleRate, 1));
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, slowMillis));
+        this.explain = explain;
+        this.keepSlow = Math.max(1, keepSlow);
+        this.ring = new QueryEventRing(Math.max(16, capacity));
+        if (enabled) {
+            drainer.scheduleWithFixedDelay(this::drain, DRAIN_MILLIS, DRAIN_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+
+    // record notes an executed query, called on the request thread
+    // Params:
+    // sql - Statement text with ? placeholders
+    // parameters - Values bound to the placeholders, not changed afterwards by the caller
+    // startedNanos - System.nanoTime() when the query started
+    // rows - Rows returned, or -1 if the query failed
+
+    public void record(String sql, List<Object> parameters, long startedNanos, long rows) {
+        if (!enabled) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startedNanos;
+        recorded.increment();
+
+        boolean isSlow = elapsed >= slowNanos;
+        if (isSlow) {
+            slow.increment();
+        } else if (sampleRate == 0 || sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+
+        long startedAt = System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(elapsed);
+        QueryEvent event = new QueryEvent(sql, parameters, startedAt, elapsed / 1e6, rows, isSlow, Thread.currentThread().getName());
+        if (!ring.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    // slowQueries returns the recent slow queries, slowest first
+    // Params: limit: Most queries to return
+    // Returns: The queries, at most reports.query-log.keep-slow of the latest
+
+    public List<QueryEvent> slowQueries(int limit) {
+        List<QueryEvent> result;
+        synchronized (slowQueries) {
+            result = new ArrayList<>(slowQueries);
+        }
+        result.sort(Comparator.comparingDouble(QueryEvent::getMillis).reversed());
+        return result.subList(0, Math.max(0, Math.min(limit, result.size())));
+    }
+
+    // Queries seen by record, whether or not they were kept
+    public long getRecorded() {
+        return recorded.sum();
+    }
+
+    // Queries written to the log
+    public long getLogged() {
+        return logged.sum();
+    }
+
+    public long getSlow() {
+        return slow.sum();
+    }
+
+    // Kept queries lost because the ring was full
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getSlowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowNanos);
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    // drain writes out everything in the ring, runs on the drain thread
+    void drain() {
+        try {
+            StringBuilder lines = new StringBuilder();
+            QueryEvent event;
+            while ((event = ring.poll()) != null) {
+                if (event.isSlow()) {
+                    if (explain) {
+                        event.setPlan(plan(event));
+                    }
+                    synchronized (slowQueries) {
+                        slowQueries.addFirst(event);
+                        while (slowQueries.size() > keepSlow) {
+                            slowQueries.removeLast();
+                        }
+                    }
+                }
+                lines.append(toJson(event)).append(System.lineSeparator());
+                logged.increment();
+            }
+            if (lines.length() > 0) {
+                System.out.print(lines);
+            }
+        } catch (RuntimeException e) {
+            // Keep the scheduled drain alive, an exception would cancel it
+            System.err.println("Error writing the query log: " + e.getMessage());
+        }
+    }
+
+    // toJson renders an event as one structured log line
+    String toJson(QueryEvent event) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("log", "query");
+        line.put("at", Instant.ofEpochMilli(event.getStartedAt()).toString());
+        line.put("thread", event.getThread());
+        line.put("millis", Math.round(event.getMillis() * 1000) / 1000.0);
+        line.put("rows", event.getRows());
+        line.put("slow", event.isSlow());
+        line.put("sql", event.getSql());
+
+        List<Object> parameters = event.getParameters();
+        List<Object> values = new ArrayList<>();
+        for (Object value : parameters.subList(0, Math.min(parameters.size(), LOGGED_PARAMETERS))) {
+            // Dates and other values are written as their text so any bound type can be rendered
+            values.add(value == null || value instanceof Number || value instanceof Boolean ? value : value.toString());
+        }
+        line.put("params", values);
+        if (parameters.size() > LOGGED_PARAMETERS) {
+            line.put("moreParams", parameters.size() - LOGGED_PARAMETERS);
+        }
+        if (event.getPlan() != null) {
+            line.put("plan", event.getPlan());
+        }
+
+        try {
+            return objectMapper.writeValueAsString(line);
+        } catch (JsonProcessingException e) {
+            return line.toString();
+        }
+    }
+
+
+    // plan runs EXPLAIN for a slow query's statement shape, reusing a plan taken in the last EXPLAIN_INTERVAL_MILLIS
+    private List<String> plan(QueryEvent event) {
+        long now = System.currentTimeMillis();
+        Plan cached = plans.get(event.getSql());
+        if (cached != null && now - cached.takenAt < EXPLAIN_INTERVAL_MILLIS) {
+            return cached.rows;
+        }
+
+        List<String> rows = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + event.getSql())) {
+            List<Object> parameters = event.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            try (ResultSet result = statement.executeQuery()) {
+                ResultSetMetaData metaData = result.getMetaData();
+                while (result.next()) {
+                    StringBuilder row = new StringBuilder();
+                    for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                        if (column > 1) {
+                            row.append(", ");
+                        }
+                        row.append(metaData.getColumnLabel(column)).append('=').append(result.getString(column));
+                    }
+                    rows.add(row.toString());
+                }
+            }
+        } catch (SQLException e) {
+            rows.add("EXPLAIN failed: " + e.getMessage());
+        }
+        plans.put(event.getSql(), new Plan(rows, now));
+        return rows;
+    }
+
+    private static final class Plan {
+        private final List<String> rows;
+
+        private final long takenAt;
+
+        private Plan(List<String> rows, long takenAt) {
+            this.rows = rows;
+            this.takenAt = takenAt;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.cis4900.spring.template.reports.cache;
+
+import com.example.cis4900.spring.template.reports.DatasetCopyRefreshedEvent;
+import com.example.cis4900.spring.template.reports.DatasetReloadedEvent;
+import com.example.cis4900.spring.template.reports.dao.ReportFilter;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// ReportsQueryCache keeps the results of the count and distinct-value queries the table runs on every filter change
+// The data only changes when the dataset is reloaded, so results are kept until then (DatasetReloadedEvent) or until
+// they are evicted to stay under the configured weight. A count weighs 1, a list of values weighs 1 plus its length.
+// Keys start with a generation that every invalidation moves on, so a query that was already running when the data
+// changed stores its result under a generation no later lookup uses. Results are dropped both when the table changes
+// and when the snapshot or rollup cube answering the queries has caught up with it (DatasetCopyRefreshedEvent), as
+// queries in between are still answered from the old copy.
+@Component
+public class ReportsQueryCache {
+    private final Cache<String, Object> cache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public ReportsQueryCache(@Value("${reports.cache.max-weight:200000}") long maxWeight) {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String key, Object value) -> 1 + (value instanceof Collection ? ((Collection<?>) value).size() : 0))
+                .recordStats()
+                .build();
+    }
+
+
+    // count returns the cached count for the filters, running the query only on a miss
+    // Params:
+    // filters - Filter JSON as sent by the frontend
+    // query - Runs the count against the database
+    // Returns: The count
+
+    public Integer count(String filters, Supplier<Integer> query) {
+        return (Integer) cache.get(generation.get() + "|count|" + canonicalFilters(filters), key -> query.get());
+    }
+
+
+    // count is the cached count for an already parsed filter, sharing the entries of the filter JSON it was read from
+
+    public Integer count(ReportFilter filter, Supplier<Integer> query) {
+        return (Integer) cache.get(generation.get() + "|count|" + canonicalKey(filter.getFilters()), key -> query.get());
+    }
+
+
+    // columnValues returns the cached distinct values of a column for the filters, running the query only on a miss
+    // Params:
+    // columnName - Column the values are for
+    // filters - Filter JSON as sent by the frontend
+    // query - Runs the SELECT DISTINCT against the database
+    // Returns: The values, as an unmodifiable list
+
+    public Iterable<String> columnValues(String columnName, String filters, Supplier<Iterable<String>> query) {
+        return columnValuesFor(columnName, canonicalFilters(filters), query);
+    }
+
+
+    // columnValues is the cached distinct values for an already parsed filter, see count(ReportFilter, Supplier)
+
+    public Iterable<String> columnValues(String columnName, ReportFilter filter, Supplier<Iterable<String>> query) {
+        return columnValuesFor(columnName, canonicalKey(filter.getFilters()), query);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Iterable<String> columnValuesFor(String columnName, String filtersKey, Supplier<Iterable<String>> query) {
+        return (Iterable<String>) cache.get(generation.get() + "|distinct|" + columnName + "|" + filtersKey, key -> {
+            Iterable<String> values = query.get();
+            if (values == null) {
+                return null;
+            }
+            List<String> copy = new ArrayList<>();
+            values.forEach(copy::add);
+            return Collections.unmodifiableList(copy);
+        });
+    }
+
+
+    // canonicalFilters turns filter JSON into a key that is the same for every way of writing the same filter:
+    // columns and values sorted, duplicate values and columns with no values dropped, and no filters at all (null,
+    // blank, {} or unreadable JSON, which the DAO also ignores) all become ""
+    // Params:
+    // filters - Filter JSON as sent by the frontend
+    // Returns: The canonical key
+
+    public String canonicalFilters(String filters) {
+        if (filters == null || filters.isBlank()) {
+            return "";
+        }
+
+        Map<String, List<String>> parsed;
+        try {
+            parsed = objectMapper.readValue(filters, new TypeReference<LinkedHashMap<String, List<String>>>() {});
+        } catch (Exception e) {
+            return "";
+        }
+        return canonicalKey(parsed);
+    }
+
+    // canonicalKey is canonicalFilters for filters already read from their JSON
+    private String canonicalKey(Map<String, List<String>> parsed) {
+        if (parsed == null) {
+            return "";
+        }
+        Map<String, Collection<String>> canonical = new TreeMap<>();
+        for (Map.Entry<String, List<String>> entry : parsed.entrySet()) {
+            if (entry.getValue() == null || entry.getValue().isEmpty()) {
+                continue;
+            }
+            TreeSet<String> values = new TreeSet<>(Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+            values.addAll(entry.getValue());
+            canonical.put(entry.getKey(), values);
+        }
+
+        if (canonical.isEmpty()) {
+            return "";
+        }
+        try {
+            return objectMapper.writeValueAsString(canonical);
+        } catch (Exception e) {
+            return canonical.toString();
+        }
+    }
+
+
+    // invalidate drops every cached result, called whenever the report table or a copy it is queried from changes
+    @EventListener({DatasetReloadedEvent.class, DatasetCopyRefreshedEvent.class})
+    public void invalidate() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
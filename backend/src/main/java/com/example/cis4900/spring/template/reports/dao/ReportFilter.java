@@ -0,0 +1,70 @@
+package com.example.cis4900.spring.template.reports.dao;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// ReportFilter is the frontend's filter JSON parsed once, with its WHERE conditions already built
+// A request that runs several queries under the same filters (the /dashboard endpoint) parses the JSON and builds the
+// "column IN (...)" conditions once and hands the same ReportFilter to every query, which append the prepared text and
+// parameters with ReportQueryBuilder.filters(ReportFilter). Immutable, so the queries can share it across threads.
+public final class ReportFilter {
+    private static final ReportFilter NONE = new ReportFilter(new LinkedHashMap<>());
+
+    private final Map<String, List<String>> filters;
+
+    // The conditions joined with AND, without the WHERE, or "" when nothing is filtered
+    private final String clause;
+
+    private final List<Object> parameters;
+
+    private ReportFilter(Map<String, List<String>> filters) {
+        this.filters = Collections.unmodifiableMap(filters);
+        ReportQueryBuilder where = new ReportQueryBuilder("").filters(filters);
+        this.clause = where.getSql().isEmpty() ? "" : where.getSql().substring(" WHERE ".length());
+        this.parameters = Collections.unmodifiableList(where.getParameters());
+    }
+
+
+    // parse reads the filter JSON sent by the frontend, see ReportQueryBuilder.parseFilters
+    // Params:
+    // filtersJson - Json string of the filters, e.g. {"borough":["Brooklyn","Queens"]}
+    // Returns: The filter, or null if it names a column the report table does not have
+
+    public static ReportFilter parse(String filtersJson) {
+        Map<String, List<String>> filters = ReportQueryBuilder.parseFilters(filtersJson);
+        if (filters == null) {
+            return null;
+        }
+        return filters.isEmpty() ? NONE : new ReportFilter(filters);
+    }
+
+
+    // without returns the filter without the column's own condition, as its filter list is offered: every value the
+    // other filters leave, so a picked value can be dropped again
+    // Params:
+    // column - The column to leave out
+    // Returns: This filter when the column is not filtered, else a new one
+
+    public ReportFilter without(String column) {
+        if (!filters.containsKey(column)) {
+            return this;
+        }
+        Map<String, List<String>> others = new LinkedHashMap<>(filters);
+        others.remove(column);
+        return new ReportFilter(others);
+    }
+
+    public Map<String, List<String>> getFilters() {
+        return filters;
+    }
+
+    String getClause() {
+        return clause;
+    }
+
+    List<Object> getParameters() {
+        return parameters;
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.cis4900.spring.template.reports.dao;
+
+import com.example.cis4900.spring.template.reports.models.Report;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.Column;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// ReportQueryBuilder assembles the native SQL for the report queries with every value bound as a ? parameter
+// Column names can't be parameters, so they are checked against the @Column names of the Report entity before they
+// are written into the SQL. The SQL text only depends on the shape of a request, never on the values in it: filter
+// columns are written in sorted order and every IN list is padded up to the next power of two by repeating its last
+// value. Requests with the same filter columns and similar list lengths therefore reuse one prepared statement, which
+// the driver and MariaDB can cache instead of parsing a new statement per filter combination.
+public class ReportQueryBuilder {
+    // Column names of the report table, read from the Report entity
+    public static final Set<String> REPORT_COLUMNS = entityColumns();
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final StringBuilder sql;
+
+    private final List<Object> parameters = new ArrayList<>();
+
+    private boolean hasWhere = false;
+
+    public ReportQueryBuilder(String select, Object... values) {
+        this.sql = new StringBuilder(select);
+        Collections.addAll(parameters, values);
+    }
+
+
+    // where adds a condition, joined to the ones before it with AND
+    // Params:
+    // condition - SQL condition with ? for each value
+    // values - Values to bind, in order
+    // Returns: This builder
+
+    public ReportQueryBuilder where(String condition, Object... values) {
+        sql.append(hasWhere ? " AND " : " WHERE ").append(condition);
+        hasWhere = true;
+        Collections.addAll(parameters, values);
+        return this;
+    }
+
+
+    // filters adds one "column IN (...)" condition per filtered column, in column name order
+    // Params:
+    // filters - Column name to accepted values, columns without values are skipped
+    // Returns: This builder
+    // Throws: IllegalArgumentException if a filter names a column the report table does not have
+
+    public ReportQueryBuilder filters(Map<String, List<String>> filters) {
+        for (Map.Entry<String, List<String>> entry : new TreeMap<>(filters).entrySet()) {
+            if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+                whereIn(entry.getKey(), entry.getValue());
+            }
+        }
+        return this;
+    }
+
+
+    // filters adds the conditions of an already parsed filter, as built when it was parsed
+    // Params:
+    // filter - The filter
+    // Returns: This builder
+
+    public ReportQueryBuilder filters(ReportFilter filter) {
+        if (filter.getClause().isEmpty()) {
+            return this;
+        }
+        return where(filter.getClause(), filter.getParameters().toArray());
+    }
+
+
+    // whereIn adds a "column IN (...)" condition, the values are de-duplicated and padded to a power of two slots
+    // Params:
+    // column - Report column to match
+    // values - Accepted values, at least one
+    // Returns: This builder
+    // Throws: IllegalArgumentException if the report table has no such column
+
+    public ReportQueryBuilder whereIn(String column, List<?> values) {
+        List<Object> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        int slots = Integer.highestOneBit(distinct.size());
+        if (slots < distinct.size()) {
+            slots <<= 1;
+        }
+
+        StringBuilder condition = new StringBuilder("(").append(column(column)).append(" IN (");
+        for (int i = 0; i < slots; i++) {
+            condition.append(i > 0 ? ", ?" : "?");
+        }
+        condition.append("))");
+
+        Object[] bound = new Object[slots];
+        for (int i = 0; i < slots; i++) {
+            bound[i] = distinct.get(Math.min(i, distinct.size() - 1));
+        }
+        return where(condition.toString(), bound);
+    }
+
+
+    // append adds any other SQL (GROUP BY, ORDER BY, LIMIT ...) with its values
+    public ReportQueryBuilder append(String text, Object... values) {
+        sql.append(text);
+        Collections.addAll(parameters, values);
+        return this;
+    }
+
+    public String getSql() {
+        return sql.toString();
+    }
+
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+
+    // column checks a single column name against the report table
+    // Returns: The column name
+    // Throws: IllegalArgumentException if the report table has no such column
+
+    public static String column(String name) {
+        if (name == null || !REPORT_COLUMNS.contains(name.trim())) {
+            throw new IllegalArgumentException("Unknown report column: " + name);
+        }
+        return name.trim();
+    }
+
+
+    // columns splits a comma separated column list and checks every column against the report table
+    // Params:
+    // columns - Comma separated list of column names
+    // Returns: The column names without duplicates, or an empty list if it is blank or any of them is not a report column
+
+    public static List<String> columns(String columns) {
+        if (columns == null || columns.isBlank()) {
+            return Collections.emptyList();
+        }
+
+        List<String> parsed = new ArrayList<>();
+        for (String column : columns.split(",")) {
+            String trimmed = column.trim();
+            if (!REPORT_COLUMNS.contains(trimmed)) {
+                return Collections.emptyList();
+            }
+            if (!parsed.contains(trimmed)) {
+                parsed.add(trimmed);
+            }
+        }
+        return parsed;
+    }
+
+
+    // parseLimit reads a whole number parameter such as the top-N limit of the grouped counts or a zoom level, the same
+    // way for the exact and the approximate queries
+    // Params:
+    // limit - The number as sent by the frontend
+    // Returns: The limit, or 0 (no limit) if it is blank or not a positive number
+
+    public static int parseLimit(String limit) {
+        try {
+            return Math.max(0, Integer.parseInt(limit.trim()));
+        } catch (NullPointerException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+
+    // parseFilters reads the filter JSON sent by the frontend
+    // Params:
+    // filtersJson - Json string of the filters, e.g. {"borough":["Brooklyn","Queens"]}
+    // Returns: Column name to accepted values, empty if there are no filters or the JSON can't be read, null if a filter
+    // names a column the report table does not have
+
+    public static Map<String, List<String>> parseFilters(String filtersJson) {
+        if (filtersJson == null || filtersJson.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+
+        try {
+            // Parse JSON string to Map
+            Map<String, List<String>> filterMap = OBJECT_MAPPER.readValue(
+                    filtersJson,
+                    new TypeReference<LinkedHashMap<String, List<String>>>() {}
+            );
+            if (!REPORT_COLUMNS.containsAll(filterMap.keySet())) {
+                System.err.println("Unknown filter column in: " + filtersJson);
+                return null;
+            }
+            return filterMap;
+        } catch (Exception e) {
+            System.err.println("Error parsing filters JSON: " + e.getMessage());
+            e.printStackTrace();
+            return new LinkedHashMap<>();
+        }
+    }
+
+
+    // parseBbox reads a "west,south,east,north" bounding box
+    // Params:
+    // bbox - The bounding box as sent by the map
+    // Returns: {west, south, east, north}, or null if it is blank or not four numbers with west <= east and south <= north
+
+    public static double[] parseBbox(String bbox) {
+        if (bbox == null || bbox.isBlank()) {
+            return null;
+        }
+
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            return null;
+        }
+
+        double[] bounds = new double[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                bounds[i] = Double.parseDouble(parts[i].trim());
+                if (Double.isNaN(bounds[i]) || Double.isInfinite(bounds[i])) {
+                    return null;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        if (bounds[0] > bounds[2] || bounds[1] > bounds[3]) {
+            return null;
+        }
+        return bounds;
+    }
+
+
+    private static Set<String> entityColumns() {
+        Set<String> names = new LinkedHashSet<>();
+        for (Field field : Report.class.getDeclaredFields()) {
+            Column column = field.getAnnotation(Column.class);
+            if (column != null) {
+                names.add(column.name().isEmpty() ? field.getName() : column.name());
+            }
+        }
+        return Collections.unmodifiableSet(names);
+    }
+}
@@ -1,17 +1,51 @@
 package com.example.cis4900.spring.template.reports.dao;
 
+import com.example.cis4900.spring.template.reports.models.GroupCount;
+import com.example.cis4900.spring.template.reports.models.HeatCell;
 import com.example.cis4900.spring.template.reports.models.Report;
+import com.example.cis4900.spring.template.reports.models.ResolutionPercentiles;
+import com.example.cis4900.spring.template.reports.models.TimeBucketCount;
+
+import java.util.List;
 
 public interface ReportsDaoCustom {
     Iterable<Report> findLimitedReports(String limit, String start, String filters);
 
+    Iterable<Report> findReportsAfter(String limit, Integer afterId, String filters);
+
     Integer getFilteredCount(String currentFilters);
 
     Iterable<String> findColumnValues(String columnName, String currentFilters);
 
     Iterable <Report> getMapMarkers(String limit, String currentFilters);
 
+    Iterable <Report> getMapMarkersInBox(String bbox, String limit, String currentFilters);
+
+    List<Object[]> getLocations(String currentFilters);
+
+    Iterable<Report> findReportsByIds(List<Integer> ids);
+
     Iterable <Report> getChartData(String limit, String column, String currentFilters);
 
     Iterable <Report> getHeatMapData(String limit, String column, String currentFilters);
+
+    Iterable<GroupCount> getGroupedCounts(String columns, String limit, String currentFilters);
+
+    Iterable<HeatCell> getHeatMapCells(String bbox, String zoom, String cellSize, String currentFilters);
+
+    Iterable<ResolutionPercentiles> getResolutionPercentiles(String groupBy, String limit, String currentFilters);
+
+    Iterable<TimeBucketCount> getTimeSeries(String column, String bucket, String from, String to, String currentFilters);
+
+    // The same queries under a filter parsed once, for requests that run several of them (the /dashboard endpoint)
+
+    Iterable<Report> findFilteredReports(String limit, String start, ReportFilter filter);
+
+    Integer countFilteredReports(ReportFilter filter);
+
+    Iterable<String> findFilteredColumnValues(String columnName, ReportFilter filter);
+
+    Iterable<Report> getFilteredMapMarkers(String limit, ReportFilter filter);
+
+    Iterable<Report> getFilteredChartData(String limit, String column, ReportFilter filter);
 }
\ No newline at end of file
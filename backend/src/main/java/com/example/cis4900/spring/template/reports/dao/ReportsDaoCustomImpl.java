@@ -1,13 +1,29 @@
 package com.example.cis4900.spring.template.reports.dao;
 
+import com.example.cis4900.spring.template.reports.analytics.ResolutionHistogram;
+import com.example.cis4900.spring.template.reports.audit.QueryLog;
+import com.example.cis4900.spring.template.reports.memory.ReportsSnapshot;
+import com.example.cis4900.spring.template.reports.memory.ReportsSnapshotEngine;
+import com.example.cis4900.spring.template.reports.models.GroupCount;
+import com.example.cis4900.spring.template.reports.models.HeatCell;
 import com.example.cis4900.spring.template.reports.models.Report;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.cis4900.spring.template.reports.models.ResolutionPercentiles;
+import com.example.cis4900.spring.template.reports.models.TimeBucketCount;
+import com.example.cis4900.spring.template.reports.rollup.RollupCube;
+import com.example.cis4900.spring.template.reports.rollup.RollupEngine;
+import com.example.cis4900.spring.template.reports.time.TimeBucket;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
 
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -16,7 +32,50 @@ public class ReportsDaoCustomImpl implements ReportsDaoCustom {
     @PersistenceContext
     private EntityManager entityManager;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Only present when reports.query-engine=memory. While its snapshot is loaded every query below is answered from
+    // memory instead of SQL, with the same filters, ordering and result shapes
+    @Autowired(required = false)
+    private ReportsSnapshotEngine snapshotEngine;
+
+    // Only present when reports.rollup.enabled=true. Counts, grouped counts and createdAt time series that only filter
+    // and group on the rolled-up columns are answered from its cube before either engine is asked
+    @Autowired(required = false)
+    private RollupEngine rollupEngine;
+
+    // Counts how often each statement shape is reused, exposed at /api/admin/statements
+    @Autowired(required = false)
+    private StatementShapeStats statementStats;
+
+    // Times every query run below and logs a sample of them, and every slow one, off the request thread
+    @Autowired(required = false)
+    private QueryLog queryLog;
+
+    // Columns getMapMarkers returns for every marker
+    private static final List<String> MAP_MARKER_COLUMNS = List.of("Id", "complaintType", "descriptorType", "agencyName", "latitude", "longitude");
+
+    // Columns getLocations returns for every report
+    private static final List<String> LOCATION_COLUMNS = List.of("Id", "latitude", "longitude");
+
+    // Bounding box covering every valid coordinate, used to leave out rows without coordinates
+    private static final double[] WORLD_BOUNDS = {-180, -90, 180, 90};
+
+    // Label used for the bucket that collects every group past the top limit
+    public static final String OTHER_LABEL = "OTHER";
+
+    // Heatmap cells are this many screen pixels wide at the requested zoom (256 pixel tiles)
+    private static final int HEAT_CELL_PIXELS = 16;
+
+    // Upper bound on the number of cells a single heatmap request can cover, the cell size grows to stay under it
+    private static final long MAX_HEAT_CELLS = 40000;
+
+    // Columns a time series can be counted over
+    public static final List<String> TIME_COLUMNS = List.of("createdAt", "closedAt");
+
+    // Columns resolution time percentiles can be grouped by
+    public static final List<String> RESOLUTION_GROUP_COLUMNS = List.of("agencyName", "complaintType", "borough", "communityBoard");
+
+    // Empty buckets are filled in with a zero count as long as the series has no more than this many buckets
+    private static final int MAX_FILLED_BUCKETS = 100000;
 
 
     // findLimitedReports creates and executes a Mysql query on the database of all of the reports with filters. It also has start and limit to use as pages for the table
@@ -28,25 +87,54 @@ public class ReportsDaoCustomImpl implements ReportsDaoCustom {
 
     @Override
     public Iterable<Report> findLimitedReports(String limit, String start, String filters) {
-        StringBuilder sql = new StringBuilder("SELECT * FROM report WHERE 1=1");
+        ReportFilter filter = ReportFilter.parse(filters);
+        if (filter == null) {
+            return Collections.emptyList();
+        }
+        return findFilteredReports(limit, start, filter);
+    }
 
 
-        if (filters != null && !filters.isEmpty()) {
-            String whereClause = buildWhereClause(filters);
-            if (!whereClause.isEmpty()) {
-                sql.append(" AND ").append(whereClause);
-            }
+    // findFilteredReports is findLimitedReports under an already parsed filter
+
+    @Override
+    public Iterable<Report> findFilteredReports(String limit, String start, ReportFilter filter) {
+        ReportsSnapshot snapshot = currentSnapshot();
+        if (snapshot != null) {
+            return snapshot.findReports(filter.getFilters(), Integer.MIN_VALUE, parseLimit(start), parseLimit(limit));
         }
 
-        sql.append(" ORDER BY Id");
-        sql.append(" LIMIT ").append(limit);
-        sql.append(" OFFSET ").append(start);
+        ReportQueryBuilder sql = new ReportQueryBuilder("SELECT * FROM report").filters(filter);
+        sql.append(" ORDER BY Id LIMIT ? OFFSET ?", parseLimit(limit), parseLimit(start));
+
+        return resultList(sql, Report.class);
+    }
 
 
-        System.out.println("Executing SQL: " + sql.toString());
+    // findReportsAfter is the keyset version of findLimitedReports: instead of skipping start rows it seeks past the last Id
+    // of the previous page, so every page costs the same no matter how deep the user has scrolled
+    // Params:
+    // limit - How many reports should it return
+    // afterId - Id of the last report on the previous page
+    // filters - What filters should be applied to the query
+    // Returns: The next limit reports with an Id greater than afterId, in Id order
 
-        Query query = entityManager.createNativeQuery(sql.toString(), Report.class);
-        return query.getResultList();
+    @Override
+    public Iterable<Report> findReportsAfter(String limit, Integer afterId, String filters) {
+        Map<String, List<String>> filterMap = parseFilters(filters);
+        if (filterMap == null) {
+            return Collections.emptyList();
+        }
+
+        ReportsSnapshot snapshot = currentSnapshot();
+        if (snapshot != null) {
+            return snapshot.findReports(filterMap, afterId, 0, parseLimit(limit));
+        }
+
+        ReportQueryBuilder sql = new ReportQueryBuilder("SELECT * FROM report").where("Id > ?", afterId).filters(filterMap);
+        sql.append(" ORDER BY Id LIMIT ?", parseLimit(limit));
+
+        return resultList(sql, Report.class);
     }
 
 
@@ -58,20 +146,34 @@ public class ReportsDaoCustomImpl implements ReportsDaoCustom {
 
     @Override
     public Iterable<String> findColumnValues(String columnName, String currentFilters) {
-        StringBuilder sql = new StringBuilder("SELECT DISTINCT " + columnName + " FROM report");
+        ReportFilter filter = ReportFilter.parse(currentFilters);
+        if (filter == null) {
+            System.err.println("Invalid filters: " + currentFilters);
+            return Collections.emptyList();
+        }
+        return findFilteredColumnValues(columnName, filter);
+    }
 
-        // Append filters if they exist
-        if (currentFilters != null && !currentFilters.isEmpty()) {
-            String whereClause = buildWhereClause(currentFilters);
-            if (!whereClause.isEmpty()) {
-                sql.append(" WHERE ").append(whereClause);
-            }
+
+    // findFilteredColumnValues is findColumnValues under an already parsed filter
+
+    @Override
+    public Iterable<String> findFilteredColumnValues(String columnName, ReportFilter filter) {
+        List<String> columns = ReportQueryBuilder.columns(columnName);
+        if (columns.size() != 1) {
+            System.err.println("Invalid filter column: " + columnName);
+            return Collections.emptyList();
+        }
+
+        ReportsSnapshot snapshot = currentSnapshot();
+        if (snapshot != null) {
+            List<String> values = typed(snapshot.distinctValues(columns.get(0), filter.getFilters()));
+            return values;
         }
 
-        System.out.println("Executing SQL: " + sql.toString());
+        ReportQueryBuilder sql = new ReportQueryBuilder("SELECT DISTINCT " + columns.get(0) + " FROM report").filters(filter);
 
-        Query query = entityManager.createNativeQuery(sql.toString());
-        return query.getResultList();
+        return resultList(sql, null);
     }
 
     // getFilteredCount creates and executes an SQL query that is used for getting the amount of records in the currently filtered table
@@ -81,19 +183,31 @@ public class ReportsDaoCustomImpl implements ReportsDaoCustom {
 
     @Override
     public Integer getFilteredCount(String currentFilters) {
-        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM report");
+        ReportFilter filter = ReportFilter.parse(currentFilters);
+        if (filter == null) {
+            return 0;
+        }
+        return countFilteredReports(filter);
+    }
 
-        if (currentFilters != null && !currentFilters.isEmpty()) {
-            String whereClause = buildWhereClause(currentFilters);
-            if (!whereClause.isEmpty()) {
-                sql.append(" WHERE ").append(whereClause);
-            }
+
+    // countFilteredReports is getFilteredCount under an already parsed filter
+
+    @Override
+    public Integer countFilteredReports(ReportFilter filter) {
+        RollupCube cube = rollupCube(filter.getFilters());
+        if (cube != null) {
+            return (int) cube.count(filter.getFilters());
+        }
+
+        ReportsSnapshot snapshot = currentSnapshot();
+        if (snapshot != null) {
+            return (int) snapshot.count(filter.getFilters());
         }
 
-        System.out.println("Executing SQL: " + sql.toString());
+        ReportQueryBuilder sql = new ReportQueryBuilder("SELECT COUNT(*) FROM report").filters(filter);
 
-        Query query = entityManager.createNativeQuery(sql.toString());
-        return ((Number) query.getSingleResult()).intValue();
+        return ((Number) singleResult(sql)).intValue();
     }
 
     // getMapMarkers fetches all of the latitude and longitude information from reports in a certain filter
@@ -103,22 +217,111 @@ public class ReportsDaoCustomImpl implements ReportsDaoCustom {
     // Returns: Id, complaintType, descriptorType, agencyName, latitude, longitude of the limit amount of reports
 
     public Iterable<Report> getMapMarkers(String limit, String currentFilters) {
-        StringBuilder sql = new StringBuilder("SELECT Id, complaintType, descriptorType, agencyName, latitude, longitude FROM report");
+        ReportFilter filter = ReportFilter.parse(currentFilters);
+        if (filter == null) {
+            return Collections.emptyList();
+        }
+        return getFilteredMapMarkers(limit, filter);
+    }
 
-        if (currentFilters != null && !currentFilters.isEmpty()) {
-            String whereClause = buildWhereClause(currentFilters);
-            if (!whereClause.isEmpty()) {
-                sql.append(" WHERE ").append(whereClause);
-            }
+
+    // getFilteredMapMarkers is getMapMarkers under an already parsed filter
+
+    @Override
+    public Iterable<Report> getFilteredMapMarkers(String limit, ReportFilter filter) {
+        ReportsSnapshot snapshot = currentSnapshot();
+        if (snapshot != null) {
+            return typed(snapshot.values(MAP_MARKER_COLUMNS, filter.getFilters(), parseLimit(limit)));
         }
-        sql.append(" ORDER BY Id ");
-        sql.append(" LIMIT ").append(limit);
+
+        ReportQueryBuilder sql = new ReportQueryBuilder("SELECT " + String.join(", ", MAP_MARKER_COLUMNS) + " FROM report").filters(filter);
+        sql.append(" ORDER BY Id LIMIT ?", parseLimit(limit));
+
+        return resultList(sql, null);
+    }
 
 
-        System.out.println("Executing SQL: " + sql.toString());
-        Query query = entityManager.createNativeQuery(sql.toString());
+    // getMapMarkersInBox is getMapMarkers for the reports inside a bounding box, used to fill map tiles
+    // Params:
+    // bbox - Area as "west,south,east,north" in degrees
+    // limit - How many markers to return at most
+    // filters - What filters are already applied to the query
+    // Returns: Id, complaintType, descriptorType, agencyName, latitude, longitude of up to limit reports inside the box
+
+    @Override
+    public Iterable<Report> getMapMarkersInBox(String bbox, String limit, String currentFilters) {
+        double[] bounds = parseBbox(bbox);
+        if (bounds == null) {
+            System.err.println("Invalid marker bbox: " + bbox);
+            return Collections.emptyList();
+        }
 
-        return query.getResultList();
+        Map<String, List<String>> filterMap = parseFilters(currentFilters);
+        if (filterMap == null) {
+            System.err.println("Invalid filters: " + currentFilters);
+            return Collections.emptyList();
+        }
+
+        ReportsSnapshot snapshot = currentSnapshot();
+        if (snapshot != null) {
+            return typed(snapshot.values(MAP_MARKER_COLUMNS, filterMap, bounds, parseLimit(limit)));
+        }
+
+        ReportQueryBuilder sql = new ReportQueryBuilder("SELECT " + String.join(", ", MAP_MARKER_COLUMNS) + " FROM report");
+        sql.where("latitude BETWEEN ? AND ?", bounds[1], bounds[3]);
+        sql.where("longitude BETWEEN ? AND ?", bounds[0], bounds[2]);
+        sql.filters(filterMap);
+        sql.append(" ORDER BY Id LIMIT ?", parseLimit(limit));
+
+        return resultList(sql, null);
+    }
+
+
+    // getLocations fetches the position of every report with coordinates under the current filters, used to build the
+    // marker cluster index
+    // Params:
+    // filters - What filters are already applied to the query
+    // Returns: Id, latitude, longitude of every matching report that has both coordinates
+
+    @Override
+    public List<Object[]> getLocations(String currentFilters) {
+        Map<String, List<String>> filterMap = parseFilters(currentFilters);
+        if (filterMap == null) {
+            return Collections.emptyList();
+        }
+
+        ReportsSnapshot snapshot = currentSnapshot();
+        if (snapshot != null) {
+            List<Object[]> locations = typed(snapshot.values(LOCATION_COLUMNS, filterMap, WORLD_BOUNDS, Integer.MAX_VALUE));
+            return locations;
+        }
+
+        ReportQueryBuilder sql = new ReportQueryBuilder("SELECT " + String.join(", ", LOCATION_COLUMNS) + " FROM report");
+        sql.where("latitude IS NOT NULL AND longitude IS NOT NULL").filters(filterMap);
+
+        return resultList(sql, null);
+    }
+
+
+    // findReportsByIds fetches whole reports by Id, used to fill in the results of the spatial searches
+    // Params:
+    // ids - Ids of the reports to fetch
+    // Returns: The reports that exist, in no particular order
+
+    @Override
+    public Iterable<Report> findReportsByIds(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        ReportsSnapshot snapshot = currentSnapshot();
+        if (snapshot != null) {
+            return snapshot.findReportsById(ids);
+        }
+
+        ReportQueryBuilder sql = new ReportQueryBuilder("SELECT * FROM report").whereIn("Id", ids);
+
+        return resultList(sql, Report.class);
     }
 
 
@@ -130,21 +333,7 @@ public class ReportsDaoCustomImpl implements ReportsDaoCustom {
     // Returns: The column value for all of the reports (capped out at limit) with current filters
 
     public Iterable <Report> getChartData(String limit, String column, String currentFilters){
-        StringBuilder sql = new StringBuilder("SELECT " + column + " FROM report");
-
-        if(currentFilters != null && !currentFilters.isEmpty()){
-            String whereClause = buildWhereClause(currentFilters);
-            if (!whereClause.isEmpty()) {
-                sql.append(" WHERE ").append(whereClause);
-            }
-        }
-        sql.append(" ORDER BY Id");
-        sql.append(" LIMIT ").append(limit);
-
-        System.out.println("Executing SQL: " + sql.toString());
-        Query query = entityManager.createNativeQuery(sql.toString());
-
-        return query.getResultList();
+        return columnValues(limit, column, currentFilters);
     }
 
     // getHeatMapData fetches all the possibilities of the column for the heat map
@@ -155,80 +344,460 @@ public class ReportsDaoCustomImpl implements ReportsDaoCustom {
     // Returns: The column value for all of the reports (capped out at limit) with current filters
 
     public Iterable <Report> getHeatMapData(String limit, String column, String currentFilters){
-        StringBuilder sql = new StringBuilder("SELECT " + column + " FROM report");
+        return columnValues(limit, column, currentFilters);
+    }
+
+
+    // columnValues runs the query behind getChartData and getHeatMapData
+    // Params:
+    // limit - How many reports you want to fetch
+    // column - Comma separated list of the columns to return
+    // filters - What filters are already applied to the query
+    // Returns: The column values (a single value or an array per report) in Id order, or an empty list for an unknown column
+
+    private Iterable<Report> columnValues(String limit, String column, String currentFilters) {
+        ReportFilter filter = ReportFilter.parse(currentFilters);
+        if (filter == null) {
+            System.err.println("Invalid filters: " + currentFilters);
+            return Collections.emptyList();
+        }
+        return getFilteredChartData(limit, column, filter);
+    }
+
+
+    // getFilteredChartData is getChartData (and getHeatMapData, the same query) under an already parsed filter
 
-        if(currentFilters != null && !currentFilters.isEmpty()){
-            String whereClause = buildWhereClause(currentFilters);
-            if (!whereClause.isEmpty()){
-                sql.append( " WHERE ").append(whereClause);
+    @Override
+    public Iterable<Report> getFilteredChartData(String limit, String column, ReportFilter filter) {
+        List<String> columns = ReportQueryBuilder.columns(column);
+        if (columns.isEmpty()) {
+            System.err.println("Invalid chart column: " + column);
+            return Collections.emptyList();
+        }
+
+        ReportsSnapshot snapshot = currentSnapshot();
+        if (snapshot != null) {
+            return typed(snapshot.values(columns, filter.getFilters(), parseLimit(limit)));
+        }
+
+        ReportQueryBuilder sql = new ReportQueryBuilder("SELECT " + String.join(", ", columns) + " FROM report").filters(filter);
+        sql.append(" ORDER BY Id LIMIT ?", parseLimit(limit));
+
+        return resultList(sql, null);
+    }
+
+
+    // getGroupedCounts counts the reports for every combination of values of the given columns with the current filters
+    // Params:
+    // columns - Comma separated list of the columns to group on (e.g. "borough" or "borough,status")
+    // limit - How many of the largest groups to return, the rest are summed into a single OTHER group (blank or 0 returns every group)
+    // filters - What filters are already applied to the query
+    // Returns: The groups ordered from largest to smallest count, followed by the OTHER group if any groups were folded into it
+
+    @Override
+    public Iterable<GroupCount> getGroupedCounts(String columns, String limit, String currentFilters) {
+        Map<String, List<String>> filterMap = parseFilters(currentFilters);
+        List<String> groupColumns = ReportQueryBuilder.columns(columns);
+        if (filterMap == null || groupColumns.isEmpty()) {
+            System.err.println("Invalid group columns: " + columns);
+            return Collections.emptyList();
+        }
+
+        RollupCube cube = rollupCube(filterMap);
+        if (cube != null && RollupCube.DIMENSIONS.containsAll(groupColumns)) {
+            return foldGroups(cube.groupCounts(groupColumns, filterMap), groupColumns.size(), parseLimit(limit));
+        }
+
+        ReportsSnapshot snapshot = currentSnapshot();
+        if (snapshot != null) {
+            return foldGroups(snapshot.groupCounts(groupColumns, filterMap), groupColumns.size(), parseLimit(limit));
+        }
+
+        String columnList = String.join(", ", groupColumns);
+        ReportQueryBuilder sql = new ReportQueryBuilder("SELECT " + columnList + ", COUNT(*) AS total FROM report").filters(filterMap);
+        sql.append(" GROUP BY " + columnList + " ORDER BY total DESC");
+
+        List<Object[]> rows = resultList(sql, null);
+        return foldGroups(rows, groupColumns.size(), parseLimit(limit));
+    }
+
+
+    // foldGroups turns grouped count rows into GroupCounts, keeping the top limit groups and summing the rest into OTHER
+    // Params:
+    // rows - Rows of the grouped query, the group values followed by the count, largest count first
+    // width - How many group columns each row has
+    // limit - How many groups to keep (0 keeps all of them)
+    // Returns: The kept groups plus an OTHER group when anything was folded
+
+    private List<GroupCount> foldGroups(List<Object[]> rows, int width, int limit) {
+        List<GroupCount> groups = new ArrayList<>();
+        long otherCount = 0;
+
+        for (Object[] row : rows) {
+            long count = ((Number) row[width]).longValue();
+            if (limit > 0 && groups.size() >= limit) {
+                otherCount += count;
+                continue;
+            }
+
+            List<String> values = new ArrayList<>(width);
+            for (int i = 0; i < width; i++) {
+                values.add(row[i] == null ? null : row[i].toString());
             }
+            groups.add(new GroupCount(values, count));
+        }
+
+        if (otherCount > 0) {
+            groups.add(new GroupCount(Collections.nCopies(width, OTHER_LABEL), otherCount));
+        }
+        return groups;
+    }
+
+
+    // parseLimit reads a whole number parameter, see ReportQueryBuilder.parseLimit
+    private int parseLimit(String limit) {
+        return ReportQueryBuilder.parseLimit(limit);
+    }
+
+
+    // getHeatMapCells bins every report with the current filters inside the bounding box into a fixed latitude/longitude grid
+    // Params:
+    // bbox - Visible area as "west,south,east,north" in degrees (blank for the whole dataset)
+    // zoom - Map zoom level used to pick the cell size when no cellSize is given
+    // cellSize - Width of a grid cell in degrees (blank to derive it from zoom)
+    // filters - What filters are already applied to the query
+    // Returns: One cell per non-empty grid square with its centre, count and weight relative to the fullest cell
+
+    @Override
+    public Iterable<HeatCell> getHeatMapCells(String bbox, String zoom, String cellSize, String currentFilters) {
+        double[] bounds = parseBbox(bbox);
+        if (bbox != null && !bbox.isBlank() && bounds == null) {
+            System.err.println("Invalid heatmap bbox: " + bbox);
+            return Collections.emptyList();
+        }
+
+        Map<String, List<String>> filterMap = parseFilters(currentFilters);
+        if (filterMap == null) {
+            return Collections.emptyList();
+        }
+
+        double cell = heatCellSize(bounds, zoom, cellSize);
+        ReportsSnapshot snapshot = currentSnapshot();
+        if (snapshot != null) {
+            return toHeatCells(snapshot.heatCells(cell, bounds, filterMap), cell);
         }
 
-        sql.append(" ORDER BY Id");
-        sql.append(" LIMIT ").append(limit);
+        ReportQueryBuilder sql = new ReportQueryBuilder("SELECT FLOOR(latitude / ?) AS latCell, FLOOR(longitude / ?) AS lonCell, COUNT(*) AS total FROM report", cell, cell);
+        sql.where("latitude IS NOT NULL AND longitude IS NOT NULL");
+
+        if (bounds != null) {
+            sql.where("latitude BETWEEN ? AND ?", bounds[1], bounds[3]);
+            sql.where("longitude BETWEEN ? AND ?", bounds[0], bounds[2]);
+        }
+        sql.filters(filterMap);
+        sql.append(" GROUP BY latCell, lonCell");
+
+        List<Object[]> rows = resultList(sql, null);
+        return toHeatCells(rows, cell);
+    }
 
-        System.out.println("Executing SQL: " + sql.toString());
-        Query query = entityManager.createNativeQuery(sql.toString());
 
-        return query.getResultList();
+    // toHeatCells turns grid rows (latitude cell, longitude cell, count) into HeatCells centred in their grid square
+    // Params:
+    // rows - Rows of the grid query
+    // cell - Cell size in degrees the rows were binned with
+    // Returns: The cells, weighted against the fullest cell
+
+    private List<HeatCell> toHeatCells(List<Object[]> rows, double cell) {
+        long maxCount = 0;
+        for (Object[] row : rows) {
+            maxCount = Math.max(maxCount, ((Number) row[2]).longValue());
+        }
+
+        List<HeatCell> cells = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            double latitude = (((Number) row[0]).doubleValue() + 0.5) * cell;
+            double longitude = (((Number) row[1]).doubleValue() + 0.5) * cell;
+            long count = ((Number) row[2]).longValue();
+            cells.add(new HeatCell(latitude, longitude, count, (double) count / maxCount));
+        }
+        return cells;
     }
 
 
-    // buildWhereClause builds SQL WHERE clause from JSon input
+    // heatCellSize works out the grid cell size in degrees for a heatmap request
     // Params:
-    // filtersJson - Json string of the filters that need to be turned into the WHERE clause
-    // Returns: Outputs WHERE clause (not including where) for the filtering of each function above
+    // bounds - Parsed bounding box, or null when the whole dataset is binned
+    // zoom - Map zoom level, each level halves the cell size
+    // cellSize - Explicit cell size in degrees, takes priority over zoom
+    // Returns: The cell size, grown if needed so the bounding box never holds more than MAX_HEAT_CELLS cells
 
-    private String buildWhereClause(String filtersJson) {
+    private double heatCellSize(double[] bounds, String zoom, String cellSize) {
+        double cell;
         try {
-            // Parse JSON string to Map
-            Map<String, List<String>> filterMap = objectMapper.readValue(
-                    filtersJson,
-                    new TypeReference<Map<String, List<String>>>() {}
-            );
-
-            if (filterMap.isEmpty()) {
-                return "";
+            cell = Double.parseDouble(cellSize.trim());
+        } catch (NullPointerException | NumberFormatException e) {
+            int zoomLevel = Math.min(22, Math.max(0, parseLimit(zoom)));
+            cell = 360.0 / (256.0 * Math.pow(2, zoomLevel)) * HEAT_CELL_PIXELS;
+        }
+        if (!(cell > 0) || Double.isInfinite(cell)) {
+            cell = 360.0 / 256.0 * HEAT_CELL_PIXELS;
+        }
+
+        if (bounds != null) {
+            double cells = ((bounds[2] - bounds[0]) / cell) * ((bounds[3] - bounds[1]) / cell);
+            if (cells > MAX_HEAT_CELLS) {
+                cell *= Math.sqrt(cells / MAX_HEAT_CELLS);
+            }
+        }
+        return cell;
+    }
+
+
+    // getTimeSeries counts the reports with the current filters per hour, day, week or month of createdAt or closedAt
+    // The range is a plain comparison on the indexed DATETIME column, so a year of daily counts only reads that year
+    // Params:
+    // column - createdAt or closedAt
+    // bucket - hour, day, week or month
+    // from - First date or date-time to count (blank for no lower bound)
+    // to - Date or date-time to stop before (blank for no upper bound)
+    // filters - What filters are already applied to the query
+    // Returns: One bucket per hour/day/week/month in time order, empty buckets inside the range included with a zero count
+
+    @Override
+    public Iterable<TimeBucketCount> getTimeSeries(String column, String bucket, String from, String to, String currentFilters) {
+        TimeBucket size = TimeBucket.parse(bucket);
+        LocalDateTime fromTime = TimeBucket.parseDateTime(from);
+        LocalDateTime toTime = TimeBucket.parseDateTime(to);
+        boolean badRange = (fromTime == null && from != null && !from.isBlank()) || (toTime == null && to != null && !to.isBlank());
+        if (column == null || !TIME_COLUMNS.contains(column.trim()) || size == null || badRange) {
+            System.err.println("Invalid time series: column " + column + ", bucket " + bucket + ", from " + from + ", to " + to);
+            return Collections.emptyList();
+        }
+
+        Map<String, List<String>> filterMap = parseFilters(currentFilters);
+        if (filterMap == null) {
+            return Collections.emptyList();
+        }
+
+        String timeColumn = column.trim();
+        RollupCube cube = rollupCube(filterMap);
+        if (cube != null && RollupCube.coversSeries(timeColumn, size, fromTime, toTime)) {
+            return toTimeSeries(cube.timeSeries(size, fromTime, toTime, filterMap), size, fromTime, toTime);
+        }
+
+        ReportsSnapshot snapshot = currentSnapshot();
+        if (snapshot != null) {
+            return toTimeSeries(snapshot.timeSeries(timeColumn, size, fromTime, toTime, filterMap), size, fromTime, toTime);
+        }
+
+        ReportQueryBuilder sql = new ReportQueryBuilder("SELECT " + size.sqlExpression(timeColumn) + " AS bucket, COUNT(*) AS total FROM report");
+        sql.where(timeColumn + " IS NOT NULL");
+        if (fromTime != null) {
+            sql.where(timeColumn + " >= ?", fromTime);
+        }
+        if (toTime != null) {
+            sql.where(timeColumn + " < ?", toTime);
+        }
+        sql.filters(filterMap);
+        sql.append(" GROUP BY bucket ORDER BY bucket");
+
+        List<Object[]> rows = resultList(sql, null);
+        return toTimeSeries(rows, size, fromTime, toTime);
+    }
+
+
+    // toTimeSeries turns bucket rows (bucket start, count) into TimeBucketCounts, adding the empty buckets between
+    // Params:
+    // rows - Rows of the time series query, in time order
+    // size - Bucket size the rows were counted with
+    // from, to - Requested range, the filled series starts and ends with it when given
+    // Returns: The buckets in time order
+
+    private List<TimeBucketCount> toTimeSeries(List<Object[]> rows, TimeBucket size, LocalDateTime from, LocalDateTime to) {
+        List<TimeBucketCount> counted = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            LocalDateTime start = LocalDateTime.parse(row[0].toString(), TimeBucket.BUCKET_FORMAT);
+            counted.add(new TimeBucketCount(start, ((Number) row[1]).longValue()));
+        }
+        if (counted.isEmpty() && (from == null || to == null)) {
+            return counted;
+        }
+
+        LocalDateTime first = from != null ? size.floor(from) : counted.get(0).getStart();
+        LocalDateTime last = to != null ? to : size.next(counted.get(counted.size() - 1).getStart());
+        List<TimeBucketCount> filled = new ArrayList<>();
+        int next = 0;
+        for (LocalDateTime start = first; start.isBefore(last); start = size.next(start)) {
+            if (filled.size() >= MAX_FILLED_BUCKETS) {
+                return counted;
+            }
+            if (next < counted.size() && counted.get(next).getStart().equals(start)) {
+                filled.add(counted.get(next++));
+            } else {
+                filled.add(new TimeBucketCount(start, 0));
             }
+        }
+        return next == counted.size() ? filled : counted;
+    }
+
+
+    // getResolutionPercentiles works out p50/p90/p99 of the resolution time (closedAt - createdAt) per group
+    // The database counts the closed reports per group and ResolutionHistogram bucket in one grouped pass, and the
+    // buckets are added into one fixed size histogram per group, so no times are sorted and no query is run per group
+    // Params:
+    // groupBy - agencyName, complaintType, borough or communityBoard
+    // limit - How many groups to return, most reports first (0 for all of them)
+    // filters - What filters are already applied to the query
+    // Returns: The percentiles of each group, in seconds
+
+    @Override
+    public Iterable<ResolutionPercentiles> getResolutionPercentiles(String groupBy, String limit, String currentFilters) {
+        Map<String, List<String>> filterMap = parseFilters(currentFilters);
+        if (groupBy == null || !RESOLUTION_GROUP_COLUMNS.contains(groupBy.trim()) || filterMap == null) {
+            System.err.println("Invalid resolution time group: " + groupBy);
+            return Collections.emptyList();
+        }
+
+        String groupColumn = groupBy.trim();
+        ReportsSnapshot snapshot = currentSnapshot();
+        if (snapshot != null) {
+            return toPercentiles(snapshot.resolutionBuckets(groupColumn, filterMap), parseLimit(limit));
+        }
+
+        ReportQueryBuilder resolved = new ReportQueryBuilder("SELECT " + groupColumn + " AS grp, TIMESTAMPDIFF(SECOND, createdAt, closedAt) AS seconds FROM report");
+        resolved.where("createdAt IS NOT NULL AND closedAt >= createdAt");
+        resolved.filters(filterMap);
+
+        ReportQueryBuilder sql = new ReportQueryBuilder("SELECT grp, " + ResolutionHistogram.bucketSql("seconds") + " AS bucket, COUNT(*) AS total FROM ("
+                + resolved.getSql() + ") AS resolved", resolved.getParameters().toArray());
+        sql.append(" GROUP BY grp, bucket");
+
+        List<Object[]> rows = resultList(sql, null);
+        return toPercentiles(rows, parseLimit(limit));
+    }
+
+
+    // toPercentiles adds histogram bucket rows (group, bucket, count) into one histogram per group
+    // Params:
+    // rows - Rows of the histogram query, in any order
+    // limit - How many groups to keep, most reports first (0 keeps all of them)
+    // Returns: The percentiles of the kept groups
+
+    private List<ResolutionPercentiles> toPercentiles(List<Object[]> rows, int limit) {
+        Map<String, ResolutionHistogram> histograms = new HashMap<>();
+        for (Object[] row : rows) {
+            String group = row[0] == null ? null : row[0].toString();
+            histograms.computeIfAbsent(group, key -> new ResolutionHistogram())
+                    .add(((Number) row[1]).intValue(), ((Number) row[2]).longValue());
+        }
 
-            StringBuilder whereClause = new StringBuilder();
-            boolean first = true;
+        List<ResolutionPercentiles> groups = new ArrayList<>(histograms.size());
+        for (Map.Entry<String, ResolutionHistogram> entry : histograms.entrySet()) {
+            ResolutionHistogram histogram = entry.getValue();
+            groups.add(new ResolutionPercentiles(entry.getKey(), histogram.getCount(),
+                    histogram.percentile(0.5), histogram.percentile(0.9), histogram.percentile(0.99)));
+        }
+        groups.sort(Comparator.comparingLong(ResolutionPercentiles::getCount).reversed()
+                .thenComparing(ResolutionPercentiles::getGroup, Comparator.nullsLast(Comparator.naturalOrder())));
+        return limit > 0 && groups.size() > limit ? new ArrayList<>(groups.subList(0, limit)) : groups;
+    }
 
-            for (Map.Entry<String, List<String>> entry : filterMap.entrySet()) {
-                String columnName = entry.getKey();
-                List<String> values = entry.getValue();
 
-                if (values == null || values.isEmpty()) {
-                    continue;
-                }
+    // parseBbox reads a "west,south,east,north" bounding box, see ReportQueryBuilder.parseBbox
+    private double[] parseBbox(String bbox) {
+        return ReportQueryBuilder.parseBbox(bbox);
+    }
+
 
-                if (!first) {
-                    whereClause.append(" AND ");
-                }
-                first = false;
+    // createQuery turns a built query into a native query with every parameter bound
+    // Params:
+    // sql - The built query
+    // resultClass - Entity to map the rows to, or null for plain column values
+    // Returns: The query, ready to execute
 
-                // Build IN clause for this column
-                whereClause.append("(").append(columnName).append(" IN (");
+    private Query createQuery(ReportQueryBuilder sql, Class<?> resultClass) {
+        if (statementStats != null) {
+            statementStats.record(sql.getSql());
+        }
 
-                for (int i = 0; i < values.size(); i++) {
-                    if (i > 0) {
-                        whereClause.append(", ");
-                    }
-                    // Escape single quotes in values to prevent SQL injection
-                    String escapedValue = values.get(i).replace("'", "''");
-                    whereClause.append("'").append(escapedValue).append("'");
-                }
+        Query query = resultClass == null
+                ? entityManager.createNativeQuery(sql.getSql())
+                : entityManager.createNativeQuery(sql.getSql(), resultClass);
 
-                whereClause.append("))");
+        List<Object> parameters = sql.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter(i + 1, parameters.get(i));
+        }
+        return query;
+    }
+
+
+    // resultList runs a built query and returns its rows, handing the statement, its parameters, run time and row count to
+    // the query log
+    // Params:
+    // sql - The built query
+    // resultClass - Entity to map the rows to, or null for plain column values
+    // Returns: The rows
+
+    private <T> List<T> resultList(ReportQueryBuilder sql, Class<?> resultClass) {
+        Query query = createQuery(sql, resultClass);
+        long started = System.nanoTime();
+        long rows = -1;
+        try {
+            List<T> result = typed(query.getResultList());
+            rows = result.size();
+            return result;
+        } finally {
+            if (queryLog != null) {
+                queryLog.record(sql.getSql(), sql.getParameters(), started, rows);
             }
+        }
+    }
+
 
-            return whereClause.toString();
+    // typed hands back untyped rows (a native query's or the snapshot's, see ReportsSnapshot.values) as the row type the
+    // caller asks for: an entity, an Object[] for several columns or the value itself for one
 
-        } catch (Exception e) {
-            System.err.println("Error parsing filters JSON: " + e.getMessage());
-            e.printStackTrace();
-            return "";
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> typed(List<?> rows) {
+        return (List<T>) rows;
+    }
+
+
+    // singleResult runs a built query that returns one value, see resultList
+    private Object singleResult(ReportQueryBuilder sql) {
+        Query query = createQuery(sql, null);
+        long started = System.nanoTime();
+        long rows = -1;
+        try {
+            Object result = query.getSingleResult();
+            rows = 1;
+            return result;
+        } finally {
+            if (queryLog != null) {
+                queryLog.record(sql.getSql(), sql.getParameters(), started, rows);
+            }
         }
     }
+
+
+    // parseFilters reads the filter JSON sent by the frontend, see ReportQueryBuilder.parseFilters
+    private Map<String, List<String>> parseFilters(String filtersJson) {
+        return ReportQueryBuilder.parseFilters(filtersJson);
+    }
+
+
+    // rollupCube returns the rollup cube when it is on, built and covers every filtered column, else null
+    private RollupCube rollupCube(Map<String, List<String>> filters) {
+        RollupCube cube = rollupEngine == null ? null : rollupEngine.getCube();
+        return cube != null && RollupCube.covers(filters) ? cube : null;
+    }
+
+
+    // currentSnapshot returns the in-memory copy of the report table when the memory engine is on and loaded, else null
+    private ReportsSnapshot currentSnapshot() {
+        return snapshotEngine == null ? null : snapshotEngine.getSnapshot();
+    }
 }
 
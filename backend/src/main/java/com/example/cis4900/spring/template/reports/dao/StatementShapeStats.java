@@ -0,0 +1,57 @@
+package com.example.cis4900.spring.template.reports.dao;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+// StatementShapeStats counts how often each distinct SQL statement text is executed by the report queries
+// An execution whose text this class has seen before is a repeated shape, one it has not seen is a new shape. That says
+// how few statement texts the queries produce, i.e. how well a statement cache could do; it is not a count of hits in
+// Connector/J's prepared statement cache (cachePrepStmts) or the server's, which this class cannot see.
+@Component
+public class StatementShapeStats {
+    // Stop tracking new shapes past this many, so a stream of unusual requests can't grow the map without bound
+    private static final int MAX_SHAPES = 10000;
+
+    private final Map<String, LongAdder> shapes = new ConcurrentHashMap<>();
+
+    private final LongAdder repeatedShapes = new LongAdder();
+
+    private final LongAdder newShapes = new LongAdder();
+
+    public void record(String sql) {
+        LongAdder count = shapes.get(sql);
+        if (count == null && shapes.size() < MAX_SHAPES) {
+            count = shapes.computeIfAbsent(sql, key -> new LongAdder());
+        }
+
+        if (count == null || count.sum() == 0) {
+            newShapes.increment();
+        } else {
+            repeatedShapes.increment();
+        }
+        if (count != null) {
+            count.increment();
+        }
+    }
+
+    public long getRepeatedShapes() {
+        return repeatedShapes.sum();
+    }
+
+    public long getNewShapes() {
+        return newShapes.sum();
+    }
+
+    public int getShapes() {
+        return shapes.size();
+    }
+
+    // Share of executions whose statement text had been seen before
+    public double getRepeatRate() {
+        long total = getRepeatedShapes() + getNewShapes();
+        return total == 0 ? 0.0 : (double) getRepeatedShapes() / total;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.cis4900.spring.template.reports.dashboard;
+
+import com.example.cis4900.spring.template.reports.ReportsCursor;
+import com.example.cis4900.spring.template.reports.cache.ReportsQueryCache;
+import com.example.cis4900.spring.template.reports.dao.ReportFilter;
+import com.example.cis4900.spring.template.reports.dao.ReportsDao;
+import com.example.cis4900.spring.template.reports.models.DashboardData;
+import com.example.cis4900.spring.template.reports.models.Report;
+import com.example.cis4900.spring.template.reports.models.ReportsPage;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// DashboardService answers /api/reports/dashboard: the table page, count, filter lists, map pins and chart of one filter
+// change, which the dashboard otherwise fetches with one request each
+// The filter is parsed and its WHERE conditions built once (ReportFilter) and every part runs at the same time on a
+// shared pool of reports.dashboard.threads threads, so the request takes as long as its slowest part rather than the sum
+// of them. Each part gets reports.dashboard.timeout-millis from the start of the request; a part still running by then
+// is cancelled and named in timedOut, and the rest are returned without it. A cancelled part that has not started never
+// runs, a query that has started finishes on its pool thread (JDBC does not stop on an interrupt) and is dropped.
+// When every pool thread is busy and the queue is full a part is not run at all and is named in timedOut, so the request
+// thread never runs a query past the timeout.
+@Component
+public class DashboardService {
+    // Prefix of a filter list's name in timedOut and failed
+    public static final String FACET_PREFIX = "facets.";
+
+    // Parts queued per pool thread before new parts are turned away
+    private static final int QUEUE_PER_THREAD = 8;
+
+    private final ReportsDao reportsDao;
+
+    private final ThreadPoolExecutor pool;
+
+    private final long timeoutMillis;
+
+    // Caches counts and distinct values until the dataset is reloaded, left out (null) in the unit tests
+    @Autowired(required = false)
+    private ReportsQueryCache queryCache;
+
+    @Autowired
+    public DashboardService(ReportsDao reportsDao, @Value("${reports.dashboard.threads:8}") int threads,
+                            @Value("${reports.dashboard.timeout-millis:5000}") long timeoutMillis) {
+        this.reportsDao = reportsDao;
+        this.timeoutMillis = timeoutMillis;
+        int size = Math.max(1, threads);
+        this.pool = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(size * QUEUE_PER_THREAD), task -> {
+            Thread thread = new Thread(task, "reports-dashboard");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Stops the pool with the application, cancelling queued parts and interrupting the running ones
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+
+    // load runs every part of the dashboard under one filter at the same time and waits for them
+    // Params:
+    // filter - The parsed filters
+    // limit - Table page size
+    // start - Table offset
+    // facets - Columns to list the values of, each under the filters on the other columns
+    // chartColumn - Column the chart counts, blank for no chart
+    // chartLimit - How many reports the chart counts at most
+    // mapLimit - How many pins the map shows at most
+    // Returns: The parts that finished in time, the others named in timedOut or failed
+
+    public DashboardData load(ReportFilter filter, String limit, String start, List<String> facets, String chartColumn,
+                              String chartLimit, String mapLimit) {
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        Future<ReportsPage> page = submit(() -> ReportsCursor.page(reportsDao.findFilteredReports(limit, start, filter), limit));
+        Future<Integer> count = submit(() -> count(filter));
+        Map<String, Future<Iterable<String>>> facetValues = new LinkedHashMap<>();
+        for (String column : facets) {
+            facetValues.put(column, submit(() -> columnValues(column, filter.without(column))));
+        }
+        Future<Iterable<Report>> markers = submit(() -> reportsDao.getFilteredMapMarkers(mapLimit, filter));
+        Future<Iterable<Report>> chart = chartColumn == null || chartColumn.isBlank() ? null
+                : submit(() -> reportsDao.getFilteredChartData(chartLimit, chartColumn, filter));
+
+        DashboardData data = new DashboardData();
+        data.setPage(await("page", page, deadline, data));
+        data.setCount(await("count", count, deadline, data));
+        for (Map.Entry<String, Future<Iterable<String>>> facet : facetValues.entrySet()) {
+            Iterable<String> values = await(FACET_PREFIX + facet.getKey(), facet.getValue(), deadline, data);
+            if (values != null) {
+                data.getFacets().put(facet.getKey(), values);
+            }
+        }
+        data.setMarkers(await("markers", markers, deadline, data));
+        if (chart != null) {
+            data.setChart(await("chart", chart, deadline, data));
+        }
+        data.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return data;
+    }
+
+
+    // submit hands a part to the pool, or fails it with RejectedExecutionException if the pool is full
+    private <T> Future<T> submit(Callable<T> part) {
+        try {
+            return pool.submit(part);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+
+    // await waits for a part until the request's deadline
+    // Params:
+    // name - Name of the part in timedOut and failed
+    // part - The running part
+    // deadline - System.nanoTime() by which every part has to be done
+    // data - Response the part is named in when it does not finish
+    // Returns: The part's result, or null if it timed out, was turned away or failed
+
+    private <T> T await(String name, Future<T> part, long deadline, DashboardData data) {
+        try {
+            return part.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            part.cancel(true);
+            data.getTimedOut().add(name);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                data.getTimedOut().add(name);
+                return null;
+            }
+            System.err.println("Dashboard part " + name + " failed: " + e.getCause());
+            data.getFailed().add(name);
+        } catch (InterruptedException e) {
+            // The request is being abandoned, the remaining parts are cancelled the same way
+            Thread.currentThread().interrupt();
+            part.cancel(true);
+            data.getTimedOut().add(name);
+        }
+        return null;
+    }
+
+    private Integer count(ReportFilter filter) {
+        if (queryCache == null) {
+            return reportsDao.countFilteredReports(filter);
+        }
+        return queryCache.count(filter, () -> reportsDao.countFilteredReports(filter));
+    }
+
+    private Iterable<String> columnValues(String column, ReportFilter filter) {
+        if (queryCache == null) {
+            return reportsDao.findFilteredColumnValues(column, filter);
+        }
+        return queryCache.columnValues(column, filter, () -> reportsDao.findFilteredColumnValues(column, filter));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.cis4900.spring.template.reports.export;
+
+// File formats /api/reports/export can write
+public enum ExportFormat {
+    // One header line with the column names, then one comma separated line per report
+    CSV("text/csv", "csv"),
+
+    // One JSON object per line, keyed by column name
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+
+    // parse reads the format request parameter
+    // Params:
+    // format - "csv" or "ndjson", in any case
+    // Returns: The format, or null if it is not one of them
+
+    public static ExportFormat parse(String format) {
+        if (format == null) {
+            return null;
+        }
+        for (ExportFormat value : values()) {
+            if (value.extension.equalsIgnoreCase(format.trim())) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
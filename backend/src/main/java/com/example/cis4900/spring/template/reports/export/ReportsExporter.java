@@ -0,0 +1,178 @@
+package com.example.cis4900.spring.template.reports.export;
+
+import com.example.cis4900.spring.template.reports.audit.QueryLog;
+import com.example.cis4900.spring.template.reports.dao.ReportQueryBuilder;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// ReportsExporter writes every report matching the filters straight from a JDBC cursor into an output stream
+// Rows are read one at a time from a forward-only result set and written as soon as they are read, so an export of the
+// whole table holds no more than one row and the writer's buffer in memory, unlike /all which builds a List<Report>.
+@Component
+public class ReportsExporter {
+    // Columns written for every report, in table order
+    public static final List<String> EXPORT_COLUMNS = new ArrayList<>(ReportQueryBuilder.REPORT_COLUMNS);
+
+    // Characters buffered before they are handed to the response, large enough that gzip sees full blocks
+    private static final int WRITE_BUFFER = 64 * 1024;
+
+    private final DataSource dataSource;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    // Logs the export query with how long the whole export took and how many rows it wrote
+    @Autowired(required = false)
+    private QueryLog queryLog;
+
+    @Autowired
+    public ReportsExporter(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+
+    // export streams the reports matching the filters in Id order
+    // Params:
+    // format - Format to write the reports in
+    // filters - Column name to accepted values, as returned by ReportQueryBuilder.parseFilters
+    // out - Stream to write to, left open
+    // Returns: How many reports were written
+
+    public long export(ExportFormat format, Map<String, List<String>> filters, OutputStream out) throws IOException, SQLException {
+        ReportQueryBuilder sql = new ReportQueryBuilder("SELECT " + String.join(", ", EXPORT_COLUMNS) + " FROM report").filters(filters);
+        sql.append(" ORDER BY Id");
+        long started = System.nanoTime();
+        long written = -1;
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.getSql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // MySQL Connector/J streams rows one at a time instead of buffering the whole result when the fetch size is MIN_VALUE
+            statement.setFetchSize(Integer.MIN_VALUE);
+
+            List<Object> parameters = sql.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+
+            try (ResultSet rows = statement.executeQuery()) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER);
+                written = format == ExportFormat.CSV ? writeCsv(rows, writer) : writeNdjson(rows, writer);
+                writer.flush();
+                return written;
+            }
+        } finally {
+            if (queryLog != null) {
+                queryLog.record(sql.getSql(), sql.getParameters(), started, written);
+            }
+        }
+    }
+
+
+    // writeCsv writes a header line and then one RFC 4180 line per row
+    // Returns: How many rows were written
+
+    long writeCsv(ResultSet rows, Writer writer) throws IOException, SQLException {
+        writer.write(String.join(",", EXPORT_COLUMNS));
+        writer.write("\r\n");
+
+        long written = 0;
+        while (rows.next()) {
+            for (int i = 0; i < EXPORT_COLUMNS.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = value(rows, i + 1);
+                if (value != null) {
+                    writeCsvField(value.toString(), writer);
+                }
+            }
+            writer.write("\r\n");
+            written++;
+        }
+        return written;
+    }
+
+    // value reads a column, DATETIME columns as ISO date-times (2023-01-31T22:15:00) like the JSON API writes them
+    private static Object value(ResultSet rows, int column) throws SQLException {
+        Object value = rows.getObject(column);
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        }
+        return value;
+    }
+
+    // Fields holding a comma, quote or line break are quoted, with quotes inside them doubled
+    private static void writeCsvField(String value, Writer writer) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+
+    // writeNdjson writes one JSON object per row, numbers as numbers and SQL NULL as null
+    // Returns: How many rows were written
+
+    long writeNdjson(ResultSet rows, Writer writer) throws IOException, SQLException {
+        long written = 0;
+        try (JsonGenerator json = jsonFactory.createGenerator(writer)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+
+            while (rows.next()) {
+                json.writeStartObject();
+                for (int i = 0; i < EXPORT_COLUMNS.size(); i++) {
+                    Object value = value(rows, i + 1);
+                    json.writeFieldName(EXPORT_COLUMNS.get(i));
+                    if (value == null) {
+                        json.writeNull();
+                    } else if (value instanceof Number) {
+                        json.writeNumber(value.toString());
+                    } else {
+                        json.writeString(value.toString());
+                    }
+                }
+                json.writeEndObject();
+                written++;
+            }
+        }
+        if (written > 0) {
+            writer.write('\n');
+        }
+        return written;
+    }
+}
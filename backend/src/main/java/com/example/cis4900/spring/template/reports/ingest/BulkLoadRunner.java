@@ -0,0 +1,89 @@
+package com.example.cis4900.spring.template.reports.ingest;
+
+import com.example.cis4900.spring.template.reports.DatasetReloadedEvent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// BulkLoadRunner loads the file named by reports.loader.file once the application is up
+// Starting the backend again with the same file finishes an interrupted load and otherwise changes nothing. The load is
+// retried while the database is still starting, and a DatasetReloadedEvent is published when it has added reports so the
+// caches, snapshot and rollup pick them up.
+@Component
+@ConditionalOnProperty(name = "reports.loader.file")
+public class BulkLoadRunner {
+    private static final int MAX_ATTEMPTS = 10;
+
+    private static final long RETRY_DELAY_MILLIS = 15000;
+
+    private final ReportBulkLoader loader;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final String file;
+
+    @Autowired
+    public BulkLoadRunner(ReportBulkLoader loader, ApplicationEventPublisher eventPublisher,
+                          @Value("${reports.loader.file}") String file) {
+        this.loader = loader;
+        this.eventPublisher = eventPublisher;
+        this.file = file;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        if (file.isBlank()) {
+            return;
+        }
+        Thread thread = new Thread(this::run, "reports-bulk-loader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
+    // run loads the file, trying again after a failure since every attempt resumes where the last one stopped
+
+    public void run() {
+        Path path = Path.of(file);
+        if (!Files.isReadable(path)) {
+            System.err.println("Report file " + file + " can't be read, nothing loaded");
+            return;
+        }
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                LoadProgress result = loader.load(path);
+                // An earlier attempt may have committed batches before failing
+                if (result.getLoaded() > 0 || attempt > 1) {
+                    eventPublisher.publishEvent(new DatasetReloadedEvent(this));
+                }
+                return;
+            } catch (IOException e) {
+                System.err.println("Error reading report file " + file + ": " + e.getMessage());
+                return;
+            } catch (SQLException e) {
+                System.err.println("Error loading reports (attempt " + attempt + " of " + MAX_ATTEMPTS + "): " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            try {
+                Thread.sleep(RETRY_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
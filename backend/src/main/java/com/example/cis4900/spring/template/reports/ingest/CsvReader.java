@@ -0,0 +1,98 @@
+package com.example.cis4900.spring.template.reports.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// CsvReader reads RFC 4180 records one at a time from a character stream, so a file of any size is parsed in a fixed
+// amount of memory. Quoted fields may hold commas, doubled quotes and line breaks; lines may end in \n or \r\n.
+public class CsvReader implements Closeable {
+    private final Reader reader;
+
+    private final char[] buffer = new char[64 * 1024];
+
+    private int position = 0;
+
+    private int limit = 0;
+
+    private final StringBuilder field = new StringBuilder();
+
+    private boolean started = false;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+
+    // next reads the next record
+    // Returns: The fields of the record, or null at the end of the stream
+
+    public String[] next() throws IOException {
+        if (!started) {
+            started = true;
+            // A byte order mark left in front of the header would become part of the first column name
+            if (fill() && buffer[position] == '\uFEFF') {
+                position++;
+            }
+        }
+        if (!fill()) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        field.setLength(0);
+
+        while (fill()) {
+            char c = buffer[position++];
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (fill() && buffer[position] == '"') {
+                    field.append('"');
+                    position++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\n') {
+                break;
+            } else if (c == '\r') {
+                if (fill() && buffer[position] == '\n') {
+                    position++;
+                }
+                break;
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    private boolean fill() throws IOException {
+        while (position >= limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit < 0) {
+                limit = 0;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
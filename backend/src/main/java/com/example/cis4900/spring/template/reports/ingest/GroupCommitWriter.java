@@ -0,0 +1,160 @@
+package com.example.cis4900.spring.template.reports.ingest;
+
+import com.example.cis4900.spring.template.reports.DatasetReloadedEvent;
+import com.example.cis4900.spring.template.reports.models.Report;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+// GroupCommitWriter writes the batches posted to /api/reports/batch with group commit
+// One writer thread takes every batch waiting when it becomes free, from any number of concurrent requests, and writes
+// them in a single transaction with multi-row upserts (ReportBatchWriter), so the cost of a commit is shared by all of
+// them. While a commit runs the next group builds up, which makes the groups larger exactly when the feed is busiest.
+// A batch's future completes once its rows are committed, or fails with the whole group if the transaction fails.
+@Component
+public class GroupCommitWriter {
+    // Upper bound on the rows written by one transaction, a single batch larger than this is still written whole
+    static final int MAX_GROUP_ROWS = 20000;
+
+    private final DataSource dataSource;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reports-group-commit");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong commits = new AtomicLong();
+
+    private final AtomicLong batches = new AtomicLong();
+
+    private final AtomicLong rows = new AtomicLong();
+
+    private final AtomicLong commitNanos = new AtomicLong();
+
+    @Autowired
+    public GroupCommitWriter(DataSource dataSource, ApplicationEventPublisher eventPublisher) {
+        this.dataSource = dataSource;
+        this.eventPublisher = eventPublisher;
+    }
+
+
+    // submit queues a batch for the next group commit
+    // Params: reports: The normalized reports of the batch, not changed afterwards by the caller
+    // Returns: A future completed with the System.nanoTime() of the commit once the batch is committed
+
+    public CompletableFuture<Long> submit(List<Report> reports) {
+        Pending pending = new Pending(reports);
+        queue.add(pending);
+        // Each submit schedules a drain, drains that find the queue already emptied by an earlier one return at once
+        writer.execute(this::drain);
+        return pending.done;
+    }
+
+    public long getCommits() {
+        return commits.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    public double getAverageBatchesPerCommit() {
+        long count = commits.get();
+        return count == 0 ? 0 : (double) batches.get() / count;
+    }
+
+    public double getAverageCommitMillis() {
+        long count = commits.get();
+        return count == 0 ? 0 : commitNanos.get() / 1e6 / count;
+    }
+
+    // drain commits the queued batches as groups of up to MAX_GROUP_ROWS rows
+    private void drain() {
+        while (!queue.isEmpty()) {
+            List<Pending> group = new ArrayList<>();
+            int groupRows = 0;
+            Pending next;
+            while ((group.isEmpty() || groupRows + sizeOf(queue.peek()) <= MAX_GROUP_ROWS) && (next = queue.poll()) != null) {
+                group.add(next);
+                groupRows += next.reports.size();
+            }
+            commit(group, groupRows);
+        }
+    }
+
+    private void commit(List<Pending> group, int groupRows) {
+        long started = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            long affected = 0;
+            try {
+                for (Pending pending : group) {
+                    for (int from = 0; from < pending.reports.size(); from += ReportBulkLoader.MAX_BATCH_SIZE) {
+                        int to = Math.min(from + ReportBulkLoader.MAX_BATCH_SIZE, pending.reports.size());
+                        affected += ReportBatchWriter.upsert(connection, pending.reports.subList(from, to));
+                    }
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+
+            commits.incrementAndGet();
+            batches.addAndGet(group.size());
+            rows.addAndGet(groupRows);
+            long committed = System.nanoTime();
+            commitNanos.addAndGet(committed - started);
+            for (Pending pending : group) {
+                pending.done.complete(committed);
+            }
+            // An upsert counts 1 for an inserted row or one left as it was and 2 for an updated one, so more than 1 per
+            // row means existing reports changed
+            eventPublisher.publishEvent(new DatasetReloadedEvent(this, affected <= groupRows));
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Error committing " + group.size() + " report batches (" + groupRows + " rows): " + e.getMessage());
+            for (Pending pending : group) {
+                pending.done.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static int sizeOf(Pending pending) {
+        return pending == null ? 0 : pending.reports.size();
+    }
+
+    // Pending is a submitted batch waiting for its commit
+    private static final class Pending {
+        private final List<Report> reports;
+
+        private final CompletableFuture<Long> done = new CompletableFuture<>();
+
+        private Pending(List<Report> reports) {
+            this.reports = reports;
+        }
+    }
+}
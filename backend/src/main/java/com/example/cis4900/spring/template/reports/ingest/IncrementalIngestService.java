@@ -0,0 +1,345 @@
+package com.example.cis4900.spring.template.reports.ingest;
+
+import com.example.cis4900.spring.template.reports.DatasetReloadedEvent;
+import com.example.cis4900.spring.template.reports.models.Report;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// IncrementalIngestService applies the 311 extracts dropped into reports.ingest.drop-dir to the report table
+// Extracts are read in file name order once they have stopped growing, then moved to processed/ (or failed/ when they
+// can't be read). Each record is compared with what the table already holds, so a refresh costs time in proportion to
+// the extract rather than to the whole history:
+// - a Unique Key not in the table yet is appended; keys above the highest one in the table (the key watermark) are
+//   known to be new without looking them up
+// - a known Unique Key updates the status and closed date of its request when they changed, and is skipped otherwise
+// - a record without a Unique Key is appended only when it was created after the newest report in the table (the
+//   createdAt watermark), older ones are taken to be loaded already
+// A DatasetReloadedEvent is published after every batch that changed the table, append-only when it only appended, so
+// the dataset version moves on and caches and the rollup catch up while a long extract is still being applied. Applying
+// an extract again changes nothing, so one interrupted by a database error is simply retried on the next poll.
+@Component
+@ConditionalOnProperty(name = "reports.ingest.drop-dir")
+public class IncrementalIngestService {
+    static final String WATERMARK_SQL = "SELECT MAX(uniqueKey), MAX(createdAt) FROM report";
+
+    // Files modified more recently than this may still be being copied into the directory
+    private static final long SETTLE_MILLIS = 10000;
+
+    private static final int LOGGED_REJECTS = 20;
+
+    private final DataSource dataSource;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final String dropDirectory;
+
+    private final long pollSeconds;
+
+    private final int batchSize;
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reports-ingest-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public IncrementalIngestService(DataSource dataSource, ApplicationEventPublisher eventPublisher,
+                                    @Value("${reports.ingest.drop-dir}") String dropDirectory,
+                                    @Value("${reports.ingest.poll-seconds:60}") long pollSeconds,
+                                    @Value("${reports.ingest.batch-size:5000}") int batchSize) {
+        this.dataSource = dataSource;
+        this.eventPublisher = eventPublisher;
+        this.dropDirectory = dropDirectory;
+        this.pollSeconds = Math.max(1, pollSeconds);
+        this.batchSize = Math.max(1, Math.min(batchSize, ReportBulkLoader.MAX_BATCH_SIZE));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (dropDirectory.isBlank()) {
+            return;
+        }
+        System.out.println("Watching " + dropDirectory + " for report extracts every " + pollSeconds + " s");
+        poller.scheduleWithFixedDelay(this::poll, 0, pollSeconds, TimeUnit.SECONDS);
+    }
+
+
+    // poll applies the extracts waiting in the drop directory
+
+    public void poll() {
+        Path directory = Path.of(dropDirectory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            long settled = System.currentTimeMillis() - SETTLE_MILLIS;
+            files = listing.filter(file -> Files.isRegularFile(file) && file.getFileName().toString().toLowerCase().endsWith(".csv"))
+                    .filter(file -> lastModified(file) < settled)
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error listing report extracts in " + dropDirectory + ": " + e.getMessage());
+            return;
+        }
+
+        for (Path file : files) {
+            try {
+                IngestResult result = ingest(file);
+                System.out.println("Applied report extract " + result);
+                moveTo(file, "processed");
+            } catch (SQLException e) {
+                // Left in place to be applied again on the next poll
+                System.err.println("Error applying report extract " + file + ", will retry: " + e.getMessage());
+                return;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error reading report extract " + file + ": " + e.getMessage());
+                try {
+                    moveTo(file, "failed");
+                } catch (IOException moveError) {
+                    System.err.println("Error moving " + file + " to failed/: " + moveError.getMessage());
+                    return;
+                }
+            }
+        }
+    }
+
+
+    // ingest applies one extract
+    // Params: file: A CSV file with a header line, columns as accepted by ReportRecordParser
+    // Returns: What was done with its records
+
+    public IngestResult ingest(Path file) throws IOException, SQLException {
+        IngestResult result = new IngestResult(file.getFileName().toString());
+
+        try (Connection connection = dataSource.getConnection();
+             CsvReader reader = new CsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            ReportBulkLoader.prepareSchema(connection);
+            Watermark watermark = readWatermark(connection);
+
+            String[] header = reader.next();
+            if (header == null) {
+                return result;
+            }
+            ReportRecordParser parser = new ReportRecordParser(header);
+
+            List<Report> batch = new ArrayList<>();
+            String[] fields;
+            while ((fields = reader.next()) != null) {
+                if (fields.length == 1 && fields[0].isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(parser.parse(fields));
+                } catch (IllegalArgumentException e) {
+                    if (result.rejected++ < LOGGED_REJECTS) {
+                        System.err.println("Rejected record of " + file.getFileName() + ": " + e.getMessage());
+                    }
+                }
+                if (batch.size() >= batchSize) {
+                    apply(connection, batch, watermark, result);
+                    batch.clear();
+                }
+            }
+            apply(connection, batch, watermark, result);
+        }
+        return result;
+    }
+
+
+    // apply writes the records of a batch that change the table and moves the watermarks past them
+
+    private void apply(Connection connection, List<Report> batch, Watermark watermark, IngestResult result) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // Status and closed date of the requests of the batch that may already be in the table
+        Map<Long, List<String>> known = existingRows(connection, batch, watermark.key);
+
+        List<Report> changes = new ArrayList<>();
+        long appended = 0;
+        long updated = 0;
+        for (Report report : batch) {
+            Long key = report.getUniqueKey();
+            List<String> current = key == null ? null : known.get(key);
+            List<String> incoming = Arrays.asList(report.getStatus(), report.getClosedDate());
+
+            if (key == null && watermark.createdAt != null && !report.getCreatedAt().isAfter(watermark.createdAt)) {
+                result.skipped++;
+                continue;
+            } else if (current != null && current.equals(incoming)) {
+                result.unchanged++;
+                continue;
+            } else if (current != null) {
+                updated++;
+            } else {
+                appended++;
+            }
+            if (key != null) {
+                known.put(key, incoming);
+            }
+            changes.add(report);
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        ReportBatchWriter.upsert(connection, changes);
+        result.appended += appended;
+        result.updated += updated;
+
+        for (Report report : changes) {
+            if (report.getUniqueKey() != null && (watermark.key == null || report.getUniqueKey() > watermark.key)) {
+                watermark.key = report.getUniqueKey();
+            }
+            if (watermark.createdAt == null || report.getCreatedAt().isAfter(watermark.createdAt)) {
+                watermark.createdAt = report.getCreatedAt();
+            }
+        }
+        eventPublisher.publishEvent(new DatasetReloadedEvent(this, updated == 0));
+    }
+
+    // existingRows looks up the requests of a batch whose key is not above the key watermark
+    private static Map<Long, List<String>> existingRows(Connection connection, List<Report> batch, Long maxKey) throws SQLException {
+        Map<Long, List<String>> rows = new HashMap<>();
+        if (maxKey == null) {
+            return rows;
+        }
+        Set<Long> keys = new LinkedHashSet<>();
+        for (Report report : batch) {
+            if (report.getUniqueKey() != null && report.getUniqueKey() <= maxKey) {
+                keys.add(report.getUniqueKey());
+            }
+        }
+        if (keys.isEmpty()) {
+            return rows;
+        }
+
+        String sql = "SELECT uniqueKey, status, closedDate FROM report WHERE uniqueKey IN ("
+                + String.join(", ", Collections.nCopies(keys.size(), "?")) + ")";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int index = 1;
+            for (Long key : keys) {
+                statement.setLong(index++, key);
+            }
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    rows.put(result.getLong(1), Arrays.asList(result.getString(2), result.getString(3)));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static Watermark readWatermark(Connection connection) throws SQLException {
+        Watermark watermark = new Watermark();
+        try (PreparedStatement statement = connection.prepareStatement(WATERMARK_SQL);
+             ResultSet rows = statement.executeQuery()) {
+            if (rows.next()) {
+                long key = rows.getLong(1);
+                watermark.key = rows.wasNull() ? null : key;
+                Timestamp createdAt = rows.getTimestamp(2);
+                watermark.createdAt = createdAt == null ? null : createdAt.toLocalDateTime();
+            }
+        }
+        return watermark;
+    }
+
+    private void moveTo(Path file, String subdirectory) throws IOException {
+        Path target = file.resolveSibling(subdirectory);
+        Files.createDirectories(target);
+        Files.move(file, target.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    // Highest Unique Key and newest created date in the table, null while it is empty
+    private static final class Watermark {
+        private Long key;
+
+        private LocalDateTime createdAt;
+    }
+
+    // IngestResult counts what an extract did to the table
+    public static final class IngestResult {
+        private final String file;
+
+        private long appended = 0;
+
+        private long updated = 0;
+
+        private long unchanged = 0;
+
+        private long skipped = 0;
+
+        private long rejected = 0;
+
+        IngestResult(String file) {
+            this.file = file;
+        }
+
+        public long getAppended() {
+            return appended;
+        }
+
+        public long getUpdated() {
+            return updated;
+        }
+
+        public long getUnchanged() {
+            return unchanged;
+        }
+
+        // Records without a Unique Key not newer than the createdAt watermark
+        public long getSkipped() {
+            return skipped;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        @Override
+        public String toString() {
+            return file + ": " + appended + " appended, " + updated + " updated, " + unchanged + " unchanged, "
+                    + skipped + " already loaded, " + rejected + " rejected";
+        }
+    }
+}
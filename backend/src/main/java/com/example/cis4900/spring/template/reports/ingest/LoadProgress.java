@@ -0,0 +1,94 @@
+package com.example.cis4900.spring.template.reports.ingest;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// LoadProgress counts the records of a bulk load as it runs, it is read by the progress log and /api/admin/loader
+public class LoadProgress {
+    private final String file;
+
+    private final long startedAt = System.currentTimeMillis();
+
+    private volatile long finishedAt = 0;
+
+    private volatile String error;
+
+    private final AtomicLong read = new AtomicLong();
+
+    private final AtomicLong loaded = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong skipped = new AtomicLong();
+
+    public LoadProgress(String file) {
+        this.file = file;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    // Records parsed from the file, not counting the header
+    public long getRead() {
+        return read.get();
+    }
+
+    // Reports inserted by this run
+    public long getLoaded() {
+        return loaded.get();
+    }
+
+    // Records dropped because they could not be parsed, see ReportRecordParser
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    // Records of batches an earlier run already committed
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public boolean isFinished() {
+        return finishedAt != 0;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getElapsedMillis() {
+        return (finishedAt == 0 ? System.currentTimeMillis() : finishedAt) - startedAt;
+    }
+
+    public long getRowsPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0 : loaded.get() * 1000 / elapsed;
+    }
+
+    void addRead(long count) {
+        read.addAndGet(count);
+    }
+
+    void addLoaded(long count) {
+        loaded.addAndGet(count);
+    }
+
+    void addRejected(long count) {
+        rejected.addAndGet(count);
+    }
+
+    void addSkipped(long count) {
+        skipped.addAndGet(count);
+    }
+
+    void finish(String failure) {
+        error = failure;
+        finishedAt = System.currentTimeMillis();
+    }
+
+    @Override
+    public String toString() {
+        return file + ": " + getRead() + " read, " + getLoaded() + " loaded, " + getRejected() + " rejected, "
+                + getSkipped() + " already loaded, " + getRowsPerSecond() + " rows/s";
+    }
+}
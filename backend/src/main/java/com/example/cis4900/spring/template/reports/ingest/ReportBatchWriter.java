@@ -0,0 +1,75 @@
+package com.example.cis4900.spring.template.reports.ingest;
+
+import com.example.cis4900.spring.template.reports.models.Report;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+// ReportBatchWriter inserts reports with one multi-row INSERT per batch, which costs a single round trip and a single
+// statement parse for the whole batch instead of one per report
+// A report whose Unique Key is already in the table is not inserted again, the existing row takes its status and closed
+// date instead: those are the only values of a 311 request that change after it is opened.
+public final class ReportBatchWriter {
+    public static final List<String> INSERT_COLUMNS = List.of("complaintType", "descriptorType", "agencyName",
+            "locationType", "incidentAddress", "incidentZip", "addressType", "city", "status", "createdDate", "closedDate",
+            "communityBoard", "borough", "openDataChannelType", "latitude", "longitude", "createdAt", "closedAt", "uniqueKey");
+
+    private static final String ON_DUPLICATE_KEY = " ON DUPLICATE KEY UPDATE status = VALUES(status), "
+            + "closedDate = VALUES(closedDate), closedAt = VALUES(closedAt)";
+
+    private ReportBatchWriter() {
+    }
+
+
+    // upsertSql builds the INSERT statement for a number of reports
+    // Params: rows: The number of reports inserted by the statement
+    // Returns: The SQL with one parameter per column and report
+
+    public static String upsertSql(int rows) {
+        String row = "(" + String.join(", ", Collections.nCopies(INSERT_COLUMNS.size(), "?")) + ")";
+        return "INSERT INTO report (" + String.join(", ", INSERT_COLUMNS) + ") VALUES "
+                + String.join(", ", Collections.nCopies(rows, row)) + ON_DUPLICATE_KEY;
+    }
+
+
+    // upsert writes reports on the caller's connection, inside whatever transaction it has open
+    // Params: connection: The connection to write on, reports: The reports to insert or update
+    // Returns: The affected row count reported by the server
+
+    public static int upsert(Connection connection, List<Report> reports) throws SQLException {
+        if (reports.isEmpty()) {
+            return 0;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(upsertSql(reports.size()))) {
+            int index = 1;
+            for (Report report : reports) {
+                for (Object value : values(report)) {
+                    if (value == null) {
+                        statement.setNull(index, Types.NULL);
+                    } else if (value instanceof LocalDateTime) {
+                        statement.setTimestamp(index, Timestamp.valueOf((LocalDateTime) value));
+                    } else {
+                        statement.setObject(index, value);
+                    }
+                    index++;
+                }
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    // values lists a report's values in INSERT_COLUMNS order
+    static Object[] values(Report report) {
+        return new Object[] {report.getComplaintType(), report.getDescriptorType(), report.getAgencyName(),
+            report.getLocationType(), report.getIncidentAddress(), report.getIncidentZip(), report.getAddressType(),
+            report.getCity(), report.getStatus(), report.getCreatedDate(), report.getClosedDate(),
+            report.getCommunityBoard(), report.getBorough(), report.getOpenDataChannelType(), report.getLatitude(),
+            report.getLongitude(), report.getCreatedAt(), report.getClosedAt(), report.getUniqueKey()};
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.cis4900.spring.template.reports.ingest;
+
+import com.example.cis4900.spring.template.reports.models.Report;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// ReportBulkLoader loads a 311 CSV export into the report table
+// The file is parsed on the calling thread and cut into numbered batches of consecutive records, which a pool of writer
+// threads inserts in parallel, each on its own connection. Every batch is committed together with a row in
+// report_load_batch naming the file and the batch, so a load that stops half way (a crash, a lost connection) is resumed
+// by running it again: the batches already committed are skipped and no report is inserted twice. Reports are written
+// with ReportBatchWriter, so a file holding requests that are already in the table updates them.
+@Component
+public class ReportBulkLoader {
+    static final String CHECKPOINT_TABLE_SQL = "CREATE TABLE IF NOT EXISTS report_load_batch ("
+            + "source varchar(255) NOT NULL, batch bigint NOT NULL, batchSize int NOT NULL, loaded int NOT NULL, "
+            + "rejected int NOT NULL, loadedAt datetime NOT NULL DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY (source, batch))";
+
+    // Tables created by 01-setup.sql before the Unique Key was stored get the column here
+    static final String UNIQUE_KEY_SQL = "ALTER TABLE report ADD COLUMN IF NOT EXISTS uniqueKey bigint NULL, "
+            + "ADD UNIQUE INDEX IF NOT EXISTS report_uniqueKey (uniqueKey)";
+
+    static final String CHECKPOINTS_SQL = "SELECT batch, batchSize FROM report_load_batch WHERE source = ?";
+
+    static final String CHECKPOINT_SQL = "INSERT INTO report_load_batch (source, batch, batchSize, loaded, rejected) VALUES (?, ?, ?, ?, ?)";
+
+    // A statement takes at most 65535 parameters and a report has 19
+    static final int MAX_BATCH_SIZE = 3000;
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    // MariaDB's error code for a duplicate key
+    private static final int DUPLICATE_KEY = 1062;
+
+    private static final int LOGGED_REJECTS = 20;
+
+    private static final long PROGRESS_INTERVAL_MILLIS = 10000;
+
+    // Tells the writers there are no more batches
+    private static final Batch END = new Batch(-1);
+
+    private final DataSource dataSource;
+
+    private final int batchSize;
+
+    private final int writers;
+
+    private volatile LoadProgress progress;
+
+    @Autowired
+    public ReportBulkLoader(DataSource dataSource, @Value("${reports.loader.batch-size:1000}") int batchSize,
+                            @Value("${reports.loader.writers:4}") int writers) {
+        this.dataSource = dataSource;
+        this.batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        this.writers = Math.max(1, writers);
+    }
+
+    // The progress of the running or last load, null if there has not been one
+    public LoadProgress getProgress() {
+        return progress;
+    }
+
+
+    // load inserts the reports of a file that have not been loaded by an earlier run
+    // Params: file: The CSV file, with a header line
+    // Returns: The final counts of the load
+
+    public LoadProgress load(Path file) throws IOException, SQLException, InterruptedException {
+        // The file name and size identify the file across runs, so a file replaced by a different export starts over
+        String source = file.getFileName() + ":" + Files.size(file);
+        Set<Long> committed = new HashSet<>();
+        int size = readCheckpoints(source, committed);
+
+        LoadProgress current = new LoadProgress(file.toString());
+        progress = current;
+        System.out.println("Loading reports from " + file + " in batches of " + size + " on " + writers + " writers, "
+                + committed.size() + " batches already loaded");
+
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(writers * 2);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        ExecutorService pool = Executors.newFixedThreadPool(writers, task -> {
+            Thread thread = new Thread(task, "reports-bulk-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < writers; i++) {
+            pool.execute(() -> write(source, size, queue, current, failure));
+        }
+
+        try (CsvReader reader = new CsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            String[] header = reader.next();
+            if (header != null) {
+                read(reader, new ReportRecordParser(header), size, committed, queue, current, failure);
+            }
+        } catch (IOException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            for (int i = 0; i < writers; i++) {
+                queue.put(END);
+            }
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+
+        Exception error = failure.get();
+        current.finish(error == null ? null : error.toString());
+        System.out.println("Finished loading reports, " + current);
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        } else if (error instanceof SQLException) {
+            throw (SQLException) error;
+        } else if (error != null) {
+            throw (RuntimeException) error;
+        }
+        return current;
+    }
+
+    // readCheckpoints lists the batches of a file already committed and returns the batch size they were cut with, which
+    // a resumed load has to keep so that the batch numbers mean the same records
+    private int readCheckpoints(String source, Set<Long> committed) throws SQLException {
+        int size = batchSize;
+        try (Connection connection = dataSource.getConnection()) {
+            prepareSchema(connection);
+            try (PreparedStatement statement = connection.prepareStatement(CHECKPOINTS_SQL)) {
+                statement.setString(1, source);
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        committed.add(rows.getLong(1));
+                        size = rows.getInt(2);
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    // prepareSchema adds what the loaders need to a report table created by an older 01-setup.sql
+    static void prepareSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(UNIQUE_KEY_SQL);
+            statement.execute(CHECKPOINT_TABLE_SQL);
+        }
+    }
+
+    private void read(CsvReader reader, ReportRecordParser parser, int size, Set<Long> committed,
+                      BlockingQueue<Batch> queue, LoadProgress current, AtomicReference<Exception> failure)
+            throws IOException, InterruptedException {
+        long record = 0;
+        long lastLog = System.currentTimeMillis();
+        Batch batch = null;
+        String[] fields;
+
+        while (failure.get() == null && (fields = reader.next()) != null) {
+            if (fields.length == 1 && fields[0].isBlank()) {
+                continue;
+            }
+            long number = record++ / size;
+            current.addRead(1);
+
+            if (committed.contains(number)) {
+                current.addSkipped(1);
+                continue;
+            }
+            if (batch == null || batch.number != number) {
+                if (batch != null) {
+                    queue.put(batch);
+                }
+                batch = new Batch(number);
+            }
+
+            try {
+                batch.reports.add(parser.parse(fields));
+            } catch (IllegalArgumentException e) {
+                batch.rejected++;
+                if (current.getRejected() < LOGGED_REJECTS) {
+                    System.err.println("Rejected record " + record + ": " + e.getMessage());
+                }
+                current.addRejected(1);
+            }
+
+            if (System.currentTimeMillis() - lastLog >= PROGRESS_INTERVAL_MILLIS) {
+                lastLog = System.currentTimeMillis();
+                System.out.println("Loading reports, " + current);
+            }
+        }
+        if (batch != null) {
+            queue.put(batch);
+        }
+    }
+
+    // write commits batches until it is told to stop. After a failure it keeps taking batches without writing them so
+    // the reader is never left blocked on a full queue
+    private void write(String source, int size, BlockingQueue<Batch> queue, LoadProgress current,
+                       AtomicReference<Exception> failure) {
+        try {
+            while (true) {
+                Batch batch = queue.take();
+                if (batch == END) {
+                    return;
+                }
+                if (failure.get() != null) {
+                    continue;
+                }
+                try {
+                    if (commit(source, size, batch)) {
+                        current.addLoaded(batch.reports.size());
+                    } else {
+                        current.addSkipped(batch.reports.size() + batch.rejected);
+                    }
+                } catch (SQLException | RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // commit inserts a batch and its checkpoint in one transaction, retrying a failed transaction. A constraint the
+    // reports break fails the same way every time and is thrown straight away.
+    // Returns: false if another load committed the batch first
+
+    boolean commit(String source, int size, Batch batch) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(false);
+                try {
+                    ReportBatchWriter.upsert(connection, batch.reports);
+                    if (!checkpoint(connection, source, size, batch)) {
+                        connection.rollback();
+                        return false;
+                    }
+                    connection.commit();
+                    return true;
+                } catch (SQLIntegrityConstraintViolationException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    if (attempt >= MAX_ATTEMPTS) {
+                        throw e;
+                    }
+                    System.err.println("Retrying batch " + batch.number + " after error: " + e.getMessage());
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+    }
+
+    // checkpoint records a batch as committed by this load
+    // Returns: false if the batch already has a checkpoint, i.e. another load committed it first
+
+    private static boolean checkpoint(Connection connection, String source, int size, Batch batch) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(CHECKPOINT_SQL)) {
+            statement.setString(1, source);
+            statement.setLong(2, batch.number);
+            statement.setInt(3, size);
+            statement.setInt(4, batch.reports.size());
+            statement.setInt(5, batch.rejected);
+            statement.executeUpdate();
+            return true;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            if (e.getErrorCode() == DUPLICATE_KEY) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    // Batch holds the parsed reports of one run of consecutive records
+    static final class Batch {
+        final long number;
+
+        final List<Report> reports = new ArrayList<>();
+
+        int rejected = 0;
+
+        Batch(long number) {
+            this.number = number;
+        }
+    }
+}
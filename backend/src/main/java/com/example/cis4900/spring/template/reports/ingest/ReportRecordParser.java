@@ -0,0 +1,228 @@
+package com.example.cis4900.spring.template.reports.ingest;
+
+import com.example.cis4900.spring.template.reports.models.Report;
+import com.example.cis4900.spring.template.reports.time.TimeBucket;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// ReportRecordParser turns CSV records of the NYC 311 export into reports ready to insert
+// The columns are found by header name (so a full Open Data export with its extra columns can be loaded as is) or, when
+// the header does not name them, by position in the layout init.sh used to load. Values are trimmed, empty values
+// become NULL, text longer than the report columns is cut to fit, coordinates that are not numbers or lie outside
+// -90..90 / -180..180 become NULL, as does a Unique Key that is not a number, and the dates are parsed into
+// createdAt/closedAt. A record with the wrong number of
+// fields or without a readable created date is rejected.
+public class ReportRecordParser {
+    // Width of the varchar columns of the report table
+    public static final int MAX_TEXT_LENGTH = 50;
+
+    // Field order of the init.sh layout
+    public static final List<String> POSITIONAL_COLUMNS = List.of("uniqueKey", "createdDate", "closedDate", "agencyName",
+            "complaintType", "descriptorType", "locationType", "incidentZip", "incidentAddress", "addressType", "city",
+            "status", "communityBoard", "borough", "openDataChannelType", "latitude", "longitude");
+
+    // Header names of the Open Data export that differ from the column they are stored in
+    private static final Map<String, String> HEADER_ALIASES = Map.of(
+            "descriptor", "descriptorType",
+            "agency", "agencyName");
+
+    private static final List<DateTimeFormatter> US_DATE_FORMATS = List.of(
+            new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern("MM/dd/yyyy hh:mm:ss a").toFormatter(Locale.US),
+            DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss", Locale.US),
+            DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm", Locale.US));
+
+    private static final DateTimeFormatter US_DATE = DateTimeFormatter.ofPattern("MM/dd/yyyy", Locale.US);
+
+    // Index of each report column in a record, -1 when the file does not have it
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    private final int width;
+
+
+    // ReportRecordParser maps the columns of a file from its header
+    // Params: header: The first record of the file
+
+    public ReportRecordParser(String[] header) {
+        width = header.length;
+
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            byName.putIfAbsent(normalize(header[i]), i);
+        }
+        for (Map.Entry<String, String> alias : HEADER_ALIASES.entrySet()) {
+            String column = normalize(alias.getValue());
+            if (!byName.containsKey(column) && byName.containsKey(alias.getKey())) {
+                byName.put(column, byName.get(alias.getKey()));
+            }
+        }
+
+        boolean named = byName.containsKey(normalize("createdDate"));
+        for (int i = 0; i < POSITIONAL_COLUMNS.size(); i++) {
+            String column = POSITIONAL_COLUMNS.get(i);
+            if (named) {
+                positions.put(column, byName.getOrDefault(normalize(column), -1));
+            } else {
+                positions.put(column, i < width ? i : -1);
+            }
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+
+    // parse converts one record
+    // Params: record: The fields of a data record
+    // Returns: The report, without an Id
+    // Throws: IllegalArgumentException with the reason when the record is rejected
+
+    public Report parse(String[] record) {
+        if (record.length != width) {
+            throw new IllegalArgumentException("expected " + width + " fields but found " + record.length);
+        }
+
+        Report report = new Report();
+        report.setUniqueKey(key(text(record, "uniqueKey")));
+        report.setCreatedDate(text(record, "createdDate"));
+        report.setClosedDate(text(record, "closedDate"));
+        report.setAgencyName(text(record, "agencyName"));
+        report.setComplaintType(text(record, "complaintType"));
+        report.setDescriptorType(text(record, "descriptorType"));
+        report.setLocationType(text(record, "locationType"));
+        report.setIncidentZip(text(record, "incidentZip"));
+        report.setIncidentAddress(text(record, "incidentAddress"));
+        report.setAddressType(text(record, "addressType"));
+        report.setCity(text(record, "city"));
+        report.setStatus(text(record, "status"));
+        report.setCommunityBoard(text(record, "communityBoard"));
+        report.setBorough(text(record, "borough"));
+        report.setOpenDataChannelType(text(record, "openDataChannelType"));
+        report.setLatitude(coordinate(record, "latitude", 90));
+        report.setLongitude(coordinate(record, "longitude", 180));
+        return normalize(report);
+    }
+
+
+    // normalize applies the same rules to a report that was not read from a CSV record (one posted as JSON): text is
+    // trimmed and cut to fit, empty text becomes NULL, coordinates are checked, createdAt/closedAt are parsed from the
+    // date text when they are not given and the date text is written in the export format when only the time is
+    // Params: report: The report to clean up, changed in place
+    // Returns: The report
+    // Throws: IllegalArgumentException when the report has no readable created date
+
+    public static Report normalize(Report report) {
+        report.setComplaintType(clean(report.getComplaintType()));
+        report.setDescriptorType(clean(report.getDescriptorType()));
+        report.setAgencyName(clean(report.getAgencyName()));
+        report.setLocationType(clean(report.getLocationType()));
+        report.setIncidentAddress(clean(report.getIncidentAddress()));
+        report.setIncidentZip(clean(report.getIncidentZip()));
+        report.setAddressType(clean(report.getAddressType()));
+        report.setCity(clean(report.getCity()));
+        report.setStatus(clean(report.getStatus()));
+        report.setCreatedDate(clean(report.getCreatedDate()));
+        report.setClosedDate(clean(report.getClosedDate()));
+        report.setCommunityBoard(clean(report.getCommunityBoard()));
+        report.setBorough(clean(report.getBorough()));
+        report.setOpenDataChannelType(clean(report.getOpenDataChannelType()));
+        report.setLatitude(inRange(report.getLatitude(), 90));
+        report.setLongitude(inRange(report.getLongitude(), 180));
+
+        if (report.getCreatedAt() == null) {
+            report.setCreatedAt(parseDate(report.getCreatedDate()));
+        }
+        if (report.getCreatedAt() == null) {
+            throw new IllegalArgumentException("unreadable created date '" + report.getCreatedDate() + "'");
+        }
+        if (report.getClosedAt() == null) {
+            report.setClosedAt(parseDate(report.getClosedDate()));
+        }
+        if (report.getCreatedDate() == null) {
+            report.setCreatedDate(US_DATE_FORMATS.get(0).format(report.getCreatedAt()));
+        }
+        if (report.getClosedDate() == null && report.getClosedAt() != null) {
+            report.setClosedDate(US_DATE_FORMATS.get(0).format(report.getClosedAt()));
+        }
+        return report;
+    }
+
+
+    // parseDate reads the date formats found in 311 exports: 01/31/2023 10:15:00 PM, 01/31/2023 22:15:00, 01/31/2023
+    // and the ISO forms accepted by TimeBucket.parseDateTime
+    // Params: value: The date text, may be null
+    // Returns: The date, or null when it is missing or not readable
+
+    public static LocalDateTime parseDate(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        if (value.indexOf('/') < 0) {
+            return TimeBucket.parseDateTime(value);
+        }
+        for (DateTimeFormatter format : US_DATE_FORMATS) {
+            try {
+                return LocalDateTime.parse(value, format);
+            } catch (DateTimeParseException e) {
+                // Try the next format
+            }
+        }
+        try {
+            return LocalDate.parse(value, US_DATE).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private String text(String[] record, String column) {
+        int position = positions.get(column);
+        return position < 0 ? null : clean(record[position]);
+    }
+
+    private static String clean(String text) {
+        if (text == null) {
+            return null;
+        }
+        String value = text.trim();
+        if (value.isEmpty()) {
+            return null;
+        }
+        return value.length() > MAX_TEXT_LENGTH ? value.substring(0, MAX_TEXT_LENGTH) : value;
+    }
+
+    private static Double inRange(Double value, double range) {
+        return value != null && Double.isFinite(value) && Math.abs(value) <= range ? value : null;
+    }
+
+    private static Long key(String value) {
+        try {
+            return value == null ? null : Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private Double coordinate(String[] record, String column, double range) {
+        String value = text(record, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return inRange(Double.parseDouble(value), range);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String normalize(String header) {
+        return header.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.cis4900.spring.template.reports.ingest;
+
+import com.example.cis4900.spring.template.reports.models.BatchIngestResult;
+import com.example.cis4900.spring.template.reports.models.Report;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// ReportStreamIngester reads a stream of newline-delimited JSON reports (the objects /export?format=ndjson writes) and
+// hands them to the GroupCommitWriter in batches of reports.batch.size
+// The stream is read while earlier batches are being committed, up to MAX_IN_FLIGHT batches ahead, after which reading
+// waits for the oldest commit; a client pushing faster than the database writes is slowed down instead of being
+// buffered in memory. Lines that are not a report with a readable created date are rejected and reported, the rest of
+// the stream is still loaded.
+@Component
+public class ReportStreamIngester {
+    static final int MAX_IN_FLIGHT = 4;
+
+    private static final int REPORTED_ERRORS = 20;
+
+    private final GroupCommitWriter writer;
+
+    private final ObjectReader reportReader;
+
+    private final int batchSize;
+
+    @Autowired
+    public ReportStreamIngester(GroupCommitWriter writer, ObjectMapper objectMapper, @Value("${reports.batch.size:1000}") int batchSize) {
+        this.writer = writer;
+        this.reportReader = objectMapper.readerFor(Report.class).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+
+    // ingest loads the reports of a stream
+    // Params: body: NDJSON, one report object per line, blank lines are ignored
+    // Returns: How many reports were committed and rejected, with the batch latencies
+
+    public BatchIngestResult ingest(InputStream body) throws IOException {
+        long started = System.nanoTime();
+        Tally tally = new Tally();
+        Deque<InFlight> inFlight = new ArrayDeque<>();
+        List<Report> batch = new ArrayList<>(batchSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                Report report = reportReader.readValue(line);
+                // Ids are assigned by the database
+                report.setId(null);
+                batch.add(ReportRecordParser.normalize(report));
+            } catch (JsonProcessingException e) {
+                tally.rejected++;
+                tally.error("line " + lineNumber + ": " + e.getOriginalMessage());
+                continue;
+            } catch (IllegalArgumentException e) {
+                tally.rejected++;
+                tally.error("line " + lineNumber + ": " + e.getMessage());
+                continue;
+            }
+
+            if (batch.size() >= batchSize) {
+                inFlight.add(new InFlight(batch.size(), System.nanoTime(), writer.submit(batch)));
+                batch = new ArrayList<>(batchSize);
+                if (inFlight.size() >= MAX_IN_FLIGHT) {
+                    tally.await(inFlight.poll());
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            inFlight.add(new InFlight(batch.size(), System.nanoTime(), writer.submit(batch)));
+        }
+        while (!inFlight.isEmpty()) {
+            tally.await(inFlight.poll());
+        }
+
+        long elapsedMillis = (System.nanoTime() - started) / 1000000;
+        return new BatchIngestResult(tally.accepted, tally.rejected, tally.failed, tally.batches, elapsedMillis,
+                elapsedMillis == 0 ? tally.accepted * 1000 : tally.accepted * 1000 / elapsedMillis,
+                tally.batches == 0 ? 0 : tally.batchNanos / 1e6 / tally.batches, tally.maxBatchNanos / 1000000, tally.errors);
+    }
+
+    // A batch handed to the writer, with when it was handed over
+    private static final class InFlight {
+        private final int size;
+
+        private final CompletableFuture<Long> committed;
+
+        private final long submitted;
+
+        private InFlight(int size, long submitted, CompletableFuture<Long> committed) {
+            this.size = size;
+            this.submitted = submitted;
+            this.committed = committed;
+        }
+    }
+
+    // Running totals of one stream
+    private static final class Tally {
+        private long accepted = 0;
+
+        private long rejected = 0;
+
+        private long failed = 0;
+
+        private int batches = 0;
+
+        private long batchNanos = 0;
+
+        private long maxBatchNanos = 0;
+
+        private final List<String> errors = new ArrayList<>();
+
+        private void await(InFlight batch) throws IOException {
+            long finished;
+            try {
+                finished = batch.committed.get();
+                accepted += batch.size;
+            } catch (ExecutionException e) {
+                finished = System.nanoTime();
+                failed += batch.size;
+                error("batch of " + batch.size + " reports not committed: " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for a batch commit", e);
+            }
+            long latency = finished - batch.submitted;
+            batches++;
+            batchNanos += latency;
+            maxBatchNanos = Math.max(maxBatchNanos, latency);
+        }
+
+        private void error(String message) {
+            if (errors.size() < REPORTED_ERRORS) {
+                errors.add(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.cis4900.spring.template.reports.memory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// BitmapIndex keeps one RowBitmap per distinct value (per collation group) of every low-cardinality varchar column
+// A column filter is the OR of the bitmaps of its values and a filter over several columns is the AND of those, so
+// stacking agency, borough, complaint type and status filters never touches the rows themselves. Only dictionary encoded
+// columns are indexed (addresses and the raw date texts are TextColumns and filtered by scanning), and a dictionary
+// column that turns out to have more than MAX_INDEXED_VALUES distinct values is scanned as well.
+public final class BitmapIndex {
+    static final int MAX_INDEXED_VALUES = 1 << 16;
+
+    private final Map<String, RowBitmap[]> bitmaps;
+
+    private BitmapIndex(Map<String, RowBitmap[]> bitmaps) {
+        this.bitmaps = bitmaps;
+    }
+
+    public boolean isIndexed(String column) {
+        return bitmaps.containsKey(column);
+    }
+
+    // rowsIn returns the rows of the column whose value is in one of the given groups
+    public RowBitmap rowsIn(String column, int[] groups) {
+        RowBitmap[] values = bitmaps.get(column);
+        RowBitmap rows = RowBitmap.EMPTY;
+        for (int group : groups) {
+            rows = rows.or(values[group]);
+        }
+        return rows;
+    }
+
+
+    // build indexes every DictionaryColumn with few enough distinct values, one pass over the rows per column
+    static BitmapIndex build(Iterable<DictionaryColumn> columns, int size) {
+        Map<String, RowBitmap[]> bitmaps = new HashMap<>();
+
+        for (DictionaryColumn column : columns) {
+            if (column.groupCount() > MAX_INDEXED_VALUES) {
+                continue;
+            }
+
+            RowBitmap.Builder[] builders = new RowBitmap.Builder[column.groupCount()];
+            for (int group = 0; group < builders.length; group++) {
+                builders[group] = new RowBitmap.Builder();
+            }
+            for (int row = 0; row < size; row++) {
+                int group = column.groupKey(row);
+                if (group != DictionaryColumn.NULL_CODE) {
+                    builders[group].add(row);
+                }
+            }
+
+            RowBitmap[] built = new RowBitmap[builders.length];
+            for (int group = 0; group < builders.length; group++) {
+                built[group] = builders[group].build();
+            }
+            bitmaps.put(column.getName(), built);
+        }
+        return new BitmapIndex(bitmaps);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.cis4900.spring.template.reports.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// DictionaryColumn stores a varchar column as one int code per row plus a dictionary of the distinct strings
+// Every column of the report table has few distinct values compared to its row count, so a filter only has to compare
+// strings once per dictionary entry and the scan itself only compares ints.
+//
+// Codes keep the exact string so rows come back unchanged, but filters, DISTINCT and GROUP BY go through a second
+// "group" level that folds strings MariaDB's default collation treats as equal (case and trailing spaces are ignored),
+// so both query engines answer the same way.
+public class DictionaryColumn extends SnapshotColumn {
+    public static final int NULL_CODE = -1;
+
+    private final int[] codes;
+
+    private final String[] dictionary;
+
+    private final int[] groups;
+
+    private final String[] groupValues;
+
+    private DictionaryColumn(String name, int[] codes, String[] dictionary, int[] groups, String[] groupValues) {
+        super(name);
+        this.codes = codes;
+        this.dictionary = dictionary;
+        this.groups = groups;
+        this.groupValues = groupValues;
+    }
+
+    public int code(int row) {
+        return codes[row];
+    }
+
+    public int dictionarySize() {
+        return dictionary.length;
+    }
+
+    @Override
+    public Object value(int row) {
+        int code = codes[row];
+        return code == NULL_CODE ? null : dictionary[code];
+    }
+
+    @Override
+    public RowFilter in(List<String> values) {
+        int[] matching = groupsMatching(values);
+        if (matching.length == 0) {
+            return RowFilter.NONE;
+        }
+
+        boolean[] wanted = new boolean[groupValues.length];
+        for (int group : matching) {
+            wanted[group] = true;
+        }
+        return row -> {
+            int code = codes[row];
+            return code != NULL_CODE && wanted[groups[code]];
+        };
+    }
+
+    // groupsMatching lists the groups an IN (...) list selects, each string is compared once per group rather than per row
+    public int[] groupsMatching(List<String> values) {
+        boolean[] wanted = new boolean[groupValues.length];
+        int count = 0;
+
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+            String key = collationKey(value);
+            for (int group = 0; group < groupValues.length; group++) {
+                if (!wanted[group] && collationKey(groupValues[group]).equals(key)) {
+                    wanted[group] = true;
+                    count++;
+                }
+            }
+        }
+
+        int[] matching = new int[count];
+        int next = 0;
+        for (int group = 0; group < wanted.length; group++) {
+            if (wanted[group]) {
+                matching[next++] = group;
+            }
+        }
+        return matching;
+    }
+
+    @Override
+    public int groupKey(int row) {
+        int code = codes[row];
+        return code == NULL_CODE ? NULL_CODE : groups[code];
+    }
+
+    @Override
+    public Object groupValue(int key) {
+        return key == NULL_CODE ? null : groupValues[key];
+    }
+
+    @Override
+    public int groupCount() {
+        return groupValues.length;
+    }
+
+    // collationKey is the string MariaDB's default collation compares a value as
+    public static String collationKey(String value) {
+        return value.stripTrailing().toLowerCase(Locale.ROOT);
+    }
+
+
+    // Builder collects a column one row at a time while the snapshot is loaded
+    public static class Builder {
+        private final String name;
+
+        private int[] codes = new int[1024];
+
+        private int size = 0;
+
+        private final Map<String, Integer> codeOf = new HashMap<>();
+
+        private final List<String> dictionary = new ArrayList<>();
+
+        private final Map<String, Integer> groupOf = new HashMap<>();
+
+        private final List<Integer> groups = new ArrayList<>();
+
+        private final List<String> groupValues = new ArrayList<>();
+
+        public Builder(String name) {
+            this.name = name;
+        }
+
+        public void add(String value) {
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+            }
+            codes[size++] = value == null ? NULL_CODE : codeFor(value);
+        }
+
+        private int codeFor(String value) {
+            Integer code = codeOf.get(value);
+            if (code != null) {
+                return code;
+            }
+
+            code = dictionary.size();
+            dictionary.add(value);
+            codeOf.put(value, code);
+
+            String key = collationKey(value);
+            Integer group = groupOf.get(key);
+            if (group == null) {
+                group = groupValues.size();
+                groupValues.add(value);
+                groupOf.put(key, group);
+            }
+            groups.add(group);
+            return code;
+        }
+
+        public DictionaryColumn build() {
+            int[] groupArray = new int[groups.size()];
+            for (int i = 0; i < groupArray.length; i++) {
+                groupArray[i] = groups.get(i);
+            }
+            return new DictionaryColumn(name, Arrays.copyOf(codes, size), dictionary.toArray(new String[0]),
+                    groupArray, groupValues.toArray(new String[0]));
+        }
+    }
+}
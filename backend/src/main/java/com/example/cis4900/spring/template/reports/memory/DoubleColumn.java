@@ -0,0 +1,146 @@
+package com.example.cis4900.spring.template.reports.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// DoubleColumn stores a double column (latitude, longitude) as a primitive array, NULL is kept as NaN
+public class DoubleColumn extends SnapshotColumn {
+    private final double[] values;
+
+    // Group keys for GROUP BY / DISTINCT on a double column, built the first time they are needed
+    private volatile GroupIndex groupIndex;
+
+    private DoubleColumn(String name, double[] values) {
+        super(name);
+        this.values = values;
+    }
+
+    public double get(int row) {
+        return values[row];
+    }
+
+    public boolean isNull(int row) {
+        return Double.isNaN(values[row]);
+    }
+
+    @Override
+    public Object value(int row) {
+        double value = values[row];
+        return Double.isNaN(value) ? null : value;
+    }
+
+    @Override
+    public RowFilter in(List<String> values) {
+        double[] wanted = values.stream()
+                .map(DoubleColumn::parse)
+                .filter(value -> value != null)
+                .mapToDouble(Double::doubleValue)
+                .toArray();
+
+        if (wanted.length == 0) {
+            return RowFilter.NONE;
+        }
+        return row -> {
+            double value = this.values[row];
+            for (double candidate : wanted) {
+                if (value == candidate) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    @Override
+    public int groupKey(int row) {
+        return groups().keys[row];
+    }
+
+    @Override
+    public Object groupValue(int key) {
+        return key == DictionaryColumn.NULL_CODE ? null : groups().distinct[key];
+    }
+
+    @Override
+    public int groupCount() {
+        return groups().distinct.length;
+    }
+
+    private GroupIndex groups() {
+        GroupIndex index = groupIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = groupIndex;
+                if (index == null) {
+                    index = new GroupIndex(values);
+                    groupIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private static Double parse(String value) {
+        try {
+            return value == null ? null : Double.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+
+    private static final class GroupIndex {
+        private final int[] keys;
+
+        private final Double[] distinct;
+
+        private GroupIndex(double[] values) {
+            keys = new int[values.length];
+            Map<Double, Integer> keyOf = new HashMap<>();
+            List<Double> seen = new ArrayList<>();
+
+            for (int row = 0; row < values.length; row++) {
+                if (Double.isNaN(values[row])) {
+                    keys[row] = DictionaryColumn.NULL_CODE;
+                    continue;
+                }
+                Integer key = keyOf.get(values[row]);
+                if (key == null) {
+                    key = seen.size();
+                    seen.add(values[row]);
+                    keyOf.put(values[row], key);
+                }
+                keys[row] = key;
+            }
+            distinct = seen.toArray(new Double[0]);
+        }
+    }
+
+
+    // Builder collects a column one row at a time while the snapshot is loaded
+    public static class Builder {
+        private final String name;
+
+        private double[] values = new double[1024];
+
+        private int size = 0;
+
+        public Builder(String name) {
+            this.name = name;
+        }
+
+        public void add(Double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value == null ? Double.NaN : value;
+        }
+
+        public DoubleColumn build() {
+            return new DoubleColumn(name, Arrays.copyOf(values, size));
+        }
+    }
+}
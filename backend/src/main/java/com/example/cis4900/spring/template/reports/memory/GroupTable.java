@@ -0,0 +1,108 @@
+package com.example.cis4900.spring.template.reports.memory;
+
+import java.util.Arrays;
+
+// GroupTable is an open addressing hash table from a packed group key to the number of rows in the group and the first
+// row the group was seen at. Every fork-join leaf fills its own table and the tables are merged afterwards, so the
+// scan never boxes a key or touches shared state.
+final class GroupTable {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+
+    private long[] counts;
+
+    private int[] firstRows;
+
+    private int size;
+
+    GroupTable() {
+        this(16);
+    }
+
+    private GroupTable(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        counts = new long[capacity];
+        firstRows = new int[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(long key, int row) {
+        add(key, 1, row);
+    }
+
+    void add(long key, long count, int row) {
+        int slot = slot(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            counts[slot] = count;
+            firstRows[slot] = row;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+            return;
+        }
+        counts[slot] += count;
+        firstRows[slot] = Math.min(firstRows[slot], row);
+    }
+
+    void merge(GroupTable other) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.keys[slot] != EMPTY) {
+                add(other.keys[slot], other.counts[slot], other.firstRows[slot]);
+            }
+        }
+    }
+
+    // entries returns {key, count, firstRow} for every group, in no particular order
+    long[][] entries() {
+        long[][] entries = new long[size][];
+        int next = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) {
+                entries[next++] = new long[] {keys[slot], counts[slot], firstRows[slot]};
+            }
+        }
+        return entries;
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) (mix(key) & mask);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        int[] oldFirstRows = firstRows;
+
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        counts = new long[keys.length];
+        firstRows = new int[keys.length];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                firstRows[slot] = oldFirstRows[i];
+            }
+        }
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+}
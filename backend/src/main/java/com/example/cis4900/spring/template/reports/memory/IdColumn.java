@@ -0,0 +1,99 @@
+package com.example.cis4900.spring.template.reports.memory;
+
+import java.util.Arrays;
+import java.util.List;
+
+// IdColumn stores the primary key. Rows are loaded in Id order, so the array is sorted and the row of an Id can be
+// found with a binary search
+public class IdColumn extends SnapshotColumn {
+    private final int[] ids;
+
+    private IdColumn(String name, int[] ids) {
+        super(name);
+        this.ids = ids;
+    }
+
+    public int get(int row) {
+        return ids[row];
+    }
+
+    // rowOf finds the row holding an Id, or -1 if there is none
+    public int rowOf(int id) {
+        int row = Arrays.binarySearch(ids, id);
+        return row >= 0 ? row : -1;
+    }
+
+    // firstRowAfter finds the first row whose Id is greater than the given Id
+    public int firstRowAfter(int id) {
+        int row = Arrays.binarySearch(ids, id);
+        return row >= 0 ? row + 1 : -row - 1;
+    }
+
+    @Override
+    public Object value(int row) {
+        return ids[row];
+    }
+
+    @Override
+    public RowFilter in(List<String> values) {
+        int[] wanted = values.stream()
+                .map(IdColumn::parse)
+                .filter(value -> value != null)
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .toArray();
+
+        if (wanted.length == 0) {
+            return RowFilter.NONE;
+        }
+        return row -> Arrays.binarySearch(wanted, ids[row]) >= 0;
+    }
+
+    @Override
+    public int groupKey(int row) {
+        return row;
+    }
+
+    @Override
+    public Object groupValue(int key) {
+        return ids[key];
+    }
+
+    @Override
+    public int groupCount() {
+        return ids.length;
+    }
+
+    private static Integer parse(String value) {
+        try {
+            return value == null ? null : Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+
+    // Builder collects the Ids while the snapshot is loaded
+    public static class Builder {
+        private final String name;
+
+        private int[] ids = new int[1024];
+
+        private int size = 0;
+
+        public Builder(String name) {
+            this.name = name;
+        }
+
+        public void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        public IdColumn build() {
+            return new IdColumn(name, Arrays.copyOf(ids, size));
+        }
+    }
+}
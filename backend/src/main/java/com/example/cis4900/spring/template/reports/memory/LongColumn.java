@@ -0,0 +1,146 @@
+package com.example.cis4900.spring.template.reports.memory;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// LongColumn stores a BIGINT column (uniqueKey) as a primitive array, with the NULL rows marked in a BitSet
+public class LongColumn extends SnapshotColumn {
+    private final long[] values;
+
+    private final BitSet nulls;
+
+    // Group keys for GROUP BY / DISTINCT, built the first time they are needed
+    private volatile GroupIndex groupIndex;
+
+    private LongColumn(String name, long[] values, BitSet nulls) {
+        super(name);
+        this.values = values;
+        this.nulls = nulls;
+    }
+
+    public boolean isNull(int row) {
+        return nulls.get(row);
+    }
+
+    @Override
+    public Object value(int row) {
+        return nulls.get(row) ? null : values[row];
+    }
+
+    @Override
+    public RowFilter in(List<String> wanted) {
+        long[] keys = wanted.stream()
+                .map(LongColumn::parse)
+                .filter(value -> value != null)
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+
+        if (keys.length == 0) {
+            return RowFilter.NONE;
+        }
+        return row -> !nulls.get(row) && Arrays.binarySearch(keys, values[row]) >= 0;
+    }
+
+    @Override
+    public int groupKey(int row) {
+        return groups().keys[row];
+    }
+
+    @Override
+    public Object groupValue(int key) {
+        return key == DictionaryColumn.NULL_CODE ? null : groups().distinct[key];
+    }
+
+    @Override
+    public int groupCount() {
+        return groups().distinct.length;
+    }
+
+    private GroupIndex groups() {
+        GroupIndex index = groupIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = groupIndex;
+                if (index == null) {
+                    index = new GroupIndex(this);
+                    groupIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private static Long parse(String value) {
+        try {
+            return value == null ? null : Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+
+    private static final class GroupIndex {
+        private final int[] keys;
+
+        private final Long[] distinct;
+
+        private GroupIndex(LongColumn column) {
+            keys = new int[column.values.length];
+            Map<Long, Integer> keyOf = new HashMap<>();
+
+            for (int row = 0; row < keys.length; row++) {
+                if (column.nulls.get(row)) {
+                    keys[row] = DictionaryColumn.NULL_CODE;
+                    continue;
+                }
+                Integer key = keyOf.get(column.values[row]);
+                if (key == null) {
+                    key = keyOf.size();
+                    keyOf.put(column.values[row], key);
+                }
+                keys[row] = key;
+            }
+
+            distinct = new Long[keyOf.size()];
+            for (Map.Entry<Long, Integer> entry : keyOf.entrySet()) {
+                distinct[entry.getValue()] = entry.getKey();
+            }
+        }
+    }
+
+
+    // Builder collects a column one row at a time while the snapshot is loaded
+    public static class Builder {
+        private final String name;
+
+        private long[] values = new long[1024];
+
+        private final BitSet nulls = new BitSet();
+
+        private int size = 0;
+
+        public Builder(String name) {
+            this.name = name;
+        }
+
+        public void add(Long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            if (value == null) {
+                nulls.set(size);
+            } else {
+                values[size] = value;
+            }
+            size++;
+        }
+
+        public LongColumn build() {
+            return new LongColumn(name, Arrays.copyOf(values, size), nulls);
+        }
+    }
+}
@@ -0,0 +1,506 @@
+package com.example.cis4900.spring.template.reports.memory;
+
+import com.example.cis4900.spring.template.reports.analytics.ResolutionHistogram;
+import com.example.cis4900.spring.template.reports.models.Report;
+import com.example.cis4900.spring.template.reports.time.TimeBucket;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// ReportsSnapshot is a read-only, column by column copy of the report table
+// The low-cardinality varchar columns (complaint type, agency, borough, status, zip code and the like) are dictionary
+// encoded and indexed in a BitmapIndex; the TEXT_COLUMNS, nearly unique per row, are plain string arrays. latitude/longitude
+// are double arrays, createdAt/closedAt are epoch second arrays, uniqueKey is a long array and rows are kept in Id order.
+// Filters on indexed columns are answered from the bitmaps first and only the rows they select are scanned. Each query
+// method mirrors one of the native SQL queries in ReportsDaoCustomImpl and hands back rows in the same shape the SQL
+// driver would (Report entities, single values or Object[] rows), so the DAO can treat both engines the same way.
+public class ReportsSnapshot {
+    // Report table columns in table order, the same order SELECT * returns them in
+    public static final List<String> STRING_COLUMNS = List.of(
+            "complaintType", "descriptorType", "agencyName", "locationType", "incidentAddress", "incidentZip",
+            "addressType", "city", "status", "createdDate", "closedDate", "communityBoard", "borough",
+            "openDataChannelType"
+    );
+
+    // Varchar columns with about as many distinct values as rows, stored as plain strings rather than a dictionary
+    public static final List<String> TEXT_COLUMNS = List.of("incidentAddress", "createdDate", "closedDate");
+
+    // DATETIME columns, after latitude and longitude in the table
+    public static final List<String> TIME_COLUMNS = List.of("createdAt", "closedAt");
+
+    // BIGINT column after the DATETIME columns
+    public static final String UNIQUE_KEY_COLUMN = "uniqueKey";
+
+    private final int size;
+
+    private final IdColumn ids;
+
+    private final DoubleColumn latitudes;
+
+    private final DoubleColumn longitudes;
+
+    private final Map<String, SnapshotColumn> columns;
+
+    private final BitmapIndex index;
+
+    private ReportsSnapshot(int size, IdColumn ids, Map<String, SnapshotColumn> strings,
+                            DoubleColumn latitudes, DoubleColumn longitudes, Map<String, TimeColumn> times, LongColumn uniqueKeys) {
+        this.size = size;
+        List<DictionaryColumn> dictionaries = new ArrayList<>();
+        for (SnapshotColumn column : strings.values()) {
+            if (column instanceof DictionaryColumn) {
+                dictionaries.add((DictionaryColumn) column);
+            }
+        }
+        this.index = BitmapIndex.build(dictionaries, size);
+        this.ids = ids;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+
+        columns = new LinkedHashMap<>();
+        columns.put(ids.getName(), ids);
+        columns.putAll(strings);
+        columns.put(latitudes.getName(), latitudes);
+        columns.put(longitudes.getName(), longitudes);
+        columns.putAll(times);
+        columns.put(uniqueKeys.getName(), uniqueKeys);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean hasColumns(List<String> names) {
+        return columns.keySet().containsAll(names);
+    }
+
+
+    // select turns the parsed filter JSON into the rows to scan: IN within a column, AND across columns
+    // Indexed columns are resolved by OR-ing their value bitmaps and AND-ing the results; the remaining columns become a
+    // RowFilter that is checked on every row the bitmaps let through
+    // Params:
+    // filters - Column name to accepted values, empty lists are ignored just like buildWhereClause ignores them
+    // Returns: The selection
+    // Throws: IllegalArgumentException for a column the report table does not have, where SQL would fail as well
+
+    Selection select(Map<String, List<String>> filters) {
+        RowBitmap indexed = null;
+        RowFilter residual = RowFilter.ALL;
+
+        for (Map.Entry<String, List<String>> entry : filters.entrySet()) {
+            if (entry.getValue() == null || entry.getValue().isEmpty()) {
+                continue;
+            }
+
+            SnapshotColumn column = column(entry.getKey());
+            if (index.isIndexed(column.getName())) {
+                int[] groups = ((DictionaryColumn) column).groupsMatching(entry.getValue());
+                RowBitmap rows = index.rowsIn(column.getName(), groups);
+                indexed = indexed == null ? rows : indexed.and(rows);
+            } else {
+                residual = residual.and(column.in(entry.getValue()));
+            }
+        }
+        return new Selection(indexed, residual);
+    }
+
+
+    // count is SELECT COUNT(*) FROM report WHERE filters
+    // When every filtered column is indexed this is just the cardinality of the intersected bitmaps
+
+    public long count(Map<String, List<String>> filters) {
+        Selection selection = select(filters);
+        if (selection.indexed != null && selection.residual == RowFilter.ALL) {
+            return selection.indexed.cardinality();
+        }
+        return SnapshotScan.count(selection.rows(), selection.residual);
+    }
+
+
+    // findReports is SELECT * FROM report WHERE Id > afterId AND filters ORDER BY Id LIMIT limit OFFSET offset
+
+    public List<Report> findReports(Map<String, List<String>> filters, int afterId, int offset, int limit) {
+        Selection selection = select(filters);
+        RowSet candidates = selection.rows().startingAt(ids.firstRowAfter(afterId));
+        int[] rows = SnapshotScan.rows(candidates, selection.residual, (int) Math.min(Integer.MAX_VALUE, (long) offset + limit));
+
+        List<Report> reports = new ArrayList<>(Math.max(0, rows.length - offset));
+        for (int i = offset; i < rows.length; i++) {
+            reports.add(toReport(rows[i]));
+        }
+        return reports;
+    }
+
+
+    // findReportsById is SELECT * FROM report WHERE Id IN (ids), Ids that don't exist are skipped
+
+    public List<Report> findReportsById(List<Integer> reportIds) {
+        List<Report> reports = new ArrayList<>(reportIds.size());
+        for (Integer id : reportIds) {
+            int row = id == null ? -1 : ids.rowOf(id);
+            if (row >= 0) {
+                reports.add(toReport(row));
+            }
+        }
+        return reports;
+    }
+
+
+    // values is SELECT columns FROM report WHERE filters ORDER BY Id LIMIT limit
+    // Rows are a single value when one column is asked for and an Object[] otherwise, like a native query
+
+    public List<Object> values(List<String> names, Map<String, List<String>> filters, int limit) {
+        return values(names, filters, null, limit);
+    }
+
+
+    // values with bounds ({west, south, east, north}) also leaves out the rows without coordinates inside them
+
+    public List<Object> values(List<String> names, Map<String, List<String>> filters, double[] bounds, int limit) {
+        SnapshotColumn[] selected = columns(names);
+        Selection selection = select(filters);
+        RowFilter residual = bounds == null ? selection.residual : selection.residual.and(locatedIn(bounds));
+        int[] rows = SnapshotScan.rows(selection.rows(), residual, limit);
+
+        List<Object> values = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            values.add(rowValues(selected, row));
+        }
+        return values;
+    }
+
+
+    // distinctValues is SELECT DISTINCT column FROM report WHERE filters, in the order the values are first seen
+
+    public List<Object> distinctValues(String name, Map<String, List<String>> filters) {
+        List<Object> values = new ArrayList<>();
+        for (Object[] group : groupCounts(List.of(name), filters, Comparator.comparingLong(group -> group[2]))) {
+            values.add(group[0]);
+        }
+        return values;
+    }
+
+
+    // groupCounts is SELECT columns, COUNT(*) AS total FROM report WHERE filters GROUP BY columns ORDER BY total DESC
+    // Groups with the same count come back in the order they are first seen
+
+    public List<Object[]> groupCounts(List<String> names, Map<String, List<String>> filters) {
+        Comparator<long[]> byCount = Comparator.comparingLong(group -> -group[1]);
+        return groupCounts(names, filters, byCount.thenComparingLong(group -> group[2]));
+    }
+
+
+    private List<Object[]> groupCounts(List<String> names, Map<String, List<String>> filters, Comparator<long[]> order) {
+        SnapshotColumn[] selected = columns(names);
+        long[] radix = new long[selected.length];
+        long capacity = 1;
+        for (int i = 0; i < selected.length; i++) {
+            radix[i] = selected[i].groupCount() + 1L;
+            if (capacity > Long.MAX_VALUE / radix[i]) {
+                throw new IllegalArgumentException("Too many groups for columns " + names);
+            }
+            capacity *= radix[i];
+        }
+
+        Selection selection = select(filters);
+        GroupTable table = SnapshotScan.groups(selection.rows(), selection.residual, row -> {
+            long key = 0;
+            for (int i = 0; i < selected.length; i++) {
+                key = key * radix[i] + selected[i].groupKey(row) + 1;
+            }
+            return key;
+        });
+
+        long[][] entries = table.entries();
+        Arrays.sort(entries, order);
+
+        List<Object[]> groups = new ArrayList<>(entries.length);
+        for (long[] entry : entries) {
+            Object[] group = new Object[selected.length + 1];
+            long key = entry[0];
+            for (int i = selected.length - 1; i >= 0; i--) {
+                group[i] = selected[i].groupValue((int) (key % radix[i]) - 1);
+                key /= radix[i];
+            }
+            group[selected.length] = entry[1];
+            groups.add(group);
+        }
+        return groups;
+    }
+
+
+    // heatCells is the grid query of getHeatMapCells: FLOOR(latitude / cell), FLOOR(longitude / cell), COUNT(*) for the
+    // rows inside bounds ({west, south, east, north}, or null for everything) that pass the filters
+
+    public List<Object[]> heatCells(double cell, double[] bounds, Map<String, List<String>> filters) {
+        Selection selection = select(filters);
+        GroupTable table = SnapshotScan.groups(selection.rows(), selection.residual.and(locatedIn(bounds)), row -> {
+            long latCell = (long) Math.floor(latitudes.get(row) / cell);
+            long lonCell = (long) Math.floor(longitudes.get(row) / cell);
+            if (latCell <= Integer.MIN_VALUE || latCell > Integer.MAX_VALUE || lonCell != (int) lonCell) {
+                return SnapshotScan.SKIP;
+            }
+            return (latCell << 32) | (lonCell & 0xffffffffL);
+        });
+
+        long[][] entries = table.entries();
+        Arrays.sort(entries, Comparator.comparingLong((long[] entry) -> entry[0] >> 32).thenComparingInt(entry -> (int) entry[0]));
+
+        List<Object[]> cells = new ArrayList<>(entries.length);
+        for (long[] entry : entries) {
+            long latCell = entry[0] >> 32;
+            long lonCell = (int) entry[0];
+            cells.add(new Object[] {latCell, lonCell, entry[1]});
+        }
+        return cells;
+    }
+
+
+    // timeSeries is SELECT bucket(column) AS bucket, COUNT(*) FROM report WHERE column >= from AND column < to AND filters
+    // GROUP BY bucket ORDER BY bucket, rows where the column is NULL are left out
+    // Params:
+    // name - One of the TIME_COLUMNS
+    // bucket - Bucket size
+    // from, to - Range of the column to count, either may be null for an open end
+    // filters - Column name to accepted values
+    // Returns: {bucket start formatted as TimeBucket.BUCKET_FORMAT, count} rows in time order, the same rows the SQL
+    // query returns
+
+    public List<Object[]> timeSeries(String name, TimeBucket bucket, LocalDateTime from, LocalDateTime to,
+                                     Map<String, List<String>> filters) {
+        SnapshotColumn column = column(name);
+        if (!(column instanceof TimeColumn)) {
+            throw new IllegalArgumentException("Not a time column: " + name);
+        }
+        TimeColumn times = (TimeColumn) column;
+
+        Selection selection = select(filters);
+        GroupTable table = SnapshotScan.groups(selection.rows(), selection.residual.and(times.between(from, to)),
+                row -> bucket.floor(times.get(row)));
+
+        long[][] entries = table.entries();
+        Arrays.sort(entries, Comparator.comparingLong(entry -> entry[0]));
+
+        List<Object[]> rows = new ArrayList<>(entries.length);
+        for (long[] entry : entries) {
+            rows.add(new Object[] {TimeBucket.fromEpochSecond(entry[0]).format(TimeBucket.BUCKET_FORMAT), entry[1]});
+        }
+        return rows;
+    }
+
+
+    // resolutionBuckets is the histogram query of getResolutionPercentiles: group, ResolutionHistogram bucket of
+    // closedAt - createdAt, COUNT(*) for the rows that pass the filters and were closed no earlier than they were created
+    // Returns: {group value, bucket, count} rows in no particular order
+
+    public List<Object[]> resolutionBuckets(String name, Map<String, List<String>> filters) {
+        SnapshotColumn group = column(name);
+        TimeColumn created = (TimeColumn) column("createdAt");
+        TimeColumn closed = (TimeColumn) column("closedAt");
+
+        Selection selection = select(filters);
+        GroupTable table = SnapshotScan.groups(selection.rows(), selection.residual, row -> {
+            if (created.isNull(row) || closed.isNull(row) || closed.get(row) < created.get(row)) {
+                return SnapshotScan.SKIP;
+            }
+            int bucket = ResolutionHistogram.bucketOf(closed.get(row) - created.get(row));
+            return (group.groupKey(row) + 1L) * ResolutionHistogram.BUCKETS + bucket;
+        });
+
+        List<Object[]> rows = new ArrayList<>(table.size());
+        for (long[] entry : table.entries()) {
+            Object value = group.groupValue((int) (entry[0] / ResolutionHistogram.BUCKETS) - 1);
+            rows.add(new Object[] {value, (int) (entry[0] % ResolutionHistogram.BUCKETS), entry[1]});
+        }
+        return rows;
+    }
+
+
+    // locatedIn accepts the rows with coordinates, inside bounds ({west, south, east, north}) unless it is null
+    private RowFilter locatedIn(double[] bounds) {
+        RowFilter located = row -> !latitudes.isNull(row) && !longitudes.isNull(row);
+        if (bounds == null) {
+            return located;
+        }
+        return located.and(row -> {
+            double latitude = latitudes.get(row);
+            double longitude = longitudes.get(row);
+            return latitude >= bounds[1] && latitude <= bounds[3] && longitude >= bounds[0] && longitude <= bounds[2];
+        });
+    }
+
+
+    public Report toReport(int row) {
+        Report report = new Report();
+        report.setId(ids.get(row));
+        report.setComplaintType(string("complaintType", row));
+        report.setDescriptorType(string("descriptorType", row));
+        report.setAgencyName(string("agencyName", row));
+        report.setLocationType(string("locationType", row));
+        report.setIncidentAddress(string("incidentAddress", row));
+        report.setIncidentZip(string("incidentZip", row));
+        report.setAddressType(string("addressType", row));
+        report.setCity(string("city", row));
+        report.setStatus(string("status", row));
+        report.setCreatedDate(string("createdDate", row));
+        report.setClosedDate(string("closedDate", row));
+        report.setCommunityBoard(string("communityBoard", row));
+        report.setBorough(string("borough", row));
+        report.setOpenDataChannelType(string("openDataChannelType", row));
+        report.setLatitude((Double) latitudes.value(row));
+        report.setLongitude((Double) longitudes.value(row));
+        report.setCreatedAt((LocalDateTime) columns.get("createdAt").value(row));
+        report.setClosedAt((LocalDateTime) columns.get("closedAt").value(row));
+        report.setUniqueKey((Long) columns.get(UNIQUE_KEY_COLUMN).value(row));
+        return report;
+    }
+
+
+    // Selection is the outcome of select: the rows picked by the bitmap index (null when no indexed column is filtered)
+    // and the filter still to check on each of them
+    final class Selection {
+        private final RowBitmap indexed;
+
+        private final RowFilter residual;
+
+        Selection(RowBitmap indexed, RowFilter residual) {
+            this.indexed = indexed;
+            this.residual = residual;
+        }
+
+        RowSet rows() {
+            return indexed == null ? RowSet.range(0, size) : RowSet.of(indexed.toArray());
+        }
+    }
+
+
+    private String string(String name, int row) {
+        return (String) columns.get(name).value(row);
+    }
+
+    private SnapshotColumn column(String name) {
+        SnapshotColumn column = columns.get(name);
+        if (column == null) {
+            throw new IllegalArgumentException("Unknown report column: " + name);
+        }
+        return column;
+    }
+
+    private SnapshotColumn[] columns(List<String> names) {
+        SnapshotColumn[] selected = new SnapshotColumn[names.size()];
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = column(names.get(i));
+        }
+        return selected;
+    }
+
+    private static Object rowValues(SnapshotColumn[] selected, int row) {
+        if (selected.length == 1) {
+            return selected[0].value(row);
+        }
+        Object[] values = new Object[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+            values[i] = selected[i].value(row);
+        }
+        return values;
+    }
+
+
+    // Builder appends rows in Id order while the table is read
+    public static class Builder {
+        private final IdColumn.Builder ids = new IdColumn.Builder("Id");
+
+        private final Map<String, DictionaryColumn.Builder> strings = new LinkedHashMap<>();
+
+        private final Map<String, TextColumn.Builder> texts = new LinkedHashMap<>();
+
+        private final DoubleColumn.Builder latitudes = new DoubleColumn.Builder("latitude");
+
+        private final DoubleColumn.Builder longitudes = new DoubleColumn.Builder("longitude");
+
+        private final Map<String, TimeColumn.Builder> times = new LinkedHashMap<>();
+
+        private final LongColumn.Builder uniqueKeys = new LongColumn.Builder(UNIQUE_KEY_COLUMN);
+
+        private int size = 0;
+
+        private int lastId = Integer.MIN_VALUE;
+
+        public Builder() {
+            for (String name : STRING_COLUMNS) {
+                if (TEXT_COLUMNS.contains(name)) {
+                    texts.put(name, new TextColumn.Builder(name));
+                } else {
+                    strings.put(name, new DictionaryColumn.Builder(name));
+                }
+            }
+            for (String name : TIME_COLUMNS) {
+                times.put(name, new TimeColumn.Builder(name));
+            }
+        }
+
+        // add appends one row, values holds the STRING_COLUMNS in order, the TIME_COLUMNS and uniqueKey are left NULL
+        public void add(int id, String[] values, Double latitude, Double longitude) {
+            add(id, values, latitude, longitude, null, null);
+        }
+
+        public void add(int id, String[] values, Double latitude, Double longitude, LocalDateTime createdAt, LocalDateTime closedAt) {
+            add(id, values, latitude, longitude, createdAt, closedAt, null);
+        }
+
+        public void add(int id, String[] values, Double latitude, Double longitude, LocalDateTime createdAt, LocalDateTime closedAt,
+                        Long uniqueKey) {
+            if (id <= lastId) {
+                throw new IllegalArgumentException("Rows must be added in increasing Id order");
+            }
+            lastId = id;
+
+            ids.add(id);
+            for (int i = 0; i < STRING_COLUMNS.size(); i++) {
+                String name = STRING_COLUMNS.get(i);
+                DictionaryColumn.Builder dictionary = strings.get(name);
+                if (dictionary != null) {
+                    dictionary.add(values[i]);
+                } else {
+                    texts.get(name).add(values[i]);
+                }
+            }
+            latitudes.add(latitude);
+            longitudes.add(longitude);
+            times.get("createdAt").add(createdAt);
+            times.get("closedAt").add(closedAt);
+            uniqueKeys.add(uniqueKey);
+            size++;
+        }
+
+        public void add(Report report) {
+            String[] values = {
+                report.getComplaintType(), report.getDescriptorType(), report.getAgencyName(), report.getLocationType(),
+                report.getIncidentAddress(), report.getIncidentZip(), report.getAddressType(), report.getCity(),
+                report.getStatus(), report.getCreatedDate(), report.getClosedDate(), report.getCommunityBoard(),
+                report.getBorough(), report.getOpenDataChannelType()
+            };
+            add(report.getId(), values, report.getLatitude(), report.getLongitude(), report.getCreatedAt(), report.getClosedAt(),
+                    report.getUniqueKey());
+        }
+
+        public ReportsSnapshot build() {
+            // In table order, the order the columns are listed in
+            Map<String, SnapshotColumn> built = new LinkedHashMap<>();
+            for (String name : STRING_COLUMNS) {
+                DictionaryColumn.Builder dictionary = strings.get(name);
+                built.put(name, dictionary != null ? dictionary.build() : texts.get(name).build());
+            }
+            Map<String, TimeColumn> builtTimes = new LinkedHashMap<>();
+            for (Map.Entry<String, TimeColumn.Builder> entry : times.entrySet()) {
+                builtTimes.put(entry.getKey(), entry.getValue().build());
+            }
+            return new ReportsSnapshot(size, ids.build(), built, latitudes.build(), longitudes.build(), builtTimes, uniqueKeys.build());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.cis4900.spring.template.reports.memory;
+
+import com.example.cis4900.spring.template.reports.DatasetCopyRefreshedEvent;
+import com.example.cis4900.spring.template.reports.DatasetReloadedEvent;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// ReportsSnapshotEngine owns the in-memory copy of the report table used when reports.query-engine=memory
+// The snapshot is read on a background thread once the application is up. Until it is ready getSnapshot() returns null
+// and ReportsDaoCustomImpl keeps answering with SQL, so turning the engine on never makes the API unavailable. Every swap
+// publishes a DatasetCopyRefreshedEvent so results cached from the previous snapshot are dropped.
+@Component
+@ConditionalOnProperty(name = "reports.query-engine", havingValue = "memory")
+public class ReportsSnapshotEngine {
+    private static final String LOAD_SQL = "SELECT Id, " + String.join(", ", ReportsSnapshot.STRING_COLUMNS)
+            + ", latitude, longitude, " + String.join(", ", ReportsSnapshot.TIME_COLUMNS) + ", " + ReportsSnapshot.UNIQUE_KEY_COLUMN
+            + " FROM report ORDER BY Id";
+
+    private final DataSource dataSource;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile ReportsSnapshot snapshot;
+
+    private final AtomicBoolean reloadPending = new AtomicBoolean(false);
+
+    @Autowired
+    public ReportsSnapshotEngine(DataSource dataSource, ApplicationEventPublisher eventPublisher) {
+        this.dataSource = dataSource;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public ReportsSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    // Changes that arrive while a reload is running or waiting (an ingest publishes one per batch) share a single
+    // reload after it instead of starting one each
+    @EventListener({ApplicationReadyEvent.class, DatasetReloadedEvent.class})
+    public void loadInBackground() {
+        if (!reloadPending.compareAndSet(false, true)) {
+            return;
+        }
+        Thread loader = new Thread(() -> {
+            synchronized (this) {
+                reloadPending.set(false);
+                reload();
+            }
+        }, "reports-snapshot-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+
+    // reload reads the whole report table into a new snapshot and swaps it in once it is complete, queries running
+    // against the old snapshot finish on the old one
+    public void reload() {
+        long started = System.currentTimeMillis();
+        try {
+            ReportsSnapshot loaded = load();
+            snapshot = loaded;
+            eventPublisher.publishEvent(new DatasetCopyRefreshedEvent(this));
+            System.out.println("Loaded reports snapshot: " + loaded.size() + " rows in "
+                    + (System.currentTimeMillis() - started) + " ms");
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Error loading reports snapshot, staying on SQL: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+
+    private ReportsSnapshot load() throws SQLException {
+        ReportsSnapshot.Builder builder = new ReportsSnapshot.Builder();
+        int width = ReportsSnapshot.STRING_COLUMNS.size();
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(LOAD_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // MySQL Connector/J streams rows one at a time instead of buffering the whole table when the fetch size is MIN_VALUE
+            statement.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    String[] values = new String[width];
+                    for (int i = 0; i < width; i++) {
+                        values[i] = rows.getString(i + 2);
+                    }
+                    builder.add(rows.getInt(1), values, nullableDouble(rows, width + 2), nullableDouble(rows, width + 3),
+                            nullableTime(rows, width + 4), nullableTime(rows, width + 5), nullableLong(rows, width + 6));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private static Double nullableDouble(ResultSet rows, int column) throws SQLException {
+        double value = rows.getDouble(column);
+        return rows.wasNull() ? null : value;
+    }
+
+    private static Long nullableLong(ResultSet rows, int column) throws SQLException {
+        long value = rows.getLong(column);
+        return rows.wasNull() ? null : value;
+    }
+
+    private static LocalDateTime nullableTime(ResultSet rows, int column) throws SQLException {
+        Timestamp value = rows.getTimestamp(column);
+        return value == null ? null : value.toLocalDateTime();
+    }
+}
@@ -0,0 +1,349 @@
+package com.example.cis4900.spring.template.reports.memory;
+
+import java.util.Arrays;
+
+// RowBitmap is a compressed set of snapshot row numbers, laid out like a roaring bitmap
+// Row numbers are split into a 16 bit chunk key and a 16 bit low part. Each chunk is stored as a sorted char array
+// while it holds at most ARRAY_MAX rows and as a 65536 bit bitset once it is denser, so sparse values stay small and
+// dense values are intersected a 64 bit word at a time. Bitmaps are immutable once built.
+public final class RowBitmap {
+    static final int ARRAY_MAX = 4096;
+
+    public static final RowBitmap EMPTY = new RowBitmap(new char[0], new Container[0], 0);
+
+    private final char[] keys;
+
+    private final Container[] containers;
+
+    private final int size;
+
+    private RowBitmap(char[] keys, Container[] containers, int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    public long cardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public RowBitmap and(RowBitmap other) {
+        char[] outKeys = new char[Math.min(size, other.size)];
+        Container[] outContainers = new Container[outKeys.length];
+        int out = 0;
+
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container.cardinality() > 0) {
+                    outKeys[out] = keys[i];
+                    outContainers[out++] = container;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new RowBitmap(outKeys, outContainers, out);
+    }
+
+    public RowBitmap or(RowBitmap other) {
+        char[] outKeys = new char[size + other.size];
+        Container[] outContainers = new Container[outKeys.length];
+        int out = 0;
+
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j >= other.size || (i < size && keys[i] < other.keys[j])) {
+                outKeys[out] = keys[i];
+                outContainers[out++] = containers[i++];
+            } else if (i >= size || keys[i] > other.keys[j]) {
+                outKeys[out] = other.keys[j];
+                outContainers[out++] = other.containers[j++];
+            } else {
+                outKeys[out] = keys[i];
+                outContainers[out++] = containers[i++].or(other.containers[j++]);
+            }
+        }
+        return new RowBitmap(outKeys, outContainers, out);
+    }
+
+    // toArray lists the rows in increasing order
+    public int[] toArray() {
+        long cardinality = cardinality();
+        int[] rows = new int[(int) cardinality];
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            offset = containers[i].copyTo(keys[i] << 16, rows, offset);
+        }
+        return rows;
+    }
+
+    public boolean contains(int row) {
+        int index = Arrays.binarySearch(keys, 0, size, (char) (row >>> 16));
+        return index >= 0 && containers[index].contains((char) row);
+    }
+
+
+    private interface Container {
+        int cardinality();
+
+        boolean contains(char low);
+
+        Container and(Container other);
+
+        Container or(Container other);
+
+        int copyTo(int high, int[] rows, int offset);
+    }
+
+
+    // Up to ARRAY_MAX rows of a chunk, kept sorted
+    private static final class ArrayContainer implements Container {
+        private final char[] values;
+
+        private final int cardinality;
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+        }
+
+        @Override
+        public Container and(Container other) {
+            char[] out = new char[cardinality];
+            int size = 0;
+            if (other instanceof BitsetContainer) {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        out[size++] = values[i];
+                    }
+                }
+                return new ArrayContainer(out, size);
+            }
+
+            ArrayContainer array = (ArrayContainer) other;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality && j < array.cardinality) {
+                if (values[i] < array.values[j]) {
+                    i++;
+                } else if (values[i] > array.values[j]) {
+                    j++;
+                } else {
+                    out[size++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return new ArrayContainer(out, size);
+        }
+
+        @Override
+        public Container or(Container other) {
+            if (other instanceof BitsetContainer) {
+                return other.or(this);
+            }
+
+            ArrayContainer array = (ArrayContainer) other;
+            char[] out = new char[cardinality + array.cardinality];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < array.cardinality) {
+                if (j >= array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+                    out[size++] = values[i++];
+                } else if (i >= cardinality || values[i] > array.values[j]) {
+                    out[size++] = array.values[j++];
+                } else {
+                    out[size++] = values[i++];
+                    j++;
+                }
+            }
+
+            if (size > ARRAY_MAX) {
+                return BitsetContainer.of(out, size);
+            }
+            return new ArrayContainer(out, size);
+        }
+
+        @Override
+        public int copyTo(int high, int[] rows, int offset) {
+            for (int i = 0; i < cardinality; i++) {
+                rows[offset++] = high | values[i];
+            }
+            return offset;
+        }
+    }
+
+
+    // A whole chunk as 1024 64 bit words, used once a chunk holds more than ARRAY_MAX rows
+    private static final class BitsetContainer implements Container {
+        private final long[] words;
+
+        private final int cardinality;
+
+        BitsetContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        static BitsetContainer of(char[] values, int size) {
+            long[] words = new long[1024];
+            for (int i = 0; i < size; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return new BitsetContainer(words, size);
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public boolean contains(char low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        public Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+
+            long[] otherWords = ((BitsetContainer) other).words;
+            long[] out = new long[1024];
+            int count = 0;
+            for (int i = 0; i < 1024; i++) {
+                out[i] = words[i] & otherWords[i];
+                count += Long.bitCount(out[i]);
+            }
+            return shrink(out, count);
+        }
+
+        @Override
+        public Container or(Container other) {
+            long[] out = words.clone();
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer) other;
+                for (int i = 0; i < array.cardinality; i++) {
+                    out[array.values[i] >>> 6] |= 1L << array.values[i];
+                }
+            } else {
+                long[] otherWords = ((BitsetContainer) other).words;
+                for (int i = 0; i < 1024; i++) {
+                    out[i] |= otherWords[i];
+                }
+            }
+
+            int count = 0;
+            for (long word : out) {
+                count += Long.bitCount(word);
+            }
+            return new BitsetContainer(out, count);
+        }
+
+        @Override
+        public int copyTo(int high, int[] rows, int offset) {
+            for (int i = 0; i < 1024; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    rows[offset++] = high | (i << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return offset;
+        }
+
+        // shrink goes back to an array once an intersection leaves the chunk sparse
+        private static Container shrink(long[] words, int count) {
+            if (count > ARRAY_MAX) {
+                return new BitsetContainer(words, count);
+            }
+            char[] values = new char[count];
+            int size = 0;
+            for (int i = 0; i < 1024; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[size++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, size);
+        }
+    }
+
+
+    // Builder takes rows in strictly increasing order, which is how the snapshot loader visits them
+    public static final class Builder {
+        private char[] keys = new char[4];
+
+        private Container[] containers = new Container[4];
+
+        private int size = 0;
+
+        private int currentKey = -1;
+
+        private char[] current = new char[16];
+
+        private int currentSize = 0;
+
+        public void add(int row) {
+            int key = row >>> 16;
+            if (key != currentKey) {
+                flush();
+                currentKey = key;
+            }
+            if (currentSize == current.length) {
+                current = Arrays.copyOf(current, currentSize * 2);
+            }
+            current[currentSize++] = (char) row;
+        }
+
+        public RowBitmap build() {
+            flush();
+            return new RowBitmap(Arrays.copyOf(keys, size), Arrays.copyOf(containers, size), size);
+        }
+
+        private void flush() {
+            if (currentSize == 0) {
+                return;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                containers = Arrays.copyOf(containers, size * 2);
+            }
+            keys[size] = (char) currentKey;
+            containers[size++] = currentSize > ARRAY_MAX
+                    ? BitsetContainer.of(current, currentSize)
+                    : new ArrayContainer(Arrays.copyOf(current, currentSize), currentSize);
+            current = new char[16];
+            currentSize = 0;
+        }
+    }
+}
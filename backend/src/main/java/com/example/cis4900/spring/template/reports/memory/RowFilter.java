@@ -0,0 +1,25 @@
+package com.example.cis4900.spring.template.reports.memory;
+
+// RowFilter decides whether a row of the snapshot passes a filter
+@FunctionalInterface
+public interface RowFilter {
+    RowFilter ALL = row -> true;
+
+    RowFilter NONE = row -> false;
+
+    boolean matches(int row);
+
+    // and combines two filters, skipping the trivial cases so the scan loop stays as short as possible
+    default RowFilter and(RowFilter other) {
+        if (this == ALL) {
+            return other;
+        }
+        if (other == ALL) {
+            return this;
+        }
+        if (this == NONE || other == NONE) {
+            return NONE;
+        }
+        return row -> matches(row) && other.matches(row);
+    }
+}
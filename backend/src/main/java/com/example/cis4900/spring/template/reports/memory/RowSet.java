@@ -0,0 +1,56 @@
+package com.example.cis4900.spring.template.reports.memory;
+
+import java.util.Arrays;
+
+// RowSet is the range of rows a scan walks: either every row between two row numbers, or a slice of a sorted list of
+// candidate rows picked out by the bitmap index. Scans address it by position so both kinds split the same way.
+final class RowSet {
+    private final int[] candidates;
+
+    private final int from;
+
+    private final int to;
+
+    private RowSet(int[] candidates, int from, int to) {
+        this.candidates = candidates;
+        this.from = from;
+        this.to = to;
+    }
+
+    static RowSet range(int from, int to) {
+        return new RowSet(null, from, Math.max(from, to));
+    }
+
+    static RowSet of(int[] candidates) {
+        return new RowSet(candidates, 0, candidates.length);
+    }
+
+    int from() {
+        return from;
+    }
+
+    int to() {
+        return to;
+    }
+
+    int size() {
+        return to - from;
+    }
+
+    int row(int position) {
+        return candidates == null ? position : candidates[position];
+    }
+
+    RowSet slice(int sliceFrom, int sliceTo) {
+        return new RowSet(candidates, sliceFrom, sliceTo);
+    }
+
+    // startingAt drops the rows before the given row number
+    RowSet startingAt(int row) {
+        if (candidates == null) {
+            return range(Math.max(from, row), to);
+        }
+        int position = Arrays.binarySearch(candidates, from, to, row);
+        return slice(position >= 0 ? position : -position - 1, to);
+    }
+}
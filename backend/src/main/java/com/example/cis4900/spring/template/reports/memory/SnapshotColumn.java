@@ -0,0 +1,31 @@
+package com.example.cis4900.spring.template.reports.memory;
+
+import java.util.List;
+
+// SnapshotColumn is one column of the report table held in memory
+// Each column knows how to hand back a row's value exactly as the SQL driver would (String, Double or Integer, null when
+// the cell is NULL) and how to turn an IN (...) list from the filter JSON into a RowFilter.
+public abstract class SnapshotColumn {
+    private final String name;
+
+    protected SnapshotColumn(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public abstract Object value(int row);
+
+    public abstract RowFilter in(List<String> values);
+
+    // groupKey identifies the GROUP BY / DISTINCT group a row falls in, rows in the same group share a key
+    public abstract int groupKey(int row);
+
+    // groupValue is the value reported for a group key, the first value seen for that group
+    public abstract Object groupValue(int key);
+
+    // groupCount is the number of distinct group keys, keys run from 0 to groupCount - 1 (NULL is always -1)
+    public abstract int groupCount();
+}
@@ -0,0 +1,157 @@
+package com.example.cis4900.spring.template.reports.memory;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntToLongFunction;
+
+// SnapshotScan runs the scans behind every snapshot query. A RowSet is split in half until it is LEAF_ROWS long, each
+// leaf is a tight loop over primitive arrays, and the halves are joined back in row order on the common pool.
+final class SnapshotScan {
+    static final int LEAF_ROWS = 1 << 14;
+
+    // Returned by a key function for rows that do not belong to any group
+    static final long SKIP = Long.MIN_VALUE;
+
+    private SnapshotScan() {
+    }
+
+    static long count(RowSet rows, RowFilter filter) {
+        if (filter == RowFilter.ALL) {
+            return rows.size();
+        }
+        return ForkJoinPool.commonPool().invoke(new CountTask(rows, filter));
+    }
+
+    // rows returns the matching row numbers in order, at most limit of them
+    static int[] rows(RowSet rows, RowFilter filter, int limit) {
+        if (limit <= 0 || rows.size() == 0) {
+            return new int[0];
+        }
+        return ForkJoinPool.commonPool().invoke(new RowsTask(rows, filter, limit));
+    }
+
+    // groups counts the matching rows per key, rows whose key is SKIP are left out
+    static GroupTable groups(RowSet rows, RowFilter filter, IntToLongFunction key) {
+        return ForkJoinPool.commonPool().invoke(new GroupTask(rows, filter, key));
+    }
+
+
+    private static final class CountTask extends RecursiveTask<Long> {
+        private final RowSet rows;
+
+        private final RowFilter filter;
+
+        CountTask(RowSet rows, RowFilter filter) {
+            this.rows = rows;
+            this.filter = filter;
+        }
+
+        @Override
+        protected Long compute() {
+            if (rows.size() <= LEAF_ROWS) {
+                long count = 0;
+                for (int position = rows.from(); position < rows.to(); position++) {
+                    if (filter.matches(rows.row(position))) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+
+            int middle = (rows.from() + rows.to()) >>> 1;
+            CountTask left = new CountTask(rows.slice(rows.from(), middle), filter);
+            left.fork();
+            long right = new CountTask(rows.slice(middle, rows.to()), filter).compute();
+            return left.join() + right;
+        }
+    }
+
+
+    private static final class RowsTask extends RecursiveTask<int[]> {
+        private final RowSet rows;
+
+        private final RowFilter filter;
+
+        private final int limit;
+
+        RowsTask(RowSet rows, RowFilter filter, int limit) {
+            this.rows = rows;
+            this.filter = filter;
+            this.limit = limit;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (rows.size() <= LEAF_ROWS) {
+                int[] matched = new int[Math.min(limit, rows.size())];
+                int size = 0;
+                for (int position = rows.from(); position < rows.to() && size < matched.length; position++) {
+                    int row = rows.row(position);
+                    if (filter.matches(row)) {
+                        matched[size++] = row;
+                    }
+                }
+                return Arrays.copyOf(matched, size);
+            }
+
+            int middle = (rows.from() + rows.to()) >>> 1;
+            RowsTask left = new RowsTask(rows.slice(rows.from(), middle), filter, limit);
+            left.fork();
+            int[] right = new RowsTask(rows.slice(middle, rows.to()), filter, limit).compute();
+            int[] leftRows = left.join();
+
+            int size = Math.min(limit, leftRows.length + right.length);
+            int[] matched = Arrays.copyOf(leftRows, size);
+            if (size > leftRows.length) {
+                System.arraycopy(right, 0, matched, leftRows.length, size - leftRows.length);
+            }
+            return matched;
+        }
+    }
+
+
+    private static final class GroupTask extends RecursiveTask<GroupTable> {
+        private final RowSet rows;
+
+        private final RowFilter filter;
+
+        private final IntToLongFunction key;
+
+        GroupTask(RowSet rows, RowFilter filter, IntToLongFunction key) {
+            this.rows = rows;
+            this.filter = filter;
+            this.key = key;
+        }
+
+        @Override
+        protected GroupTable compute() {
+            if (rows.size() <= LEAF_ROWS) {
+                GroupTable table = new GroupTable();
+                for (int position = rows.from(); position < rows.to(); position++) {
+                    int row = rows.row(position);
+                    if (filter.matches(row)) {
+                        long groupKey = key.applyAsLong(row);
+                        if (groupKey != SKIP) {
+                            table.add(groupKey, row);
+                        }
+                    }
+                }
+                return table;
+            }
+
+            int middle = (rows.from() + rows.to()) >>> 1;
+            GroupTask left = new GroupTask(rows.slice(rows.from(), middle), filter, key);
+            left.fork();
+            GroupTable right = new GroupTask(rows.slice(middle, rows.to()), filter, key).compute();
+            GroupTable leftTable = left.join();
+
+            if (leftTable.size() >= right.size()) {
+                leftTable.merge(right);
+                return leftTable;
+            }
+            right.merge(leftTable);
+            return right;
+        }
+    }
+}
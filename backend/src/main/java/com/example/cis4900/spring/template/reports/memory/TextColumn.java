@@ -0,0 +1,131 @@
+package com.example.cis4900.spring.template.reports.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// TextColumn stores a varchar column whose values are nearly unique per row (addresses, the raw date texts) as a plain
+// String array
+// A dictionary would hold as many entries as there are rows on top of the codes, so these columns skip it, and are left
+// out of the BitmapIndex. Filters, DISTINCT and GROUP BY still fold values the way MariaDB's default collation does.
+public class TextColumn extends SnapshotColumn {
+    private final String[] values;
+
+    // Group keys for GROUP BY / DISTINCT, built the first time they are needed
+    private volatile GroupIndex groupIndex;
+
+    private TextColumn(String name, String[] values) {
+        super(name);
+        this.values = values;
+    }
+
+    @Override
+    public Object value(int row) {
+        return values[row];
+    }
+
+    @Override
+    public RowFilter in(List<String> wanted) {
+        Set<String> keys = new HashSet<>();
+        for (String value : wanted) {
+            if (value != null) {
+                keys.add(DictionaryColumn.collationKey(value));
+            }
+        }
+
+        if (keys.isEmpty()) {
+            return RowFilter.NONE;
+        }
+        return row -> {
+            String value = values[row];
+            return value != null && keys.contains(DictionaryColumn.collationKey(value));
+        };
+    }
+
+    @Override
+    public int groupKey(int row) {
+        return groups().keys[row];
+    }
+
+    @Override
+    public Object groupValue(int key) {
+        return key == DictionaryColumn.NULL_CODE ? null : groups().distinct[key];
+    }
+
+    @Override
+    public int groupCount() {
+        return groups().distinct.length;
+    }
+
+    private GroupIndex groups() {
+        GroupIndex index = groupIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = groupIndex;
+                if (index == null) {
+                    index = new GroupIndex(values);
+                    groupIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+
+    private static final class GroupIndex {
+        private final int[] keys;
+
+        private final String[] distinct;
+
+        private GroupIndex(String[] values) {
+            keys = new int[values.length];
+            Map<String, Integer> keyOf = new HashMap<>();
+            List<String> seen = new ArrayList<>();
+
+            for (int row = 0; row < values.length; row++) {
+                if (values[row] == null) {
+                    keys[row] = DictionaryColumn.NULL_CODE;
+                    continue;
+                }
+                String collationKey = DictionaryColumn.collationKey(values[row]);
+                Integer key = keyOf.get(collationKey);
+                if (key == null) {
+                    key = seen.size();
+                    seen.add(values[row]);
+                    keyOf.put(collationKey, key);
+                }
+                keys[row] = key;
+            }
+            distinct = seen.toArray(new String[0]);
+        }
+    }
+
+
+    // Builder collects a column one row at a time while the snapshot is loaded
+    public static class Builder {
+        private final String name;
+
+        private String[] values = new String[1024];
+
+        private int size = 0;
+
+        public Builder(String name) {
+            this.name = name;
+        }
+
+        public void add(String value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        public TextColumn build() {
+            return new TextColumn(name, Arrays.copyOf(values, size));
+        }
+    }
+}
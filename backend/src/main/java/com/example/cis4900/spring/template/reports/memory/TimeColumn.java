@@ -0,0 +1,143 @@
+package com.example.cis4900.spring.template.reports.memory;
+
+import com.example.cis4900.spring.template.reports.time.TimeBucket;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// TimeColumn stores a DATETIME column (createdAt, closedAt) as epoch seconds in a primitive array, NULL is kept as
+// Long.MIN_VALUE. The stored value is a local time, it is read as UTC so no time zone shifts it.
+public class TimeColumn extends SnapshotColumn {
+    public static final long NULL_TIME = Long.MIN_VALUE;
+
+    private final long[] values;
+
+    // Group keys for GROUP BY / DISTINCT on a time column, built the first time they are needed
+    private volatile GroupIndex groupIndex;
+
+    private TimeColumn(String name, long[] values) {
+        super(name);
+        this.values = values;
+    }
+
+    public long get(int row) {
+        return values[row];
+    }
+
+    public boolean isNull(int row) {
+        return values[row] == NULL_TIME;
+    }
+
+    @Override
+    public Object value(int row) {
+        return isNull(row) ? null : TimeBucket.fromEpochSecond(values[row]);
+    }
+
+    @Override
+    public RowFilter in(List<String> values) {
+        long[] wanted = values.stream()
+                .map(TimeBucket::parseDateTime)
+                .filter(value -> value != null)
+                .mapToLong(TimeBucket::toEpochSecond)
+                .sorted()
+                .toArray();
+
+        if (wanted.length == 0) {
+            return RowFilter.NONE;
+        }
+        return row -> Arrays.binarySearch(wanted, this.values[row]) >= 0;
+    }
+
+    // between accepts the rows with a time from from (inclusive) to to (exclusive), either end may be open (null)
+    public RowFilter between(LocalDateTime from, LocalDateTime to) {
+        long lower = from == null ? NULL_TIME + 1 : TimeBucket.toEpochSecond(from);
+        long upper = to == null ? Long.MAX_VALUE : TimeBucket.toEpochSecond(to);
+        return row -> values[row] >= lower && values[row] < upper;
+    }
+
+    @Override
+    public int groupKey(int row) {
+        return groups().keys[row];
+    }
+
+    @Override
+    public Object groupValue(int key) {
+        return key == DictionaryColumn.NULL_CODE ? null : TimeBucket.fromEpochSecond(groups().distinct[key]);
+    }
+
+    @Override
+    public int groupCount() {
+        return groups().distinct.length;
+    }
+
+    private GroupIndex groups() {
+        GroupIndex index = groupIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = groupIndex;
+                if (index == null) {
+                    index = new GroupIndex(values);
+                    groupIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+
+    private static final class GroupIndex {
+        private final int[] keys;
+
+        private final long[] distinct;
+
+        private GroupIndex(long[] values) {
+            keys = new int[values.length];
+            Map<Long, Integer> keyOf = new HashMap<>();
+            List<Long> seen = new ArrayList<>();
+
+            for (int row = 0; row < values.length; row++) {
+                if (values[row] == NULL_TIME) {
+                    keys[row] = DictionaryColumn.NULL_CODE;
+                    continue;
+                }
+                Integer key = keyOf.get(values[row]);
+                if (key == null) {
+                    key = seen.size();
+                    seen.add(values[row]);
+                    keyOf.put(values[row], key);
+                }
+                keys[row] = key;
+            }
+            distinct = seen.stream().mapToLong(Long::longValue).toArray();
+        }
+    }
+
+
+    // Builder collects a column one row at a time while the snapshot is loaded
+    public static class Builder {
+        private final String name;
+
+        private long[] values = new long[1024];
+
+        private int size = 0;
+
+        public Builder(String name) {
+            this.name = name;
+        }
+
+        public void add(LocalDateTime value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value == null ? NULL_TIME : TimeBucket.toEpochSecond(value);
+        }
+
+        public TimeColumn build() {
+            return new TimeColumn(name, Arrays.copyOf(values, size));
+        }
+    }
+}
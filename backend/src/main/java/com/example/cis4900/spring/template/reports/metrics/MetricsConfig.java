@@ -0,0 +1,18 @@
+package com.example.cis4900.spring.template.reports.metrics;
+
+import io.micrometer.core.instrument.config.MeterFilter;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Every distinct set of filtered columns is its own reports.service / reports.dao time series; past this many the new
+// ones are dropped instead of growing the registry (and the Prometheus scrape) without bound
+@Configuration
+public class MetricsConfig {
+    static final int MAX_FILTER_SETS = 500;
+
+    @Bean
+    public MeterFilter reportsFilterTagLimit() {
+        return MeterFilter.maximumAllowableTags("reports", "filters", MAX_FILTER_SETS, MeterFilter.deny());
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.cis4900.spring.template.reports.metrics;
+
+import com.example.cis4900.spring.template.reports.dao.ReportFilter;
+import com.example.cis4900.spring.template.reports.dao.ReportQueryBuilder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// ReportsMetricsAspect times every ReportsService call (one per endpoint, the controller's handler methods are private
+// and can't be proxied) and every ReportsDaoCustomImpl query
+// Timers are reports.service and reports.dao with the method, the outcome and the set of filtered columns, so a slow
+// filter combination stands out in the latency histograms. The rows a call returns go to the reports.rows summary.
+@Aspect
+@Component
+public class ReportsMetricsAspect {
+    // Tag value for calls without filters
+    static final String NO_FILTERS = "none";
+
+    // Tag value for filters that could not be read, the call itself rejects them
+    static final String INVALID_FILTERS = "invalid";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final MeterRegistry registry;
+
+    @Autowired
+    public ReportsMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * com.example.cis4900.spring.template.reports.ReportsServiceImpl.*(..))")
+    public Object timeService(ProceedingJoinPoint call) throws Throwable {
+        return time("reports.service", call);
+    }
+
+    @Around("execution(public * com.example.cis4900.spring.template.reports.dao.ReportsDaoCustomImpl.*(..))")
+    public Object timeQuery(ProceedingJoinPoint call) throws Throwable {
+        return time("reports.dao", call);
+    }
+
+    private Object time(String name, ProceedingJoinPoint call) throws Throwable {
+        String method = call.getSignature().getName();
+        String filters = filterColumns((MethodSignature) call.getSignature(), call.getArgs());
+        long started = System.nanoTime();
+        String outcome = "error";
+        try {
+            Object result = call.proceed();
+            outcome = "success";
+            if (result instanceof Collection) {
+                DistributionSummary.builder("reports.rows")
+                        .description("Rows returned by a call")
+                        .tags("layer", name, "method", method)
+                        .publishPercentileHistogram()
+                        .register(registry)
+                        .record(((Collection<?>) result).size());
+            }
+            return result;
+        } finally {
+            Timer.builder(name)
+                    .tags("method", method, "filters", filters, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+
+    // filterColumns names the columns filtered on by a call, from its filters, currentFilters or filter argument
+    // Params: signature: The method called, args: Its arguments
+    // Returns: The column names sorted and joined with '+', NO_FILTERS or INVALID_FILTERS
+
+    static String filterColumns(MethodSignature signature, Object[] args) {
+        String[] names = signature.getParameterNames();
+        for (int i = 0; names != null && i < names.length; i++) {
+            if (!names[i].equals("filters") && !names[i].equals("currentFilters") && !names[i].equals("filter")) {
+                continue;
+            }
+            TreeSet<String> columns = new TreeSet<>();
+            Object arg = args[i] instanceof ReportFilter ? ((ReportFilter) args[i]).getFilters() : args[i];
+            if (arg instanceof Map) {
+                ((Map<?, ?>) arg).forEach((column, values) -> {
+                    if (!(values instanceof Collection) || !((Collection<?>) values).isEmpty()) {
+                        columns.add(String.valueOf(column));
+                    }
+                });
+            } else if (args[i] instanceof String && !((String) args[i]).isBlank()) {
+                // Read without ReportQueryBuilder.parseFilters, which logs unreadable filters that the call logs again
+                try {
+                    JsonNode filters = OBJECT_MAPPER.readTree((String) args[i]);
+                    if (filters == null || !filters.isObject()) {
+                        return INVALID_FILTERS;
+                    }
+                    filters.fields().forEachRemaining(filter -> {
+                        if (!filter.getValue().isArray() || filter.getValue().size() > 0) {
+                            columns.add(filter.getKey());
+                        }
+                    });
+                } catch (JsonProcessingException e) {
+                    return INVALID_FILTERS;
+                }
+            }
+            if (!ReportQueryBuilder.REPORT_COLUMNS.containsAll(columns)) {
+                return INVALID_FILTERS;
+            }
+            return columns.isEmpty() ? NO_FILTERS : String.join("+", columns);
+        }
+        return NO_FILTERS;
+    }
+}
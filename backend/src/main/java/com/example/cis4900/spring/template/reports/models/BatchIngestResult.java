@@ -0,0 +1,132 @@
+package com.example.cis4900.spring.template.reports.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Outcome of one POST /api/reports/batch request
+public class BatchIngestResult {
+    // Reports committed
+    private long accepted;
+
+    // Lines that were not a valid report, see errors
+    private long rejected;
+
+    // Reports of batches whose commit failed
+    private long failed;
+
+    private int batches;
+
+    private long elapsedMillis;
+
+    private long rowsPerSecond;
+
+    // Time from handing a batch to the writer to its commit
+    private double averageBatchMillis;
+
+    private long maxBatchMillis;
+
+    // The first rejected lines and failed commits, with the reason
+    private List<String> errors;
+
+    public BatchIngestResult(){
+        errors = new ArrayList<>();
+    }
+
+    public BatchIngestResult(long accepted, long rejected, long failed, int batches, long elapsedMillis, long rowsPerSecond, double averageBatchMillis, long maxBatchMillis, List<String> errors){
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.failed = failed;
+        this.batches = batches;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = rowsPerSecond;
+        this.averageBatchMillis = averageBatchMillis;
+        this.maxBatchMillis = maxBatchMillis;
+        this.errors = errors;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(long accepted) {
+        this.accepted = accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public void setBatches(int batches) {
+        this.batches = batches;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(long rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public double getAverageBatchMillis() {
+        return averageBatchMillis;
+    }
+
+    public void setAverageBatchMillis(double averageBatchMillis) {
+        this.averageBatchMillis = averageBatchMillis;
+    }
+
+    public long getMaxBatchMillis() {
+        return maxBatchMillis;
+    }
+
+    public void setMaxBatchMillis(long maxBatchMillis) {
+        this.maxBatchMillis = maxBatchMillis;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchIngestResult{" +
+                "accepted=" + accepted +
+                ", rejected=" + rejected +
+                ", failed=" + failed +
+                ", batches=" + batches +
+                ", elapsedMillis=" + elapsedMillis +
+                ", rowsPerSecond=" + rowsPerSecond +
+                ", averageBatchMillis=" + averageBatchMillis +
+                ", maxBatchMillis=" + maxBatchMillis +
+                '}';
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.cis4900.spring.template.reports.models;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Everything the dashboard shows for one set of filters, as returned by GET /api/reports/dashboard
+// A part that did not finish in time or failed is left null (a facet is left out) and named in timedOut or failed.
+public class DashboardData {
+    // The table page, as /all returns it, with the cursor for the next page
+    private ReportsPage page;
+
+    // The count /count returns
+    private Integer count;
+
+    // The values /columnFilter offers for each requested column, under the other columns' filters
+    private Map<String, Iterable<String>> facets;
+
+    // The map pins /mapDisplay returns
+    private Iterable<Report> markers;
+
+    // The column values /pieChart and /heatMap return, null when no chart column was asked for
+    private Iterable<Report> chart;
+
+    // Parts that did not finish within the timeout: page, count, markers, chart or facets.<column>
+    private List<String> timedOut;
+
+    // Parts whose query failed
+    private List<String> failed;
+
+    private long elapsedMillis;
+
+    public DashboardData(){
+        facets = new LinkedHashMap<>();
+        timedOut = new ArrayList<>();
+        failed = new ArrayList<>();
+    }
+
+    public ReportsPage getPage() {
+        return page;
+    }
+
+    public void setPage(ReportsPage page) {
+        this.page = page;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public void setCount(Integer count) {
+        this.count = count;
+    }
+
+    public Map<String, Iterable<String>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, Iterable<String>> facets) {
+        this.facets = facets;
+    }
+
+    public Iterable<Report> getMarkers() {
+        return markers;
+    }
+
+    public void setMarkers(Iterable<Report> markers) {
+        this.markers = markers;
+    }
+
+    public Iterable<Report> getChart() {
+        return chart;
+    }
+
+    public void setChart(Iterable<Report> chart) {
+        this.chart = chart;
+    }
+
+    public List<String> getTimedOut() {
+        return timedOut;
+    }
+
+    public void setTimedOut(List<String> timedOut) {
+        this.timedOut = timedOut;
+    }
+
+    public List<String> getFailed() {
+        return failed;
+    }
+
+    public void setFailed(List<String> failed) {
+        this.failed = failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "DashboardData{" +
+                "count=" + count +
+                ", facets=" + facets.keySet() +
+                ", timedOut=" + timedOut +
+                ", failed=" + failed +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
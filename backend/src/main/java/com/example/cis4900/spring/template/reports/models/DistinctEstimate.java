@@ -0,0 +1,45 @@
+package com.example.cis4900.spring.template.reports.models;
+
+import java.util.List;
+
+// The approximate distinct values of a column: the values found (in the sample, most frequent first, so rare values can
+// be missing) and the estimated number of distinct values there are
+public class DistinctEstimate {
+    private List<String> values;
+
+    private Estimate distinct;
+
+    public DistinctEstimate(){
+        values = null;
+        distinct = null;
+    }
+
+    public DistinctEstimate(List<String> values, Estimate distinct){
+        this.values = values;
+        this.distinct = distinct;
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    public void setValues(List<String> values) {
+        this.values = values;
+    }
+
+    public Estimate getDistinct() {
+        return distinct;
+    }
+
+    public void setDistinct(Estimate distinct) {
+        this.distinct = distinct;
+    }
+
+    @Override
+    public String toString() {
+        return "DistinctEstimate{" +
+                "values=" + (values == null ? null : values.size()) +
+                ", distinct=" + distinct +
+                '}';
+    }
+}
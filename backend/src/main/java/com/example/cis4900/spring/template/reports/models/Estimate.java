@@ -0,0 +1,105 @@
+package com.example.cis4900.spring.template.reports.models;
+
+// An approximate count with its confidence interval, as the approximate=true endpoints return it
+// exact is true when the number was counted rather than estimated (the sample holds the whole table, or the query could
+// not be answered from the sample and ran against the database), low and high are then the estimate itself.
+public class Estimate {
+    // Where the number came from
+    public static final String SAMPLE = "sample";
+
+    public static final String HYPERLOGLOG = "hyperloglog";
+
+    public static final String EXACT = "exact";
+
+    private long estimate;
+
+    private long low;
+
+    private long high;
+
+    // Probability that the true value lies between low and high
+    private double confidence;
+
+    private boolean exact;
+
+    private String source;
+
+    public Estimate(){
+        source = EXACT;
+        exact = true;
+    }
+
+    public Estimate(long estimate, long low, long high, double confidence, boolean exact, String source){
+        this.estimate = estimate;
+        this.low = low;
+        this.high = high;
+        this.confidence = confidence;
+        this.exact = exact;
+        this.source = source;
+    }
+
+    // exact wraps a counted number
+    public static Estimate exact(long count) {
+        return new Estimate(count, count, count, 1.0, true, EXACT);
+    }
+
+    public long getEstimate() {
+        return estimate;
+    }
+
+    public void setEstimate(long estimate) {
+        this.estimate = estimate;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    public void setLow(long low) {
+        this.low = low;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public void setHigh(long high) {
+        this.high = high;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public void setConfidence(double confidence) {
+        this.confidence = confidence;
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+
+    public void setExact(boolean exact) {
+        this.exact = exact;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    @Override
+    public String toString() {
+        return "Estimate{" +
+                "estimate=" + estimate +
+                ", low=" + low +
+                ", high=" + high +
+                ", confidence=" + confidence +
+                ", exact=" + exact +
+                ", source='" + source + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.cis4900.spring.template.reports.models;
+
+import java.util.List;
+
+// One row of a grouped count: the values of the grouped columns (in request order) and how many reports have them
+public class GroupCount {
+    private List<String> values;
+
+    private long count;
+
+    public GroupCount(){
+        values = null;
+        count = 0;
+    }
+
+    public GroupCount(List<String> values, long count){
+        this.values = values;
+        this.count = count;
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    public void setValues(List<String> values) {
+        this.values = values;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    @Override
+    public String toString() {
+        return "GroupCount{" +
+                "values=" + values +
+                ", count=" + count +
+                '}';
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.cis4900.spring.template.reports.models;
+
+import java.util.List;
+
+// One row of an approximate grouped count: the values of the grouped columns (in request order) and the estimated count
+public class GroupEstimate {
+    private List<String> values;
+
+    private Estimate count;
+
+    public GroupEstimate(){
+        values = null;
+        count = null;
+    }
+
+    public GroupEstimate(List<String> values, Estimate count){
+        this.values = values;
+        this.count = count;
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    public void setValues(List<String> values) {
+        this.values = values;
+    }
+
+    public Estimate getCount() {
+        return count;
+    }
+
+    public void setCount(Estimate count) {
+        this.count = count;
+    }
+
+    @Override
+    public String toString() {
+        return "GroupEstimate{" +
+                "values=" + values +
+                ", count=" + count +
+                '}';
+    }
+}
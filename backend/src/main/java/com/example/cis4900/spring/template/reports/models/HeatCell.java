@@ -0,0 +1,69 @@
+package com.example.cis4900.spring.template.reports.models;
+
+// One cell of the heatmap grid: the centre of the cell, how many reports fall inside it and the count scaled to 0-1
+// against the fullest cell in the same response
+public class HeatCell {
+    private double latitude;
+
+    private double longitude;
+
+    private long count;
+
+    private double weight;
+
+    public HeatCell(){
+        latitude = 0.0;
+        longitude = 0.0;
+        count = 0;
+        weight = 0.0;
+    }
+
+    public HeatCell(double latitude, double longitude, long count, double weight){
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.count = count;
+        this.weight = weight;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+
+    @Override
+    public String toString() {
+        return "HeatCell{" +
+                "latitude=" + latitude +
+                ", longitude=" + longitude +
+                ", count=" + count +
+                ", weight=" + weight +
+                '}';
+    }
+}
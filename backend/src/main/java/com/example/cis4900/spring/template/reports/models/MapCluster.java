@@ -0,0 +1,100 @@
+package com.example.cis4900.spring.template.reports.models;
+
+// One point of the clustered map: either a cluster of reports drawn at their centre with how many there are and the zoom
+// at which it splits apart, or a single report with its Id (clusterId and expansionZoom are null)
+public class MapCluster {
+    private double latitude;
+
+    private double longitude;
+
+    private long count;
+
+    private Long clusterId;
+
+    private Integer expansionZoom;
+
+    private Integer reportId;
+
+    public MapCluster(){
+        latitude = 0.0;
+        longitude = 0.0;
+        count = 0;
+    }
+
+    public MapCluster(double latitude, double longitude, long count, Long clusterId, Integer expansionZoom, Integer reportId){
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.count = count;
+        this.clusterId = clusterId;
+        this.expansionZoom = expansionZoom;
+        this.reportId = reportId;
+    }
+
+    public static MapCluster cluster(long clusterId, double latitude, double longitude, long count, int expansionZoom) {
+        return new MapCluster(latitude, longitude, count, clusterId, expansionZoom, null);
+    }
+
+    public static MapCluster report(int reportId, double latitude, double longitude) {
+        return new MapCluster(latitude, longitude, 1, null, null, reportId);
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public Long getClusterId() {
+        return clusterId;
+    }
+
+    public void setClusterId(Long clusterId) {
+        this.clusterId = clusterId;
+    }
+
+    public Integer getExpansionZoom() {
+        return expansionZoom;
+    }
+
+    public void setExpansionZoom(Integer expansionZoom) {
+        this.expansionZoom = expansionZoom;
+    }
+
+    public Integer getReportId() {
+        return reportId;
+    }
+
+    public void setReportId(Integer reportId) {
+        this.reportId = reportId;
+    }
+
+    @Override
+    public String toString() {
+        return "MapCluster{" +
+                "latitude=" + latitude +
+                ", longitude=" + longitude +
+                ", count=" + count +
+                ", clusterId=" + clusterId +
+                ", expansionZoom=" + expansionZoom +
+                ", reportId=" + reportId +
+                '}';
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.cis4900.spring.template.reports.models;
+
+// A report found by a radius or nearest search, with how far it is from the searched point
+public class NearbyReport {
+    private Report report;
+
+    private double distanceMeters;
+
+    public NearbyReport(){
+        report = null;
+        distanceMeters = 0.0;
+    }
+
+    public NearbyReport(Report report, double distanceMeters){
+        this.report = report;
+        this.distanceMeters = distanceMeters;
+    }
+
+    public Report getReport() {
+        return report;
+    }
+
+    public void setReport(Report report) {
+        this.report = report;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    public void setDistanceMeters(double distanceMeters) {
+        this.distanceMeters = distanceMeters;
+    }
+
+    @Override
+    public String toString() {
+        return "NearbyReport{" +
+                "report=" + report +
+                ", distanceMeters=" + distanceMeters +
+                '}';
+    }
+}
@@ -7,6 +7,8 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Table(name="report")
 public class Report {
@@ -63,6 +65,17 @@ public class Report {
     @Column(name = "longitude")
     private Double longitude;
 
+    // createdDate and closedDate parsed when the data is loaded, null when the text is empty or not a date
+    @Column(name = "createdAt")
+    private LocalDateTime createdAt;
+
+    @Column(name = "closedAt")
+    private LocalDateTime closedAt;
+
+    // Unique Key of the 311 service request, null for reports loaded without one
+    @Column(name = "uniqueKey")
+    private Long uniqueKey;
+
     public Report(){
         complaintType = null;
         descriptorType = null;
@@ -241,6 +254,30 @@ public class Report {
         this.longitude = longitude;
     }
 
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getClosedAt() {
+        return closedAt;
+    }
+
+    public void setClosedAt(LocalDateTime closedAt) {
+        this.closedAt = closedAt;
+    }
+
+    public Long getUniqueKey() {
+        return uniqueKey;
+    }
+
+    public void setUniqueKey(Long uniqueKey) {
+        this.uniqueKey = uniqueKey;
+    }
+
     @Override
     public String toString() {
         return "Report{" +
@@ -261,6 +298,9 @@ public class Report {
                 ", openDataChannelType='" + openDataChannelType + '\'' +
                 ", latitude=" + latitude +
                 ", longitude=" + longitude +
+                ", createdAt=" + createdAt +
+                ", closedAt=" + closedAt +
+                ", uniqueKey=" + uniqueKey +
                 '}';
     }
 }
\ No newline at end of file
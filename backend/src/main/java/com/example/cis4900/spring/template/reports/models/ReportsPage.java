@@ -0,0 +1,21 @@
+package com.example.cis4900.spring.template.reports.models;
+
+// One page of the reports table plus the cursor that fetches the page after it (null on the last page)
+public class ReportsPage {
+    private Iterable<Report> reports;
+
+    private String nextCursor;
+
+    public ReportsPage(Iterable<Report> reports, String nextCursor){
+        this.reports = reports;
+        this.nextCursor = nextCursor;
+    }
+
+    public Iterable<Report> getReports() {
+        return reports;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.cis4900.spring.template.reports.models;
+
+// Resolution time percentiles (closedAt - createdAt, in seconds) of the closed reports in one group
+public class ResolutionPercentiles {
+    private String group;
+
+    private long count;
+
+    private long p50Seconds;
+
+    private long p90Seconds;
+
+    private long p99Seconds;
+
+    public ResolutionPercentiles(){
+        group = null;
+        count = 0;
+    }
+
+    public ResolutionPercentiles(String group, long count, long p50Seconds, long p90Seconds, long p99Seconds){
+        this.group = group;
+        this.count = count;
+        this.p50Seconds = p50Seconds;
+        this.p90Seconds = p90Seconds;
+        this.p99Seconds = p99Seconds;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public void setGroup(String group) {
+        this.group = group;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getP50Seconds() {
+        return p50Seconds;
+    }
+
+    public void setP50Seconds(long p50Seconds) {
+        this.p50Seconds = p50Seconds;
+    }
+
+    public long getP90Seconds() {
+        return p90Seconds;
+    }
+
+    public void setP90Seconds(long p90Seconds) {
+        this.p90Seconds = p90Seconds;
+    }
+
+    public long getP99Seconds() {
+        return p99Seconds;
+    }
+
+    public void setP99Seconds(long p99Seconds) {
+        this.p99Seconds = p99Seconds;
+    }
+
+    @Override
+    public String toString() {
+        return "ResolutionPercentiles{" +
+                "group='" + group + '\'' +
+                ", count=" + count +
+                ", p50Seconds=" + p50Seconds +
+                ", p90Seconds=" + p90Seconds +
+                ", p99Seconds=" + p99Seconds +
+                '}';
+    }
+}
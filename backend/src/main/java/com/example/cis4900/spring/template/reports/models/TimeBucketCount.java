@@ -0,0 +1,44 @@
+package com.example.cis4900.spring.template.reports.models;
+
+import java.time.LocalDateTime;
+
+// One bucket of a time series: when the bucket starts and how many reports fall in it
+public class TimeBucketCount {
+    private LocalDateTime start;
+
+    private long count;
+
+    public TimeBucketCount(){
+        start = null;
+        count = 0;
+    }
+
+    public TimeBucketCount(LocalDateTime start, long count){
+        this.start = start;
+        this.count = count;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public void setStart(LocalDateTime start) {
+        this.start = start;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    @Override
+    public String toString() {
+        return "TimeBucketCount{" +
+                "start=" + start +
+                ", count=" + count +
+                '}';
+    }
+}
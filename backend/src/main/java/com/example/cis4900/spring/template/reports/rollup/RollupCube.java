@@ -0,0 +1,363 @@
+package com.example.cis4900.spring.template.reports.rollup;
+
+import com.example.cis4900.spring.template.reports.memory.DictionaryColumn;
+import com.example.cis4900.spring.template.reports.time.TimeBucket;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// RollupCube holds the number of reports for every combination of the DIMENSIONS and the day of createdAt that occurs
+// Each cell is one packed long key (a dictionary code per dimension plus the day) and a count, so counts, grouped counts
+// and daily/weekly/monthly series that only filter and group on these columns add up a few thousand cells instead of
+// reading millions of rows. Rows are added one at a time as they arrive, the cube is never rebuilt to take in new rows.
+//
+// Values are coded by MariaDB's collation (case and trailing spaces ignored) so filters match the way SQL matches them,
+// and each code reports the first spelling seen. If a dimension outgrows the bits its codes get, the cube stops being
+// usable and the queries go back to SQL.
+public class RollupCube {
+    // Columns the cube counts by, besides the day of createdAt
+    public static final List<String> DIMENSIONS = List.of("agencyName", "complaintType", "borough", "status", "openDataChannelType");
+
+    // Bits of the cell key given to each dimension's codes (code 0 is NULL), the low DAY_BITS hold the day
+    private static final int[] BITS = {9, 12, 8, 8, 8};
+
+    private static final int DAY_BITS = 18;
+
+    private static final long EMPTY = -1;
+
+    private final Dimension[] dimensions = new Dimension[DIMENSIONS.size()];
+
+    private final int[] shifts = new int[DIMENSIONS.size()];
+
+    private long[] keys;
+
+    private long[] counts;
+
+    private int size = 0;
+
+    private long total = 0;
+
+    private boolean overflowed = false;
+
+    // Rows are added while queries run, queries share the read lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public RollupCube() {
+        int shift = DAY_BITS;
+        for (int i = 0; i < dimensions.length; i++) {
+            dimensions[i] = new Dimension(BITS[i]);
+            shifts[i] = shift;
+            shift += BITS[i];
+        }
+        keys = new long[1024];
+        Arrays.fill(keys, EMPTY);
+        counts = new long[keys.length];
+    }
+
+
+    // add counts reports into their cell
+    // Params:
+    // values - The DIMENSIONS values of the reports, in order
+    // day - Day of createdAt, or null when it is NULL
+    // reports - How many reports to add
+    // Returns: false if a value no longer fits the cube, which is then no longer usable
+
+    public boolean add(String[] values, LocalDate day, long reports) {
+        lock.writeLock().lock();
+        try {
+            if (overflowed) {
+                return false;
+            }
+            long key = day == null ? 0 : day.toEpochDay() + 1;
+            if (key < 0 || key >= 1L << DAY_BITS) {
+                return overflow("day " + day);
+            }
+            for (int i = 0; i < dimensions.length; i++) {
+                int code = dimensions[i].codeOf(values[i]);
+                if (code < 0) {
+                    return overflow(DIMENSIONS.get(i) + " value " + values[i]);
+                }
+                key |= (long) code << shifts[i];
+            }
+
+            int slot = slot(key);
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                if (++size * 2 > keys.length) {
+                    grow();
+                    slot = slot(key);
+                }
+            }
+            counts[slot] += reports;
+            total += reports;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isUsable() {
+        lock.readLock().lock();
+        try {
+            return !overflowed;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long total() {
+        lock.readLock().lock();
+        try {
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int cells() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    // covers checks that every filtered column is one of the DIMENSIONS, so the cube can answer under the filters
+    public static boolean covers(Map<String, List<String>> filters) {
+        for (Map.Entry<String, List<String>> entry : filters.entrySet()) {
+            if (entry.getValue() != null && !entry.getValue().isEmpty() && !DIMENSIONS.contains(entry.getKey())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    // count is SELECT COUNT(*) FROM report WHERE filters, the filters must be covered
+    public long count(Map<String, List<String>> filters) {
+        lock.readLock().lock();
+        try {
+            boolean[][] wanted = wanted(filters);
+            long count = 0;
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != EMPTY && matches(keys[slot], wanted)) {
+                    count += counts[slot];
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    // groupCounts is SELECT columns, COUNT(*) AS total FROM report WHERE filters GROUP BY columns ORDER BY total DESC,
+    // the columns must be DIMENSIONS and the filters covered. Groups with the same count are ordered by their values.
+    // Returns: {values..., count} rows like the SQL query
+
+    public List<Object[]> groupCounts(List<String> columns, Map<String, List<String>> filters) {
+        int[] grouped = new int[columns.size()];
+        for (int i = 0; i < grouped.length; i++) {
+            grouped[i] = DIMENSIONS.indexOf(columns.get(i));
+        }
+
+        Map<List<Integer>, long[]> groups = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            boolean[][] wanted = wanted(filters);
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] == EMPTY || !matches(keys[slot], wanted)) {
+                    continue;
+                }
+                Integer[] codes = new Integer[grouped.length];
+                for (int i = 0; i < grouped.length; i++) {
+                    codes[i] = code(keys[slot], grouped[i]);
+                }
+                groups.computeIfAbsent(Arrays.asList(codes), key -> new long[1])[0] += counts[slot];
+            }
+
+            List<Object[]> rows = new ArrayList<>(groups.size());
+            for (Map.Entry<List<Integer>, long[]> group : groups.entrySet()) {
+                Object[] row = new Object[grouped.length + 1];
+                for (int i = 0; i < grouped.length; i++) {
+                    row[i] = dimensions[grouped[i]].value(group.getKey().get(i));
+                }
+                row[grouped.length] = group.getValue()[0];
+                rows.add(row);
+            }
+            rows.sort(Comparator.comparingLong((Object[] row) -> -(Long) row[grouped.length]).thenComparing(RollupCube::groupLabel));
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    // coversSeries checks the cube can answer a createdAt time series: daily or coarser buckets over whole days
+    public static boolean coversSeries(String column, TimeBucket bucket, LocalDateTime from, LocalDateTime to) {
+        return "createdAt".equals(column) && bucket != TimeBucket.HOUR
+                && (from == null || from.toLocalTime().equals(LocalTime.MIDNIGHT))
+                && (to == null || to.toLocalTime().equals(LocalTime.MIDNIGHT));
+    }
+
+
+    // timeSeries is the createdAt time series query of getTimeSeries, see coversSeries for what it can answer
+    // Returns: {bucket start formatted as TimeBucket.BUCKET_FORMAT, count} rows in time order
+
+    public List<Object[]> timeSeries(TimeBucket bucket, LocalDateTime from, LocalDateTime to, Map<String, List<String>> filters) {
+        long fromDay = from == null ? 1 : from.toLocalDate().toEpochDay() + 1;
+        long toDay = to == null ? Long.MAX_VALUE : to.toLocalDate().toEpochDay() + 1;
+
+        Map<Long, Long> buckets = new TreeMap<>();
+        lock.readLock().lock();
+        try {
+            boolean[][] wanted = wanted(filters);
+            long dayMask = (1L << DAY_BITS) - 1;
+            for (int slot = 0; slot < keys.length; slot++) {
+                long day = keys[slot] & dayMask;
+                if (keys[slot] == EMPTY || day == 0 || day < fromDay || day >= toDay || !matches(keys[slot], wanted)) {
+                    continue;
+                }
+                long start = bucket.floor((day - 1) * 86400);
+                buckets.merge(start, counts[slot], Long::sum);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Object[]> rows = new ArrayList<>(buckets.size());
+        for (Map.Entry<Long, Long> entry : buckets.entrySet()) {
+            rows.add(new Object[] {TimeBucket.fromEpochSecond(entry.getKey()).format(TimeBucket.BUCKET_FORMAT), entry.getValue()});
+        }
+        return rows;
+    }
+
+
+    // wanted turns the filters into the accepted codes of each dimension, null for a dimension that isn't filtered
+    private boolean[][] wanted(Map<String, List<String>> filters) {
+        boolean[][] wanted = new boolean[dimensions.length][];
+        for (Map.Entry<String, List<String>> entry : filters.entrySet()) {
+            int dimension = DIMENSIONS.indexOf(entry.getKey());
+            if (entry.getValue() == null || entry.getValue().isEmpty()) {
+                continue;
+            }
+            if (dimension < 0) {
+                throw new IllegalArgumentException("Not a rollup dimension: " + entry.getKey());
+            }
+            wanted[dimension] = dimensions[dimension].matching(entry.getValue());
+        }
+        return wanted;
+    }
+
+    private boolean matches(long key, boolean[][] wanted) {
+        for (int i = 0; i < wanted.length; i++) {
+            if (wanted[i] != null && !wanted[i][code(key, i)]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int code(long key, int dimension) {
+        return (int) ((key >>> shifts[dimension]) & ((1L << BITS[dimension]) - 1));
+    }
+
+    private static String groupLabel(Object[] row) {
+        StringBuilder label = new StringBuilder();
+        for (int i = 0; i < row.length - 1; i++) {
+            label.append(row[i] == null ? "" : row[i]).append('\u0000');
+        }
+        return label.toString();
+    }
+
+    private boolean overflow(String what) {
+        overflowed = true;
+        System.err.println("Rollup cube can't hold " + what + ", queries go back to SQL");
+        return false;
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        long mixed = key * 0x9e3779b97f4a7c15L;
+        int slot = (int) ((mixed ^ (mixed >>> 32)) & mask);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        counts = new long[keys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+
+    // Dimension codes the values of one column, code 0 is NULL and values are numbered from 1 as they are first seen
+    private static final class Dimension {
+        private final int maxCode;
+
+        private final Map<String, Integer> codeOf = new HashMap<>();
+
+        private final List<String> values = new ArrayList<>();
+
+        Dimension(int bits) {
+            maxCode = (1 << bits) - 1;
+        }
+
+        // codeOf returns the code of a value, adding it if it is new, or -1 if there is no code left for it
+        int codeOf(String value) {
+            if (value == null) {
+                return 0;
+            }
+            String key = DictionaryColumn.collationKey(value);
+            Integer code = codeOf.get(key);
+            if (code == null) {
+                if (values.size() >= maxCode) {
+                    return -1;
+                }
+                values.add(value);
+                code = values.size();
+                codeOf.put(key, code);
+            }
+            return code;
+        }
+
+        String value(int code) {
+            return code == 0 ? null : values.get(code - 1);
+        }
+
+        // matching marks the codes an IN (...) list accepts, NULL is never accepted just like in SQL
+        boolean[] matching(List<String> accepted) {
+            boolean[] wanted = new boolean[values.size() + 1];
+            for (String value : accepted) {
+                Integer code = value == null ? null : codeOf.get(DictionaryColumn.collationKey(value));
+                if (code != null) {
+                    wanted[code] = true;
+                }
+            }
+            return wanted;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.cis4900.spring.template.reports.rollup;
+
+import com.example.cis4900.spring.template.reports.DatasetCopyRefreshedEvent;
+import com.example.cis4900.spring.template.reports.DatasetReloadedEvent;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// RollupEngine keeps the RollupCube in step with the report table when reports.rollup.enabled=true
+// The cube remembers the highest Id it has counted (the watermark). Once the application is up and whenever rows are
+// appended (an append-only DatasetReloadedEvent) only the rows past the watermark are read and added. The cube is built
+// again from scratch after any other change, or when the rows up to the watermark no longer add up to what it counted,
+// i.e. rows were deleted or the table was replaced. Until the first build is done getCube() returns null and every query stays on SQL.
+// Counts read from the cube between a change and its refresh are from before the change, so every refresh that added
+// rows or rebuilt the cube publishes a DatasetCopyRefreshedEvent for the query cache to drop them.
+@Component
+@ConditionalOnProperty(name = "reports.rollup.enabled", havingValue = "true")
+public class RollupEngine {
+    private static final String LOAD_SQL = "SELECT Id, " + String.join(", ", RollupCube.DIMENSIONS)
+            + ", DATE(createdAt) FROM report WHERE Id > ? ORDER BY Id";
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM report WHERE Id <= ?";
+
+    private final DataSource dataSource;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Refreshes run one at a time, in the order they were asked for
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reports-rollup-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile RollupCube cube;
+
+    private volatile long watermark = Integer.MIN_VALUE;
+
+    private volatile boolean rebuildRequested = false;
+
+    private final AtomicBoolean refreshPending = new AtomicBoolean(false);
+
+    @Autowired
+    public RollupEngine(DataSource dataSource, ApplicationEventPublisher eventPublisher) {
+        this.dataSource = dataSource;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // getCube returns the cube once it is built and usable, else null
+    public RollupCube getCube() {
+        RollupCube current = cube;
+        return current != null && current.isUsable() ? current : null;
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    // Changes that arrive while a refresh is waiting to run (batch ingest publishes one per commit) share it
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshInBackground() {
+        if (refreshPending.compareAndSet(false, true)) {
+            refresher.submit(() -> {
+                refreshPending.set(false);
+                refresh();
+            });
+        }
+    }
+
+    // A change that may have updated existing rows can't be caught up with by reading the new rows, the next refresh
+    // builds the cube again
+    @EventListener(DatasetReloadedEvent.class)
+    public void datasetChanged(DatasetReloadedEvent event) {
+        if (!event.isAppendOnly()) {
+            rebuildRequested = true;
+        }
+        refreshInBackground();
+    }
+
+
+    // refresh adds the rows past the watermark to the cube, or builds a new cube if the counted rows have changed or
+    // existing rows were updated
+    public synchronized void refresh() {
+        long started = System.currentTimeMillis();
+        boolean rebuild = rebuildRequested;
+        rebuildRequested = false;
+        try (Connection connection = dataSource.getConnection()) {
+            RollupCube current = cube;
+            if (!rebuild && current != null && current.isUsable() && countUpTo(connection, watermark) == current.total()) {
+                long added = load(connection, current);
+                if (added > 0) {
+                    eventPublisher.publishEvent(new DatasetCopyRefreshedEvent(this));
+                }
+                System.out.println("Added " + added + " reports to the rollup cube in " + (System.currentTimeMillis() - started) + " ms");
+                return;
+            }
+
+            RollupCube rebuilt = new RollupCube();
+            watermark = Integer.MIN_VALUE;
+            load(connection, rebuilt);
+            cube = rebuilt;
+            eventPublisher.publishEvent(new DatasetCopyRefreshedEvent(this));
+            System.out.println("Built rollup cube: " + rebuilt.total() + " reports in " + rebuilt.cells() + " cells in "
+                    + (System.currentTimeMillis() - started) + " ms");
+        } catch (SQLException | RuntimeException e) {
+            rebuildRequested = rebuildRequested || rebuild;
+            System.err.println("Error refreshing rollup cube, staying on SQL: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+
+    // load streams the rows past the watermark into the cube, moving the watermark along
+    // Returns: How many rows were added
+
+    private long load(Connection connection, RollupCube target) throws SQLException {
+        int width = RollupCube.DIMENSIONS.size();
+        long added = 0;
+
+        try (PreparedStatement statement = connection.prepareStatement(LOAD_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Stream the rows instead of buffering them, see ReportsSnapshotEngine
+            statement.setFetchSize(Integer.MIN_VALUE);
+            statement.setLong(1, watermark);
+
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    String[] values = new String[width];
+                    for (int i = 0; i < width; i++) {
+                        values[i] = rows.getString(i + 2);
+                    }
+                    Date day = rows.getDate(width + 2);
+                    if (!target.add(values, day == null ? null : day.toLocalDate(), 1)) {
+                        return added;
+                    }
+                    watermark = rows.getInt(1);
+                    added++;
+                }
+            }
+        }
+        return added;
+    }
+
+    private static long countUpTo(Connection connection, long id) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(COUNT_SQL)) {
+            statement.setLong(1, id);
+            try (ResultSet rows = statement.executeQuery()) {
+                rows.next();
+                return rows.getLong(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.cis4900.spring.template.reports.spatial;
+
+import com.example.cis4900.spring.template.reports.models.MapCluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+// ClusterIndex is a hierarchical point cluster index (in the style of supercluster) over one filtered set of reports
+// Points are projected to Web Mercator (0-1 on both axes) and clustered greedily zoom by zoom, from MAX_ZOOM down to 0:
+// every item of the level below absorbs its unvisited neighbours within CLUSTER_RADIUS pixels at that zoom and becomes a
+// cluster at their weighted centre. Each level keeps its own KdIndex, so a viewport query only reads the items of one
+// level inside the box and costs the same no matter how many reports the filters match. Above MAX_ZOOM the items are
+// the reports themselves.
+public final class ClusterIndex {
+    // Deepest zoom that is clustered, from MAX_ZOOM + 1 on every report is returned on its own
+    public static final int MAX_ZOOM = 16;
+
+    // Cluster radius in pixels of a 256 pixel tile
+    private static final double CLUSTER_RADIUS = 20;
+
+    private static final double TILE_PIXELS = 256;
+
+    private final int[] reportIds;
+
+    private final double[] latitudes;
+
+    private final double[] longitudes;
+
+    private final Level[] levels = new Level[MAX_ZOOM + 2];
+
+    // build clusters the given reports, rows without coordinates must already be left out
+    // Params:
+    // reportIds, latitudes, longitudes - One entry per report
+    public ClusterIndex(int[] reportIds, double[] latitudes, double[] longitudes) {
+        this.reportIds = reportIds;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+
+        int size = reportIds.length;
+        Level leaves = new Level(size);
+        for (int i = 0; i < size; i++) {
+            leaves.add(projectX(longitudes[i]), projectY(latitudes[i]), 1, i, -1);
+        }
+        levels[MAX_ZOOM + 1] = leaves.seal();
+
+        int nextCluster = size;
+        for (int zoom = MAX_ZOOM; zoom >= 0; zoom--) {
+            Level below = levels[zoom + 1];
+            Level level = new Level(below.size);
+            boolean[] visited = new boolean[below.size];
+            double radius = CLUSTER_RADIUS / (TILE_PIXELS * Math.pow(2, zoom));
+            Neighbours neighbours = new Neighbours();
+
+            for (int i = 0; i < below.size; i++) {
+                if (visited[i]) {
+                    continue;
+                }
+                visited[i] = true;
+
+                neighbours.size = 0;
+                below.tree.within(below.xs[i], below.ys[i], radius, neighbours);
+
+                long count = below.counts[i];
+                double sumX = below.xs[i] * count;
+                double sumY = below.ys[i] * count;
+                for (int n = 0; n < neighbours.size; n++) {
+                    int j = neighbours.ids[n];
+                    if (visited[j]) {
+                        continue;
+                    }
+                    visited[j] = true;
+                    count += below.counts[j];
+                    sumX += below.xs[j] * below.counts[j];
+                    sumY += below.ys[j] * below.counts[j];
+                }
+
+                if (count == below.counts[i]) {
+                    level.add(below.xs[i], below.ys[i], below.counts[i], below.items[i], below.expansions[i]);
+                } else {
+                    level.add(sumX / count, sumY / count, count, nextCluster++, zoom + 1);
+                }
+            }
+            levels[zoom] = level.seal();
+        }
+    }
+
+    public int size() {
+        return reportIds.length;
+    }
+
+
+    // clusters returns the items of one zoom level inside a bounding box
+    // Params:
+    // bounds - {west, south, east, north} in degrees
+    // zoom - Map zoom level, fractional zooms use the level below
+    // limit - Most items to return
+    // Returns: Clusters with their centre, count and the zoom they split at, and single reports with their Id
+
+    public List<MapCluster> clusters(double[] bounds, double zoom, int limit) {
+        int z = (int) Math.max(0, Math.min(MAX_ZOOM + 1, Math.floor(zoom)));
+        Level level = levels[z];
+
+        List<MapCluster> result = new ArrayList<>();
+        level.tree.range(projectX(bounds[0]), projectY(bounds[3]), projectX(bounds[2]), projectY(bounds[1]), k -> {
+            if (result.size() >= limit) {
+                return;
+            }
+            int item = level.items[k];
+            if (item < reportIds.length) {
+                result.add(MapCluster.report(reportIds[item], latitudes[item], longitudes[item]));
+            } else {
+                result.add(MapCluster.cluster(item, unprojectY(level.ys[k]), unprojectX(level.xs[k]), level.counts[k], level.expansions[k]));
+            }
+        });
+        return result;
+    }
+
+
+    static double projectX(double longitude) {
+        return longitude / 360.0 + 0.5;
+    }
+
+    static double projectY(double latitude) {
+        double sin = Math.sin(Math.toRadians(latitude));
+        double y = 0.5 - 0.25 * Math.log((1 + sin) / (1 - sin)) / Math.PI;
+        return Math.max(0, Math.min(1, y));
+    }
+
+    static double unprojectX(double x) {
+        return (x - 0.5) * 360.0;
+    }
+
+    static double unprojectY(double y) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y))));
+    }
+
+
+    // Neighbours collects the indexes a KdIndex query finds, reused for every item of a level
+    private static final class Neighbours implements IntConsumer {
+        private int[] ids = new int[16];
+
+        private int size;
+
+        @Override
+        public void accept(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+
+
+    // Level holds the items of one zoom level in parallel arrays plus a KdIndex over their positions
+    // items is the report index (below the report count) or a cluster number, expansions the zoom a cluster splits at
+    private static final class Level {
+        private double[] xs;
+
+        private double[] ys;
+
+        private long[] counts;
+
+        private int[] items;
+
+        private int[] expansions;
+
+        private int size;
+
+        private KdIndex tree;
+
+        Level(int capacity) {
+            xs = new double[capacity];
+            ys = new double[capacity];
+            counts = new long[capacity];
+            items = new int[capacity];
+            expansions = new int[capacity];
+        }
+
+        void add(double x, double y, long count, int item, int expansion) {
+            xs[size] = x;
+            ys[size] = y;
+            counts[size] = count;
+            items[size] = item;
+            expansions[size] = expansion;
+            size++;
+        }
+
+        Level seal() {
+            xs = Arrays.copyOf(xs, size);
+            ys = Arrays.copyOf(ys, size);
+            counts = Arrays.copyOf(counts, size);
+            items = Arrays.copyOf(items, size);
+            expansions = Arrays.copyOf(expansions, size);
+            tree = new KdIndex(xs, ys, size);
+            return this;
+        }
+    }
+}
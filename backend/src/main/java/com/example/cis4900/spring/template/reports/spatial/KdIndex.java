@@ -0,0 +1,167 @@
+package com.example.cis4900.spring.template.reports.spatial;
+
+import java.util.function.IntConsumer;
+
+// KdIndex is a static, packed 2D k-d tree over a fixed set of points (in the style of kdbush)
+// The points are sorted in place into a balanced tree stored in two flat arrays: no node objects, no pointers, and the
+// build is a series of partial sorts. Leaves hold up to NODE_SIZE points and are scanned linearly. Queries report the
+// original index of every point they find.
+public final class KdIndex {
+    private static final int NODE_SIZE = 64;
+
+    private final int[] ids;
+
+    private final double[] coords;
+
+    // build indexes points 0..size-1 of xs/ys, the arrays are copied and not kept
+    public KdIndex(double[] xs, double[] ys, int size) {
+        ids = new int[size];
+        coords = new double[size * 2];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i;
+            coords[2 * i] = xs[i];
+            coords[2 * i + 1] = ys[i];
+        }
+        sort(0, size - 1, 0);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+
+    // range reports every point with minX <= x <= maxX and minY <= y <= maxY
+
+    public void range(double minX, double minY, double maxX, double maxY, IntConsumer found) {
+        search(minX, minY, maxX, maxY, Double.NaN, Double.NaN, -1, found);
+    }
+
+
+    // within reports every point no further than radius from (qx, qy)
+
+    public void within(double qx, double qy, double radius, IntConsumer found) {
+        search(qx - radius, qy - radius, qx + radius, qy + radius, qx, qy, radius * radius, found);
+    }
+
+
+    // search walks the nodes overlapping the box, when radiusSquared >= 0 a point must also lie inside the circle
+    private void search(double minX, double minY, double maxX, double maxY, double qx, double qy, double radiusSquared, IntConsumer found) {
+        if (ids.length == 0) {
+            return;
+        }
+        int[] stack = new int[3 * 64];
+        int top = push(stack, 0, 0, ids.length - 1, 0);
+
+        while (top > 0) {
+            int axis = stack[--top];
+            int right = stack[--top];
+            int left = stack[--top];
+
+            if (right - left <= NODE_SIZE) {
+                for (int i = left; i <= right; i++) {
+                    if (matches(i, minX, minY, maxX, maxY, qx, qy, radiusSquared)) {
+                        found.accept(ids[i]);
+                    }
+                }
+                continue;
+            }
+
+            int middle = (left + right) >> 1;
+            if (matches(middle, minX, minY, maxX, maxY, qx, qy, radiusSquared)) {
+                found.accept(ids[middle]);
+            }
+
+            double value = coords[2 * middle + axis];
+            if ((axis == 0 ? minX : minY) <= value) {
+                stack = grown(stack, top);
+                top = push(stack, top, left, middle - 1, 1 - axis);
+            }
+            if ((axis == 0 ? maxX : maxY) >= value) {
+                stack = grown(stack, top);
+                top = push(stack, top, middle + 1, right, 1 - axis);
+            }
+        }
+    }
+
+    private boolean matches(int i, double minX, double minY, double maxX, double maxY, double qx, double qy, double radiusSquared) {
+        double x = coords[2 * i];
+        double y = coords[2 * i + 1];
+        if (radiusSquared >= 0) {
+            double dx = x - qx;
+            double dy = y - qy;
+            return dx * dx + dy * dy <= radiusSquared;
+        }
+        return x >= minX && x <= maxX && y >= minY && y <= maxY;
+    }
+
+
+    private static int push(int[] stack, int top, int left, int right, int axis) {
+        stack[top] = left;
+        stack[top + 1] = right;
+        stack[top + 2] = axis;
+        return top + 3;
+    }
+
+    private static int[] grown(int[] stack, int top) {
+        if (top + 3 <= stack.length) {
+            return stack;
+        }
+        int[] bigger = new int[stack.length * 2];
+        System.arraycopy(stack, 0, bigger, 0, top);
+        return bigger;
+    }
+
+
+    // sort arranges ids[left..right] so the median on axis sits in the middle with smaller values before it, then
+    // recurses into both halves on the other axis
+    private void sort(int left, int right, int axis) {
+        if (right - left <= NODE_SIZE) {
+            return;
+        }
+        int middle = (left + right) >> 1;
+        select(middle, left, right, axis);
+        sort(left, middle - 1, 1 - axis);
+        sort(middle + 1, right, 1 - axis);
+    }
+
+    // select is a quickselect that puts the k-th smallest value on axis at position k
+    private void select(int k, int left, int right, int axis) {
+        while (right > left) {
+            double pivot = coords[2 * ((left + right) >>> 1) + axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coords[2 * i + axis] < pivot) {
+                    i++;
+                }
+                while (coords[2 * j + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        double x = coords[2 * i];
+        double y = coords[2 * i + 1];
+        coords[2 * i] = coords[2 * j];
+        coords[2 * i + 1] = coords[2 * j + 1];
+        coords[2 * j] = x;
+        coords[2 * j + 1] = y;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.cis4900.spring.template.reports.spatial;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// LocationIndex is a KdIndex over the coordinates of one filtered set of reports, answering bounding box, radius and
+// k-nearest queries without reading the table. The tree is built on longitude/latitude degrees; radius and nearest
+// searches query the degree box around the circle and then keep the reports inside it by great-circle distance.
+public final class LocationIndex {
+    public static final double EARTH_RADIUS_METERS = 6371008.8;
+
+    private static final double METERS_PER_DEGREE = Math.PI * EARTH_RADIUS_METERS / 180.0;
+
+    // First radius nearest tries, doubled until it holds k reports
+    private static final double NEAREST_START_METERS = 100;
+
+    private final int[] reportIds;
+
+    private final double[] latitudes;
+
+    private final double[] longitudes;
+
+    private final KdIndex tree;
+
+    // build indexes the given reports, rows without coordinates must already be left out
+    public LocationIndex(int[] reportIds, double[] latitudes, double[] longitudes) {
+        this.reportIds = reportIds;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.tree = new KdIndex(longitudes, latitudes, reportIds.length);
+    }
+
+    public int size() {
+        return reportIds.length;
+    }
+
+    public int[] getReportIds() {
+        return reportIds;
+    }
+
+    public double[] getLatitudes() {
+        return latitudes;
+    }
+
+    public double[] getLongitudes() {
+        return longitudes;
+    }
+
+
+    // inBox finds the reports inside {west, south, east, north}
+    // Returns: Up to limit report Ids, in Id order
+
+    public List<Integer> inBox(double[] bounds, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        tree.range(bounds[0], bounds[1], bounds[2], bounds[3], row -> ids.add(reportIds[row]));
+        ids.sort(Comparator.naturalOrder());
+        return ids.size() > limit ? new ArrayList<>(ids.subList(0, limit)) : ids;
+    }
+
+
+    // within finds the reports no further than radius meters from a point
+    // Returns: Up to limit {report Id, distance in meters} pairs, closest first
+
+    public List<double[]> within(double latitude, double longitude, double radius, int limit) {
+        return closest(candidates(latitude, longitude, radius), limit);
+    }
+
+
+    // nearest finds the k reports closest to a point, searching at most maxRadius meters out
+    // Returns: Up to k {report Id, distance in meters} pairs, closest first
+
+    public List<double[]> nearest(double latitude, double longitude, int k, double maxRadius) {
+        double radius = Math.min(NEAREST_START_METERS, maxRadius);
+        List<double[]> found = candidates(latitude, longitude, radius);
+        while (found.size() < k && radius < maxRadius) {
+            radius = Math.min(radius * 2, maxRadius);
+            found = candidates(latitude, longitude, radius);
+        }
+        // Every report within radius was found, so the k closest of them are the k closest overall
+        return closest(found, k);
+    }
+
+    private static List<double[]> closest(List<double[]> found, int limit) {
+        found.sort(Comparator.comparingDouble((double[] pair) -> pair[1]));
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+
+    // candidates collects every report within radius meters, with its distance
+    private List<double[]> candidates(double latitude, double longitude, double radius) {
+        double latDelta = radius / METERS_PER_DEGREE;
+        double cosLatitude = Math.cos(Math.toRadians(Math.min(89.9, Math.abs(latitude) + latDelta)));
+        double lonDelta = Math.min(180, radius / (METERS_PER_DEGREE * cosLatitude));
+
+        List<double[]> found = new ArrayList<>();
+        tree.range(longitude - lonDelta, latitude - latDelta, longitude + lonDelta, latitude + latDelta, row -> {
+            double distance = distanceMeters(latitude, longitude, latitudes[row], longitudes[row]);
+            if (distance <= radius) {
+                found.add(new double[] {reportIds[row], distance});
+            }
+        });
+        return found;
+    }
+
+
+    // distanceMeters is the haversine great-circle distance between two points
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
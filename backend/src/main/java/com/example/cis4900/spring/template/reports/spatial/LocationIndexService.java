@@ -0,0 +1,71 @@
+package com.example.cis4900.spring.template.reports.spatial;
+
+import com.example.cis4900.spring.template.reports.DatasetVersion;
+import com.example.cis4900.spring.template.reports.cache.ReportsQueryCache;
+import com.example.cis4900.spring.template.reports.dao.ReportsDao;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// LocationIndexService keeps one LocationIndex per filter signature and dataset version
+// The first spatial query for a set of filters reads the matching locations once (getLocations), every later query for
+// the same filters is answered from the index. Indexes are evicted by the number of reports they hold.
+@Component
+public class LocationIndexService {
+    private final ReportsDao reportsDao;
+
+    private final ReportsQueryCache queryCache;
+
+    private final DatasetVersion datasetVersion;
+
+    private final Cache<String, LocationIndex> indexes;
+
+    @Autowired
+    public LocationIndexService(ReportsDao reportsDao, ReportsQueryCache queryCache, DatasetVersion datasetVersion,
+                                @Value("${reports.spatial.max-points:4000000}") long maxPoints) {
+        this.reportsDao = reportsDao;
+        this.queryCache = queryCache;
+        this.datasetVersion = datasetVersion;
+        this.indexes = Caffeine.newBuilder()
+                .maximumWeight(maxPoints)
+                .weigher((String key, LocationIndex index) -> 1 + index.size())
+                .build();
+    }
+
+
+    // cacheKey identifies the filters and dataset version an index is built for, equal for every way of writing the same filters
+    public String cacheKey(String filters) {
+        return datasetVersion.get() + "|" + queryCache.canonicalFilters(filters);
+    }
+
+
+    // index returns the location index for the filters, building it on the first request for them
+    public LocationIndex index(String filters) {
+        return indexes.get(cacheKey(filters), key -> build(filters));
+    }
+
+    private LocationIndex build(String filters) {
+        long started = System.currentTimeMillis();
+        List<Object[]> rows = reportsDao.getLocations(filters);
+
+        int size = rows.size();
+        int[] ids = new int[size];
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        for (int i = 0; i < size; i++) {
+            Object[] row = rows.get(i);
+            ids[i] = ((Number) row[0]).intValue();
+            latitudes[i] = ((Number) row[1]).doubleValue();
+            longitudes[i] = ((Number) row[2]).doubleValue();
+        }
+
+        LocationIndex index = new LocationIndex(ids, latitudes, longitudes);
+        System.out.println("Built location index: " + size + " reports in " + (System.currentTimeMillis() - started) + " ms");
+        return index;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.cis4900.spring.template.reports.spatial;
+
+import com.example.cis4900.spring.template.reports.dao.ReportQueryBuilder;
+import com.example.cis4900.spring.template.reports.models.MapCluster;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// MarkerClusterService answers /api/reports/clusters from a ClusterIndex per filter signature
+// The first request for a set of filters builds the index from their LocationIndex; every later viewport for the same
+// filters and dataset version is a lookup in one level of it. Indexes are evicted by the number of reports they hold.
+@Component
+public class MarkerClusterService {
+    // Most clusters or reports returned for one viewport
+    public static final int MAX_RESULTS = 10000;
+
+    private final LocationIndexService locationIndexes;
+
+    private final Cache<String, ClusterIndex> indexes;
+
+    @Autowired
+    public MarkerClusterService(LocationIndexService locationIndexes, @Value("${reports.clusters.max-points:4000000}") long maxPoints) {
+        this.locationIndexes = locationIndexes;
+        this.indexes = Caffeine.newBuilder()
+                .maximumWeight(maxPoints)
+                .weigher((String key, ClusterIndex index) -> 1 + index.size())
+                .build();
+    }
+
+
+    // clusters returns the clusters and single reports visible in a viewport
+    // Params:
+    // bbox - Visible area as "west,south,east,north" in degrees
+    // zoom - Map zoom level, reports are returned individually above ClusterIndex.MAX_ZOOM
+    // filters - Filter JSON as sent by the frontend
+    // Returns: Up to MAX_RESULTS clusters and reports, or an empty list if the bbox or zoom can't be read
+
+    public List<MapCluster> clusters(String bbox, String zoom, String filters) {
+        double[] bounds = ReportQueryBuilder.parseBbox(bbox);
+        double zoomLevel;
+        try {
+            zoomLevel = Double.parseDouble(zoom.trim());
+        } catch (NullPointerException | NumberFormatException e) {
+            zoomLevel = Double.NaN;
+        }
+        if (bounds == null || Double.isNaN(zoomLevel)) {
+            System.err.println("Invalid cluster request: bbox " + bbox + ", zoom " + zoom);
+            return Collections.emptyList();
+        }
+
+        return index(filters).clusters(bounds, zoomLevel, MAX_RESULTS);
+    }
+
+
+    // index returns the cluster index for the filters, built from their LocationIndex on the first request for them
+    public ClusterIndex index(String filters) {
+        return indexes.get(locationIndexes.cacheKey(filters), key -> {
+            long started = System.currentTimeMillis();
+            LocationIndex locations = locationIndexes.index(filters);
+            ClusterIndex index = new ClusterIndex(locations.getReportIds(), locations.getLatitudes(), locations.getLongitudes());
+            System.out.println("Built cluster index: " + index.size() + " reports in " + (System.currentTimeMillis() - started) + " ms");
+            return index;
+        });
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.cis4900.spring.template.reports.spatial;
+
+import com.example.cis4900.spring.template.reports.dao.ReportQueryBuilder;
+import com.example.cis4900.spring.template.reports.dao.ReportsDao;
+import com.example.cis4900.spring.template.reports.models.NearbyReport;
+import com.example.cis4900.spring.template.reports.models.Report;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// SpatialSearchService answers the bounding box, radius and nearest report searches
+// The LocationIndex of the filters picks the matching report Ids, then only those reports are fetched by Id, so a search
+// reads a handful of rows instead of scanning the table.
+@Component
+public class SpatialSearchService {
+    // Most reports a single search returns
+    public static final int MAX_RESULTS = 5000;
+
+    // Radius and nearest searches look no further than this
+    public static final double MAX_RADIUS_METERS = 50000;
+
+    private final LocationIndexService locationIndexes;
+
+    private final ReportsDao reportsDao;
+
+    @Autowired
+    public SpatialSearchService(LocationIndexService locationIndexes, ReportsDao reportsDao) {
+        this.locationIndexes = locationIndexes;
+        this.reportsDao = reportsDao;
+    }
+
+
+    // inBox finds the reports inside a bounding box
+    // Params:
+    // bbox - Area as "west,south,east,north" in degrees
+    // limit - How many reports to return at most
+    // filters - Filter JSON as sent by the frontend
+    // Returns: The reports in Id order, or an empty list if the bbox can't be read
+
+    public List<Report> inBox(String bbox, String limit, String filters) {
+        double[] bounds = ReportQueryBuilder.parseBbox(bbox);
+        int count = parseCount(limit);
+        if (bounds == null || count == 0) {
+            System.err.println("Invalid box search: bbox " + bbox + ", limit " + limit);
+            return Collections.emptyList();
+        }
+
+        List<Integer> ids = locationIndexes.index(filters).inBox(bounds, count);
+        Map<Integer, Report> reports = fetch(ids);
+
+        List<Report> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            if (reports.containsKey(id)) {
+                result.add(reports.get(id));
+            }
+        }
+        return result;
+    }
+
+
+    // withinRadius finds the reports within a distance of a point, closest first
+    // Params:
+    // latitude, longitude - The point in degrees
+    // radius - Distance in meters, at most MAX_RADIUS_METERS
+    // limit - How many reports to return at most
+    // filters - Filter JSON as sent by the frontend
+    // Returns: The reports with their distance, or an empty list if a parameter can't be read
+
+    public List<NearbyReport> withinRadius(String latitude, String longitude, String radius, String limit, String filters) {
+        double lat = parseCoordinate(latitude, 90);
+        double lon = parseCoordinate(longitude, 180);
+        double meters = parseCoordinate(radius, MAX_RADIUS_METERS);
+        int count = parseCount(limit);
+        if (Double.isNaN(lat) || Double.isNaN(lon) || Double.isNaN(meters) || meters < 0 || count == 0) {
+            System.err.println("Invalid radius search: " + latitude + ", " + longitude + ", radius " + radius + ", limit " + limit);
+            return Collections.emptyList();
+        }
+
+        return withDistances(locationIndexes.index(filters).within(lat, lon, meters, count));
+    }
+
+
+    // nearest finds the k reports closest to a point (within MAX_RADIUS_METERS), closest first
+    // Params:
+    // latitude, longitude - The point in degrees
+    // k - How many reports to return
+    // filters - Filter JSON as sent by the frontend
+    // Returns: The reports with their distance, or an empty list if a parameter can't be read
+
+    public List<NearbyReport> nearest(String latitude, String longitude, String k, String filters) {
+        double lat = parseCoordinate(latitude, 90);
+        double lon = parseCoordinate(longitude, 180);
+        int count = parseCount(k);
+        if (Double.isNaN(lat) || Double.isNaN(lon) || count == 0) {
+            System.err.println("Invalid nearest search: " + latitude + ", " + longitude + ", k " + k);
+            return Collections.emptyList();
+        }
+
+        return withDistances(locationIndexes.index(filters).nearest(lat, lon, count, MAX_RADIUS_METERS));
+    }
+
+
+    private List<NearbyReport> withDistances(List<double[]> found) {
+        List<Integer> ids = new ArrayList<>(found.size());
+        for (double[] pair : found) {
+            ids.add((int) pair[0]);
+        }
+        Map<Integer, Report> reports = fetch(ids);
+
+        List<NearbyReport> result = new ArrayList<>(found.size());
+        for (double[] pair : found) {
+            Report report = reports.get((int) pair[0]);
+            if (report != null) {
+                result.add(new NearbyReport(report, pair[1]));
+            }
+        }
+        return result;
+    }
+
+    private Map<Integer, Report> fetch(List<Integer> ids) {
+        Map<Integer, Report> reports = new HashMap<>();
+        for (Report report : reportsDao.findReportsByIds(ids)) {
+            reports.put(report.getId(), report);
+        }
+        return reports;
+    }
+
+    // parseCount reads a result count, capped at MAX_RESULTS, 0 if it is blank or not a positive number
+    private static int parseCount(String count) {
+        try {
+            return Math.min(MAX_RESULTS, Math.max(0, Integer.parseInt(count.trim())));
+        } catch (NullPointerException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // parseCoordinate reads a number no larger than max in magnitude, NaN if it is blank, not a number or too large
+    private static double parseCoordinate(String value, double max) {
+        try {
+            double parsed = Double.parseDouble(value.trim());
+            return Math.abs(parsed) <= max ? parsed : Double.NaN;
+        } catch (NullPointerException | NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.cis4900.spring.template.reports.synthetic;
+
+import com.example.cis4900.spring.template.reports.ingest.ReportBatchWriter;
+import com.example.cis4900.spring.template.reports.ingest.ReportRecordParser;
+import com.example.cis4900.spring.template.reports.models.Report;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// SyntheticDataset writes a synthetic NYC 311 dataset (SyntheticReportGenerator) to a CSV file, a database, or both
+// The CSV file has the positional layout ReportRecordParser reads, header included, so it loads with reports.loader.file
+// like an Open Data extract. Its chunks are generated on dataset.threads threads and written in order. The database is
+// written by dataset.threads writers, each on its own connection, taking the next chunk, inserting it with
+// ReportBatchWriter and committing it, so an interrupted run can be started again: rows are upserted by Unique Key.
+// Either way the rows only depend on the seed, not on the number of threads.
+//
+// Options, as -Pdataset.<name>=<value> on ./gradlew generateDataset:
+// rows (1000000), seed (311), from (2023-01-01), days (365), threads (available processors),
+// out (CSV file to write), url (JDBC URL with the database, e.g. jdbc:mysql://localhost:3306/template_db), user, password
+public final class SyntheticDataset {
+    // Reports per INSERT statement, a chunk is written in a few of them
+    private static final int INSERT_ROWS = 2000;
+
+    private static final long PROGRESS_CHUNKS = 100;
+
+    private final SyntheticReportGenerator generator;
+
+    private final long rows;
+
+    private final int threads;
+
+    // SyntheticDataset describes a dataset
+    // Params:
+    // generator - Generator of the rows
+    // rows - Number of rows
+    // threads - Threads that generate and write them
+
+    public SyntheticDataset(SyntheticReportGenerator generator, long rows, int threads) {
+        this.generator = generator;
+        this.rows = rows;
+        this.threads = Math.max(1, threads);
+    }
+
+    public static void main(String[] args) {
+        long rows = Long.getLong("dataset.rows", 1000000);
+        long seed = Long.getLong("dataset.seed", 311);
+        LocalDate from = LocalDate.parse(System.getProperty("dataset.from", "2023-01-01"));
+        int days = Integer.getInteger("dataset.days", 365);
+        int threads = Integer.getInteger("dataset.threads", Runtime.getRuntime().availableProcessors());
+        String out = System.getProperty("dataset.out", "");
+        String url = System.getProperty("dataset.url", "");
+
+        if (out.isBlank() && url.isBlank()) {
+            System.err.println("Nothing to do: set dataset.out to write a CSV file and/or dataset.url to write to a database");
+            System.exit(2);
+        }
+
+        SyntheticDataset dataset = new SyntheticDataset(new SyntheticReportGenerator(seed, from, days), rows, threads);
+        try {
+            if (!out.isBlank()) {
+                long started = System.currentTimeMillis();
+                dataset.writeCsv(Path.of(out));
+                System.out.println("Wrote " + rows + " reports to " + out + " in " + (System.currentTimeMillis() - started) + " ms");
+            }
+            if (!url.isBlank()) {
+                long started = System.currentTimeMillis();
+                dataset.writeDatabase(url, System.getProperty("dataset.user", ""), System.getProperty("dataset.password", ""));
+                System.out.println("Wrote " + rows + " reports to the database in " + (System.currentTimeMillis() - started) + " ms");
+            }
+        } catch (IOException | SQLException | InterruptedException | RuntimeException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+
+    // writeCsv writes the dataset as a CSV file
+    // Params: file: The file to write, replaced if it exists
+
+    public void writeCsv(Path file) throws IOException, InterruptedException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        long chunks = SyntheticReportGenerator.chunks(rows);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "dataset-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(String.join(",", ReportRecordParser.POSITIONAL_COLUMNS));
+            writer.newLine();
+
+            // A few chunks ahead of the one being written are generated at a time, in order
+            Deque<Future<List<Report>>> pending = new ArrayDeque<>();
+            long next = 0;
+            for (long chunk = 0; chunk < chunks; chunk++) {
+                while (next < chunks && pending.size() < threads * 2) {
+                    long number = next++;
+                    pending.add(pool.submit(() -> generator.chunk(number, rows)));
+                }
+                for (Report report : pending.poll().get()) {
+                    writeRecord(writer, report);
+                }
+                progress(chunk + 1, chunks);
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Generating reports failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+
+    // writeDatabase inserts the dataset into the report table
+    // Params: url: JDBC URL of the database, user: Database user, password: Its password
+
+    public void writeDatabase(String url, String user, String password) throws SQLException, InterruptedException {
+        long chunks = SyntheticReportGenerator.chunks(rows);
+        AtomicLong next = new AtomicLong();
+        List<Future<?>> writers = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "dataset-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < threads; i++) {
+            writers.add(pool.submit(() -> {
+                try (Connection connection = DriverManager.getConnection(url, user, password)) {
+                    connection.setAutoCommit(false);
+                    long chunk;
+                    while ((chunk = next.getAndIncrement()) < chunks) {
+                        List<Report> reports = generator.chunk(chunk, rows);
+                        for (int from = 0; from < reports.size(); from += INSERT_ROWS) {
+                            ReportBatchWriter.upsert(connection, reports.subList(from, Math.min(reports.size(), from + INSERT_ROWS)));
+                        }
+                        connection.commit();
+                        progress(chunk + 1, chunks);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        try {
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } catch (ExecutionException e) {
+            // The other writers stop at their next chunk
+            next.set(chunks);
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new IllegalStateException("Writing reports failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void progress(long done, long chunks) {
+        if (done % PROGRESS_CHUNKS == 0) {
+            System.out.println("Chunk " + done + " of " + chunks);
+        }
+    }
+
+    // writeRecord writes one report as a CSV record in POSITIONAL_COLUMNS order, NULLs as empty fields
+    static void writeRecord(Writer writer, Report report) throws IOException {
+        Object[] values = {report.getUniqueKey(), report.getCreatedDate(), report.getClosedDate(), report.getAgencyName(),
+            report.getComplaintType(), report.getDescriptorType(), report.getLocationType(), report.getIncidentZip(),
+            report.getIncidentAddress(), report.getAddressType(), report.getCity(), report.getStatus(),
+            report.getCommunityBoard(), report.getBorough(), report.getOpenDataChannelType(), report.getLatitude(),
+            report.getLongitude()};
+        StringBuilder record = new StringBuilder(256);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                record.append(',');
+            }
+            if (values[i] != null) {
+                record.append(field(values[i].toString()));
+            }
+        }
+        record.append('\n');
+        writer.write(record.toString());
+    }
+
+    // field quotes a value that has a comma, quote or line break in it
+    private static String field(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return "\"" + value.replace("\"", "\"\"") + "\"";
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.cis4900.spring.template.reports.synthetic;
+
+import com.example.cis4900.spring.template.reports.models.Report;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+// SyntheticReportGenerator makes up NYC 311 service requests that look like the real extract, for any number of rows
+// Complaint types follow a Zipf distribution in the order of PROFILES, each with its own Zipf-skewed descriptors, the
+// agency that handles it (occasionally another one, as misrouted requests are) and a typical resolution time. Boroughs
+// are weighted by their share of requests, with coordinates, zip codes and community boards inside the borough. Requests
+// are created more often during the day than at night, and take a log-normal (heavy-tailed) time to close. Requests
+// whose close time falls after the end of the range are still open.
+//
+// Rows are generated in chunks of CHUNK_ROWS, each from its own random generator seeded by the seed and chunk number, so
+// a row's values only depend on the seed and its position: chunks can be generated by any number of threads in any
+// order and the dataset is the same.
+public final class SyntheticReportGenerator {
+    public static final int CHUNK_ROWS = 10000;
+
+    // Unique Keys of generated requests start here, above the keys of the real extract
+    public static final long FIRST_UNIQUE_KEY = 100000000L;
+
+    private static final DateTimeFormatter US_DATE_TIME = DateTimeFormatter.ofPattern("MM/dd/yyyy hh:mm:ss a", Locale.US);
+
+    // Multiplier spreading the chunk number over the seed's bits (the 64 bit golden ratio)
+    private static final long CHUNK_MIX = 0x9E3779B97F4A7C15L;
+
+    // Complaint types, most frequent first: type, agency, median hours to close, location type, descriptors most frequent first
+    private static final Profile[] PROFILES = {
+        new Profile("HEAT/HOT WATER", "HPD", 40, "RESIDENTIAL BUILDING", "ENTIRE BUILDING", "APARTMENT ONLY"),
+        new Profile("Noise - Residential", "NYPD", 2, "Residential Building/House", "Loud Music/Party", "Banging/Pounding", "Loud Talking"),
+        new Profile("Illegal Parking", "NYPD", 3, "Street/Sidewalk", "Blocked Hydrant", "Posted Parking Sign Violation",
+                "Double Parked Blocking Traffic", "Blocked Sidewalk", "Commercial Overnight Parking"),
+        new Profile("Blocked Driveway", "NYPD", 3, "Street/Sidewalk", "No Access", "Partial Access"),
+        new Profile("Noise - Street/Sidewalk", "NYPD", 2, "Street/Sidewalk", "Loud Music/Party", "Loud Talking"),
+        new Profile("UNSANITARY CONDITION", "HPD", 300, "RESIDENTIAL BUILDING", "PESTS", "MOLD", "GARBAGE"),
+        new Profile("Street Condition", "DOT", 120, "Street", "Pothole", "Defective Hardware", "Cave-in"),
+        new Profile("Water System", "DEP", 48, null, "Hydrant Running", "Leak (Use Comments) (WA2)", "No Water (WNW)"),
+        new Profile("PAINT/PLASTER", "HPD", 400, "RESIDENTIAL BUILDING", "CEILING", "WALLS"),
+        new Profile("PLUMBING", "HPD", 300, "RESIDENTIAL BUILDING", "LEAKY FAUCET", "WATER SUPPLY", "TOILET"),
+        new Profile("Noise - Commercial", "NYPD", 2, "Club/Bar/Restaurant", "Loud Music/Party", "Banging/Pounding"),
+        new Profile("Noise", "DEP", 200, null, "Noise: Construction Before/After Hours (NM1)", "Noise: Jack Hammering (NC2)"),
+        new Profile("Abandoned Vehicle", "NYPD", 5, "Street/Sidewalk", "With License Plate"),
+        new Profile("Rodent", "DOHMH", 400, "3+ Family Apt. Building", "Rat Sighting", "Mouse Sighting", "Condition Attracting Rodents"),
+        new Profile("Dirty Condition", "DSNY", 100, "Sidewalk", "Trash", "Litter"),
+        new Profile("Damaged Tree", "DPR", 600, "Street", "Branch Cracked and Will Fall", "Tree Leaning/Uprooted"),
+        new Profile("Sanitation Condition", "DSNY", 100, "Street", "Street Cleaning - ASP"),
+        new Profile("Traffic Signal Condition", "DOT", 6, null, "Controller", "Ped Flasher", "LED Lense"),
+        new Profile("Street Light Condition", "DOT", 200, null, "Street Light Out", "Lamppost Base Door/Cover Missing"),
+        new Profile("Graffiti", "DSNY", 500, "Building (Non-Residential)", "Graffiti"),
+        new Profile("Missed Collection", "DSNY", 30, "Sidewalk", "Trash", "Recycling"),
+        new Profile("Homeless Person Assistance", "DHS", 3, "Street/Sidewalk", "Chronic"),
+        new Profile("Illegal Fireworks", "NYPD", 2, "Street/Sidewalk", "N/A"),
+        new Profile("Sewer", "DEP", 30, null, "Catch Basin Clogged/Flooding (Use Comments) (SC)", "Sewer Backup (Use Comments) (SA)"),
+        new Profile("Derelict Vehicles", "DSNY", 300, "Street", "Derelict Vehicles"),
+        new Profile("ELECTRIC", "HPD", 200, "RESIDENTIAL BUILDING", "POWER OUTAGE", "WIRING - EXPOSED"),
+        new Profile("Building/Use", "DOB", 700, null, "Illegal Conversion Of Residential Building/Space"),
+        new Profile("Food Establishment", "DOHMH", 600, "Restaurant/Bar/Deli/Bakery", "Rodents/Insects/Garbage", "Food Spoiled"),
+        new Profile("Consumer Complaint", "DCWP", 500, null, "Non-Delivery Goods", "False Advertising"),
+        new Profile("Taxi Complaint", "TLC", 900, "Street", "Driver Complaint - Passenger")
+    };
+
+    // Boroughs with their share of requests, bounding box {south, west, north, east}, zip code range and community boards
+    private static final Borough[] BOROUGHS = {
+        new Borough("BROOKLYN", 0.30, new double[] {40.57, -74.04, 40.74, -73.83}, 11201, 11256, 18, "BROOKLYN"),
+        new Borough("QUEENS", 0.24, new double[] {40.54, -73.96, 40.80, -73.70}, 11354, 11697, 14,
+                "JAMAICA", "FLUSHING", "ASTORIA", "RIDGEWOOD", "CORONA", "ELMHURST", "WOODSIDE", "FAR ROCKAWAY"),
+        new Borough("MANHATTAN", 0.20, new double[] {40.70, -74.02, 40.88, -73.91}, 10001, 10282, 12, "NEW YORK"),
+        new Borough("BRONX", 0.20, new double[] {40.79, -73.93, 40.92, -73.77}, 10451, 10475, 12, "BRONX"),
+        new Borough("STATEN ISLAND", 0.06, new double[] {40.49, -74.26, 40.65, -74.05}, 10301, 10314, 3, "STATEN ISLAND")
+    };
+
+    private static final String[] AGENCIES = {"NYPD", "HPD", "DOT", "DEP", "DSNY", "DOHMH", "DPR", "DHS", "DOB", "DCWP", "TLC"};
+
+    private static final String[] STREETS = {
+        "BROADWAY", "AMSTERDAM AVENUE", "GRAND CONCOURSE", "FLATBUSH AVENUE", "QUEENS BOULEVARD", "OCEAN AVENUE",
+        "JAMAICA AVENUE", "FULTON STREET", "RICHMOND AVENUE", "LEXINGTON AVENUE", "EASTERN PARKWAY", "NOSTRAND AVENUE",
+        "WEST 125 STREET", "EAST 14 STREET", "ATLANTIC AVENUE", "HYLAN BOULEVARD", "NORTHERN BOULEVARD", "BEDFORD AVENUE"
+    };
+
+    private static final String[] ADDRESS_TYPES = {"ADDRESS", "INTERSECTION", "BLOCKFACE"};
+
+    private static final WeightedChoice ADDRESS_TYPE = WeightedChoice.of(0.85, 0.10, 0.05);
+
+    private static final String[] CHANNELS = {"PHONE", "ONLINE", "MOBILE", "UNKNOWN"};
+
+    private static final WeightedChoice CHANNEL = WeightedChoice.of(0.40, 0.30, 0.25, 0.05);
+
+    private static final String[] OPEN_STATUSES = {"Open", "In Progress", "Assigned", "Pending"};
+
+    private static final WeightedChoice OPEN_STATUS = WeightedChoice.of(0.50, 0.30, 0.15, 0.05);
+
+    // Share of requests created in each hour of the day, quietest before dawn and busiest from late morning to evening
+    private static final WeightedChoice HOUR = WeightedChoice.of(
+            2.0, 1.5, 1.2, 1.0, 0.8, 0.9, 1.5, 2.5, 3.5, 4.5, 5.0, 5.2,
+            5.2, 5.1, 5.0, 4.8, 4.7, 4.6, 4.5, 4.3, 4.0, 3.6, 3.0, 2.5);
+
+    private static final WeightedChoice COMPLAINT = WeightedChoice.zipf(PROFILES.length, 1.1);
+
+    private static final WeightedChoice BOROUGH = boroughChoice();
+
+    // Spread of the log-normal time to close, a sigma of 1.4 puts about one request in twenty at 10 times the median
+    private static final double RESOLUTION_SIGMA = 1.4;
+
+    private static final double MISROUTED = 0.02;
+
+    private static final double NO_LOCATION = 0.01;
+
+    private final long seed;
+
+    private final LocalDateTime from;
+
+    private final long rangeDays;
+
+    private final LocalDateTime until;
+
+    // SyntheticReportGenerator generates requests created over days days starting at from
+    // Params:
+    // seed - Seed of every random value, the same seed gives the same dataset
+    // from - First day requests are created on
+    // days - Number of days requests are created over, the day after the last is the "now" of the open requests
+
+    public SyntheticReportGenerator(long seed, LocalDate from, int days) {
+        if (days < 1) {
+            throw new IllegalArgumentException("days must be at least 1");
+        }
+        this.seed = seed;
+        this.from = from.atStartOfDay();
+        this.rangeDays = days;
+        this.until = this.from.plusDays(days);
+    }
+
+    // chunk generates the rows of one chunk
+    // Params:
+    // chunk - Chunk number, its rows are chunk * CHUNK_ROWS onwards
+    // rows - Total rows in the dataset, the last chunk stops there
+    // Returns: The chunk's reports without Ids, Unique Keys FIRST_UNIQUE_KEY plus the row number
+
+    public List<Report> chunk(long chunk, long rows) {
+        long first = chunk * CHUNK_ROWS;
+        int count = (int) Math.max(0, Math.min(CHUNK_ROWS, rows - first));
+        SplittableRandom random = new SplittableRandom(seed ^ (chunk + 1) * CHUNK_MIX);
+        List<Report> reports = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            reports.add(report(random, first + i));
+        }
+        return reports;
+    }
+
+    // chunks returns how many chunks a dataset of rows rows has
+    public static long chunks(long rows) {
+        return (rows + CHUNK_ROWS - 1) / CHUNK_ROWS;
+    }
+
+    // Complaint types in order of frequency
+    public static List<String> complaintTypes() {
+        List<String> types = new ArrayList<>();
+        for (Profile profile : PROFILES) {
+            types.add(profile.type);
+        }
+        return types;
+    }
+
+    public static List<String> agencies() {
+        return List.of(AGENCIES);
+    }
+
+    public static List<String> boroughs() {
+        List<String> names = new ArrayList<>();
+        for (Borough borough : BOROUGHS) {
+            names.add(borough.name);
+        }
+        return names;
+    }
+
+    public static List<String> statuses() {
+        List<String> statuses = new ArrayList<>(List.of(OPEN_STATUSES));
+        statuses.add(0, "Closed");
+        return statuses;
+    }
+
+    public static List<String> channels() {
+        return List.of(CHANNELS);
+    }
+
+    private Report report(SplittableRandom random, long row) {
+        Profile profile = PROFILES[COMPLAINT.next(random)];
+        Borough borough = BOROUGHS[BOROUGH.next(random)];
+
+        LocalDateTime created = from.plusDays(random.nextLong(rangeDays)).plusHours(HOUR.next(random))
+                .plusSeconds(random.nextInt(3600));
+        double hours = profile.medianHours * Math.exp(RESOLUTION_SIGMA * random.nextGaussian());
+        LocalDateTime closed = created.plusSeconds(Math.max(60, (long) (hours * 3600)));
+        if (!closed.isBefore(until)) {
+            closed = null;
+        }
+
+        Report report = new Report();
+        report.setUniqueKey(FIRST_UNIQUE_KEY + row);
+        report.setComplaintType(profile.type);
+        report.setDescriptorType(profile.descriptors[profile.descriptor.next(random)]);
+        report.setAgencyName(random.nextDouble() < MISROUTED ? AGENCIES[random.nextInt(AGENCIES.length)] : profile.agency);
+        report.setLocationType(profile.locationType);
+        report.setCreatedAt(created);
+        report.setCreatedDate(created.format(US_DATE_TIME));
+        report.setClosedAt(closed);
+        report.setClosedDate(closed == null ? null : closed.format(US_DATE_TIME));
+        report.setStatus(closed == null ? OPEN_STATUSES[OPEN_STATUS.next(random)] : "Closed");
+        report.setOpenDataChannelType(CHANNELS[CHANNEL.next(random)]);
+
+        report.setBorough(borough.name);
+        report.setCity(borough.cities[random.nextInt(borough.cities.length)]);
+        report.setIncidentZip(String.valueOf(borough.firstZip + random.nextInt(borough.lastZip - borough.firstZip + 1)));
+        report.setCommunityBoard(String.format("%02d %s", 1 + random.nextInt(borough.boards), borough.name));
+        int addressType = ADDRESS_TYPE.next(random);
+        report.setAddressType(ADDRESS_TYPES[addressType]);
+        report.setIncidentAddress(addressType == 0 ? (1 + random.nextInt(3000)) + " " + STREETS[random.nextInt(STREETS.length)] : null);
+        if (random.nextDouble() >= NO_LOCATION) {
+            report.setLatitude(borough.coordinate(random, 0));
+            report.setLongitude(borough.coordinate(random, 1));
+        } else {
+            report.setLatitude(null);
+            report.setLongitude(null);
+        }
+        return report;
+    }
+
+    private static WeightedChoice boroughChoice() {
+        double[] weights = new double[BOROUGHS.length];
+        for (int i = 0; i < BOROUGHS.length; i++) {
+            weights[i] = BOROUGHS[i].share;
+        }
+        return WeightedChoice.of(weights);
+    }
+
+    private static final class Profile {
+        private final String type;
+
+        private final String agency;
+
+        private final double medianHours;
+
+        private final String locationType;
+
+        private final String[] descriptors;
+
+        private final WeightedChoice descriptor;
+
+        private Profile(String type, String agency, double medianHours, String locationType, String... descriptors) {
+            this.type = type;
+            this.agency = agency;
+            this.medianHours = medianHours;
+            this.locationType = locationType;
+            this.descriptors = descriptors;
+            this.descriptor = WeightedChoice.zipf(descriptors.length, 1.0);
+        }
+    }
+
+    private static final class Borough {
+        private final String name;
+
+        private final double share;
+
+        private final double[] bounds;
+
+        private final int firstZip;
+
+        private final int lastZip;
+
+        private final int boards;
+
+        private final String[] cities;
+
+        private Borough(String name, double share, double[] bounds, int firstZip, int lastZip, int boards, String... cities) {
+            this.name = name;
+            this.share = share;
+            this.bounds = bounds;
+            this.firstZip = firstZip;
+            this.lastZip = lastZip;
+            this.boards = boards;
+            this.cities = cities;
+        }
+
+        // coordinate picks a latitude (axis 0) or longitude (axis 1), clustered around the middle of the borough's box
+        private double coordinate(SplittableRandom random, int axis) {
+            double low = bounds[axis];
+            double high = bounds[axis + 2];
+            double value = (low + high) / 2 + random.nextGaussian() * (high - low) / 4;
+            return Math.round(Math.max(low, Math.min(high, value)) * 1e6) / 1e6;
+        }
+    }
+}
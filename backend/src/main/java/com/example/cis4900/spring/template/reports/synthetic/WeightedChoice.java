@@ -0,0 +1,43 @@
+package com.example.cis4900.spring.template.reports.synthetic;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// WeightedChoice picks an index with probability proportional to its weight, by binary search over the cumulative weights
+final class WeightedChoice {
+    private final double[] cumulative;
+
+    private WeightedChoice(double[] weights) {
+        cumulative = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cumulative[i] = total;
+        }
+        for (int i = 0; i < cumulative.length; i++) {
+            cumulative[i] /= total;
+        }
+    }
+
+    static WeightedChoice of(double... weights) {
+        return new WeightedChoice(weights);
+    }
+
+    // zipf weighs rank k (from 0) as 1 / (k + 1)^exponent, so the first few indexes take most of the picks
+    static WeightedChoice zipf(int size, double exponent) {
+        double[] weights = new double[size];
+        for (int k = 0; k < size; k++) {
+            weights[k] = 1 / Math.pow(k + 1, exponent);
+        }
+        return new WeightedChoice(weights);
+    }
+
+    int next(SplittableRandom random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index < 0 ? -index - 1 : index, cumulative.length - 1);
+    }
+
+    int size() {
+        return cumulative.length;
+    }
+}
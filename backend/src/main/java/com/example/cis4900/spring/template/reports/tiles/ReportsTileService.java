@@ -0,0 +1,132 @@
+package com.example.cis4900.spring.template.reports.tiles;
+
+import com.example.cis4900.spring.template.reports.DatasetVersion;
+import com.example.cis4900.spring.template.reports.cache.ReportsQueryCache;
+import com.example.cis4900.spring.template.reports.dao.ReportsDao;
+import com.example.cis4900.spring.template.reports.models.HeatCell;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// ReportsTileService renders the reports under the current filters as Mapbox Vector Tiles for /api/reports/tiles/{z}/{x}/{y}
+// Below INDIVIDUAL_ZOOM a tile holds clusters: the grid counts of getHeatMapCells with CLUSTERS_PER_TILE cells across
+// the tile, each drawn as one point with its count. From INDIVIDUAL_ZOOM on a tile holds the reports themselves, thinned
+// to MAX_TILE_FEATURES. Tiles are cached by z/x/y, canonical filters and dataset version, so a reload never serves an
+// old tile and the same filters written differently share one entry.
+@Component
+public class ReportsTileService {
+    public static final String LAYER_NAME = "reports";
+
+    public static final int EXTENT = 4096;
+
+    public static final int MAX_ZOOM = 22;
+
+    // Zoom from which reports are drawn individually, about one city block per 256 pixel tile
+    public static final int INDIVIDUAL_ZOOM = 15;
+
+    // Cluster cells across one tile, 16 pixel cells at 256 pixel tiles
+    private static final int CLUSTERS_PER_TILE = 16;
+
+    private static final int MAX_TILE_FEATURES = 5000;
+
+    private final ReportsDao reportsDao;
+
+    private final ReportsQueryCache queryCache;
+
+    private final DatasetVersion datasetVersion;
+
+    private final Cache<String, byte[]> tiles;
+
+    @Autowired
+    public ReportsTileService(ReportsDao reportsDao, ReportsQueryCache queryCache, DatasetVersion datasetVersion,
+                              @Value("${reports.tiles.cache-bytes:67108864}") long cacheBytes) {
+        this.reportsDao = reportsDao;
+        this.queryCache = queryCache;
+        this.datasetVersion = datasetVersion;
+        this.tiles = Caffeine.newBuilder()
+                .maximumWeight(cacheBytes)
+                .weigher((String key, byte[] tile) -> key.length() + tile.length)
+                .build();
+    }
+
+
+    // tile returns the encoded tile, rendering it only if it is not cached for the current dataset version
+    // Params:
+    // z, x, y - Tile address, x from the west and y from the north
+    // filters - Filter JSON as sent by the frontend
+    // Returns: The tile, or null if the address is outside the tile pyramid
+
+    public byte[] tile(int z, int x, int y, String filters) {
+        if (z < 0 || z > MAX_ZOOM || x < 0 || y < 0 || x >= (1 << z) || y >= (1 << z)) {
+            return null;
+        }
+
+        String key = datasetVersion.get() + "/" + z + "/" + x + "/" + y + "|" + queryCache.canonicalFilters(filters);
+        return tiles.get(key, k -> render(z, x, y, filters));
+    }
+
+
+    private byte[] render(int z, int x, int y, String filters) {
+        double west = tileLongitude(x, z);
+        double east = tileLongitude(x + 1, z);
+        double north = tileLatitude(y, z);
+        double south = tileLatitude(y + 1, z);
+
+        VectorTileEncoder encoder = new VectorTileEncoder(LAYER_NAME, EXTENT);
+        if (z >= INDIVIDUAL_ZOOM) {
+            String bbox = west + "," + south + "," + east + "," + north;
+            for (Object marker : reportsDao.getMapMarkersInBox(bbox, String.valueOf(MAX_TILE_FEATURES), filters)) {
+                Object[] row = (Object[]) marker;
+                Map<String, Object> attributes = new LinkedHashMap<>();
+                attributes.put("complaintType", row[1]);
+                attributes.put("descriptorType", row[2]);
+                attributes.put("agencyName", row[3]);
+                addPoint(encoder, ((Number) row[0]).longValue(), ((Number) row[4]).doubleValue(), ((Number) row[5]).doubleValue(), z, x, y, attributes);
+            }
+        } else {
+            // Latitude is widened to whole cells so a cell on the tile edge is counted in full, then drawn only by the
+            // tile its centre falls in
+            double cell = (east - west) / CLUSTERS_PER_TILE;
+            double cellSouth = Math.floor(south / cell) * cell;
+            double cellNorth = Math.ceil(north / cell) * cell;
+            String bbox = west + "," + cellSouth + "," + east + "," + cellNorth;
+
+            for (HeatCell cluster : reportsDao.getHeatMapCells(bbox, "", Double.toString(cell), filters)) {
+                if (cluster.getLatitude() < south || cluster.getLatitude() >= north || cluster.getLongitude() >= east) {
+                    continue;
+                }
+                Map<String, Object> attributes = new LinkedHashMap<>();
+                attributes.put("count", cluster.getCount());
+                addPoint(encoder, -1, cluster.getLatitude(), cluster.getLongitude(), z, x, y, attributes);
+            }
+        }
+        return encoder.encode();
+    }
+
+    // addPoint projects a latitude/longitude to Web Mercator tile coordinates and adds it to the tile
+    private static void addPoint(VectorTileEncoder encoder, long id, double latitude, double longitude, int z, int x, int y, Map<String, Object> attributes) {
+        double scale = (1 << z) * (double) encoder.getExtent();
+        double sinLatitude = Math.sin(Math.toRadians(latitude));
+        double worldX = (longitude + 180.0) / 360.0 * scale;
+        double worldY = (0.5 - Math.log((1 + sinLatitude) / (1 - sinLatitude)) / (4 * Math.PI)) * scale;
+
+        int tileX = (int) Math.round(worldX - (double) x * encoder.getExtent());
+        int tileY = (int) Math.round(worldY - (double) y * encoder.getExtent());
+        encoder.addPoint(id, tileX, tileY, attributes);
+    }
+
+    static double tileLongitude(int x, int z) {
+        return x / (double) (1 << z) * 360.0 - 180.0;
+    }
+
+    static double tileLatitude(int y, int z) {
+        double n = Math.PI - 2.0 * Math.PI * y / (1 << z);
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+}
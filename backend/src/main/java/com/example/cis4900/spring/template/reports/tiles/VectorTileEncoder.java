@@ -0,0 +1,174 @@
+package com.example.cis4900.spring.template.reports.tiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// VectorTileEncoder writes a single layer Mapbox Vector Tile (version 2) holding point features
+// Only the parts of the protobuf schema a point layer needs are written by hand, so no protobuf library is required:
+//   Tile    { repeated Layer layers = 3; }
+//   Layer   { uint32 version = 15; string name = 1; repeated Feature features = 2; repeated string keys = 3;
+//             repeated Value values = 4; uint32 extent = 5; }
+//   Feature { uint64 id = 1; packed uint32 tags = 2; GeomType type = 3; packed uint32 geometry = 4; }
+//   Value   { string string_value = 1; double double_value = 3; uint64 uint_value = 5; sint64 sint_value = 6; }
+// Attribute keys and values are shared between the features through the layer's key and value tables.
+public class VectorTileEncoder {
+    private static final int WIRE_VARINT = 0;
+
+    private static final int WIRE_FIXED64 = 1;
+
+    private static final int WIRE_LENGTH = 2;
+
+    private static final int GEOM_POINT = 1;
+
+    // MoveTo command with a count of 1: (count << 3) | command id
+    private static final int MOVE_TO_ONE = (1 << 3) | 1;
+
+    private final String layerName;
+
+    private final int extent;
+
+    private final List<String> keys = new ArrayList<>();
+
+    private final Map<String, Integer> keyIndex = new HashMap<>();
+
+    private final List<Object> values = new ArrayList<>();
+
+    private final Map<Object, Integer> valueIndex = new HashMap<>();
+
+    private final ByteArrayOutputStream features = new ByteArrayOutputStream();
+
+    private int featureCount = 0;
+
+    public VectorTileEncoder(String layerName, int extent) {
+        this.layerName = layerName;
+        this.extent = extent;
+    }
+
+    public int getExtent() {
+        return extent;
+    }
+
+    public int getFeatureCount() {
+        return featureCount;
+    }
+
+
+    // addPoint adds a point feature
+    // Params:
+    // id - Feature id, or a negative number for none
+    // x - Column within the tile, 0 to extent from the west edge
+    // y - Row within the tile, 0 to extent from the north edge
+    // attributes - Attribute name to value (String, whole number or double), null values are left out
+
+    public void addPoint(long id, int x, int y, Map<String, Object> attributes) {
+        ByteArrayOutputStream tags = new ByteArrayOutputStream();
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            if (attribute.getValue() == null) {
+                continue;
+            }
+            writeVarint(tags, keyIndex.computeIfAbsent(attribute.getKey(), key -> {
+                keys.add(key);
+                return keys.size() - 1;
+            }));
+            writeVarint(tags, valueIndex.computeIfAbsent(attribute.getValue(), value -> {
+                values.add(value);
+                return values.size() - 1;
+            }));
+        }
+
+        ByteArrayOutputStream geometry = new ByteArrayOutputStream();
+        writeVarint(geometry, MOVE_TO_ONE);
+        writeVarint(geometry, zigzag(x));
+        writeVarint(geometry, zigzag(y));
+
+        ByteArrayOutputStream feature = new ByteArrayOutputStream();
+        if (id >= 0) {
+            writeTag(feature, 1, WIRE_VARINT);
+            writeVarint(feature, id);
+        }
+        writeBytes(feature, 2, tags.toByteArray());
+        writeTag(feature, 3, WIRE_VARINT);
+        writeVarint(feature, GEOM_POINT);
+        writeBytes(feature, 4, geometry.toByteArray());
+
+        writeBytes(features, 2, feature.toByteArray());
+        featureCount++;
+    }
+
+
+    // encode finishes the tile
+    // Returns: The encoded tile, empty (a valid tile with no layers) when no features were added
+
+    public byte[] encode() {
+        if (featureCount == 0) {
+            return new byte[0];
+        }
+
+        ByteArrayOutputStream layer = new ByteArrayOutputStream();
+        writeTag(layer, 15, WIRE_VARINT);
+        writeVarint(layer, 2);
+        writeBytes(layer, 1, layerName.getBytes(StandardCharsets.UTF_8));
+        layer.writeBytes(features.toByteArray());
+        for (String key : keys) {
+            writeBytes(layer, 3, key.getBytes(StandardCharsets.UTF_8));
+        }
+        for (Object value : values) {
+            writeBytes(layer, 4, encodeValue(value));
+        }
+        writeTag(layer, 5, WIRE_VARINT);
+        writeVarint(layer, extent);
+
+        ByteArrayOutputStream tile = new ByteArrayOutputStream();
+        writeBytes(tile, 3, layer.toByteArray());
+        return tile.toByteArray();
+    }
+
+    private static byte[] encodeValue(Object value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (value instanceof Double || value instanceof Float) {
+            writeTag(out, 3, WIRE_FIXED64);
+            long bits = Double.doubleToLongBits(((Number) value).doubleValue());
+            for (int i = 0; i < 8; i++) {
+                out.write((int) (bits >>> (8 * i)) & 0xFF);
+            }
+        } else if (value instanceof Number) {
+            long number = ((Number) value).longValue();
+            if (number >= 0) {
+                writeTag(out, 5, WIRE_VARINT);
+                writeVarint(out, number);
+            } else {
+                writeTag(out, 6, WIRE_VARINT);
+                writeVarint(out, zigzag(number));
+            }
+        } else {
+            writeBytes(out, 1, value.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeTag(ByteArrayOutputStream out, int field, int wireType) {
+        writeVarint(out, (field << 3) | wireType);
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, int field, byte[] bytes) {
+        writeTag(out, field, WIRE_LENGTH);
+        writeVarint(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.cis4900.spring.template.reports.time;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+
+// Bucket sizes /api/reports/timeseries can count reports by
+// Every bucket starts on a calendar boundary (weeks on Monday) of the DATETIME value as stored, no time zone is applied.
+public enum TimeBucket {
+    HOUR("hour", "DATE_FORMAT(%s, '%%Y-%%m-%%d %%H:00:00')"),
+
+    DAY("day", "DATE_FORMAT(%s, '%%Y-%%m-%%d 00:00:00')"),
+
+    WEEK("week", "DATE_FORMAT(DATE_SUB(%s, INTERVAL WEEKDAY(%s) DAY), '%%Y-%%m-%%d 00:00:00')"),
+
+    MONTH("month", "DATE_FORMAT(%s, '%%Y-%%m-01 00:00:00')");
+
+    // Format of a bucket start as both the SQL expressions and the snapshot produce it
+    public static final DateTimeFormatter BUCKET_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final long SECONDS_PER_DAY = 86400;
+
+    private final String name;
+
+    private final String sqlFormat;
+
+    TimeBucket(String name, String sqlFormat) {
+        this.name = name;
+        this.sqlFormat = sqlFormat;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // sqlExpression is the SQL that turns a DATETIME column into the start of its bucket, formatted as BUCKET_FORMAT
+    public String sqlExpression(String column) {
+        return String.format(sqlFormat, column, column);
+    }
+
+    // floor is the start of the bucket a time falls in
+    public LocalDateTime floor(LocalDateTime time) {
+        switch (this) {
+            case HOUR:
+                return time.withMinute(0).withSecond(0).withNano(0);
+            case DAY:
+                return time.toLocalDate().atStartOfDay();
+            case WEEK:
+                return time.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+            default:
+                return time.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        }
+    }
+
+    // floor on epoch seconds (a stored DATETIME read as UTC) avoids building a LocalDateTime per row in the snapshot
+    public long floor(long epochSecond) {
+        long day = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        switch (this) {
+            case HOUR:
+                return Math.floorDiv(epochSecond, 3600) * 3600;
+            case DAY:
+                return day * SECONDS_PER_DAY;
+            case WEEK:
+                // 1970-01-01 was a Thursday, three days after a Monday
+                return (day - Math.floorMod(day + 3, 7)) * SECONDS_PER_DAY;
+            default:
+                return LocalDate.ofEpochDay(day).withDayOfMonth(1).toEpochDay() * SECONDS_PER_DAY;
+        }
+    }
+
+    // next is the start of the bucket after the one starting at start
+    public LocalDateTime next(LocalDateTime start) {
+        switch (this) {
+            case HOUR:
+                return start.plusHours(1);
+            case DAY:
+                return start.plusDays(1);
+            case WEEK:
+                return start.plusWeeks(1);
+            default:
+                return start.plusMonths(1);
+        }
+    }
+
+
+    // parse reads the bucket request parameter
+    // Params:
+    // bucket - "hour", "day", "week" or "month", in any case
+    // Returns: The bucket, or null if it is not one of them
+
+    public static TimeBucket parse(String bucket) {
+        if (bucket == null) {
+            return null;
+        }
+        for (TimeBucket value : values()) {
+            if (value.name.equalsIgnoreCase(bucket.trim())) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+
+    // parseDateTime reads a date or date-time parameter
+    // Params:
+    // value - "2023-01-31", "2023-01-31T22:15[:00]" or "2023-01-31 22:15:00"
+    // Returns: The time (midnight for a date), or null if it can't be read
+
+    public static LocalDateTime parseDateTime(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim().replace(' ', 'T');
+        try {
+            if (trimmed.indexOf('T') < 0) {
+                return LocalDate.parse(trimmed).atTime(LocalTime.MIDNIGHT);
+            }
+            return LocalDateTime.parse(trimmed);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    public static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime fromEpochSecond(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+}
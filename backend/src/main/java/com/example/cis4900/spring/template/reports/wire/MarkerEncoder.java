@@ -0,0 +1,142 @@
+package com.example.cis4900.spring.template.reports.wire;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// MarkerEncoder writes map markers (Id, complaintType, descriptorType, agencyName, latitude, longitude rows, as returned
+// by getMapMarkers) in a compact columnar binary format instead of a JSON array per marker
+//
+// Every variable length integer is an unsigned LEB128 varint, signed values are zigzag encoded first:
+//   "RMK1"                     4 byte magic
+//   count                      number of markers
+//   precision                  coordinates are stored as round(degrees * 10^precision)
+//   3 dictionaries             complaintType, descriptorType, agencyName: size, then each string as byte length + UTF-8
+//   ids                        count zigzag deltas, each Id minus the one before (the first minus 0)
+//   3 code columns             count codes each, 0 for null and i + 1 for the i-th dictionary string
+//   coordinate mask            ceil(count / 8) bytes, bit (i % 8) of byte i / 8 is set when marker i has coordinates
+//   latitudes, longitudes      zigzag deltas of the quantized values of the markers with coordinates
+//
+// Repeated strings are sent once and markers come in Id order, close together on the map, so the ids and coordinates
+// mostly fit in one or two bytes each.
+public final class MarkerEncoder {
+    public static final byte[] MAGIC = {'R', 'M', 'K', '1'};
+
+    // 5 decimal places is about a metre, finer than a marker can be placed on the map
+    public static final int PRECISION = 5;
+
+    private static final double SCALE = Math.pow(10, PRECISION);
+
+    private static final int CATEGORIES = 3;
+
+    private MarkerEncoder() {
+    }
+
+
+    // encode writes the marker rows in the binary format above
+    // Params:
+    // rows - Object[] rows of Id, complaintType, descriptorType, agencyName, latitude, longitude
+    // Returns: The encoded markers
+
+    public static byte[] encode(Iterable<?> rows) {
+        List<Object[]> markers = new ArrayList<>();
+        if (rows != null) {
+            for (Object row : rows) {
+                markers.add((Object[]) row);
+            }
+        }
+        int count = markers.size();
+
+        List<List<String>> dictionaries = new ArrayList<>();
+        int[][] codes = new int[CATEGORIES][count];
+        for (int c = 0; c < CATEGORIES; c++) {
+            List<String> dictionary = new ArrayList<>();
+            Map<String, Integer> lookup = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                Object value = markers.get(i)[c + 1];
+                if (value == null) {
+                    continue;
+                }
+                String text = value.toString();
+                Integer code = lookup.get(text);
+                if (code == null) {
+                    dictionary.add(text);
+                    code = dictionary.size();
+                    lookup.put(text, code);
+                }
+                codes[c][i] = code;
+            }
+            dictionaries.add(dictionary);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + count * 8);
+        out.write(MAGIC, 0, MAGIC.length);
+        writeVarint(out, count);
+        writeVarint(out, PRECISION);
+
+        for (List<String> dictionary : dictionaries) {
+            writeVarint(out, dictionary.size());
+            for (String text : dictionary) {
+                byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                writeVarint(out, bytes.length);
+                out.write(bytes, 0, bytes.length);
+            }
+        }
+
+        long previousId = 0;
+        for (Object[] marker : markers) {
+            long id = marker[0] == null ? previousId : ((Number) marker[0]).longValue();
+            writeVarint(out, zigzag(id - previousId));
+            previousId = id;
+        }
+
+        for (int[] column : codes) {
+            for (int code : column) {
+                writeVarint(out, code);
+            }
+        }
+
+        byte[] mask = new byte[(count + 7) / 8];
+        long[] latitudes = new long[count];
+        long[] longitudes = new long[count];
+        int located = 0;
+        for (int i = 0; i < count; i++) {
+            Object latitude = markers.get(i)[4];
+            Object longitude = markers.get(i)[5];
+            if (latitude instanceof Number && longitude instanceof Number) {
+                mask[i / 8] |= (byte) (1 << (i % 8));
+                latitudes[located] = Math.round(((Number) latitude).doubleValue() * SCALE);
+                longitudes[located] = Math.round(((Number) longitude).doubleValue() * SCALE);
+                located++;
+            }
+        }
+        out.write(mask, 0, mask.length);
+        writeDeltas(out, latitudes, located);
+        writeDeltas(out, longitudes, located);
+
+        return out.toByteArray();
+    }
+
+    private static void writeDeltas(ByteArrayOutputStream out, long[] values, int length) {
+        long previous = 0;
+        for (int i = 0; i < length; i++) {
+            writeVarint(out, zigzag(values[i] - previous));
+            previous = values[i];
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
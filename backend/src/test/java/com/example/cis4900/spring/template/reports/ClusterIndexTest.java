@@ -0,0 +1,136 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.example.cis4900.spring.template.reports.cache.ReportsQueryCache;
+import com.example.cis4900.spring.template.reports.dao.ReportsDao;
+import com.example.cis4900.spring.template.reports.models.MapCluster;
+import com.example.cis4900.spring.template.reports.spatial.ClusterIndex;
+import com.example.cis4900.spring.template.reports.spatial.KdIndex;
+import com.example.cis4900.spring.template.reports.spatial.LocationIndexService;
+import com.example.cis4900.spring.template.reports.spatial.MarkerClusterService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class ClusterIndexTest {
+
+    private static final double[] NYC = {-74.26, 40.49, -73.69, 40.92};
+
+    private static final int SIZE = 5000;
+
+    @Mock
+    private ReportsDao reportsDao;
+
+    private int[] ids;
+
+    private double[] latitudes;
+
+    private double[] longitudes;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        // Random reports spread over the city, with a dense block of 500 reports at one address
+        Random random = new Random(42);
+        ids = new int[SIZE];
+        latitudes = new double[SIZE];
+        longitudes = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            ids[i] = i + 1;
+            boolean sameAddress = i < 500;
+            latitudes[i] = sameAddress ? 40.6836 : NYC[1] + random.nextDouble() * (NYC[3] - NYC[1]);
+            longitudes[i] = sameAddress ? -73.976 : NYC[0] + random.nextDouble() * (NYC[2] - NYC[0]);
+        }
+    }
+
+
+    @Test
+    @DisplayName("KdIndex: range and radius queries match a full scan")
+    void kdIndexMatchesScan() {
+        KdIndex index = new KdIndex(longitudes, latitudes, SIZE);
+
+        Set<Integer> inBox = new HashSet<>();
+        index.range(-74.0, 40.6, -73.9, 40.7, inBox::add);
+        Set<Integer> inCircle = new HashSet<>();
+        index.within(-73.95, 40.75, 0.03, inCircle::add);
+
+        for (int i = 0; i < SIZE; i++) {
+            boolean box = longitudes[i] >= -74.0 && longitudes[i] <= -73.9 && latitudes[i] >= 40.6 && latitudes[i] <= 40.7;
+            double dx = longitudes[i] + 73.95;
+            double dy = latitudes[i] - 40.75;
+            assertEquals(box, inBox.contains(i), "box " + i);
+            assertEquals(dx * dx + dy * dy <= 0.03 * 0.03, inCircle.contains(i), "circle " + i);
+        }
+        assertTrue(inBox.size() > 500);
+    }
+
+
+    @Test
+    @DisplayName("ClusterIndex: every zoom accounts for every report, single reports past the max zoom")
+    void clustersKeepEveryReport() {
+        ClusterIndex index = new ClusterIndex(ids, latitudes, longitudes);
+
+        for (int zoom = 0; zoom <= ClusterIndex.MAX_ZOOM + 1; zoom += 3) {
+            List<MapCluster> clusters = index.clusters(NYC, zoom, Integer.MAX_VALUE);
+            assertEquals(SIZE, clusters.stream().mapToLong(MapCluster::getCount).sum(), "zoom " + zoom);
+
+            for (MapCluster cluster : clusters) {
+                if (cluster.getClusterId() != null) {
+                    assertTrue(cluster.getExpansionZoom() > zoom && cluster.getExpansionZoom() <= ClusterIndex.MAX_ZOOM + 1);
+                } else {
+                    assertEquals(1, cluster.getCount());
+                    assertNotNull(cluster.getReportId());
+                }
+            }
+        }
+
+        // The whole city is a handful of clusters at zoom 8
+        assertTrue(index.clusters(NYC, 8, Integer.MAX_VALUE).size() < 50);
+
+        // At street level every report is returned on its own with its own coordinates
+        List<MapCluster> leaves = index.clusters(NYC, ClusterIndex.MAX_ZOOM + 1, Integer.MAX_VALUE);
+        assertEquals(SIZE, leaves.size());
+        assertTrue(leaves.stream().allMatch(leaf -> leaf.getReportId() != null));
+
+        // Reports at the same address stay together until the last clustered zoom
+        List<MapCluster> block = index.clusters(new double[] {-73.977, 40.683, -73.975, 40.684}, ClusterIndex.MAX_ZOOM, Integer.MAX_VALUE);
+        assertTrue(block.stream().anyMatch(cluster -> cluster.getCount() >= 500));
+    }
+
+
+    @Test
+    @DisplayName("MarkerClusterService: one index per filter signature, bad viewports are rejected")
+    void serviceCachesIndexPerFilters() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            rows.add(new Object[] {ids[i], latitudes[i], longitudes[i]});
+        }
+        when(reportsDao.getLocations(anyString())).thenReturn(rows);
+        MarkerClusterService service = new MarkerClusterService(
+            new LocationIndexService(reportsDao, new ReportsQueryCache(1000), new DatasetVersion(), 1000000), 1000000);
+
+        String bbox = NYC[0] + "," + NYC[1] + "," + NYC[2] + "," + NYC[3];
+        List<MapCluster> first = service.clusters(bbox, "10", "{\"status\":[\"Open\"]}");
+        List<MapCluster> second = service.clusters(bbox, "12.5", "{\"status\":[\"Open\",\"Open\"]}");
+
+        assertFalse(first.isEmpty());
+        assertTrue(second.size() > first.size());
+        verify(reportsDao, times(1)).getLocations(anyString());
+
+        assertTrue(service.clusters("not,a,bbox", "10", "").isEmpty());
+        assertTrue(service.clusters(bbox, "street", "").isEmpty());
+    }
+}
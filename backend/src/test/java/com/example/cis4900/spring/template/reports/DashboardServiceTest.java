@@ -0,0 +1,140 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Set;
+
+import com.example.cis4900.spring.template.reports.dao.ReportFilter;
+import com.example.cis4900.spring.template.reports.dao.ReportQueryBuilder;
+import com.example.cis4900.spring.template.reports.dao.ReportsDao;
+import com.example.cis4900.spring.template.reports.dashboard.DashboardService;
+import com.example.cis4900.spring.template.reports.models.DashboardData;
+import com.example.cis4900.spring.template.reports.models.Report;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class DashboardServiceTest {
+    private static final String FILTERS = "{\"borough\":[\"BRONX\"],\"status\":[\"Open\",\"Closed\"]}";
+
+    @Mock
+    private ReportsDao reportsDao;
+
+    private List<Report> page;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        Report report = new Report();
+        report.setId(41);
+        page = List.of(report);
+    }
+
+
+    @Test
+    @DisplayName("ReportFilter: the WHERE conditions are built once and match ReportQueryBuilder.filters")
+    void filterBuildsWhereOnce() {
+        ReportFilter filter = ReportFilter.parse(FILTERS);
+        ReportQueryBuilder parsed = new ReportQueryBuilder("SELECT COUNT(*) FROM report").filters(filter);
+        ReportQueryBuilder direct = new ReportQueryBuilder("SELECT COUNT(*) FROM report").filters(ReportQueryBuilder.parseFilters(FILTERS));
+
+        assertEquals(direct.getSql(), parsed.getSql());
+        assertEquals(direct.getParameters(), parsed.getParameters());
+        assertEquals("SELECT * FROM report WHERE Id > ? AND (borough IN (?))",
+                new ReportQueryBuilder("SELECT * FROM report").where("Id > ?", 3).filters(filter.without("status")).getSql());
+
+        assertSame(filter, filter.without("city"));
+        assertEquals("SELECT * FROM report", new ReportQueryBuilder("SELECT * FROM report").filters(ReportFilter.parse("")).getSql());
+        assertNull(ReportFilter.parse("{\"nope\":[\"x\"]}"));
+    }
+
+
+    @Test
+    @DisplayName("load: every part in one response, each filter list without its own column's filter")
+    void loadCombinesParts() {
+        DashboardService service = new DashboardService(reportsDao, 4, 5000);
+        ReportFilter filter = ReportFilter.parse(FILTERS);
+        when(reportsDao.findFilteredReports("1", "0", filter)).thenReturn(page);
+        when(reportsDao.countFilteredReports(filter)).thenReturn(12);
+        when(reportsDao.findFilteredColumnValues(eq("borough"), any())).thenReturn(List.of("BRONX", "QUEENS"));
+        when(reportsDao.findFilteredColumnValues(eq("agencyName"), any())).thenReturn(List.of("NYPD"));
+        when(reportsDao.getFilteredMapMarkers("2000", filter)).thenReturn(page);
+        when(reportsDao.getFilteredChartData("5000", "complaintType", filter)).thenReturn(page);
+
+        DashboardData data = service.load(filter, "1", "0", List.of("borough", "agencyName"), "complaintType", "5000", "2000");
+
+        assertEquals(page, data.getPage().getReports());
+        assertEquals(ReportsCursor.encode(41), data.getPage().getNextCursor());
+        assertEquals(12, data.getCount());
+        assertEquals(List.of("BRONX", "QUEENS"), data.getFacets().get("borough"));
+        assertEquals(List.of("NYPD"), data.getFacets().get("agencyName"));
+        assertEquals(page, data.getMarkers());
+        assertEquals(page, data.getChart());
+        assertTrue(data.getTimedOut().isEmpty());
+        assertTrue(data.getFailed().isEmpty());
+
+        // borough's list leaves out the borough filter, agencyName is not filtered and shares the parsed filter
+        verify(reportsDao).findFilteredColumnValues(eq("borough"), argThat(f -> f.getFilters().keySet().equals(Set.of("status"))));
+        verify(reportsDao).findFilteredColumnValues("agencyName", filter);
+    }
+
+
+    @Test
+    @DisplayName("load: a slow part times out and a failing one is named, the others are still returned")
+    void slowPartTimesOut() {
+        DashboardService service = new DashboardService(reportsDao, 4, 200);
+        ReportFilter filter = ReportFilter.parse(FILTERS);
+        when(reportsDao.findFilteredReports(any(), any(), any())).thenReturn(page);
+        when(reportsDao.countFilteredReports(any())).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return 99;
+        });
+        when(reportsDao.getFilteredMapMarkers(any(), any())).thenThrow(new IllegalStateException("database gone"));
+
+        long started = System.currentTimeMillis();
+        DashboardData data = service.load(filter, "10", "0", List.of(), "", "5000", "5000");
+
+        assertTrue(System.currentTimeMillis() - started < 2000);
+        assertEquals(page, data.getPage().getReports());
+        assertNull(data.getPage().getNextCursor());
+        assertNull(data.getCount());
+        assertEquals(List.of("count"), data.getTimedOut());
+        assertEquals(List.of("markers"), data.getFailed());
+        assertNull(data.getChart());
+        verify(reportsDao, never()).getFilteredChartData(any(), any(), any());
+    }
+
+
+    @Test
+    @DisplayName("load: parts turned away by a full pool are named in timedOut, never run on the request thread")
+    void fullPoolRejectsParts() {
+        DashboardService service = new DashboardService(reportsDao, 1, 5000);
+        ReportFilter filter = ReportFilter.parse(FILTERS);
+        String requestThread = Thread.currentThread().getName();
+        when(reportsDao.findFilteredReports(any(), any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return page;
+        });
+        when(reportsDao.findFilteredColumnValues(any(), any())).thenAnswer(invocation -> {
+            assertNotEquals(requestThread, Thread.currentThread().getName());
+            return List.of("x");
+        });
+
+        // One running part and eight queued ones fill the pool, the last three filter lists and the map are turned away
+        List<String> facets = List.of("complaintType", "descriptorType", "agencyName", "locationType", "incidentZip",
+                "addressType", "city", "status", "communityBoard", "borough");
+        DashboardData data = service.load(filter, "10", "0", facets, "", "5000", "5000");
+        service.shutdown();
+
+        assertEquals(page, data.getPage().getReports());
+        assertEquals(7, data.getFacets().size());
+        assertEquals(List.of("facets.status", "facets.communityBoard", "facets.borough", "markers"), data.getTimedOut());
+        assertTrue(data.getFailed().isEmpty());
+        verify(reportsDao, never()).getFilteredMapMarkers(any(), any());
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import javax.sql.DataSource;
+
+import com.example.cis4900.spring.template.reports.ingest.IncrementalIngestService;
+import com.example.cis4900.spring.template.reports.ingest.ReportBatchWriter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+
+public class IncrementalIngestServiceTest {
+
+    private static final String HEADER = "Unique Key,Created Date,Closed Date,Agency Name,Complaint Type,Descriptor,Location Type,"
+            + "Incident Zip,Incident Address,Address Type,City,Status,Community Board,Borough,Open Data Channel Type,Latitude,Longitude\n";
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Statement statement;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PreparedStatement watermarkQuery;
+
+    @Mock
+    private ResultSet watermarkRow;
+
+    @Mock
+    private PreparedStatement lookup;
+
+    @Mock
+    private ResultSet knownRows;
+
+    @Mock
+    private PreparedStatement upsert;
+
+    @TempDir
+    Path directory;
+
+    private IncrementalIngestService ingestService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        ingestService = new IncrementalIngestService(dataSource, eventPublisher, directory.toString(), 60, 5000);
+
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            if (sql.equals("SELECT MAX(uniqueKey), MAX(createdAt) FROM report")) {
+                return watermarkQuery;
+            }
+            return sql.startsWith("SELECT") ? lookup : upsert;
+        });
+
+        // The table holds requests up to key 100, the newest created on 2024-01-10
+        when(watermarkQuery.executeQuery()).thenReturn(watermarkRow);
+        when(watermarkRow.next()).thenReturn(true);
+        when(watermarkRow.getLong(1)).thenReturn(100L);
+        when(watermarkRow.getTimestamp(2)).thenReturn(Timestamp.valueOf(LocalDateTime.of(2024, 1, 10, 0, 0)));
+
+        // Requests 50 and 60 are open in the table
+        when(lookup.executeQuery()).thenReturn(knownRows);
+        int[] row = {0};
+        when(knownRows.next()).thenAnswer(invocation -> ++row[0] <= 2);
+        when(knownRows.getLong(1)).thenAnswer(invocation -> row[0] == 1 ? 50L : 60L);
+        when(knownRows.getString(2)).thenReturn("Open");
+        when(knownRows.getString(3)).thenReturn(null);
+    }
+
+
+    @Test
+    @DisplayName("ingest: appends new requests, updates changed ones and skips what the table already has")
+    void ingestAppliesOnlyTheDelta() throws Exception {
+        String rest = ",NYPD,Noise,Loud,Street,11201,1 Main St,ADDRESS,BROOKLYN,%s,02 BROOKLYN,BROOKLYN,PHONE,40.69,-73.98\n";
+        Path file = directory.resolve("extract.csv");
+        Files.writeString(file, HEADER
+                + "50,01/02/2024 10:00:00 AM," + String.format(rest, "Open")
+                + "60,01/03/2024 10:00:00 AM,01/11/2024 09:00:00 AM" + String.format(rest, "Closed")
+                + "200,01/11/2024 08:00:00 AM," + String.format(rest, "Open")
+                + ",01/05/2024 08:00:00 AM," + String.format(rest, "Open")
+                + ",01/12/2024 08:00:00 AM," + String.format(rest, "Open")
+                + "201,yesterday," + String.format(rest, "Open"), StandardCharsets.UTF_8);
+
+        IncrementalIngestService.IngestResult result = ingestService.ingest(file);
+
+        assertEquals(2, result.getAppended());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+        assertEquals(1, result.getSkipped());
+        assertEquals(1, result.getRejected());
+
+        // Only the keys under the watermark are looked up
+        verify(connection).prepareStatement("SELECT uniqueKey, status, closedDate FROM report WHERE uniqueKey IN (?, ?)");
+        verify(lookup).setLong(1, 50L);
+        verify(lookup).setLong(2, 60L);
+        verify(connection).prepareStatement(ReportBatchWriter.upsertSql(3));
+        verify(upsert).executeUpdate();
+
+        ArgumentCaptor<DatasetReloadedEvent> event = ArgumentCaptor.forClass(DatasetReloadedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertFalse(event.getValue().isAppendOnly());
+    }
+
+
+    @Test
+    @DisplayName("poll: an extract that only appends publishes an append-only change and is moved to processed/")
+    void pollMovesAppliedExtracts() throws Exception {
+        Path file = directory.resolve("extract.csv");
+        Files.writeString(file, HEADER + "300,01/15/2024 10:00:00 AM,,DSNY,Dirty,Litter,Street,10001,1 Main St,ADDRESS,"
+                + "NEW YORK,Open,05 MANHATTAN,MANHATTAN,ONLINE,40.75,-73.99\n", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60000));
+
+        ingestService.poll();
+
+        assertFalse(Files.exists(file));
+        assertTrue(Files.exists(directory.resolve("processed").resolve("extract.csv")));
+        verify(lookup, never()).executeQuery();
+        verify(connection).prepareStatement(ReportBatchWriter.upsertSql(1));
+
+        ArgumentCaptor<DatasetReloadedEvent> event = ArgumentCaptor.forClass(DatasetReloadedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertTrue(event.getValue().isAppendOnly());
+    }
+}
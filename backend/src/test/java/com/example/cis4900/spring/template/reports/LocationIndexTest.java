@@ -0,0 +1,143 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import com.example.cis4900.spring.template.reports.cache.ReportsQueryCache;
+import com.example.cis4900.spring.template.reports.dao.ReportsDao;
+import com.example.cis4900.spring.template.reports.models.NearbyReport;
+import com.example.cis4900.spring.template.reports.models.Report;
+import com.example.cis4900.spring.template.reports.spatial.LocationIndex;
+import com.example.cis4900.spring.template.reports.spatial.LocationIndexService;
+import com.example.cis4900.spring.template.reports.spatial.SpatialSearchService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class LocationIndexTest {
+
+    private static final double[] NYC = {-74.26, 40.49, -73.69, 40.92};
+
+    private static final int SIZE = 5000;
+
+    @Mock
+    private ReportsDao reportsDao;
+
+    private int[] ids;
+
+    private double[] latitudes;
+
+    private double[] longitudes;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        // Random reports spread over the city, with Ids out of row order
+        Random random = new Random(7);
+        ids = new int[SIZE];
+        latitudes = new double[SIZE];
+        longitudes = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            ids[i] = SIZE * 2 - i * 2;
+            latitudes[i] = NYC[1] + random.nextDouble() * (NYC[3] - NYC[1]);
+            longitudes[i] = NYC[0] + random.nextDouble() * (NYC[2] - NYC[0]);
+        }
+    }
+
+
+    @Test
+    @DisplayName("LocationIndex: box, radius and nearest queries match a full scan")
+    void queriesMatchScan() {
+        LocationIndex index = new LocationIndex(ids, latitudes, longitudes);
+        double lat = 40.75;
+        double lon = -73.95;
+
+        List<Integer> expectedBox = new ArrayList<>();
+        List<double[]> all = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            if (longitudes[i] >= -74.0 && longitudes[i] <= -73.9 && latitudes[i] >= 40.6 && latitudes[i] <= 40.7) {
+                expectedBox.add(ids[i]);
+            }
+            all.add(new double[] {ids[i], LocationIndex.distanceMeters(lat, lon, latitudes[i], longitudes[i])});
+        }
+        expectedBox.sort(Comparator.naturalOrder());
+        all.sort(Comparator.comparingDouble((double[] pair) -> pair[1]));
+
+        assertEquals(expectedBox, index.inBox(new double[] {-74.0, 40.6, -73.9, 40.7}, SIZE));
+        assertEquals(expectedBox.subList(0, 10), index.inBox(new double[] {-74.0, 40.6, -73.9, 40.7}, 10));
+
+        List<double[]> within = index.within(lat, lon, 1500, SIZE);
+        long expectedWithin = all.stream().filter(pair -> pair[1] <= 1500).count();
+        assertTrue(expectedWithin > 10);
+        assertEquals(expectedWithin, within.size());
+        for (int i = 0; i < within.size(); i++) {
+            assertEquals(all.get(i)[0], within.get(i)[0]);
+        }
+
+        List<double[]> nearest = index.nearest(lat, lon, 25, 50000);
+        assertEquals(25, nearest.size());
+        for (int i = 0; i < nearest.size(); i++) {
+            assertEquals(all.get(i)[0], nearest.get(i)[0]);
+            assertEquals(all.get(i)[1], nearest.get(i)[1], 1e-6);
+        }
+
+        // Nothing within reach of a point far out at sea
+        assertTrue(index.nearest(39.0, -70.0, 5, 1000).isEmpty());
+    }
+
+
+    @Test
+    @DisplayName("SpatialSearchService: results keep index order, bad parameters are rejected")
+    void serviceKeepsIndexOrder() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            rows.add(new Object[] {ids[i], latitudes[i], longitudes[i]});
+        }
+        when(reportsDao.getLocations(anyString())).thenReturn(rows);
+        // The database hands rows back in its own order
+        when(reportsDao.findReportsByIds(anyList())).thenAnswer(invocation -> {
+            List<Integer> requested = new ArrayList<>(invocation.getArgument(0));
+            requested.sort(Comparator.reverseOrder());
+            List<Report> reports = new ArrayList<>();
+            for (Integer id : requested) {
+                Report report = new Report();
+                report.setId(id);
+                reports.add(report);
+            }
+            return reports;
+        });
+        LocationIndex index = new LocationIndex(ids, latitudes, longitudes);
+        SpatialSearchService service = new SpatialSearchService(
+            new LocationIndexService(reportsDao, new ReportsQueryCache(1000), new DatasetVersion(), 1000000), reportsDao);
+
+        List<NearbyReport> nearest = service.nearest("40.75", "-73.95", "5", "");
+        List<double[]> expected = index.nearest(40.75, -73.95, 5, SpatialSearchService.MAX_RADIUS_METERS);
+        assertEquals(5, nearest.size());
+        for (int i = 0; i < nearest.size(); i++) {
+            assertEquals((int) expected.get(i)[0], nearest.get(i).getReport().getId());
+            assertEquals(expected.get(i)[1], nearest.get(i).getDistanceMeters(), 1e-6);
+        }
+
+        List<Report> inBox = service.inBox("-74.0,40.6,-73.9,40.7", "20", "");
+        assertEquals(20, inBox.size());
+        for (int i = 1; i < inBox.size(); i++) {
+            assertTrue(inBox.get(i - 1).getId() < inBox.get(i).getId());
+        }
+        assertEquals(index.within(40.75, -73.95, 800, 100).size(), service.withinRadius("40.75", "-73.95", "800", "100", "").size());
+        verify(reportsDao, times(1)).getLocations(anyString());
+
+        assertTrue(service.nearest("north", "-73.95", "5", "").isEmpty());
+        assertTrue(service.withinRadius("40.75", "-73.95", "100000", "10", "").isEmpty());
+        assertTrue(service.inBox("-74.0,40.6,-73.9,40.7", "0", "").isEmpty());
+    }
+}
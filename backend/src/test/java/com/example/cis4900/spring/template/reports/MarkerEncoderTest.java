@@ -0,0 +1,59 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.cis4900.spring.template.reports.wire.MarkerEncoder;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class MarkerEncoderTest {
+
+    @Test
+    @DisplayName("encode: dictionary, codes and delta coordinates")
+    void encodeMarkers() {
+        // Arrange:
+        // Two markers sharing one complaint type, the second one without coordinates or descriptor
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {1, "Noise", "A", "NYPD", 10.0, -11.56});
+        rows.add(new Object[] {4, "Noise", null, "NYPD", null, null});
+
+        // Act
+        byte[] encoded = MarkerEncoder.encode(rows);
+
+        // Assert:
+        // The same bytes the frontend decoder test reads back
+        byte[] expected = {
+            'R', 'M', 'K', '1', 2, 5,
+            1, 5, 'N', 'o', 'i', 's', 'e',
+            1, 1, 'A',
+            1, 4, 'N', 'Y', 'P', 'D',
+            2, 6,
+            1, 1, 1, 0, 1, 1,
+            0x01,
+            (byte) 0x80, (byte) 0x89, 0x7a,
+            (byte) 0xbf, (byte) 0x8e, (byte) 0x8d, 0x01,
+        };
+        assertArrayEquals(expected, encoded);
+    }
+
+
+    @Test
+    @DisplayName("encode: repeated values cost a byte per marker")
+    void encodeRepeatedMarkersIsCompact() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(new Object[] {i + 1, "Noise - Residential", "Loud Music/Party", "New York City Police Department", 40.7 + i * 1e-5, -73.9 - i * 1e-5});
+        }
+
+        byte[] encoded = MarkerEncoder.encode(rows);
+
+        // Id delta, three codes and two coordinate deltas of one byte each, plus the dictionary and mask
+        assertTrue(encoded.length < 1000 * 7, "encoded " + encoded.length + " bytes");
+        // An empty response is just the header and three empty dictionaries
+        assertEquals(9, MarkerEncoder.encode(new ArrayList<>()).length);
+    }
+}
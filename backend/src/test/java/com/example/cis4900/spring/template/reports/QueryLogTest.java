@@ -0,0 +1,125 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import javax.sql.DataSource;
+
+import com.example.cis4900.spring.template.reports.audit.QueryEvent;
+import com.example.cis4900.spring.template.reports.audit.QueryLog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class QueryLogTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement explain;
+
+    @Mock
+    private ResultSet plan;
+
+    @Mock
+    private ResultSetMetaData planColumns;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(explain);
+        when(explain.executeQuery()).thenReturn(plan);
+        when(plan.getMetaData()).thenReturn(planColumns);
+        when(plan.next()).thenReturn(true, false);
+        when(planColumns.getColumnCount()).thenReturn(2);
+        when(planColumns.getColumnLabel(1)).thenReturn("type");
+        when(planColumns.getColumnLabel(2)).thenReturn("key");
+        when(plan.getString(1)).thenReturn("ref");
+        when(plan.getString(2)).thenReturn("report_borough");
+    }
+
+
+    @Test
+    @DisplayName("record: slow queries are always kept with their plan and listed slowest first, unsampled fast ones are not")
+    void recordKeepsSlowQueries() throws Exception {
+        QueryLog queryLog = new QueryLog(dataSource, true, 64, 0.0, 100, true, 10);
+
+        long now = System.nanoTime();
+        queryLog.record("SELECT * FROM report WHERE borough IN (?)", List.of("BRONX"), now - TimeUnit.MILLISECONDS.toNanos(150), 12);
+        queryLog.record("SELECT COUNT(*) FROM report", List.of(), now, 1);
+        queryLog.record("SELECT * FROM report WHERE borough IN (?)", List.of("QUEENS"), now - TimeUnit.MILLISECONDS.toNanos(900), -1);
+
+        awaitTrue(() -> queryLog.getLogged() == 2);
+        assertEquals(3, queryLog.getRecorded());
+        assertEquals(2, queryLog.getSlow());
+        assertEquals(0, queryLog.getDropped());
+
+        List<QueryEvent> slowest = queryLog.slowQueries(20);
+        assertEquals(2, slowest.size());
+        assertEquals(List.of("QUEENS"), slowest.get(0).getParameters());
+        assertEquals(-1, slowest.get(0).getRows());
+        assertTrue(slowest.get(0).getMillis() >= 900);
+        assertEquals(List.of("BRONX"), slowest.get(1).getParameters());
+        assertEquals(List.of("type=ref, key=report_borough"), slowest.get(0).getPlan());
+        assertEquals(1, queryLog.slowQueries(1).size());
+
+        // Both slow queries share one statement shape, so it was explained once with the first one's parameters
+        verify(connection, times(1)).prepareStatement("EXPLAIN SELECT * FROM report WHERE borough IN (?)");
+        verify(explain).setObject(1, "BRONX");
+    }
+
+
+    @Test
+    @DisplayName("record: concurrent writers never lose an event silently, each one is either logged or counted as dropped")
+    void recordFromManyThreads() throws Exception {
+        QueryLog queryLog = new QueryLog(dataSource, true, 16, 1.0, 60000, false, 10);
+
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread writer = new Thread(() -> {
+                for (int j = 0; j < 2000; j++) {
+                    queryLog.record("SELECT * FROM report WHERE Id > ?", List.of(j), System.nanoTime(), 100);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        awaitTrue(() -> queryLog.getLogged() + queryLog.getDropped() == 16000);
+        assertEquals(16000, queryLog.getRecorded());
+        assertEquals(0, queryLog.getSlow());
+        assertTrue(queryLog.getLogged() >= 16);
+        assertTrue(queryLog.slowQueries(20).isEmpty());
+    }
+
+
+    // awaitTrue waits up to five seconds for the drain thread to catch up
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
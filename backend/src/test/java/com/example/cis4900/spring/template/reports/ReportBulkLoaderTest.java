@@ -0,0 +1,207 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import javax.sql.DataSource;
+
+import com.example.cis4900.spring.template.reports.ingest.CsvReader;
+import com.example.cis4900.spring.template.reports.ingest.LoadProgress;
+import com.example.cis4900.spring.template.reports.ingest.ReportBatchWriter;
+import com.example.cis4900.spring.template.reports.ingest.ReportBulkLoader;
+import com.example.cis4900.spring.template.reports.ingest.ReportRecordParser;
+import com.example.cis4900.spring.template.reports.models.Report;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class ReportBulkLoaderTest {
+
+    private static final String HEADER = "Unique Key,Created Date,Closed Date,Agency,Agency Name,Complaint Type,Descriptor,"
+            + "Location Type,Incident Zip,Incident Address,Address Type,City,Status,Community Board,Borough,"
+            + "Open Data Channel Type,Latitude,Longitude";
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Statement statement;
+
+    @Mock
+    private PreparedStatement checkpointsQuery;
+
+    @Mock
+    private ResultSet checkpoints;
+
+    @Mock
+    private PreparedStatement insert;
+
+    @Mock
+    private PreparedStatement checkpoint;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+    }
+
+
+    @Test
+    @DisplayName("CsvReader: quoted commas, doubled quotes, line breaks in fields and CRLF line ends")
+    void csvReaderParsesQuotedFields() throws Exception {
+        String csv = "\uFEFFa,b,c\r\n\"1, 2\",\"say \"\"hi\"\"\",\"two\nlines\"\r\n,,last\n";
+
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            assertArrayEquals(new String[] {"a", "b", "c"}, reader.next());
+            assertArrayEquals(new String[] {"1, 2", "say \"hi\"", "two\nlines"}, reader.next());
+            assertArrayEquals(new String[] {"", "", "last"}, reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+
+    @Test
+    @DisplayName("ReportRecordParser: columns found by header name and values normalized")
+    void parserNormalizesValues() {
+        ReportRecordParser parser = new ReportRecordParser(HEADER.split(","));
+
+        Report report = parser.parse(new String[] {"1", "01/31/2023 10:15:00 PM", "", "NYPD", "New York City Police Department",
+            " Noise ", "Loud Music", "", "11201", "X".repeat(60), "ADDRESS", "BROOKLYN", "Closed", "02 BROOKLYN",
+            "BROOKLYN", "PHONE", "40.69", "not a number"});
+
+        assertEquals(1L, report.getUniqueKey());
+        assertEquals(LocalDateTime.of(2023, 1, 31, 22, 15), report.getCreatedAt());
+        assertEquals("01/31/2023 10:15:00 PM", report.getCreatedDate());
+        assertNull(report.getClosedDate());
+        assertNull(report.getClosedAt());
+        assertEquals("New York City Police Department", report.getAgencyName());
+        assertEquals("Noise", report.getComplaintType());
+        assertEquals("Loud Music", report.getDescriptorType());
+        assertNull(report.getLocationType());
+        assertEquals(ReportRecordParser.MAX_TEXT_LENGTH, report.getIncidentAddress().length());
+        assertEquals(40.69, report.getLatitude());
+        assertNull(report.getLongitude());
+
+        // Rejected: a field missing and a created date that is not a date
+        assertThrows(IllegalArgumentException.class, () -> parser.parse(new String[] {"1", "01/31/2023"}));
+        String[] badDate = new String[18];
+        Arrays.fill(badDate, "");
+        badDate[1] = "yesterday";
+        assertThrows(IllegalArgumentException.class, () -> parser.parse(badDate));
+
+        // Without column names the fields are read in the order init.sh used
+        ReportRecordParser positional = new ReportRecordParser("k,c,d,a,t,de,l,z,ad,at,ci,s,cb,b,o,la,lo".split(","));
+        Report row = positional.parse("9,2024-03-01 08:00:00,2024-03-02,DSNY,Dirty,Litter,Street,10001,1 Main St,ADDRESS,NEW YORK,Open,05 MANHATTAN,MANHATTAN,ONLINE,40.75,-73.99".split(","));
+        assertEquals(9L, row.getUniqueKey());
+        assertEquals("DSNY", row.getAgencyName());
+        assertEquals(LocalDateTime.of(2024, 3, 2, 0, 0), row.getClosedAt());
+        assertEquals(-73.99, row.getLongitude());
+    }
+
+
+    @Test
+    @DisplayName("load: inserts each batch with its checkpoint and skips the batches an earlier run committed")
+    void loadResumesFromCheckpoints() throws Exception {
+        Path file = directory.resolve("reports.csv");
+        String row = ",,NYPD,Noise,Loud,Street,11201,1 Main St,ADDRESS,BROOKLYN,Open,02 BROOKLYN,BROOKLYN,PHONE,40.69,-73.98\n";
+        Files.writeString(file, HEADER.replace("Agency,Agency Name", "Agency Name").replace("Descriptor", "Descriptor Type") + "\n"
+                + "1,01/01/2024 01:00:00 AM" + row
+                + "2,01/01/2024 02:00:00 AM" + row
+                + "3,01/01/2024 03:00:00 AM" + row
+                + "4,never" + row
+                + "\n"
+                + "5,01/01/2024 05:00:00 AM" + row, StandardCharsets.UTF_8);
+
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            if (sql.startsWith("SELECT")) {
+                return checkpointsQuery;
+            }
+            return sql.startsWith("INSERT INTO report ") ? insert : checkpoint;
+        });
+        when(checkpointsQuery.executeQuery()).thenReturn(checkpoints);
+        // Batch 0 (records 1 and 2) was committed by an earlier run with batches of 2
+        int[] checkpointRow = {0};
+        when(checkpoints.next()).thenAnswer(invocation -> ++checkpointRow[0] <= 1);
+        when(checkpoints.getLong(1)).thenReturn(0L);
+        when(checkpoints.getInt(2)).thenReturn(2);
+
+        LoadProgress progress = new ReportBulkLoader(dataSource, 500, 2).load(file);
+
+        assertEquals(5, progress.getRead());
+        assertEquals(2, progress.getSkipped());
+        assertEquals(1, progress.getRejected());
+        assertEquals(2, progress.getLoaded());
+        assertTrue(progress.isFinished());
+        assertNull(progress.getError());
+
+        verify(connection, times(2)).prepareStatement(ReportBatchWriter.upsertSql(1));
+        verify(checkpoint).setLong(2, 1L);
+        verify(checkpoint).setLong(2, 2L);
+        verify(checkpoint, never()).setLong(2, 0L);
+        verify(checkpoint).setInt(5, 1);
+        verify(connection, times(2)).commit();
+        verify(connection, never()).rollback();
+    }
+
+
+    @Test
+    @DisplayName("load: a duplicate checkpoint skips the batch, other constraint and runtime errors fail the load")
+    void loadFailsOnWriteErrors() throws Exception {
+        Path file = directory.resolve("reports.csv");
+        String row = ",,NYPD,Noise,Loud,Street,11201,1 Main St,ADDRESS,BROOKLYN,Open,02 BROOKLYN,BROOKLYN,PHONE,40.69,-73.98\n";
+        Files.writeString(file, HEADER.replace("Agency,Agency Name", "Agency Name").replace("Descriptor", "Descriptor Type") + "\n"
+                + "1,01/01/2024 01:00:00 AM" + row, StandardCharsets.UTF_8);
+
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            if (sql.startsWith("SELECT")) {
+                return checkpointsQuery;
+            }
+            return sql.startsWith("INSERT INTO report ") ? insert : checkpoint;
+        });
+        when(checkpointsQuery.executeQuery()).thenReturn(checkpoints);
+
+        // Another load committed the batch first
+        when(checkpoint.executeUpdate()).thenThrow(new SQLIntegrityConstraintViolationException("Duplicate entry", "23000", 1062));
+        LoadProgress progress = new ReportBulkLoader(dataSource, 500, 2).load(file);
+        assertEquals(1, progress.getSkipped());
+        assertEquals(0, progress.getLoaded());
+        assertNull(progress.getError());
+
+        // A report row breaking a NOT NULL constraint is not mistaken for a committed batch
+        doThrow(new SQLIntegrityConstraintViolationException("Column cannot be null", "23000", 1048)).when(insert).executeUpdate();
+        assertThrows(SQLIntegrityConstraintViolationException.class, () -> new ReportBulkLoader(dataSource, 500, 2).load(file));
+
+        // A runtime error on a writer fails the load instead of leaving the reader blocked
+        doThrow(new IllegalStateException("connection gone")).when(insert).executeUpdate();
+        assertThrows(IllegalStateException.class, () -> new ReportBulkLoader(dataSource, 500, 2).load(file));
+        verify(connection, never()).commit();
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.example.cis4900.spring.template.reports.approx.HyperLogLog;
+import com.example.cis4900.spring.template.reports.approx.ReportSample;
+import com.example.cis4900.spring.template.reports.models.DistinctEstimate;
+import com.example.cis4900.spring.template.reports.models.Estimate;
+import com.example.cis4900.spring.template.reports.models.GroupEstimate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ReportSampleTest {
+
+    private static final String[] BOROUGHS = {"BROOKLYN", "QUEENS", "BRONX", "MANHATTAN", "STATEN ISLAND", null};
+
+    private static final int SIZE = 200000;
+
+    private static final int ZIP = ReportSample.COLUMNS.indexOf("incidentZip");
+
+    private static final int STATUS = ReportSample.COLUMNS.indexOf("status");
+
+    private static final int BOROUGH = ReportSample.COLUMNS.indexOf("borough");
+
+    private List<String[]> rows;
+
+    @BeforeEach
+    void setUp() {
+        // Skewed complaint types, one in ten reports closed, zip codes spread wide
+        Random random = new Random(11);
+        rows = new ArrayList<>();
+        int width = ReportSample.COLUMNS.size();
+        for (int i = 0; i < SIZE; i++) {
+            String[] row = new String[width];
+            row[ReportSample.COLUMNS.indexOf("complaintType")] = "Type " + (int) Math.floor(Math.pow(random.nextDouble(), 3) * 60);
+            row[BOROUGH] = BOROUGHS[random.nextInt(BOROUGHS.length)];
+            row[STATUS] = random.nextInt(10) == 0 ? "Closed" : "Open";
+            row[ZIP] = String.valueOf(10000 + random.nextInt(40000));
+            rows.add(row);
+        }
+    }
+
+
+    @Test
+    @DisplayName("count: the 95% interval of a filtered count contains the true count")
+    void countIntervalContainsTruth() {
+        ReportSample sample = new ReportSample(20000, 3);
+        sample.add(rows);
+
+        Map<String, List<String>> filters = Map.of("borough", List.of("brooklyn", "Queens"), "status", List.of("Closed"));
+        long expected = rows.stream().filter(row -> row[BOROUGH] != null && row[STATUS].equals("Closed")
+                && (row[BOROUGH].equals("BROOKLYN") || row[BOROUGH].equals("QUEENS"))).count();
+
+        Estimate estimate = sample.count(filters);
+        assertFalse(estimate.isExact());
+        assertEquals(Estimate.SAMPLE, estimate.getSource());
+        assertEquals(0.95, estimate.getConfidence());
+        assertTrue(estimate.getLow() <= expected && expected <= estimate.getHigh(), estimate + " vs " + expected);
+        assertTrue(Math.abs(estimate.getEstimate() - expected) < expected * 0.1, estimate + " vs " + expected);
+
+        assertEquals(Estimate.exact(SIZE).getEstimate(), sample.count(Map.of()).getEstimate());
+        assertTrue(sample.count(Map.of()).isExact());
+        assertEquals(0, sample.count(Map.of("status", List.of("Pending"))).getEstimate());
+    }
+
+
+    @Test
+    @DisplayName("count, groupCounts and distinctValues: exact when the sample holds every row")
+    void exactWhenSampleHoldsTable() {
+        ReportSample sample = new ReportSample(SIZE, 3);
+        sample.add(rows.subList(0, SIZE / 2));
+        sample.add(rows.subList(SIZE / 2, SIZE));
+
+        Map<String, Long> perBorough = new HashMap<>();
+        for (String[] row : rows) {
+            if (row[STATUS].equals("Closed")) {
+                perBorough.merge(String.valueOf(row[BOROUGH]), 1L, Long::sum);
+            }
+        }
+
+        Map<String, List<String>> filters = Map.of("status", List.of("closed "));
+        Estimate count = sample.count(filters);
+        assertTrue(count.isExact());
+        assertEquals(perBorough.values().stream().mapToLong(Long::longValue).sum(), count.getEstimate());
+
+        List<GroupEstimate> groups = sample.groupCounts(List.of("borough"), filters, 0);
+        assertEquals(perBorough.size(), groups.size());
+        for (GroupEstimate group : groups) {
+            assertTrue(group.getCount().isExact());
+            assertEquals(perBorough.get(String.valueOf(group.getValues().get(0))), group.getCount().getEstimate());
+        }
+
+        DistinctEstimate boroughs = sample.distinctValues("borough", filters);
+        assertEquals(BOROUGHS.length, boroughs.getValues().size());
+        assertEquals(BOROUGHS.length, boroughs.getDistinct().getEstimate());
+    }
+
+
+    @Test
+    @DisplayName("groupCounts: top groups in order with the rest folded into OTHER")
+    void groupCountsFoldOther() {
+        ReportSample sample = new ReportSample(20000, 3);
+        sample.add(rows);
+
+        List<GroupEstimate> groups = sample.groupCounts(List.of("complaintType"), Map.of(), 5);
+        assertEquals(6, groups.size());
+        assertEquals("Type 0", groups.get(0).getValues().get(0));
+        assertEquals("OTHER", groups.get(5).getValues().get(0));
+        for (int i = 1; i < 5; i++) {
+            assertTrue(groups.get(i - 1).getCount().getEstimate() >= groups.get(i).getCount().getEstimate());
+        }
+
+        long total = groups.stream().mapToLong(group -> group.getCount().getEstimate()).sum();
+        assertTrue(Math.abs(total - SIZE) <= groups.size(), "estimates should add up to the table: " + total);
+    }
+
+
+    @Test
+    @DisplayName("distinctValues: HyperLogLog without filters, sample-based range under filters")
+    void distinctValueEstimates() {
+        ReportSample sample = new ReportSample(20000, 3);
+        sample.add(rows);
+
+        Set<String> zips = new HashSet<>();
+        Set<String> closedZips = new HashSet<>();
+        for (String[] row : rows) {
+            zips.add(row[ZIP]);
+            if (row[STATUS].equals("Closed")) {
+                closedZips.add(row[ZIP]);
+            }
+        }
+
+        Estimate all = sample.distinctValues("incidentZip", Map.of()).getDistinct();
+        assertEquals(Estimate.HYPERLOGLOG, all.getSource());
+        assertTrue(all.getLow() <= zips.size() && zips.size() <= all.getHigh(), all + " vs " + zips.size());
+
+        DistinctEstimate closed = sample.distinctValues("incidentZip", Map.of("status", List.of("Closed")));
+        assertEquals(Estimate.SAMPLE, closed.getDistinct().getSource());
+        assertEquals(closed.getValues().size(), closed.getDistinct().getLow());
+        assertTrue(closedZips.size() <= closed.getDistinct().getHigh(), closed.getDistinct() + " vs " + closedZips.size());
+        assertTrue(closed.getDistinct().getEstimate() > closed.getValues().size());
+    }
+
+
+    @Test
+    @DisplayName("add: values replaced out of the sample are dropped from its dictionaries")
+    void dictionariesStayBounded() {
+        ReportSample sample = new ReportSample(1000, 3);
+        for (int from = 0; from < SIZE; from += 10000) {
+            sample.add(rows.subList(from, from + 10000));
+        }
+
+        // About 40k zip codes went through the sample, at most 1000 are in it
+        int dictionary = sample.dictionarySize("incidentZip");
+        assertTrue(dictionary <= 2 * 1001 + 10000, "dictionary holds " + dictionary + " values");
+
+        // Codes still point at the right values after the dictionaries are rebuilt
+        for (String zip : sample.distinctValues("incidentZip", Map.of()).getValues()) {
+            assertTrue(sample.count(Map.of("incidentZip", List.of(zip))).getEstimate() > 0, zip);
+        }
+        List<GroupEstimate> statuses = sample.groupCounts(List.of("status"), Map.of("incidentZip", List.of()), 0);
+        assertEquals("Open", statuses.get(0).getValues().get(0));
+    }
+
+
+    @Test
+    @DisplayName("HyperLogLog: within 3% of 100k distinct values, exact for a handful")
+    void hyperLogLogAccuracy() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 100000; i++) {
+            sketch.add("value-" + i);
+            sketch.add("value-" + (i / 2));
+        }
+        sketch.add(null);
+        assertEquals(100001, sketch.estimate(), 3000);
+
+        HyperLogLog small = new HyperLogLog();
+        for (int i = 0; i < 50; i++) {
+            small.add("Type " + (i % 7));
+        }
+        assertEquals(7, small.estimate());
+    }
+
+
+    @Test
+    @DisplayName("covers: only filters on sampled columns")
+    void coversSampledColumns() {
+        assertTrue(ReportSample.covers(Map.of("borough", List.of("BRONX"))));
+        assertTrue(ReportSample.covers(Map.of("latitude", List.of())));
+        assertFalse(ReportSample.covers(Map.of("latitude", List.of("40.7"))));
+    }
+}
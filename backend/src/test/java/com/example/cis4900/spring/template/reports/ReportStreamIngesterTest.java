@@ -0,0 +1,113 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import com.example.cis4900.spring.template.reports.ingest.GroupCommitWriter;
+import com.example.cis4900.spring.template.reports.ingest.ReportBatchWriter;
+import com.example.cis4900.spring.template.reports.ingest.ReportStreamIngester;
+import com.example.cis4900.spring.template.reports.models.BatchIngestResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+
+public class ReportStreamIngesterTest {
+
+    private static final String BODY = String.join("\n",
+            "{\"complaintType\":\"Noise\",\"agencyName\":\"NYPD\",\"createdDate\":\"01/31/2023 10:15:00 PM\",\"latitude\":40.69,\"longitude\":-73.98}",
+            "{\"id\":7,\"complaintType\":\" Heat \",\"createdAt\":\"2023-02-01T08:00:00\",\"uniqueKey\":58291034,\"extra\":1}",
+            "",
+            "not json",
+            "{\"complaintType\":\"Noise\",\"createdDate\":\"\"}",
+            "{\"complaintType\":\"Litter\",\"createdDate\":\"2023-02-02\",\"latitude\":400}",
+            "{\"complaintType\":\"Rodent\",\"createdDate\":\"02/03/2023\"}");
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement upsert;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private GroupCommitWriter writer;
+
+    private ReportStreamIngester ingester;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        writer = new GroupCommitWriter(dataSource, eventPublisher);
+        ingester = new ReportStreamIngester(writer, new ObjectMapper().findAndRegisterModules(), 2);
+
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(upsert);
+        when(upsert.executeUpdate()).thenReturn(2);
+    }
+
+
+    @Test
+    @DisplayName("ingest: valid lines are committed in batches, invalid ones are rejected with their line number")
+    void ingestCommitsBatches() throws Exception {
+        BatchIngestResult result = ingester.ingest(new ByteArrayInputStream(BODY.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(4, result.getAccepted());
+        assertEquals(2, result.getRejected());
+        assertEquals(0, result.getFailed());
+        assertEquals(2, result.getBatches());
+        assertEquals(2, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).startsWith("line 4: "));
+        assertTrue(result.getErrors().get(1).startsWith("line 5: unreadable created date"));
+
+        // Two multi-row upserts of two reports, in as many commits as the writer needed
+        verify(connection, times(2)).prepareStatement(ReportBatchWriter.upsertSql(2));
+        verify(upsert, times(2)).executeUpdate();
+        assertEquals(2, writer.getBatches());
+        assertEquals(4, writer.getRows());
+        verify(connection, times((int) writer.getCommits())).commit();
+        // The writer thread publishes the event after completing the batches ingest waits for
+        verify(eventPublisher, timeout(1000).times((int) writer.getCommits())).publishEvent(any(DatasetReloadedEvent.class));
+
+        // Ids from the client are dropped, text is trimmed, the date text is filled in from createdAt and coordinates
+        // outside the globe are dropped
+        verify(upsert, never()).setObject(anyInt(), eq(7));
+        verify(upsert).setObject(anyInt(), eq("Heat"));
+        verify(upsert).setObject(anyInt(), eq("02/01/2023 08:00:00 AM"));
+        verify(upsert).setObject(anyInt(), eq(58291034L));
+        verify(upsert, never()).setObject(anyInt(), eq(400.0));
+    }
+
+
+    @Test
+    @DisplayName("ingest: a failed commit is rolled back and its reports counted as failed")
+    void ingestReportsFailedCommits() throws Exception {
+        when(upsert.executeUpdate()).thenThrow(new SQLException("Deadlock found"));
+
+        BatchIngestResult result = ingester.ingest(new ByteArrayInputStream(BODY.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(0, result.getAccepted());
+        assertEquals(4, result.getFailed());
+        assertTrue(result.getErrors().stream().anyMatch(error -> error.contains("Deadlock found")));
+        verify(connection, atLeastOnce()).rollback();
+        verify(connection, never()).commit();
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+}
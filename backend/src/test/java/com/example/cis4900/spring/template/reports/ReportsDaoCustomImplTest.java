@@ -4,11 +4,21 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 import com.example.cis4900.spring.template.reports.dao.ReportsDaoCustomImpl;
+import com.example.cis4900.spring.template.reports.memory.ReportsSnapshot;
+import com.example.cis4900.spring.template.reports.memory.ReportsSnapshotEngine;
+import com.example.cis4900.spring.template.reports.models.GroupCount;
+import com.example.cis4900.spring.template.reports.models.HeatCell;
 import com.example.cis4900.spring.template.reports.models.Report;
+import com.example.cis4900.spring.template.reports.models.ResolutionPercentiles;
+import com.example.cis4900.spring.template.reports.models.TimeBucketCount;
+import com.example.cis4900.spring.template.reports.rollup.RollupCube;
+import com.example.cis4900.spring.template.reports.rollup.RollupEngine;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
@@ -29,6 +39,14 @@ public class ReportsDaoCustomImplTest {
     @Mock
     private Query query;
 
+    // Returns no snapshot unless a test loads one, so the DAO stays on SQL
+    @Mock
+    private ReportsSnapshotEngine snapshotEngine;
+
+    // Returns no cube unless a test builds one, so the DAO doesn't use the rollup
+    @Mock
+    private RollupEngine rollupEngine;
+
     // The DAO implementation under test, with mocks injected
     @InjectMocks
     private ReportsDaoCustomImpl reportsDaoCustomImpl;
@@ -54,6 +72,7 @@ public class ReportsDaoCustomImplTest {
             "Brooklyn", "Mobile App", 40.6836, -73.9760
         );
         r1.setId(1);
+        r1.setUniqueKey(59000001L);
 
         Report r2 = new Report(
             "Noise - Residential", "Banging/Pounding", "New York City Police Department",
@@ -63,6 +82,7 @@ public class ReportsDaoCustomImplTest {
             "Brooklyn", "Mobile App", 40.6836, -73.9760
         );
         r2.setId(2);
+        r2.setUniqueKey(59000002L);
 
         list.add(r1);
         list.add(r2);
@@ -101,8 +121,29 @@ public class ReportsDaoCustomImplTest {
         assertTrue(sql.startsWith(
             "SELECT Id, complaintType, descriptorType, agencyName, latitude, longitude FROM report"
         ));
-        assertTrue(sql.contains(" ORDER BY Id "));
-        assertTrue(sql.endsWith(" LIMIT 5000"));
+        assertTrue(sql.endsWith(" ORDER BY Id LIMIT ?"));
+        verify(query).setParameter(1, 5000);
+    }
+
+
+    @Test
+    @DisplayName("getMapMarkersInBox: bbox and limit are bound")
+    void getMapMarkersInBoxBindsBounds() {
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.getResultList()).thenReturn(new ArrayList<>());
+
+        reportsDaoCustomImpl.getMapMarkersInBox("-74.0,40.6,-73.9,40.7", "5000", "");
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(entityManager).createNativeQuery(sqlCaptor.capture());
+        assertEquals(
+            "SELECT Id, complaintType, descriptorType, agencyName, latitude, longitude FROM report"
+                + " WHERE latitude BETWEEN ? AND ? AND longitude BETWEEN ? AND ? ORDER BY Id LIMIT ?",
+            sqlCaptor.getValue()
+        );
+        verify(query).setParameter(1, 40.6);
+        verify(query).setParameter(4, -73.9);
+        verify(query).setParameter(5, 5000);
     }
 
 
@@ -129,9 +170,10 @@ public class ReportsDaoCustomImplTest {
         String sql = sqlCaptor.getValue();
 
         assertEquals(
-            "SELECT complaintType FROM report ORDER BY Id LIMIT 5000",
+            "SELECT complaintType FROM report ORDER BY Id LIMIT ?",
             sql
         );
+        verify(query).setParameter(1, 5000);
     }
 
 
@@ -161,9 +203,9 @@ public class ReportsDaoCustomImplTest {
         verify(entityManager).createNativeQuery(sqlCaptor.capture());
         String sql = sqlCaptor.getValue();
 
-        assertTrue(sql.startsWith("SELECT complaintType FROM report WHERE "));
-        assertTrue(sql.contains("complaintType IN ('Noise - Residential')"));
-        assertTrue(sql.endsWith("ORDER BY Id LIMIT 100"));
+        assertEquals("SELECT complaintType FROM report WHERE (complaintType IN (?)) ORDER BY Id LIMIT ?", sql);
+        verify(query).setParameter(1, "Noise - Residential");
+        verify(query).setParameter(2, 100);
     }
 
 
@@ -191,9 +233,10 @@ public class ReportsDaoCustomImplTest {
         String sql = sqlCaptor.getValue();
 
         assertEquals(
-            "SELECT createdDate FROM report ORDER BY Id LIMIT 5000",
+            "SELECT createdDate FROM report ORDER BY Id LIMIT ?",
             sql
         );
+        verify(query).setParameter(1, 5000);
     }
 
 
@@ -221,10 +264,364 @@ public class ReportsDaoCustomImplTest {
         verify(entityManager).createNativeQuery(sqlCaptor.capture());
         String sql = sqlCaptor.getValue();
 
-        assertTrue(sql.startsWith("SELECT createdDate FROM report WHERE "));
-        assertTrue(sql.contains("complaintType IN ('Noise - Residential')"));
-        assertTrue(sql.endsWith("ORDER BY Id LIMIT 100"));
+        assertEquals("SELECT createdDate FROM report WHERE (complaintType IN (?)) ORDER BY Id LIMIT ?", sql);
+        verify(query).setParameter(1, "Noise - Residential");
+        verify(query).setParameter(2, 100);
     }
-}
 
 
+    @Test
+    @DisplayName("getGroupedCounts: top groups plus OTHER")
+    void getGroupedCountsFoldsOther() {
+        // Arrange:
+        // Grouped counts come back largest first, one row per group with the count last
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {"Brooklyn", 30L});
+        rows.add(new Object[] {"Queens", 20L});
+        rows.add(new Object[] {"Bronx", 5L});
+        rows.add(new Object[] {null, 1L});
+        String filters = "{\"status\":[\"Open\"]}";
+
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.getResultList()).thenReturn(rows);
+
+        // Act
+        List<GroupCount> results = new ArrayList<>();
+        reportsDaoCustomImpl.getGroupedCounts("borough", "2", filters).forEach(results::add);
+
+        // Assert:
+        // The two largest groups are kept and the other two are summed into OTHER
+        assertEquals(3, results.size());
+        assertEquals(List.of("Brooklyn"), results.get(0).getValues());
+        assertEquals(30L, results.get(0).getCount());
+        assertEquals(List.of("Queens"), results.get(1).getValues());
+        assertEquals(List.of(ReportsDaoCustomImpl.OTHER_LABEL), results.get(2).getValues());
+        assertEquals(6L, results.get(2).getCount());
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(entityManager).createNativeQuery(sqlCaptor.capture());
+        String sql = sqlCaptor.getValue();
+
+        assertEquals("SELECT borough, COUNT(*) AS total FROM report WHERE (status IN (?)) GROUP BY borough ORDER BY total DESC", sql);
+        verify(query).setParameter(1, "Open");
+    }
+
+
+    @Test
+    @DisplayName("getGroupedCounts: multiple columns, no limit")
+    void getGroupedCountsMultipleColumns() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {"Brooklyn", "Open", 7L});
+        rows.add(new Object[] {"Queens", "Closed", 3L});
+
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.getResultList()).thenReturn(rows);
+
+        List<GroupCount> results = new ArrayList<>();
+        reportsDaoCustomImpl.getGroupedCounts("borough, status", "", "").forEach(results::add);
+
+        // Every group is returned and no OTHER group is added
+        assertEquals(2, results.size());
+        assertEquals(List.of("Queens", "Closed"), results.get(1).getValues());
+        assertEquals(3L, results.get(1).getCount());
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(entityManager).createNativeQuery(sqlCaptor.capture());
+        assertEquals(
+            "SELECT borough, status, COUNT(*) AS total FROM report GROUP BY borough, status ORDER BY total DESC",
+            sqlCaptor.getValue()
+        );
+    }
+
+
+    @Test
+    @DisplayName("getGroupedCounts: unknown column is rejected")
+    void getGroupedCountsRejectsUnknownColumn() {
+        Iterable<GroupCount> results =
+            reportsDaoCustomImpl.getGroupedCounts("borough; DROP TABLE report", "20", "");
+
+        // Nothing is queried for a column that is not part of the report table
+        assertFalse(results.iterator().hasNext());
+        verify(entityManager, never()).createNativeQuery(anyString());
+    }
+
+
+    @Test
+    @DisplayName("getHeatMapCells: bbox with explicit cell size")
+    void getHeatMapCellsWithBbox() {
+        // Arrange:
+        // Two grid cells, the second one holding twice the reports of the first
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {406, -740, 5L});
+        rows.add(new Object[] {407, -739, 10L});
+        String filters = "{\"complaintType\":[\"Noise - Residential\"]}";
+
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.getResultList()).thenReturn(rows);
+
+        // Act
+        List<HeatCell> cells = new ArrayList<>();
+        reportsDaoCustomImpl.getHeatMapCells("-74.1,40.5,-73.7,40.9", "11", "0.1", filters).forEach(cells::add);
+
+        // Assert:
+        // Cells come back centred in their grid square with a weight relative to the fullest cell
+        assertEquals(2, cells.size());
+        assertEquals(40.65, cells.get(0).getLatitude(), 1e-9);
+        assertEquals(-73.95, cells.get(0).getLongitude(), 1e-9);
+        assertEquals(5L, cells.get(0).getCount());
+        assertEquals(0.5, cells.get(0).getWeight(), 1e-9);
+        assertEquals(1.0, cells.get(1).getWeight(), 1e-9);
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(entityManager).createNativeQuery(sqlCaptor.capture());
+        String sql = sqlCaptor.getValue();
+
+        assertTrue(sql.startsWith("SELECT FLOOR(latitude / ?) AS latCell, FLOOR(longitude / ?) AS lonCell, COUNT(*) AS total FROM report"));
+        assertTrue(sql.contains("latitude BETWEEN ? AND ?"));
+        assertTrue(sql.contains("longitude BETWEEN ? AND ?"));
+        assertTrue(sql.contains("(complaintType IN (?))"));
+        assertTrue(sql.endsWith(" GROUP BY latCell, lonCell"));
+        verify(query).setParameter(1, 0.1);
+        verify(query).setParameter(3, 40.5);
+        verify(query).setParameter(6, -73.7);
+        verify(query).setParameter(7, "Noise - Residential");
+    }
+
+
+    @Test
+    @DisplayName("getHeatMapCells: invalid bbox is rejected")
+    void getHeatMapCellsRejectsInvalidBbox() {
+        Iterable<HeatCell> cells = reportsDaoCustomImpl.getHeatMapCells("not,a,bbox", "11", "", "");
+
+        assertFalse(cells.iterator().hasNext());
+        verify(entityManager, never()).createNativeQuery(anyString());
+    }
+
+
+    @Test
+    @DisplayName("getTimeSeries: daily counts over a range, empty days filled in")
+    void getTimeSeriesFillsEmptyBuckets() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {"2025-11-02 00:00:00", 4L});
+        rows.add(new Object[] {"2025-11-04 00:00:00", 7L});
+        String filters = "{\"borough\":[\"Brooklyn\"]}";
+
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.getResultList()).thenReturn(rows);
+
+        List<TimeBucketCount> series = new ArrayList<>();
+        reportsDaoCustomImpl.getTimeSeries("createdAt", "day", "2025-11-01", "2025-11-05", filters).forEach(series::add);
+
+        assertEquals(4, series.size());
+        assertEquals(LocalDateTime.of(2025, 11, 1, 0, 0), series.get(0).getStart());
+        assertEquals(0L, series.get(0).getCount());
+        assertEquals(4L, series.get(1).getCount());
+        assertEquals(0L, series.get(2).getCount());
+        assertEquals(7L, series.get(3).getCount());
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(entityManager).createNativeQuery(sqlCaptor.capture());
+        assertEquals("SELECT DATE_FORMAT(createdAt, '%Y-%m-%d 00:00:00') AS bucket, COUNT(*) AS total FROM report"
+                + " WHERE createdAt IS NOT NULL AND createdAt >= ? AND createdAt < ? AND (borough IN (?))"
+                + " GROUP BY bucket ORDER BY bucket", sqlCaptor.getValue());
+        verify(query).setParameter(1, LocalDateTime.of(2025, 11, 1, 0, 0));
+        verify(query).setParameter(2, LocalDateTime.of(2025, 11, 5, 0, 0));
+        verify(query).setParameter(3, "Brooklyn");
+    }
+
+
+    @Test
+    @DisplayName("getResolutionPercentiles: bucket counts per group folded into percentiles")
+    void getResolutionPercentilesFoldsBuckets() {
+        // NYPD: 90 reports closed in 10 seconds and 10 in 50, DSNY: 3 reports in bucket 100 (144 to 147 seconds)
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {"NYPD", 10, 90L});
+        rows.add(new Object[] {"DSNY", 100, 3L});
+        rows.add(new Object[] {"NYPD", 50, 10L});
+        String filters = "{\"borough\":[\"Brooklyn\"]}";
+
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.getResultList()).thenReturn(rows);
+
+        List<ResolutionPercentiles> groups = new ArrayList<>();
+        reportsDaoCustomImpl.getResolutionPercentiles("agencyName", "", filters).forEach(groups::add);
+
+        assertEquals(2, groups.size());
+        assertEquals("NYPD", groups.get(0).getGroup());
+        assertEquals(100, groups.get(0).getCount());
+        assertEquals(10, groups.get(0).getP50Seconds());
+        assertEquals(10, groups.get(0).getP90Seconds());
+        assertEquals(50, groups.get(0).getP99Seconds());
+        assertEquals(145, groups.get(1).getP50Seconds());
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(entityManager).createNativeQuery(sqlCaptor.capture());
+        String sql = sqlCaptor.getValue();
+        assertTrue(sql.startsWith("SELECT grp, CASE WHEN seconds < 64"));
+        assertTrue(sql.contains(" FROM (SELECT agencyName AS grp, TIMESTAMPDIFF(SECOND, createdAt, closedAt) AS seconds FROM report"
+                + " WHERE createdAt IS NOT NULL AND closedAt >= createdAt AND (borough IN (?))) AS resolved"));
+        assertTrue(sql.endsWith(" GROUP BY grp, bucket"));
+        verify(query).setParameter(1, "Brooklyn");
+
+        List<ResolutionPercentiles> top = new ArrayList<>();
+        reportsDaoCustomImpl.getResolutionPercentiles("agencyName", "1", filters).forEach(top::add);
+        assertEquals(1, top.size());
+        assertFalse(reportsDaoCustomImpl.getResolutionPercentiles("incidentAddress", "", "").iterator().hasNext());
+    }
+
+
+    @Test
+    @DisplayName("getTimeSeries: unknown column, bucket or date is rejected")
+    void getTimeSeriesRejectsBadParameters() {
+        assertFalse(reportsDaoCustomImpl.getTimeSeries("status", "day", "", "", "").iterator().hasNext());
+        assertFalse(reportsDaoCustomImpl.getTimeSeries("createdAt", "fortnight", "", "", "").iterator().hasNext());
+        assertFalse(reportsDaoCustomImpl.getTimeSeries("closedAt", "month", "last year", "", "").iterator().hasNext());
+        verify(entityManager, never()).createNativeQuery(anyString());
+    }
+
+
+    @Test
+    @DisplayName("findReportsAfter: seeks past the last Id")
+    void findReportsAfterSeeksPastId() {
+        List<Report> expected = sampleReports();
+        String filters = "{\"borough\":[\"Brooklyn\"]}";
+
+        when(entityManager.createNativeQuery(anyString(), eq(Report.class))).thenReturn(query);
+        when(query.getResultList()).thenReturn(expected);
+
+        Iterable<Report> results = reportsDaoCustomImpl.findReportsAfter("10", 500, filters);
+
+        assertEquals(expected, results);
+
+        // The page is found by seeking on Id, never by OFFSET
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(entityManager).createNativeQuery(sqlCaptor.capture(), eq(Report.class));
+        String sql = sqlCaptor.getValue();
+
+        assertEquals("SELECT * FROM report WHERE Id > ? AND (borough IN (?)) ORDER BY Id LIMIT ?", sql);
+        verify(query).setParameter(1, 500);
+        verify(query).setParameter(2, "Brooklyn");
+        verify(query).setParameter(3, 10);
+    }
+
+
+    @Test
+    @DisplayName("getFilteredCount: one statement shape per filter signature")
+    void getFilteredCountSharesStatementShape() {
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.getSingleResult()).thenReturn(4L);
+
+        // Same columns in a different order, and three values padded to the same four slots as four values
+        reportsDaoCustomImpl.getFilteredCount("{\"status\":[\"Open\"],\"borough\":[\"Bronx\",\"Queens\",\"Brooklyn\"]}");
+        reportsDaoCustomImpl.getFilteredCount("{\"borough\":[\"Bronx\",\"Queens\",\"Brooklyn\",\"Manhattan\"],\"status\":[\"Closed\"]}");
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(entityManager, times(2)).createNativeQuery(sqlCaptor.capture());
+        assertEquals(
+            "SELECT COUNT(*) FROM report WHERE (borough IN (?, ?, ?, ?)) AND (status IN (?))",
+            sqlCaptor.getAllValues().get(0)
+        );
+        assertEquals(sqlCaptor.getAllValues().get(0), sqlCaptor.getAllValues().get(1));
+
+        // The padding slot repeats the last value instead of widening the match
+        verify(query, times(2)).setParameter(3, "Brooklyn");
+        verify(query).setParameter(4, "Brooklyn");
+    }
+
+
+    @Test
+    @DisplayName("getFilteredCount: unknown filter column is rejected")
+    void getFilteredCountRejectsUnknownColumn() {
+        Integer count = reportsDaoCustomImpl.getFilteredCount("{\"borough) OR (1=1\":[\"x\"]}");
+
+        assertEquals(0, count);
+        verify(entityManager, never()).createNativeQuery(anyString());
+    }
+
+
+    @Test
+    @DisplayName("rollup: covered filters are answered from the cube, other filters from SQL")
+    void rollupAnswersCoveredFilters() {
+        RollupCube cube = new RollupCube();
+        cube.add(new String[] {"NYPD", "Noise - Residential", "Brooklyn", "Open", "Phone"}, LocalDate.of(2025, 11, 3), 7);
+        cube.add(new String[] {"DSNY", "Dirty Condition", "Queens", "Closed", "Online"}, LocalDate.of(2025, 11, 5), 3);
+        when(rollupEngine.getCube()).thenReturn(cube);
+
+        assertEquals(7, reportsDaoCustomImpl.getFilteredCount("{\"borough\":[\"brooklyn\"]}"));
+
+        List<GroupCount> groups = new ArrayList<>();
+        reportsDaoCustomImpl.getGroupedCounts("agencyName", "", "").forEach(groups::add);
+        assertEquals(List.of("NYPD"), groups.get(0).getValues());
+        assertEquals(3, groups.get(1).getCount());
+
+        List<TimeBucketCount> series = new ArrayList<>();
+        reportsDaoCustomImpl.getTimeSeries("createdAt", "week", "", "", "").forEach(series::add);
+        assertEquals(1, series.size());
+        assertEquals(10, series.get(0).getCount());
+        verify(entityManager, never()).createNativeQuery(anyString());
+
+        // city isn't rolled up, so this count goes to SQL
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.getSingleResult()).thenReturn(4L);
+        assertEquals(4, reportsDaoCustomImpl.getFilteredCount("{\"city\":[\"BROOKLYN\"]}"));
+    }
+
+
+    @Test
+    @DisplayName("memory engine: loaded snapshot answers instead of SQL")
+    void snapshotAnswersWhenLoaded() {
+        ReportsSnapshot.Builder builder = new ReportsSnapshot.Builder();
+        sampleReports().forEach(builder::add);
+        when(snapshotEngine.getSnapshot()).thenReturn(builder.build());
+
+        String filters = "{\"complaintType\":[\"Noise - Residential\"]}";
+
+        assertEquals(1, reportsDaoCustomImpl.getFilteredCount(filters));
+        assertEquals(List.of("Brooklyn"), reportsDaoCustomImpl.findColumnValues("borough", ""));
+
+        List<Report> page = new ArrayList<>();
+        reportsDaoCustomImpl.findLimitedReports("10", "0", filters).forEach(page::add);
+        assertEquals(1, page.size());
+        assertEquals(2, page.get(0).getId());
+
+        List<GroupCount> groups = new ArrayList<>();
+        reportsDaoCustomImpl.getGroupedCounts("complaintType", "1", "").forEach(groups::add);
+        assertEquals(2, groups.size());
+        assertEquals(List.of(ReportsDaoCustomImpl.OTHER_LABEL), groups.get(1).getValues());
+
+        verify(entityManager, never()).createNativeQuery(anyString());
+        verify(entityManager, never()).createNativeQuery(anyString(), eq(Report.class));
+    }
+
+
+    @Test
+    @DisplayName("memory engine: uniqueKey filters and lists the same as SQL")
+    void snapshotFiltersOnUniqueKey() {
+        String filters = "{\"uniqueKey\":[\"59000002\"]}";
+
+        when(entityManager.createNativeQuery(anyString())).thenReturn(query);
+        when(query.getSingleResult()).thenReturn(1L);
+        int sqlCount = reportsDaoCustomImpl.getFilteredCount(filters);
+
+        ReportsSnapshot.Builder builder = new ReportsSnapshot.Builder();
+        sampleReports().forEach(builder::add);
+        ReportsSnapshot snapshot = builder.build();
+        when(snapshotEngine.getSnapshot()).thenReturn(snapshot);
+
+        assertTrue(snapshot.hasColumns(List.of("uniqueKey")));
+        assertEquals(sqlCount, reportsDaoCustomImpl.getFilteredCount(filters));
+
+        List<Report> page = new ArrayList<>();
+        reportsDaoCustomImpl.findLimitedReports("10", "0", filters).forEach(page::add);
+        assertEquals(1, page.size());
+        assertEquals(59000002L, page.get(0).getUniqueKey());
+
+        List<GroupCount> groups = new ArrayList<>();
+        reportsDaoCustomImpl.getGroupedCounts("uniqueKey", "", "").forEach(groups::add);
+        assertEquals(2, groups.size());
+
+        // Only the first count went to SQL
+        verify(entityManager, times(1)).createNativeQuery(anyString());
+        verify(entityManager, never()).createNativeQuery(anyString(), eq(Report.class));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import com.example.cis4900.spring.template.reports.export.ExportFormat;
+import com.example.cis4900.spring.template.reports.export.ReportsExporter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class ReportsExporterTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ResultSet rows;
+
+    private ReportsExporter reportsExporter;
+
+    private Map<String, List<String>> filters;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        reportsExporter = new ReportsExporter(dataSource);
+
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(rows);
+
+        // Two rows: the first one needs CSV quoting, the second one has a NULL complaint type and no coordinates
+        int[] row = {0};
+        when(rows.next()).thenAnswer(invocation -> ++row[0] <= 2);
+        when(rows.getObject(anyInt())).thenAnswer(invocation -> {
+            String column = ReportsExporter.EXPORT_COLUMNS.get((int) invocation.getArgument(0) - 1);
+            boolean first = row[0] == 1;
+            switch (column) {
+                case "Id":
+                    return first ? 1 : 2;
+                case "complaintType":
+                    return first ? "Noise, \"Loud\" Music" : null;
+                case "latitude":
+                    return first ? 40.6836 : null;
+                case "longitude":
+                    return first ? -73.976 : null;
+                case "createdAt":
+                    return first ? Timestamp.valueOf("2025-11-05 10:15:00") : null;
+                case "closedAt":
+                    return null;
+                case "uniqueKey":
+                    return first ? 58291034L : null;
+                default:
+                    return "x";
+            }
+        });
+
+        filters = new LinkedHashMap<>();
+        filters.put("borough", List.of("Brooklyn"));
+    }
+
+
+    @Test
+    @DisplayName("export: CSV header, quoting and empty NULLs")
+    void exportCsv() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = reportsExporter.export(ExportFormat.CSV, filters, out);
+
+        assertEquals(2, written);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, lines.length);
+        assertEquals(String.join(",", ReportsExporter.EXPORT_COLUMNS), lines[0]);
+        assertTrue(lines[1].startsWith("1,"));
+        assertTrue(lines[1].contains(",\"Noise, \"\"Loud\"\" Music\","));
+        assertTrue(lines[1].endsWith(",40.6836,-73.976,2025-11-05T10:15:00,,58291034"));
+        assertTrue(lines[2].endsWith(",,,,,"));
+
+        // Rows are streamed from a forward-only cursor with the filter values bound
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sqlCaptor.capture(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY));
+        assertTrue(sqlCaptor.getValue().endsWith(" FROM report WHERE (borough IN (?)) ORDER BY Id"));
+        verify(statement).setFetchSize(Integer.MIN_VALUE);
+        verify(statement).setObject(1, "Brooklyn");
+    }
+
+
+    @Test
+    @DisplayName("export: NDJSON, one object per line with typed values")
+    void exportNdjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = reportsExporter.export(ExportFormat.NDJSON, filters, out);
+
+        assertEquals(2, written);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"Id\":1,"));
+        assertTrue(lines[0].contains("\"complaintType\":\"Noise, \\\"Loud\\\" Music\""));
+        assertTrue(lines[0].endsWith("\"latitude\":40.6836,\"longitude\":-73.976,\"createdAt\":\"2025-11-05T10:15:00\",\"closedAt\":null,\"uniqueKey\":58291034}"));
+        assertTrue(lines[1].contains("\"complaintType\":null"));
+    }
+
+
+    @Test
+    @DisplayName("parse: formats are matched by extension in any case")
+    void parseFormat() {
+        assertEquals(ExportFormat.CSV, ExportFormat.parse("CSV"));
+        assertEquals(ExportFormat.NDJSON, ExportFormat.parse(" ndjson"));
+        assertNull(ExportFormat.parse("xlsx"));
+        assertNull(ExportFormat.parse(null));
+    }
+}
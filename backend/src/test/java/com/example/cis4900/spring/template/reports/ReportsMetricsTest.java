@@ -0,0 +1,111 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.example.cis4900.spring.template.reports.dao.ReportsDao;
+import com.example.cis4900.spring.template.reports.metrics.ReportsMetricsAspect;
+import com.example.cis4900.spring.template.reports.metrics.ResponseSizeFilter;
+import com.example.cis4900.spring.template.reports.models.Report;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+public class ReportsMetricsTest {
+
+    @Mock
+    private ReportsDao reportsDao;
+
+    @InjectMocks
+    private ReportsServiceImpl reportsServiceImpl;
+
+    private SimpleMeterRegistry registry;
+
+    private ReportsService reportsService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        registry = new SimpleMeterRegistry();
+
+        // The service as Spring wires it, behind a proxy with the metrics aspect
+        AspectJProxyFactory factory = new AspectJProxyFactory(reportsServiceImpl);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ReportsMetricsAspect(registry));
+        reportsService = factory.getProxy();
+    }
+
+
+    @Test
+    @DisplayName("aspect: service calls are timed per method, outcome and sorted set of filtered columns")
+    void timesServiceCalls() {
+        when(reportsDao.getFilteredCount(anyString())).thenReturn(12);
+        when(reportsDao.findLimitedReports(anyString(), anyString(), anyString())).thenReturn(List.of(new Report(), new Report(), new Report()));
+        when(reportsDao.getMapMarkers(anyString(), anyString())).thenThrow(new IllegalStateException("down"));
+
+        reportsService.getFilteredCount("{\"status\":[\"Open\"],\"borough\":[\"BROOKLYN\"],\"city\":[]}");
+        reportsService.getFilteredCount("{\"borough\":[\"QUEENS\"],\"status\":[\"Closed\"]}");
+        reportsService.allReports("10", "0", "");
+        reportsService.allReports("10", "0", "{\"noSuchColumn\":[\"x\"]}");
+        assertThrows(IllegalStateException.class, () -> reportsService.displayMap("10", "{not json"));
+
+        Timer counts = registry.find("reports.service").tags("method", "getFilteredCount", "filters", "borough+status", "outcome", "success").timer();
+        assertNotNull(counts);
+        assertEquals(2, counts.count());
+        assertEquals(1, registry.find("reports.service").tags("method", "allReports", "filters", "none").timer().count());
+        assertEquals(1, registry.find("reports.service").tags("method", "allReports", "filters", "invalid").timer().count());
+        assertEquals(1, registry.find("reports.service").tags("method", "displayMap", "outcome", "error").timer().count());
+
+        DistributionSummary rows = registry.find("reports.rows").tags("method", "allReports").summary();
+        assertEquals(2, rows.count());
+        assertEquals(6, rows.totalAmount());
+    }
+
+
+    @Test
+    @DisplayName("filter: response bytes are recorded per URI pattern")
+    void recordsResponseBytes() throws Exception {
+        ResponseSizeFilter filter = new ResponseSizeFilter(registry);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/reports/count");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/reports/count");
+                resp.getOutputStream().write("12345".getBytes());
+                resp.getOutputStream().write('6');
+            }
+        }));
+
+        assertEquals("123456", response.getContentAsString());
+        DistributionSummary bytes = registry.find("reports.response.bytes").tags("uri", "/api/reports/count", "method", "GET").summary();
+        assertEquals(1, bytes.count());
+        assertEquals(6, bytes.totalAmount());
+
+        // Only the API is measured
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/prometheus"), new MockHttpServletResponse(), new MockFilterChain());
+        assertEquals(1, registry.find("reports.response.bytes").summaries().size());
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.example.cis4900.spring.template.reports.cache.ReportsQueryCache;
+import com.example.cis4900.spring.template.reports.dao.ReportsDao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ReportsQueryCacheTest {
+
+    @Mock
+    private ReportsDao reportsDao;
+
+    @InjectMocks
+    private ReportsServiceImpl reportsService;
+
+    private ReportsQueryCache queryCache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        queryCache = new ReportsQueryCache(1000);
+        ReflectionTestUtils.setField(reportsService, "queryCache", queryCache);
+    }
+
+
+    @Test
+    @DisplayName("canonicalFilters: key and value order, duplicates and empty filters don't matter")
+    void canonicalFiltersNormalizes() {
+        String canonical = queryCache.canonicalFilters("{\"status\":[\"Open\"],\"borough\":[\"Queens\",\"Brooklyn\"]}");
+
+        assertEquals(canonical, queryCache.canonicalFilters("{\"borough\":[\"Brooklyn\",\"Queens\",\"Brooklyn\"],\"status\":[\"Open\"]}"));
+        assertEquals(canonical, queryCache.canonicalFilters("{\"borough\":[\"Brooklyn\",\"Queens\"],\"city\":[],\"status\":[\"Open\"]}"));
+        assertNotEquals(canonical, queryCache.canonicalFilters("{\"borough\":[\"Brooklyn\"],\"status\":[\"Open\"]}"));
+
+        assertEquals("", queryCache.canonicalFilters(null));
+        assertEquals("", queryCache.canonicalFilters(""));
+        assertEquals("", queryCache.canonicalFilters("{}"));
+        assertEquals("", queryCache.canonicalFilters("{\"borough\":[]}"));
+    }
+
+
+    @Test
+    @DisplayName("getFilteredCount: equivalent filters hit the cache")
+    void countIsCached() {
+        when(reportsDao.getFilteredCount(anyString())).thenReturn(42);
+
+        assertEquals(42, reportsService.getFilteredCount("{\"status\":[\"Open\",\"Closed\"]}"));
+        assertEquals(42, reportsService.getFilteredCount("{\"status\":[\"Closed\",\"Open\"]}"));
+
+        verify(reportsDao, times(1)).getFilteredCount(anyString());
+        assertEquals(1, queryCache.stats().hitCount());
+        assertEquals(1, queryCache.stats().missCount());
+    }
+
+
+    @Test
+    @DisplayName("getFilteredCount: empty map and no filters share an entry")
+    void emptyFiltersShareEntry() {
+        when(reportsDao.getFilteredCount(any())).thenReturn(7);
+
+        assertEquals(7, reportsService.getFilteredCount(""));
+        assertEquals(7, reportsService.getFilteredCount("{}"));
+        assertEquals(7, reportsService.getFilteredCount(null));
+
+        verify(reportsDao, times(1)).getFilteredCount(any());
+    }
+
+
+    @Test
+    @DisplayName("columnFilter: cached per column and dropped on dataset reload")
+    void columnValuesInvalidatedOnReload() {
+        when(reportsDao.findColumnValues("borough", "")).thenReturn(List.of("Brooklyn", "Queens"));
+        when(reportsDao.findColumnValues("status", "")).thenReturn(List.of("Open"));
+
+        assertIterableEquals(List.of("Brooklyn", "Queens"), reportsService.columnFilter("borough", ""));
+        assertIterableEquals(List.of("Brooklyn", "Queens"), reportsService.columnFilter("borough", ""));
+        assertIterableEquals(List.of("Open"), reportsService.columnFilter("status", ""));
+        verify(reportsDao, times(1)).findColumnValues("borough", "");
+
+        queryCache.invalidate();
+
+        reportsService.columnFilter("borough", "");
+        verify(reportsDao, times(2)).findColumnValues("borough", "");
+    }
+
+
+    @Test
+    @DisplayName("getFilteredCount: a count still running when the dataset changes is not kept")
+    void countRunningDuringReloadIsNotCached() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch reloaded = new CountDownLatch(1);
+        when(reportsDao.getFilteredCount("")).thenAnswer(invocation -> {
+            if (started.getCount() > 0) {
+                // First call: counted from the old data, and only returns once the reload has happened
+                started.countDown();
+                assertTrue(reloaded.await(5, TimeUnit.SECONDS));
+                return 1;
+            }
+            return 2;
+        });
+
+        CompletableFuture<Integer> inFlight = CompletableFuture.supplyAsync(() -> reportsService.getFilteredCount(""));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        queryCache.invalidate();
+        reloaded.countDown();
+
+        assertEquals(1, inFlight.get(5, TimeUnit.SECONDS));
+        assertEquals(2, reportsService.getFilteredCount(""));
+        assertEquals(2, reportsService.getFilteredCount(""));
+        verify(reportsDao, times(2)).getFilteredCount("");
+    }
+}
@@ -16,7 +16,13 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import com.example.cis4900.spring.template.reports.dao.ReportsDao;
+import com.example.cis4900.spring.template.reports.export.ExportFormat;
+import com.example.cis4900.spring.template.reports.models.Estimate;
+import com.example.cis4900.spring.template.reports.models.GroupCount;
+import com.example.cis4900.spring.template.reports.models.GroupEstimate;
+import com.example.cis4900.spring.template.reports.models.HeatCell;
 import com.example.cis4900.spring.template.reports.models.Report;
+import com.example.cis4900.spring.template.reports.models.ReportsPage;
 
 public class ReportsServiceImplTest {
 
@@ -112,6 +118,14 @@ public class ReportsServiceImplTest {
 
     private static final String HEAT_TEST_COLUMN = "createdDate";
 
+    private static final String GROUP_TEST_COLUMNS = "borough,status";
+
+    private static final String GROUP_TEST_LIMIT = "20";
+
+    private static final String HEAT_GRID_BBOX = "-74.1,40.5,-73.7,40.9";
+
+    private static final String HEAT_GRID_ZOOM = "12";
+
 
     @Test
     void allReportsSuccessDefaultValues() {
@@ -311,6 +325,31 @@ public class ReportsServiceImplTest {
         verify(reportsDao).getFilteredCount(null);
     }
 
+    @Test
+    void approximateCountIsExactWithoutSample() {
+        when(reportsDao.getFilteredCount(SAMPLE_FILTER)).thenReturn(5);
+
+        Estimate count = reportsService.approximateCount(SAMPLE_FILTER);
+
+        assertTrue(count.isExact());
+        assertEquals(Estimate.EXACT, count.getSource());
+        assertEquals(5, count.getEstimate());
+        verify(reportsDao).getFilteredCount(SAMPLE_FILTER);
+    }
+
+    @Test
+    void approximateGroupCountsWrapsExactGroupsWithoutSample() {
+        List<GroupCount> groups = List.of(new GroupCount(List.of("BROOKLYN"), 7L));
+        when(reportsDao.getGroupedCounts("borough", "20", EMPTY)).thenReturn(groups);
+
+        Iterable<GroupEstimate> results = reportsService.approximateGroupCounts("borough", "20", EMPTY);
+
+        GroupEstimate first = results.iterator().next();
+        assertEquals(List.of("BROOKLYN"), first.getValues());
+        assertEquals(7, first.getCount().getEstimate());
+        assertTrue(first.getCount().isExact());
+    }
+
     @Test
     void displayMapSuccessDefault() {
         Iterable<Report> sampleReports = sampleList();
@@ -521,5 +560,93 @@ public class ReportsServiceImplTest {
         assertFalse(results.iterator().hasNext());
         verify(reportsDao).getHeatMapData(null, null, null);
     }
-}
 
+    // Grouped counts for the dashboard charts
+
+    @Test
+    void groupCountsSuccessWithFilters() {
+        Iterable<GroupCount> groups = List.of(
+            new GroupCount(List.of("Brooklyn", "Open"), 12),
+            new GroupCount(List.of("OTHER", "OTHER"), 3)
+        );
+        when(reportsDao.getGroupedCounts(GROUP_TEST_COLUMNS, GROUP_TEST_LIMIT, SAMPLE_FILTER)).thenReturn(groups);
+
+        Iterable<GroupCount> results = reportsService.groupCounts(GROUP_TEST_COLUMNS, GROUP_TEST_LIMIT, SAMPLE_FILTER);
+
+        assertNotNull(results);
+        assertEquals(groups, results);
+        verify(reportsDao).getGroupedCounts(GROUP_TEST_COLUMNS, GROUP_TEST_LIMIT, SAMPLE_FILTER);
+    }
+
+    @Test
+    void groupCountsReturnsEmptyWhenNoData() {
+        Iterable<GroupCount> emptyGroups = new ArrayList<>();
+        when(reportsDao.getGroupedCounts(GROUP_TEST_COLUMNS, GROUP_TEST_LIMIT, EMPTY)).thenReturn(emptyGroups);
+
+        Iterable<GroupCount> results = reportsService.groupCounts(GROUP_TEST_COLUMNS, GROUP_TEST_LIMIT, EMPTY);
+
+        assertNotNull(results);
+        assertFalse(results.iterator().hasNext());
+        verify(reportsDao).getGroupedCounts(GROUP_TEST_COLUMNS, GROUP_TEST_LIMIT, EMPTY);
+    }
+
+    // Heatmap grid binning
+
+    @Test
+    void heatMapGridSuccessWithFilters() {
+        Iterable<HeatCell> cells = List.of(new HeatCell(40.65, -73.95, 5, 1.0));
+        when(reportsDao.getHeatMapCells(HEAT_GRID_BBOX, HEAT_GRID_ZOOM, EMPTY, SAMPLE_FILTER)).thenReturn(cells);
+
+        Iterable<HeatCell> results = reportsService.heatMapGrid(HEAT_GRID_BBOX, HEAT_GRID_ZOOM, EMPTY, SAMPLE_FILTER);
+
+        assertNotNull(results);
+        assertEquals(cells, results);
+        verify(reportsDao).getHeatMapCells(HEAT_GRID_BBOX, HEAT_GRID_ZOOM, EMPTY, SAMPLE_FILTER);
+    }
+
+    // Keyset pagination for the table
+
+    @Test
+    void reportsPageOffsetModeReturnsCursor() {
+        Iterable<Report> sampleReports = sampleList();
+        when(reportsDao.findLimitedReports("2", ALLREPORTS_DEFAULT_START, EMPTY)).thenReturn(sampleReports);
+
+        ReportsPage page = reportsService.reportsPage("2", ALLREPORTS_DEFAULT_START, EMPTY, EMPTY);
+
+        // A full page points at the last report on it
+        assertEquals(sampleReports, page.getReports());
+        assertEquals(Integer.valueOf(2), ReportsCursor.decode(page.getNextCursor()));
+        verify(reportsDao).findLimitedReports("2", ALLREPORTS_DEFAULT_START, EMPTY);
+    }
+
+    @Test
+    void reportsPageCursorModeSeeksPastLastId() {
+        Iterable<Report> filteredReports = filteredSampleList();
+        when(reportsDao.findReportsAfter(ALLREPORTS_DEFAULT_LIMIT, 1, SAMPLE_FILTER)).thenReturn(filteredReports);
+
+        ReportsPage page = reportsService.reportsPage(ALLREPORTS_DEFAULT_LIMIT, EMPTY, ReportsCursor.encode(1), SAMPLE_FILTER);
+
+        // A short page is the last one, so there is no cursor after it
+        assertEquals(filteredReports, page.getReports());
+        assertNull(page.getNextCursor());
+        verify(reportsDao).findReportsAfter(ALLREPORTS_DEFAULT_LIMIT, 1, SAMPLE_FILTER);
+        verify(reportsDao, never()).findLimitedReports(any(), any(), any());
+    }
+
+    @Test
+    void reportsPageInvalidCursorReturnsEmptyPage() {
+        ReportsPage page = reportsService.reportsPage(ALLREPORTS_DEFAULT_LIMIT, EMPTY, BAD_FILTER, EMPTY);
+
+        assertFalse(page.getReports().iterator().hasNext());
+        assertNull(page.getNextCursor());
+        verifyNoInteractions(reportsDao);
+    }
+
+
+    @Test
+    @DisplayName("exportReports: unknown filter column is rejected before anything is streamed")
+    void exportReportsRejectsUnknownColumn() {
+        assertNull(reportsService.exportReports(ExportFormat.CSV, "{\"borough; DROP TABLE report\":[\"x\"]}"));
+        assertNotNull(reportsService.exportReports(ExportFormat.CSV, "{\"borough\":[\"Brooklyn\"]}"));
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.example.cis4900.spring.template.reports.analytics.ResolutionHistogram;
+import com.example.cis4900.spring.template.reports.memory.ReportsSnapshot;
+import com.example.cis4900.spring.template.reports.models.Report;
+import com.example.cis4900.spring.template.reports.time.TimeBucket;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ReportsSnapshotTest {
+
+    private ReportsSnapshot snapshot;
+
+    private static Report report(int id, String complaintType, String borough, String status, Double latitude, Double longitude) {
+        Report report = new Report();
+        report.setId(id);
+        report.setComplaintType(complaintType);
+        report.setAgencyName("NYPD");
+        report.setBorough(borough);
+        report.setStatus(status);
+        report.setLatitude(latitude);
+        report.setLongitude(longitude);
+        report.setCreatedAt(LocalDateTime.of(2025, 11, id, 9 + id, 30));
+        return report;
+    }
+
+    @BeforeEach
+    void setUp() {
+        // Rows go in by Id, with one borough spelled in a different case and one row without a location
+        ReportsSnapshot.Builder builder = new ReportsSnapshot.Builder();
+        builder.add(report(1, "Noise - Residential", "Brooklyn", "Open", 40.68, -73.97));
+        builder.add(report(2, "Illegal Parking", "Queens", "Closed", 40.72, -73.79));
+        builder.add(report(3, "Noise - Residential", "BROOKLYN", "Closed", 40.69, -73.96));
+        builder.add(report(5, "Noise - Residential", "Queens", "Open", null, null));
+        builder.add(report(8, "Blocked Driveway", null, "Open", 40.85, -73.88));
+        snapshot = builder.build();
+    }
+
+
+    @Test
+    @DisplayName("count: IN within a column, AND across columns, case-insensitive like MariaDB")
+    void countCombinesFilters() {
+        assertEquals(5, snapshot.count(Map.of()));
+        assertEquals(2, snapshot.count(Map.of("borough", List.of("brooklyn"))));
+        assertEquals(4, snapshot.count(Map.of("borough", List.of("Brooklyn", "Queens"))));
+        assertEquals(1, snapshot.count(Map.of("borough", List.of("Brooklyn"), "status", List.of("Open"))));
+        assertEquals(0, snapshot.count(Map.of("borough", List.of("Staten Island"))));
+    }
+
+
+    @Test
+    @DisplayName("count: indexed and scanned columns together")
+    void countMixesIndexAndScan() {
+        // Id has no bitmap, so it is checked row by row on the rows the borough bitmap selects
+        assertEquals(1, snapshot.count(Map.of("borough", List.of("Queens"), "Id", List.of("5", "8"))));
+        assertEquals(2, snapshot.count(Map.of("latitude", List.of("40.68", "40.72"))));
+    }
+
+
+    @Test
+    @DisplayName("count: unknown column fails like the SQL would")
+    void countRejectsUnknownColumn() {
+        assertThrows(IllegalArgumentException.class, () -> snapshot.count(Map.of("nope", List.of("x"))));
+    }
+
+
+    @Test
+    @DisplayName("findReports: offset and keyset paging in Id order")
+    void findReportsPages() {
+        List<Report> page = snapshot.findReports(Map.of("status", List.of("Open")), Integer.MIN_VALUE, 1, 2);
+
+        assertEquals(2, page.size());
+        assertEquals(5, page.get(0).getId());
+        assertEquals(8, page.get(1).getId());
+        assertNull(page.get(0).getLatitude());
+
+        List<Report> after = snapshot.findReports(Map.of(), 3, 0, 10);
+        assertEquals(2, after.size());
+        assertEquals(5, after.get(0).getId());
+    }
+
+
+    @Test
+    @DisplayName("distinctValues: first-seen order with NULL and case variants folded")
+    void distinctValuesFoldsCollation() {
+        List<Object> values = snapshot.distinctValues("borough", Map.of());
+
+        List<Object> expected = new ArrayList<>();
+        expected.add("Brooklyn");
+        expected.add("Queens");
+        expected.add(null);
+        assertEquals(expected, values);
+    }
+
+
+    @Test
+    @DisplayName("groupCounts: largest group first, ties in first-seen order")
+    void groupCountsOrdersByCount() {
+        List<Object[]> groups = snapshot.groupCounts(List.of("complaintType", "status"), Map.of());
+
+        assertEquals(4, groups.size());
+        assertArrayEquals(new Object[] {"Noise - Residential", "Open", 2L}, groups.get(0));
+        assertArrayEquals(new Object[] {"Illegal Parking", "Closed", 1L}, groups.get(1));
+        assertArrayEquals(new Object[] {"Noise - Residential", "Closed", 1L}, groups.get(2));
+        assertArrayEquals(new Object[] {"Blocked Driveway", "Open", 1L}, groups.get(3));
+    }
+
+
+    @Test
+    @DisplayName("values: single column as values, several columns as rows")
+    void valuesMatchNativeQueryShape() {
+        List<Object> single = snapshot.values(List.of("complaintType"), Map.of(), 2);
+        assertEquals(List.of("Noise - Residential", "Illegal Parking"), single);
+
+        List<Object> markers = snapshot.values(List.of("Id", "latitude", "longitude"), Map.of("borough", List.of("Queens")), 10);
+        assertEquals(2, markers.size());
+        assertArrayEquals(new Object[] {2, 40.72, -73.79}, (Object[]) markers.get(0));
+        assertArrayEquals(new Object[] {5, null, null}, (Object[]) markers.get(1));
+    }
+
+
+    @Test
+    @DisplayName("timeSeries: buckets in time order, ranges are [from, to)")
+    void timeSeriesCountsBuckets() {
+        // 2025-11-03 is a Monday, so reports 1 and 2 fall in the week before it and 3, 5 and 8 in its week
+        List<Object[]> weeks = snapshot.timeSeries("createdAt", TimeBucket.WEEK, null, null, Map.of());
+        assertEquals(2, weeks.size());
+        assertArrayEquals(new Object[] {"2025-10-27 00:00:00", 2L}, weeks.get(0));
+        assertArrayEquals(new Object[] {"2025-11-03 00:00:00", 3L}, weeks.get(1));
+
+        List<Object[]> days = snapshot.timeSeries("createdAt", TimeBucket.DAY, LocalDateTime.of(2025, 11, 2, 0, 0),
+                LocalDateTime.of(2025, 11, 8, 17, 30), Map.of("borough", List.of("Queens")));
+        assertEquals(2, days.size());
+        assertArrayEquals(new Object[] {"2025-11-02 00:00:00", 1L}, days.get(0));
+        assertArrayEquals(new Object[] {"2025-11-05 00:00:00", 1L}, days.get(1));
+
+        assertEquals(1, snapshot.timeSeries("createdAt", TimeBucket.MONTH, null, null, Map.of()).size());
+        assertTrue(snapshot.timeSeries("closedAt", TimeBucket.HOUR, null, null, Map.of()).isEmpty());
+        assertEquals(LocalDateTime.of(2025, 11, 8, 17, 30), snapshot.findReports(Map.of(), 5, 0, 1).get(0).getCreatedAt());
+        assertEquals(TimeBucket.toEpochSecond(LocalDateTime.of(2024, 2, 1, 0, 0)),
+                TimeBucket.MONTH.floor(TimeBucket.toEpochSecond(LocalDateTime.of(2024, 2, 29, 23, 59))));
+    }
+
+
+    @Test
+    @DisplayName("text columns: addresses filter, group and round-trip without a dictionary")
+    void textColumnsFoldLikeMariaDb() {
+        ReportsSnapshot.Builder builder = new ReportsSnapshot.Builder();
+        String[] values = new String[ReportsSnapshot.STRING_COLUMNS.size()];
+        int address = ReportsSnapshot.STRING_COLUMNS.indexOf("incidentAddress");
+        values[address] = "12 Main St";
+        builder.add(1, values, null, null);
+        values[address] = "12 MAIN ST ";
+        builder.add(2, values, null, null);
+        values[address] = null;
+        builder.add(3, values, null, null);
+        values[address] = "40 Elm Ave";
+        builder.add(4, values, null, null);
+        ReportsSnapshot texts = builder.build();
+
+        assertEquals(2, texts.count(Map.of("incidentAddress", List.of("12 main st"))));
+        assertEquals(List.of("12 Main St", "40 Elm Ave"), texts.distinctValues("incidentAddress", Map.of("Id", List.of("1", "2", "4"))));
+        assertEquals(3, texts.groupCounts(List.of("incidentAddress"), Map.of()).size());
+        assertEquals("12 MAIN ST ", texts.findReports(Map.of(), 1, 0, 1).get(0).getIncidentAddress());
+    }
+
+
+    @Test
+    @DisplayName("resolutionBuckets: closed reports bucketed per group")
+    void resolutionBucketsPerGroup() {
+        ReportsSnapshot.Builder builder = new ReportsSnapshot.Builder();
+        String[] values = new String[ReportsSnapshot.STRING_COLUMNS.size()];
+        LocalDateTime created = LocalDateTime.of(2025, 11, 1, 8, 0);
+        values[2] = "NYPD";
+        builder.add(1, values, null, null, created, created.plusSeconds(30));
+        builder.add(2, values, null, null, created, created.plusSeconds(30));
+        builder.add(3, values, null, null, created, null);
+        builder.add(4, values, null, null, created, created.minusDays(1));
+        values[2] = "DSNY";
+        builder.add(5, values, null, null, created, created.plusHours(2));
+
+        List<Object[]> rows = builder.build().resolutionBuckets("agencyName", Map.of());
+        rows.sort((left, right) -> left[0].toString().compareTo(right[0].toString()));
+
+        assertEquals(2, rows.size());
+        assertArrayEquals(new Object[] {"DSNY", ResolutionHistogram.bucketOf(7200), 1L}, rows.get(0));
+        assertArrayEquals(new Object[] {"NYPD", 30, 2L}, rows.get(1));
+    }
+
+
+    @Test
+    @DisplayName("heatCells: rows without a location or outside the bbox are skipped")
+    void heatCellsBinsLocatedRows() {
+        List<Object[]> cells = snapshot.heatCells(0.1, new double[] {-74.0, 40.6, -73.9, 40.7}, Map.of());
+
+        assertEquals(1, cells.size());
+        assertArrayEquals(new Object[] {406L, -740L, 2L}, cells.get(0));
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.cis4900.spring.template.reports.cache.ReportsQueryCache;
+import com.example.cis4900.spring.template.reports.dao.ReportsDao;
+import com.example.cis4900.spring.template.reports.models.HeatCell;
+import com.example.cis4900.spring.template.reports.models.Report;
+import com.example.cis4900.spring.template.reports.tiles.ReportsTileService;
+import com.example.cis4900.spring.template.reports.tiles.VectorTileEncoder;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class ReportsTileServiceTest {
+
+    @Mock
+    private ReportsDao reportsDao;
+
+    private DatasetVersion datasetVersion;
+
+    private ReportsTileService tileService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        datasetVersion = new DatasetVersion();
+        tileService = new ReportsTileService(reportsDao, new ReportsQueryCache(1000), datasetVersion, 1 << 20);
+    }
+
+
+    @Test
+    @DisplayName("VectorTileEncoder: one point feature")
+    void encodeSinglePoint() {
+        VectorTileEncoder encoder = new VectorTileEncoder("r", 4096);
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("k", "v");
+        encoder.addPoint(7, 1, 2, attributes);
+
+        // Tile.layers { version, name, features { id, tags, type, geometry }, keys, values, extent }
+        byte[] expected = {
+            0x1A, 0x1F,
+            0x78, 2,
+            0x0A, 1, 'r',
+            0x12, 13, 0x08, 7, 0x12, 2, 0, 0, 0x18, 1, 0x22, 3, 9, 2, 4,
+            0x1A, 1, 'k',
+            0x22, 3, 0x0A, 1, 'v',
+            0x28, (byte) 0x80, 0x20,
+        };
+        assertArrayEquals(expected, encoder.encode());
+        assertEquals(0, new VectorTileEncoder("r", 4096).encode().length);
+    }
+
+
+    @Test
+    @DisplayName("tile: individual reports at high zoom, cached until the dataset reloads")
+    void tileHighZoomIsCached() {
+        // Arrange:
+        // Tile 15/9650/12323 covers part of Brooklyn
+        List<Object[]> markers = new ArrayList<>();
+        markers.add(new Object[] {1, "Noise - Residential", "Loud Music/Party", "NYPD", 40.6836, -73.976});
+        // The DAO hands back Object[] rows behind its Iterable<Report> type, so the stub is set without the typed when
+        doReturn(markers).when(reportsDao).getMapMarkersInBox(anyString(), anyString(), anyString());
+
+        String filters = "{\"borough\":[\"Brooklyn\"]}";
+
+        // Act
+        byte[] tile = tileService.tile(15, 9650, 12323, filters);
+        byte[] again = tileService.tile(15, 9650, 12323, "{\"borough\":[\"Brooklyn\",\"Brooklyn\"]}");
+
+        // Assert:
+        // The tile carries the report's attributes and the same filters written differently hit the cache
+        assertSame(tile, again);
+        String text = new String(tile, StandardCharsets.UTF_8);
+        assertTrue(text.contains(ReportsTileService.LAYER_NAME));
+        assertTrue(text.contains("Noise - Residential"));
+
+        ArgumentCaptor<String> bboxCaptor = ArgumentCaptor.forClass(String.class);
+        verify(reportsDao, times(1)).getMapMarkersInBox(bboxCaptor.capture(), eq("5000"), eq(filters));
+        String[] bbox = bboxCaptor.getValue().split(",");
+        assertTrue(Double.parseDouble(bbox[0]) < -73.976 && Double.parseDouble(bbox[2]) > -73.976);
+        assertTrue(Double.parseDouble(bbox[1]) < 40.6836 && Double.parseDouble(bbox[3]) > 40.6836);
+
+        // A reload bumps the dataset version, so the tile is rendered again
+        datasetVersion.bump();
+        tileService.tile(15, 9650, 12323, filters);
+        verify(reportsDao, times(2)).getMapMarkersInBox(anyString(), anyString(), anyString());
+    }
+
+
+    @Test
+    @DisplayName("tile: clusters below the individual zoom, drawn only by the tile holding their centre")
+    void tileLowZoomClusters() {
+        List<HeatCell> cells = new ArrayList<>();
+        cells.add(new HeatCell(40.7, -73.9, 120, 1.0));
+        cells.add(new HeatCell(-10.0, -73.9, 5, 0.1));
+        when(reportsDao.getHeatMapCells(anyString(), anyString(), anyString(), anyString())).thenReturn(cells);
+
+        // Tile 2/1/1 covers longitude -90 to 0 and latitude 0 to about 66.5
+        VectorTileEncoder expected = new VectorTileEncoder(ReportsTileService.LAYER_NAME, ReportsTileService.EXTENT);
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("count", 120L);
+        expected.addPoint(-1, 733, 2065, attributes);
+
+        // The cell south of the equator belongs to the tile below
+        assertArrayEquals(expected.encode(), tileService.tile(2, 1, 1, ""));
+        verify(reportsDao).getHeatMapCells(anyString(), eq(""), eq(Double.toString(90.0 / 16)), eq(""));
+        verify(reportsDao, never()).getMapMarkersInBox(anyString(), anyString(), anyString());
+    }
+
+
+    @Test
+    @DisplayName("tile: addresses outside the tile pyramid are rejected")
+    void tileRejectsInvalidAddress() {
+        assertNull(tileService.tile(2, 4, 0, ""));
+        assertNull(tileService.tile(-1, 0, 0, ""));
+        assertNull(tileService.tile(23, 0, 0, ""));
+        verifyNoInteractions(reportsDao);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.example.cis4900.spring.template.reports.analytics.ResolutionHistogram;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ResolutionHistogramTest {
+
+    @Test
+    @DisplayName("percentile: within 3% of the sorted values, exact below a minute")
+    void percentilesMatchSortedValues() {
+        // Resolution times from seconds to months, skewed towards the short end like real reports
+        Random random = new Random(11);
+        long[] seconds = new long[100000];
+        ResolutionHistogram histogram = new ResolutionHistogram();
+        for (int i = 0; i < seconds.length; i++) {
+            seconds[i] = (long) Math.exp(random.nextDouble() * 16);
+            histogram.record(seconds[i]);
+        }
+        Arrays.sort(seconds);
+
+        assertEquals(seconds.length, histogram.getCount());
+        for (double fraction : new double[] {0.1, 0.5, 0.9, 0.99, 0.999}) {
+            long exact = seconds[(int) Math.ceil(fraction * seconds.length) - 1];
+            long estimate = histogram.percentile(fraction);
+            assertEquals(exact, estimate, Math.max(0, exact * 0.03), "p" + fraction);
+        }
+
+        ResolutionHistogram small = new ResolutionHistogram();
+        for (long value : new long[] {3, 7, 7, 42}) {
+            small.record(value);
+        }
+        assertEquals(7, small.percentile(0.5));
+        assertEquals(42, small.percentile(0.99));
+        assertEquals(0, new ResolutionHistogram().percentile(0.5));
+    }
+
+
+    @Test
+    @DisplayName("merge: two halves add up to the whole")
+    void mergeAddsBuckets() {
+        ResolutionHistogram whole = new ResolutionHistogram();
+        ResolutionHistogram left = new ResolutionHistogram();
+        ResolutionHistogram right = new ResolutionHistogram();
+        for (long value = 0; value < 200000; value += 7) {
+            whole.record(value);
+            (value % 2 == 0 ? left : right).record(value);
+        }
+        left.merge(right);
+
+        assertEquals(whole.getCount(), left.getCount());
+        for (double fraction : new double[] {0.01, 0.5, 0.9, 0.99}) {
+            assertEquals(whole.percentile(fraction), left.percentile(fraction));
+        }
+    }
+
+
+    @Test
+    @DisplayName("bucketOf: the SQL bucket expression picks the same bucket")
+    void sqlBucketMatchesJava() {
+        assertEquals("CASE WHEN s < 64 THEN s ELSE ((LENGTH(BIN(s)) - 1) - 4) * 32 + (s >> ((LENGTH(BIN(s)) - 1) - 5)) - 32 END",
+                ResolutionHistogram.bucketSql("s"));
+
+        // The expression evaluated the way the database does, with BIN giving the binary digits
+        Random random = new Random(3);
+        for (int i = 0; i < 10000; i++) {
+            long value = i < 200 ? i : random.nextLong() >>> (28 + random.nextInt(35));
+            long bucket = value;
+            if (value >= 64) {
+                int exponent = Long.toBinaryString(value).length() - 1;
+                bucket = (exponent - 4) * 32L + (value >> (exponent - 5)) - 32;
+            }
+            assertEquals(Math.min(ResolutionHistogram.BUCKETS - 1, bucket), ResolutionHistogram.bucketOf(value), "value " + value);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.example.cis4900.spring.template.reports.rollup.RollupCube;
+import com.example.cis4900.spring.template.reports.time.TimeBucket;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class RollupCubeTest {
+
+    private static final String[] AGENCIES = {"NYPD", "DSNY", "HPD", "DOT"};
+
+    private static final String[] BOROUGHS = {"Brooklyn", "Queens", "Bronx", null};
+
+    private static final int SIZE = 20000;
+
+    private RollupCube cube;
+
+    private String[][] rows;
+
+    private LocalDate[] days;
+
+    @BeforeEach
+    void setUp() {
+        // Random reports over 2024, one borough sometimes spelled in capitals
+        Random random = new Random(5);
+        cube = new RollupCube();
+        rows = new String[SIZE][];
+        days = new LocalDate[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            String borough = BOROUGHS[random.nextInt(BOROUGHS.length)];
+            if ("Brooklyn".equals(borough) && random.nextInt(10) == 0) {
+                borough = "BROOKLYN ";
+            }
+            rows[i] = new String[] {AGENCIES[random.nextInt(AGENCIES.length)], "Type " + random.nextInt(40), borough,
+                random.nextBoolean() ? "Open" : "Closed", "Phone"};
+            days[i] = random.nextInt(50) == 0 ? null : LocalDate.of(2024, 1, 1).plusDays(random.nextInt(366));
+            assertTrue(cube.add(rows[i], days[i], 1));
+        }
+    }
+
+
+    @Test
+    @DisplayName("count and groupCounts: same answers as counting the rows")
+    void countsMatchRows() {
+        Map<String, List<String>> filters = Map.of("borough", List.of("brooklyn", "Queens"), "status", List.of("Open"));
+
+        long expected = 0;
+        Map<String, Long> perAgency = new HashMap<>();
+        for (String[] row : rows) {
+            boolean borough = row[2] != null && (row[2].trim().equalsIgnoreCase("brooklyn") || row[2].equals("Queens"));
+            if (borough && row[3].equals("Open")) {
+                expected++;
+                perAgency.merge(row[0], 1L, Long::sum);
+            }
+        }
+
+        assertEquals(SIZE, cube.total());
+        assertEquals(SIZE, cube.count(Map.of()));
+        assertEquals(expected, cube.count(filters));
+        assertEquals(0, cube.count(Map.of("borough", List.of("Manhattan"))));
+
+        List<Object[]> groups = cube.groupCounts(List.of("agencyName"), filters);
+        assertEquals(perAgency.size(), groups.size());
+        for (int i = 0; i < groups.size(); i++) {
+            assertEquals(perAgency.get(groups.get(i)[0]), groups.get(i)[1]);
+            assertTrue(i == 0 || (Long) groups.get(i - 1)[1] >= (Long) groups.get(i)[1]);
+        }
+
+        // The borough spelled two ways is one group, NULL is a group of its own
+        List<Object[]> boroughs = cube.groupCounts(List.of("borough", "status"), Map.of());
+        assertEquals(8, boroughs.size());
+        assertTrue(boroughs.stream().anyMatch(row -> row[0] == null));
+        assertEquals(2, boroughs.stream().filter(row -> row[0] != null && row[0].toString().trim().equalsIgnoreCase("brooklyn")).count());
+    }
+
+
+    @Test
+    @DisplayName("timeSeries: createdAt days rolled into weeks and months over whole-day ranges")
+    void timeSeriesMatchesRows() {
+        LocalDateTime from = LocalDateTime.of(2024, 3, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 6, 1, 0, 0);
+        Map<String, List<String>> filters = Map.of("agencyName", List.of("NYPD"));
+
+        long[] months = new long[3];
+        for (int i = 0; i < SIZE; i++) {
+            if (days[i] != null && rows[i][0].equals("NYPD") && !days[i].isBefore(from.toLocalDate()) && days[i].isBefore(to.toLocalDate())) {
+                months[days[i].getMonthValue() - 3]++;
+            }
+        }
+
+        List<Object[]> series = cube.timeSeries(TimeBucket.MONTH, from, to, filters);
+        assertEquals(3, series.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(String.format("2024-%02d-01 00:00:00", i + 3), series.get(i)[0]);
+            assertEquals(months[i], series.get(i)[1]);
+        }
+
+        long weekly = cube.timeSeries(TimeBucket.WEEK, null, null, Map.of()).stream().mapToLong(row -> (Long) row[1]).sum();
+        long dated = Arrays.stream(days).filter(day -> day != null).count();
+        assertEquals(dated, weekly);
+
+        assertTrue(RollupCube.coversSeries("createdAt", TimeBucket.DAY, from, to));
+        assertFalse(RollupCube.coversSeries("createdAt", TimeBucket.HOUR, from, to));
+        assertFalse(RollupCube.coversSeries("createdAt", TimeBucket.DAY, from.plusHours(6), to));
+        assertFalse(RollupCube.coversSeries("closedAt", TimeBucket.DAY, from, to));
+    }
+
+
+    @Test
+    @DisplayName("add: incremental rows, uncovered filters and overflowing dimensions")
+    void addsIncrementally() {
+        cube.add(new String[] {"NYPD", "Type 1", "Brooklyn", "Open", "Phone"}, LocalDate.of(2025, 1, 1), 5);
+        assertEquals(SIZE + 5, cube.total());
+        assertEquals(5, cube.count(Map.of("agencyName", List.of("nypd"))) - countAgency("NYPD"));
+
+        assertTrue(RollupCube.covers(Map.of("borough", List.of("Queens"), "city", List.of())));
+        assertFalse(RollupCube.covers(Map.of("city", List.of("BROOKLYN"))));
+
+        // Agency codes have 9 bits, the 512th distinct agency no longer fits
+        RollupCube small = new RollupCube();
+        for (int i = 0; i < 511; i++) {
+            assertTrue(small.add(new String[] {"Agency " + i, null, null, null, null}, null, 1));
+        }
+        assertFalse(small.add(new String[] {"Agency 511", null, null, null, null}, null, 1));
+        assertFalse(small.isUsable());
+    }
+
+    private long countAgency(String agency) {
+        long count = 0;
+        for (String[] row : rows) {
+            if (row[0].equals(agency)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
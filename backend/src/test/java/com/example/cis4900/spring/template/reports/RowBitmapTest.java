@@ -0,0 +1,77 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import com.example.cis4900.spring.template.reports.memory.RowBitmap;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class RowBitmapTest {
+
+    // Builds the same rows as a RowBitmap and as a java.util.BitSet to check against
+    private static RowBitmap build(BitSet rows) {
+        RowBitmap.Builder builder = new RowBitmap.Builder();
+        rows.stream().forEach(builder::add);
+        return builder.build();
+    }
+
+    // Every 7th row of the first chunk (dense, stored as a bitset) plus a sparse scattering further on (stored as arrays)
+    private static BitSet sample(long seed) {
+        BitSet rows = new BitSet();
+        Random random = new Random(seed);
+        for (int row = 0; row < 65536; row++) {
+            if (random.nextInt(7) == 0) {
+                rows.set(row);
+            }
+        }
+        for (int i = 0; i < 3000; i++) {
+            rows.set(65536 + random.nextInt(400000));
+        }
+        return rows;
+    }
+
+
+    @Test
+    @DisplayName("cardinality and toArray match the rows added")
+    void buildKeepsRows() {
+        BitSet rows = sample(1);
+        RowBitmap bitmap = build(rows);
+
+        assertEquals(rows.cardinality(), bitmap.cardinality());
+        assertArrayEquals(rows.stream().toArray(), bitmap.toArray());
+        assertTrue(bitmap.contains(rows.nextSetBit(70000)));
+        assertFalse(bitmap.contains(rows.nextClearBit(70000)));
+    }
+
+
+    @Test
+    @DisplayName("and/or across array and bitset chunks")
+    void andOrMatchBitSet() {
+        BitSet left = sample(2);
+        BitSet right = sample(3);
+
+        BitSet and = (BitSet) left.clone();
+        and.and(right);
+        BitSet or = (BitSet) left.clone();
+        or.or(right);
+
+        assertArrayEquals(and.stream().toArray(), build(left).and(build(right)).toArray());
+        assertArrayEquals(or.stream().toArray(), build(left).or(build(right)).toArray());
+        assertEquals(and.cardinality(), build(left).and(build(right)).cardinality());
+    }
+
+
+    @Test
+    @DisplayName("empty bitmap")
+    void emptyBitmap() {
+        RowBitmap bitmap = build(sample(4));
+
+        assertTrue(RowBitmap.EMPTY.isEmpty());
+        assertEquals(0, bitmap.and(RowBitmap.EMPTY).cardinality());
+        assertEquals(bitmap.cardinality(), RowBitmap.EMPTY.or(bitmap).cardinality());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.cis4900.spring.template.reports;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.cis4900.spring.template.reports.ingest.CsvReader;
+import com.example.cis4900.spring.template.reports.ingest.ReportRecordParser;
+import com.example.cis4900.spring.template.reports.models.Report;
+import com.example.cis4900.spring.template.reports.synthetic.SyntheticDataset;
+import com.example.cis4900.spring.template.reports.synthetic.SyntheticReportGenerator;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SyntheticReportGeneratorTest {
+    private static final LocalDate FROM = LocalDate.of(2023, 1, 1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("chunk: the same seed gives the same rows, whichever chunk is generated first")
+    void chunksAreDeterministic() {
+        SyntheticReportGenerator generator = new SyntheticReportGenerator(7, FROM, 365);
+        List<Report> last = generator.chunk(2, 25000);
+        List<Report> first = generator.chunk(0, 25000);
+        List<Report> again = new SyntheticReportGenerator(7, FROM, 365).chunk(0, 25000);
+
+        assertEquals(3, SyntheticReportGenerator.chunks(25000));
+        assertEquals(5000, last.size());
+        assertEquals(SyntheticReportGenerator.FIRST_UNIQUE_KEY + 20000, last.get(0).getUniqueKey());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).toString(), again.get(i).toString());
+        }
+        assertNotEquals(first.get(0).toString(), new SyntheticReportGenerator(8, FROM, 365).chunk(0, 25000).get(0).toString());
+    }
+
+
+    @Test
+    @DisplayName("chunk: skewed complaint types, their agencies, NYC coordinates and closed dates after created dates")
+    void distributionsAreRealistic() {
+        List<Report> reports = new SyntheticReportGenerator(311, FROM, 365).chunk(0, 10000);
+        List<String> types = SyntheticReportGenerator.complaintTypes();
+        Map<String, Integer> byType = new HashMap<>();
+        Map<String, Integer> nypdByType = new HashMap<>();
+        int closed = 0;
+        List<Long> hours = new ArrayList<>();
+
+        for (Report report : reports) {
+            byType.merge(report.getComplaintType(), 1, Integer::sum);
+            if ("NYPD".equals(report.getAgencyName())) {
+                nypdByType.merge(report.getComplaintType(), 1, Integer::sum);
+            }
+            assertTrue(SyntheticReportGenerator.boroughs().contains(report.getBorough()));
+            if (report.getLatitude() != null) {
+                assertTrue(report.getLatitude() >= 40.49 && report.getLatitude() <= 40.92, report.toString());
+                assertTrue(report.getLongitude() >= -74.26 && report.getLongitude() <= -73.70, report.toString());
+            }
+            LocalDateTime created = report.getCreatedAt();
+            assertFalse(created.isBefore(FROM.atStartOfDay()));
+            assertTrue(created.isBefore(FROM.plusDays(365).atStartOfDay()));
+            if (report.getClosedAt() != null) {
+                closed++;
+                assertEquals("Closed", report.getStatus());
+                assertTrue(report.getClosedAt().isAfter(created));
+                hours.add(Duration.between(created, report.getClosedAt()).toHours());
+            } else {
+                assertNotEquals("Closed", report.getStatus());
+            }
+        }
+
+        // Zipf: the most common type is far more common than the tenth
+        assertTrue(byType.get(types.get(0)) > 5 * byType.getOrDefault(types.get(9), 1), byType.toString());
+        // Noise is handled by the police, heat by housing, apart from the odd misrouted request
+        assertTrue(nypdByType.getOrDefault("Noise - Residential", 0) > 0.95 * byType.get("Noise - Residential"));
+        assertTrue(nypdByType.getOrDefault("HEAT/HOT WATER", 0) < 0.05 * byType.get("HEAT/HOT WATER"));
+        assertTrue(closed > 0.9 * reports.size() && closed < reports.size(), "closed " + closed);
+        // Heavy tail: the slowest requests take far longer than the median one
+        hours.sort(null);
+        assertTrue(hours.get(hours.size() * 99 / 100) > 20 * Math.max(1, hours.get(hours.size() / 2)), hours.toString());
+    }
+
+
+    @Test
+    @DisplayName("writeCsv: the file loads back through ReportRecordParser as the generated reports")
+    void csvParsesBack() throws IOException, InterruptedException {
+        SyntheticReportGenerator generator = new SyntheticReportGenerator(5, FROM, 30);
+        Path file = directory.resolve("reports.csv");
+        new SyntheticDataset(generator, 12345, 3).writeCsv(file);
+
+        List<Report> expected = new ArrayList<>(generator.chunk(0, 12345));
+        expected.addAll(generator.chunk(1, 12345));
+        try (CsvReader reader = new CsvReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            String[] header = reader.next();
+            assertEquals(ReportRecordParser.POSITIONAL_COLUMNS, List.of(header));
+            ReportRecordParser parser = new ReportRecordParser(header);
+            for (Report report : expected) {
+                Report parsed = parser.parse(reader.next());
+                assertEquals(report.toString(), parsed.toString());
+            }
+            assertNull(reader.next());
+        }
+    }
+}
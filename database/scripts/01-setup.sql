@@ -19,6 +19,25 @@ create table if not exists report
     borough varchar(50) null,
     openDataChannelType varchar(50) null,
     latitude double null,
-    longitude double null
+    longitude double null,
+    createdAt datetime null comment 'createdDate parsed at load time',
+    closedAt datetime null comment 'closedDate parsed at load time',
+    uniqueKey bigint null comment 'Unique Key of the 311 service request',
+    index report_createdAt (createdAt),
+    index report_closedAt (closedAt),
+    unique index report_uniqueKey (uniqueKey)
 );
 
+
+-- One row per batch of a CSV file committed by the backend's bulk loader (ReportBulkLoader), in the same transaction
+-- as the batch's reports, so an interrupted load resumes without inserting a report twice
+create table if not exists report_load_batch
+(
+    source varchar(255) not null comment 'File name and size',
+    batch bigint not null,
+    batchSize int not null,
+    loaded int not null,
+    rejected int not null,
+    loadedAt datetime not null default current_timestamp,
+    primary key (source, batch)
+);
@@ -1,4 +1,4 @@
-import { getAllReports, getColumnValues, getFilteredCount, getMapPins, getPieChart } from '../services/ReportService';
+import { getAllReports, getApproximateCount, getColumnValues, getFilteredCount, getMapPins, getPieChart } from '../services/ReportService';
 
 // Mock global fetch
 const mockFetch = jest.fn();
@@ -90,15 +90,52 @@ describe('ReportService', () => {
         });
     });
 
+    describe('getApproximateCount', () => {
+        it('fetches the estimate with approximate=true', async () => {
+            const estimate = { estimate: 1200000, low: 1190000, high: 1210000, confidence: 0.95, exact: false, source: 'sample' };
+            mockFetch.mockResolvedValueOnce({
+                ok: true,
+                json: async () => estimate,
+            });
+
+            const result = await getApproximateCount({ borough: ['BRONX'] });
+
+            expect(mockFetch).toHaveBeenCalledWith(expect.stringContaining('/api/reports/count?approximate=true&currentFilters='));
+            expect(result).toEqual(estimate);
+        });
+
+        it('handles errors', async () => {
+            mockFetch.mockRejectedValueOnce(new Error('Error'));
+            const result = await getApproximateCount();
+            expect(result).toBeNull();
+        });
+    });
+
     describe('getMapPins', () => {
         it('fetches map pins', async () => {
+            // Two markers sharing one complaint type, the second one without coordinates or descriptor
+            const body = new Uint8Array([
+                0x52, 0x4d, 0x4b, 0x31, 2, 5,
+                1, 5, 0x4e, 0x6f, 0x69, 0x73, 0x65,
+                1, 1, 0x41,
+                1, 4, 0x4e, 0x59, 0x50, 0x44,
+                2, 6,
+                1, 1, 1, 0, 1, 1,
+                0x01,
+                0x80, 0x89, 0x7a,
+                0xbf, 0x8e, 0x8d, 0x01,
+            ]);
             mockFetch.mockResolvedValueOnce({
                 ok: true,
-                json: async () => [{ id: 1, lat: 10, lon: 10 }],
+                arrayBuffer: async () => body.buffer,
             });
 
             const result = await getMapPins({ limit: 100, currentFilters: {} });
-            expect(result).toEqual([{ id: 1, lat: 10, lon: 10 }]);
+            expect(mockFetch).toHaveBeenCalledWith(expect.stringContaining('format=binary'));
+            expect(result).toEqual([
+                [1, 'Noise', 'A', 'NYPD', 10, -11.56],
+                [4, 'Noise', null, 'NYPD', null, null],
+            ]);
         });
 
         it('throws error on failure', async () => {
@@ -1,8 +1,22 @@
 import React, { useEffect, useState } from 'react';
-import { getAllReports, getColumnValues, getFilteredCount } from '../services/ReportService';
+import { getAllReports, getApproximateCount, getColumnValues, getFilteredCount } from '../services/ReportService';
 import { useFilters } from "../contexts/FiltersContext";
 import { Report } from '../types/Report';
 
+// Formats an estimated count the way it is shown until the exact count arrives, e.g. 1234567 as "~1.2M"
+// Params:
+// value - The estimated count
+// Returns: The rounded count prefixed with "~"
+const formatApproximate = (value: number): string => {
+    if (value >= 1000000) {
+        return `~${(value / 1000000).toFixed(1)}M`;
+    }
+    if (value >= 1000) {
+        return `~${(value / 1000).toFixed(1)}K`;
+    }
+    return `~${value}`;
+};
+
 // Renders a paginated data table with advanced filtering capabilities
 // Params: None
 // Returns: JSX element containing the filterable reports table
@@ -15,6 +29,7 @@ const ReportsTable: React.FC = () => {
     const [pageInput, setPageInput] = useState('1');
     const [totalRecords, setTotalRecords] = useState<number>(0);
     const [totalPages, setTotalPages] = useState<number>(0);
+    const [countIsApproximate, setCountIsApproximate] = useState(false);
     const [openFilter, setOpenFilter] = useState<string | null>(null);
     const [filterValues, setFilterValues] = useState<Record<string, string[]>>({});
     const [loadingFilters, setLoadingFilters] = useState<Record<string, boolean>>({});
@@ -67,22 +82,48 @@ const ReportsTable: React.FC = () => {
         fetchReports();
     }, [currentPage, filters]);
 
-    // Fetch total count whenever filters change
+    // Fetch total count whenever filters change, showing the quick estimate until the exact count arrives
     useEffect(() => {
+        let exactArrived = false;
+        let stale = false;
+
+        // Fetches the estimated count of records matching current filters
+        // Params: None
+        // Returns: None (updates totalRecords, totalPages and countIsApproximate state unless the exact count came first)
+        const fetchApproximateCount = async () => {
+            try {
+                const estimate = await getApproximateCount(filters);
+                if (!estimate || exactArrived || stale) {
+                    return;
+                }
+                setTotalRecords(estimate.estimate);
+                setTotalPages(Math.ceil(estimate.estimate / LIMIT));
+                setCountIsApproximate(!estimate.exact);
+            } catch (err) {
+                console.error('Failed to fetch approximate count:', err);
+            }
+        };
+
         // Fetches the total count of records matching current filters
         // Params: None
         // Returns: None (updates totalRecords and totalPages state)
         const fetchCount = async () => {
             try {
                 const count = await getFilteredCount(filters);
+                exactArrived = true;
                 setTotalRecords(count);
                 setTotalPages(Math.ceil(count / LIMIT));
+                setCountIsApproximate(false);
             } catch (err) {
                 console.error('Failed to fetch count:', err);
             }
         };
 
+        fetchApproximateCount();
         fetchCount();
+        return () => {
+            stale = true;
+        };
     }, [filters]);
 
     // Loads unique values for a column's filter dropdown with caching
@@ -449,11 +490,11 @@ const ReportsTable: React.FC = () => {
                     border: '1px solid #dee2e6',
                     fontWeight: '500'
                 }}>
-                    Page {currentPage + 1} {totalPages > 0 && `of ${totalPages}`}
+                    Page {currentPage + 1} {totalPages > 0 && `of ${countIsApproximate ? '~' : ''}${totalPages}`}
                 </span>
 
                 <span style={{ color: '#6c757d' }}>
-                    (Records {startRecord} - {endRecord}{totalRecords > 0 && ` of ${totalRecords}`})
+                    (Records {startRecord} - {endRecord}{totalRecords > 0 && ` of ${countIsApproximate ? formatApproximate(totalRecords) : totalRecords}`})
                 </span>
 
                 <button
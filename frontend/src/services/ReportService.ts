@@ -1,3 +1,4 @@
+import { Estimate } from '../types/Estimate';
 import { Report } from '../types/Report';
 
 
@@ -90,6 +91,92 @@ export const getFilteredCount = async (filters?: Record<string, string[]>): Prom
     return fetchJSON<number>(endpoint, 0);
 };
 
+// Fetches a quick estimate of the count of reports matching the specified filters, answered from the backend's sample
+// Params:
+// filters - Optional filter criteria to count matching records
+// Returns: Promise resolving to the estimate with its interval, or null if it could not be fetched
+export const getApproximateCount = async (filters?: Record<string, string[]>): Promise<Estimate | null> => {
+    const params = new URLSearchParams({ approximate: 'true' });
+
+    // Send filters as JSON string
+    appendFilters(params, "currentFilters", filters);
+
+    const endpoint = `/api/reports/count?${params.toString()}`;
+    return fetchJSON<Estimate | null>(endpoint, null);
+};
+
+// Decodes the binary marker format of /api/reports/mapDisplay?format=binary (see MarkerEncoder.java on the backend)
+// Params:
+// buffer - Response body
+// Returns: One [id, complaintType, descriptorType, agencyName, latitude, longitude] row per marker, the same rows the JSON response has
+export const decodeMapPins = (buffer: ArrayBuffer): unknown[][] => {
+    const bytes = new Uint8Array(buffer);
+    const decoder = new TextDecoder();
+    let offset = 4;
+
+    if (String.fromCharCode(bytes[0], bytes[1], bytes[2], bytes[3]) !== 'RMK1') {
+        throw new Error('Unknown map pin format');
+    }
+
+    const readVarint = (): number => {
+        let value = 0;
+        let scale = 1;
+        let byte;
+        do {
+            byte = bytes[offset++];
+            value += (byte & 0x7f) * scale;
+            scale *= 128;
+        } while (byte & 0x80);
+        return value;
+    };
+    const readZigzag = (): number => {
+        const value = readVarint();
+        return value % 2 === 0 ? value / 2 : -(value + 1) / 2;
+    };
+
+    const count = readVarint();
+    const scale = Math.pow(10, readVarint());
+
+    const dictionaries: string[][] = [];
+    for (let c = 0; c < 3; c++) {
+        const size = readVarint();
+        const dictionary: string[] = [];
+        for (let i = 0; i < size; i++) {
+            const length = readVarint();
+            dictionary.push(decoder.decode(bytes.subarray(offset, offset + length)));
+            offset += length;
+        }
+        dictionaries.push(dictionary);
+    }
+
+    const rows: unknown[][] = [];
+    let id = 0;
+    for (let i = 0; i < count; i++) {
+        id += readZigzag();
+        rows.push([id, null, null, null, null, null]);
+    }
+
+    for (let c = 0; c < 3; c++) {
+        for (let i = 0; i < count; i++) {
+            const code = readVarint();
+            rows[i][c + 1] = code === 0 ? null : dictionaries[c][code - 1];
+        }
+    }
+
+    const mask = bytes.subarray(offset, offset + Math.ceil(count / 8));
+    offset += mask.length;
+    const located = rows.filter((row, i) => mask[i >> 3] & (1 << (i & 7)));
+
+    for (const column of [4, 5]) {
+        let value = 0;
+        for (const row of located) {
+            value += readZigzag();
+            row[column] = value / scale;
+        }
+    }
+    return rows;
+};
+
 // Fetches report data formatted for map pin display
 // Params:
 // params - Object containing limit and filter criteria for map pins
@@ -100,6 +187,7 @@ export const getMapPins = async (params: {
 }): Promise<Report[]> => {
     const queryParams = new URLSearchParams();
     queryParams.append('limit', params.limit.toString());
+    queryParams.append('format', 'binary');
 
     // Send filters as a JSON string
     appendFilters(queryParams, "currentFilters", params.currentFilters);
@@ -111,7 +199,7 @@ export const getMapPins = async (params: {
         throw new Error('Failed to fetch map pins');
     }
 
-    return response.json();
+    return decodeMapPins(await response.arrayBuffer()) as unknown as Report[];
 };
 
 // Fetches report data formatted for heatmap visualization
@@ -0,0 +1,11 @@
+// An approximate count from /api/reports/count?approximate=true (see Estimate.java on the backend)
+export interface Estimate {
+    estimate: number;
+    // Bounds of the interval the true value lies in with the given confidence
+    low: number;
+    high: number;
+    confidence: number;
+    // True when the number was counted rather than estimated
+    exact: boolean;
+    source: 'sample' | 'hyperloglog' | 'exact';
+}
@@ -16,5 +16,10 @@ export interface Report {
     openDataChannelType: string;
     latitude: number;
     longitude: number;
+    // ISO date-times parsed from createdDate/closedDate, null when the text isn't a date
+    createdAt?: string | null;
+    closedAt?: string | null;
+    // Unique Key of the 311 service request
+    uniqueKey?: number | null;
 }
 